@@ -0,0 +1,43 @@
+#!/bin/bash
+# Runs a scenario split over NODES band node JVMs and one coordinator JVM on
+# this machine. Builds the jar, copies the runtime dependencies to target/lib,
+# starts the coordinator, then the nodes, and prints the coordinator summary.
+#
+#   scripts/distributed-run.sh [NODES] [SCENARIO] [ADDRESS]
+#
+# ADDRESS is "unix:/path" (default target/sim.sock) or "host:port".
+# Only bulk robots can be distributed; see scenarios/bulk.txt.
+set -e
+cd "$(dirname "$0")/.."
+NODES=${1:-4}
+SCENARIO=${2:-scenarios/bulk.txt}
+ADDRESS=${3:-unix:$PWD/target/sim.sock}
+NODE_HEAP=${NODE_HEAP:-512m}
+
+mvn -B -q package -DskipTests dependency:copy-dependencies \
+    -DincludeScope=runtime -DoutputDirectory=target/lib
+
+# Only the platform jars; the unclassified javafx-*.jar files are empty
+CLASSPATH="$(ls target/robot-simulator-*.jar | head -1):$(ls target/lib/javafx-*-*-*.jar | tr '\n' ':')"
+
+LOG=target/coordinator.log
+java -cp "$CLASSPATH" robotsimulator.distributed.Coordinator "$ADDRESS" "$NODES" "$SCENARIO" > "$LOG" &
+COORDINATOR=$!
+trap 'kill $(jobs -p) 2> /dev/null || true' EXIT
+
+# Start the nodes once the coordinator is listening
+until grep -q "Waiting for" "$LOG"; do
+    kill -0 $COORDINATOR 2> /dev/null || { cat "$LOG"; exit 1; }
+    sleep 0.1
+done
+NODE_PIDS=()
+for i in $(seq "$NODES"); do
+    java -Xmx"$NODE_HEAP" -cp "$CLASSPATH" robotsimulator.distributed.BandNode "$ADDRESS" &
+    NODE_PIDS+=($!)
+done
+# Nodes exit after the coordinator stops them; a failed node stops the run
+for pid in "${NODE_PIDS[@]}"; do
+    wait "$pid" || exit 1
+done
+wait $COORDINATOR
+cat "$LOG"
@@ -0,0 +1,39 @@
+#!/bin/bash
+# Measures time to first frame with and without the AppCDS archive.
+# Builds the jar, copies the runtime dependencies to target/lib, records the
+# archive target/robot-simulator.jsa with a training run, then starts the
+# simulator RUNS times each way and prints the median.
+#
+#   scripts/startup-benchmark.sh [RUNS]
+#
+# Needs a display. The archive is only valid for the JDK that recorded it.
+set -e
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+ARCHIVE=target/robot-simulator.jsa
+
+mvn -B -q package -DskipTests dependency:copy-dependencies \
+    -DincludeScope=runtime -DoutputDirectory=target/lib
+
+# Only the platform jars; the unclassified javafx-*.jar files are empty
+MODULE_PATH=$(ls target/lib/javafx-*-*-*.jar | tr '\n' ':')
+JAR=$(ls target/robot-simulator-*.jar | head -1)
+JAVA_OPTS=(--module-path "$MODULE_PATH" --add-modules javafx.controls,jdk.incubator.vector
+           -Drobotsimulator.exitAfterFirstFrame=true -cp "$JAR")
+
+first_frame() {
+    java "$@" "${JAVA_OPTS[@]}" robotsimulator.core.Main | sed -n 's/.*first frame after \([0-9]*\) ms.*/\1/p'
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+echo "Recording $ARCHIVE"
+rm -f "$ARCHIVE"
+java -XX:ArchiveClassesAtExit="$ARCHIVE" "${JAVA_OPTS[@]}" robotsimulator.core.Main > /dev/null
+
+plain=$(for i in $(seq "$RUNS"); do first_frame -Xshare:auto; done | median)
+cds=$(for i in $(seq "$RUNS"); do first_frame -XX:SharedArchiveFile="$ARCHIVE"; done | median)
+
+echo "Time to first frame (median of $RUNS): ${plain} ms without archive, ${cds} ms with $ARCHIVE"
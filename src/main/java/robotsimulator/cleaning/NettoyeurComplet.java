@@ -1,23 +1,29 @@
 package robotsimulator.cleaning;
 
 import javafx.scene.paint.Color;
+import robotsimulator.model.GridBuffer;
 import robotsimulator.model.GridConstants;
-import static robotsimulator.model.GridConstants.GRID_SIZE;
+import robotsimulator.planning.CoveragePlanner;
+import robotsimulator.planning.GridDistances;
 import robotsimulator.ui.GridManager;
 
 /**
- * A cleaner robot that systematically cleans the entire grid
- * from first cell (1,1) to last cell (GRID_SIZE, GRID_SIZE)
- * Using a ZIGZAG pattern:
- * - Row 1: left to right (1,1) -> (1,2) -> ... -> (1,GRID_SIZE)
- * - Row 2: right to left (2,GRID_SIZE) -> (2,GRID_SIZE-1) -> ... -> (2,1)
- * - Row 3: left to right (3,1) -> (3,2) -> ... -> (3,GRID_SIZE)
- * - And so on...
+ * A cleaner robot that systematically cleans the entire grid, starting at (1,1).
+ * The route comes from a boustrophedon CoveragePlanner: the free space is split
+ * into regions around the walls, each region is swept in a zigzag and the
+ * regions are joined with shortest paths, so walls no longer stop the mission.
+ * If walls change on the way, the rest of the route is planned again over the
+ * cells not visited yet.
  */
 public class NettoyeurComplet extends RobotCleaner {
     private int currentRow;
     private int currentCol;
-    private boolean hitWall;
+    private int[] route;
+    private int routeIndex;
+    private boolean[] visited;
+    private int visitedCount;
+    private int reachableCount;
+    private int planWallVersion;
     
     /**
      * Constructor - always starts at (1,1)
@@ -26,106 +32,133 @@ public class NettoyeurComplet extends RobotCleaner {
         super(1, 1, GridConstants.CELL_SIZE / 3, gridManager);
         this.currentRow = 1;
         this.currentCol = 1;
-        this.hitWall = false;
         setColor(Color.DODGERBLUE);
     }
     
     @Override
     public boolean executeMissionStep(int stepCount) {
-        if (missionComplete || hitWall) {
+        if (missionComplete) {
             return true;
         }
         
-        // Check if current position has a wall
-        if (hasWallAtOneBased(currentRow, currentCol)) {
-            System.out.println("NettoyeurComplet: Hit a wall at (" + currentRow + ", " + currentCol + "). Mission stopped!");
-            hitWall = true;
+        GridBuffer grid = gridManager.getBuffer();
+        if (route == null) {
+            if (grid.wallArray()[grid.index(getGridRow(), getGridCol())] != 0) {
+                moveOffWall(grid);
+            }
+            // The starting cell is clean and counted before the first move
+            visited = new boolean[grid.size()];
+            markVisited(grid.index(getGridRow(), getGridCol()));
+            cleanCurrentCell();
+            planRoute(grid);
+        } else if (grid.getWallVersion() != planWallVersion
+                || (routeIndex < route.length && grid.wallArray()[route[routeIndex]] != 0)) {
+            System.out.println("NettoyeurComplet: Walls changed, planning the rest of the route again.");
+            planRoute(grid);
+        }
+        
+        if (routeIndex >= route.length) {
             missionComplete = true;
+            System.out.println("NettoyeurComplet finished cleaning accessible cells!");
             return true;
         }
         
-        // Move to current position
+        // Move one cell along the route and clean it
+        int cell = route[routeIndex++];
+        currentRow = cell / grid.getCols() + 1;
+        currentCol = cell % grid.getCols() + 1;
         setGridPosition(currentRow, currentCol);
-        
-        // Clean current cell
         cleanCurrentCell();
+        markVisited(cell);
         
-        // Determine direction and calculate next position
-        boolean isOddRow = (currentRow % 2 == 1);
-        int nextRow = currentRow;
-        int nextCol = currentCol;
+        return false;
+    }
+    
+    private void planRoute(GridBuffer grid) {
+        int start = grid.index(getGridRow(), getGridCol());
+        CoveragePlanner planner = new CoveragePlanner(grid);
+        route = planner.plan(start, visited);
+        routeIndex = 0;
+        planWallVersion = grid.getWallVersion();
         
-        if (isOddRow) {
-            // Odd row: move left to right
-            nextCol++;
-            if (nextCol > GRID_SIZE) {
-                nextRow++;
-                nextCol = GRID_SIZE; // Start from right side for even row
+        // Count what this route can still reach, for the progress figures
+        int[] dist = GridDistances.from(grid, start);
+        reachableCount = 0;
+        for (int i = 0; i < dist.length; i++) {
+            if (dist[i] != GridDistances.UNREACHABLE || visited[i]) {
+                reachableCount++;
             }
-        } else {
-            // Even row: move right to left
-            nextCol--;
-            if (nextCol < 1) {
-                nextRow++;
-                nextCol = 1; // Start from left side for odd row
+        }
+        System.out.println("NettoyeurComplet: " + planner.getRegionCount() + " regions, " +
+                           route.length + " steps planned");
+    }
+    
+    /**
+     * Start from the free cell closest to (1,1) when a wall covers it
+     */
+    private void moveOffWall(GridBuffer grid) {
+        int start = grid.index(getGridRow(), getGridCol());
+        int best = -1;
+        byte[] walls = grid.wallArray();
+        for (int cell = 0; cell < walls.length; cell++) {
+            if (walls[cell] == 0 && (best < 0 || GridDistances.manhattan(start, cell, grid.getCols())
+                    < GridDistances.manhattan(start, best, grid.getCols()))) {
+                best = cell;
             }
         }
-        
-        // Update position
-        currentRow = nextRow;
-        currentCol = nextCol;
-        
-        // Check if we've processed all cells
-        if (currentRow > GRID_SIZE) {
-            missionComplete = true;
-            System.out.println("NettoyeurComplet finished cleaning accessible cells!");
+        if (best >= 0) {
+            System.out.println("NettoyeurComplet: Start cell is a wall, starting next to it.");
+            currentRow = best / grid.getCols() + 1;
+            currentCol = best % grid.getCols() + 1;
+            setGridPosition(currentRow, currentCol);
+        }
+    }
+    
+    private void markVisited(int cell) {
+        if (!visited[cell]) {
+            visited[cell] = true;
+            visitedCount++;
         }
-        
-        return missionComplete;
     }
 
     @Override
     public void resetMission() {
         missionComplete = false;
-        hitWall = false;
         currentRow = 1;
         currentCol = 1;
+        route = null;
+        routeIndex = 0;
+        visited = null;
+        visitedCount = 0;
+        reachableCount = 0;
         setGridPosition(1, 1);
         
         System.out.println("NettoyeurComplet mission reset - will clean entire grid from (1,1) to (" + 
-                         GRID_SIZE + "," + GRID_SIZE + ")");
+                         gridRows() + "," + gridCols() + ")");
     }
     
     /**
-     * Get progress percentage
+     * Get progress percentage (of the cells reachable from the start)
      */
     public double getProgress() {
-        int totalCells = GRID_SIZE * GRID_SIZE;
-        int cleanedCells = (currentRow - 1) * GRID_SIZE + (currentCol - 1);
-        return (double) cleanedCells / totalCells * 100.0;
+        if (reachableCount == 0) {
+            return missionComplete ? 100.0 : 0.0;
+        }
+        return (double) visitedCount / reachableCount * 100.0;
     }
     
     /**
      * Get number of cells remaining
      */
     public int getCellsRemaining() {
-        int totalCells = GRID_SIZE * GRID_SIZE;
-        int cleanedCells = (currentRow - 1) * GRID_SIZE + (currentCol - 1);
-        return totalCells - cleanedCells;
-    }
-    
-    /**
-     * Check if the robot has hit a wall
-     */
-    public boolean hasHitWall() {
-        return hitWall;
+        if (route == null) {
+            return gridManager.getBuffer().size();
+        }
+        return Math.max(0, reachableCount - visitedCount);
     }
     
     @Override
     public String toString() {
-        if (hitWall) {
-            return "NettoyeurComplet stopped - hit a wall at (" + currentRow + "," + currentCol + ")";
-        }
         return "NettoyeurComplet at (" + currentRow + "," + currentCol + ") - " + 
                String.format("%.1f%%", getProgress()) + " complete";
     }
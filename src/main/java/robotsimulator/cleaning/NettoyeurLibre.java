@@ -6,7 +6,6 @@ import java.util.Random;
 
 import javafx.scene.paint.Color;
 import robotsimulator.model.GridConstants;
-import static robotsimulator.model.GridConstants.GRID_SIZE;
 import robotsimulator.ui.GridManager;
 
 /**
@@ -34,18 +33,25 @@ public class NettoyeurLibre extends RobotCleaner {
      */
     public NettoyeurLibre(int maxSteps, GridManager gridManager) {
         this(
-            (int) (Math.random() * GRID_SIZE) + 1,
-            (int) (Math.random() * GRID_SIZE) + 1,
+            (int) (Math.random() * gridManager.getRows()) + 1,
+            (int) (Math.random() * gridManager.getCols()) + 1,
             maxSteps,
             gridManager
         );
     }
     
     /**
-     * Constructor with default max steps (GRID_SIZE * GRID_SIZE)
+     * Constructor with default max steps (one per grid cell)
      */
     public NettoyeurLibre(GridManager gridManager) {
-        this(GRID_SIZE * GRID_SIZE, gridManager);
+        this(gridManager.getRows() * gridManager.getCols(), gridManager);
+    }
+    
+    /**
+     * Seed the random moves, for reproducible runs
+     */
+    public void setRandomSeed(long seed) {
+        this.random = new Random(seed);
     }
     
     @Override
@@ -77,17 +83,28 @@ public class NettoyeurLibre extends RobotCleaner {
             {0, 1}    // right
         };
         
+        boolean blockedByRobot = false;
         for (int[] dir : directions) {
             int newRow = currentRow + dir[0];
             int newCol = currentCol + dir[1];
             
-            if (newRow >= 1 && newRow <= GRID_SIZE && 
-                newCol >= 1 && newCol <= GRID_SIZE &&
+            if (newRow >= 1 && newRow <= gridRows() && 
+                newCol >= 1 && newCol <= gridCols() &&
                 !hasWallAtOneBased(newRow, newCol)) {
-                possibleMoves.add(new int[]{newRow, newCol});
+                // Don't bump into other robots
+                if (hasRobotAt(newRow - 1, newCol - 1)) {
+                    blockedByRobot = true;
+                } else {
+                    possibleMoves.add(new int[]{newRow, newCol});
+                }
             }
         }
         
+        // Only other robots in the way: wait for them to move
+        if (possibleMoves.isEmpty() && blockedByRobot) {
+            return missionComplete;
+        }
+        
         // If no moves possible (surrounded by walls), mission fails
         if (possibleMoves.isEmpty()) {
             System.out.println("NettoyeurLibre: Surrounded by walls, mission aborted!");
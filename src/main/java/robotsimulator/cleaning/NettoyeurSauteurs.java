@@ -2,7 +2,6 @@ package robotsimulator.cleaning;
 
 import javafx.scene.paint.Color;
 import robotsimulator.model.GridConstants;
-import static robotsimulator.model.GridConstants.GRID_SIZE;
 import robotsimulator.ui.GridManager;
 
 /**
@@ -14,7 +13,10 @@ public class NettoyeurSauteurs extends RobotCleaner {
     private int startRow;
     private int startCol;
     private int currentIndex;
-    private int[][] visitPattern;
+    private int patternRows;
+    private int patternCols;
+    private int targetsPerRow;
+    private int patternLength;
     private int consecutiveWallHits;
     
     /**
@@ -22,13 +24,13 @@ public class NettoyeurSauteurs extends RobotCleaner {
      */
     public NettoyeurSauteurs(int startRow, int startCol, int jumpDistance, GridManager gridManager) {
         super(startRow, startCol, GridConstants.CELL_SIZE / 3, gridManager);
-        this.jumpDistance = Math.max(1, Math.min(jumpDistance, GRID_SIZE / 2));
+        this.jumpDistance = Math.max(1, Math.min(jumpDistance, Math.max(gridRows(), gridCols()) / 2));
         this.startRow = startRow;
         this.startCol = startCol;
         this.currentIndex = 0;
         this.consecutiveWallHits = 0;
         setColor(Color.DEEPSKYBLUE);
-        generateVisitPattern();
+        sizeVisitPattern();
     }
     
     /**
@@ -43,42 +45,41 @@ public class NettoyeurSauteurs extends RobotCleaner {
      */
     public NettoyeurSauteurs(GridManager gridManager) {
         this(
-            (int) (Math.random() * GRID_SIZE) + 1,
-            (int) (Math.random() * GRID_SIZE) + 1,
+            (int) (Math.random() * gridManager.getRows()) + 1,
+            (int) (Math.random() * gridManager.getCols()) + 1,
             2,
             gridManager
         );
     }
     
     /**
-     * Generate a pattern of positions to visit by jumping
+     * Size the visit pattern. Targets are computed on demand from
+     * (index, jump, start) by patternRow/patternCol, so nothing is stored
+     * per position: rows are visited every jumpDistance, and in each row
+     * every jumpDistance-th column starting from the start column.
      */
-    private void generateVisitPattern() {
-        // Create a pattern that covers the grid with diagonal jumps
-        int estimatedSteps = (GRID_SIZE * GRID_SIZE) / (jumpDistance * jumpDistance) + GRID_SIZE;
-        visitPattern = new int[estimatedSteps][2];
-        int index = 0;
-        
-        // Start from initial position
-        int row;
-        int col;
-        
-        // Pattern: diagonal jumps, wrapping around when hitting edges
-        for (int i = 0; i < GRID_SIZE && index < estimatedSteps; i++) {
-            for (int j = 0; j < GRID_SIZE && index < estimatedSteps; j += jumpDistance) {
-                row = ((i * jumpDistance) % GRID_SIZE) + 1;
-                col = ((j + startCol - 1) % GRID_SIZE) + 1;
-                
-                visitPattern[index][0] = row;
-                visitPattern[index][1] = col;
-                index++;
-            }
-        }
-        
-        // Trim the array to actual size
-        int[][] trimmed = new int[index][2];
-        System.arraycopy(visitPattern, 0, trimmed, 0, index);
-        visitPattern = trimmed;
+    private void sizeVisitPattern() {
+        patternRows = gridManager.getBuffer().getRows();
+        patternCols = gridManager.getBuffer().getCols();
+        targetsPerRow = (patternCols + jumpDistance - 1) / jumpDistance;
+        long estimatedSteps = (long) patternRows * patternCols / ((long) jumpDistance * jumpDistance) + patternRows;
+        patternLength = (int) Math.min((long) patternRows * targetsPerRow, estimatedSteps);
+    }
+    
+    /**
+     * Row (1-based) of the index-th target of the pattern
+     */
+    private int patternRow(int index) {
+        int i = index / targetsPerRow;
+        return (int) ((long) i * jumpDistance % patternRows) + 1;
+    }
+    
+    /**
+     * Column (1-based) of the index-th target of the pattern
+     */
+    private int patternCol(int index) {
+        int j = (index % targetsPerRow) * jumpDistance;
+        return (j + startCol - 1) % patternCols + 1;
     }
     
     @Override
@@ -88,14 +89,14 @@ public class NettoyeurSauteurs extends RobotCleaner {
         }
         
         // Check if we've visited all positions in the pattern
-        if (currentIndex >= visitPattern.length) {
+        if (currentIndex >= patternLength) {
             missionComplete = true;
             return true;
         }
         
         // Get target position from pattern
-        int targetRow = visitPattern[currentIndex][0];
-        int targetCol = visitPattern[currentIndex][1];
+        int targetRow = patternRow(currentIndex);
+        int targetCol = patternCol(currentIndex);
         
         // Check if target has wall
         if (hasWallAtOneBased(targetRow, targetCol)) {
@@ -128,7 +129,7 @@ public class NettoyeurSauteurs extends RobotCleaner {
         currentIndex++;
         
         // Check if mission is complete
-        if (currentIndex >= visitPattern.length) {
+        if (currentIndex >= patternLength) {
             missionComplete = true;
         }
         
@@ -144,8 +145,8 @@ public class NettoyeurSauteurs extends RobotCleaner {
         startCol = getGridColOneBased();
         currentIndex = 0;
         
-        // Regenerate pattern from new starting position
-        generateVisitPattern();
+        // Resize the pattern for the new starting position
+        sizeVisitPattern();
         
         System.out.println("NettoyeurSauteurs mission reset - will clean by jumping (distance=" + 
                          jumpDistance + ") from (" + startRow + ", " + startCol + ")");
@@ -158,6 +159,6 @@ public class NettoyeurSauteurs extends RobotCleaner {
     }
     
     public int getStepsRemaining() {
-        return visitPattern.length - currentIndex;
+        return patternLength - currentIndex;
     }
 }
\ No newline at end of file
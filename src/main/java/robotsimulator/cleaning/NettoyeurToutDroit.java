@@ -2,7 +2,6 @@ package robotsimulator.cleaning;
 
 import javafx.scene.paint.Color;
 import robotsimulator.model.GridConstants;
-import static robotsimulator.model.GridConstants.GRID_SIZE;
 import robotsimulator.ui.GridManager;
 
 /**
@@ -20,7 +19,7 @@ public class NettoyeurToutDroit extends RobotCleaner {
      */
     public NettoyeurToutDroit(int startCol, GridManager gridManager) {
         super(1, startCol, GridConstants.CELL_SIZE / 3, gridManager);
-        this.startCol = Math.max(1, Math.min(startCol, GRID_SIZE));
+        this.startCol = Math.max(1, Math.min(startCol, gridCols()));
         this.startRow = 1;
         this.currentRow = 1; // Start at row 1
         this.wallHit = false;
@@ -32,7 +31,7 @@ public class NettoyeurToutDroit extends RobotCleaner {
      * Constructor with random starting column
      */
     public NettoyeurToutDroit(GridManager gridManager) {
-        this((int) (Math.random() * GRID_SIZE) + 1, gridManager);
+        this((int) (Math.random() * gridManager.getCols()) + 1, gridManager);
     }
     
     
@@ -44,7 +43,7 @@ public class NettoyeurToutDroit extends RobotCleaner {
         }
         
         // Check if we've already processed all rows
-        if (currentRow > GRID_SIZE) {
+        if (currentRow > gridRows()) {
             missionComplete = true;
             System.out.println("NettoyeurToutDroit: Completed cleaning column " + startCol + 
                              ", cleaned " + cellsCleaned + " cells");
@@ -72,10 +71,10 @@ public class NettoyeurToutDroit extends RobotCleaner {
         currentRow++;
         
         // Check if we've reached beyond the last row
-        if (currentRow > GRID_SIZE) {
+        if (currentRow > gridRows()) {
             missionComplete = true;
             System.out.println("NettoyeurToutDroit: Successfully finished column " + startCol + 
-                             ", cleaned " + cellsCleaned + "/" + GRID_SIZE + " cells");
+                             ", cleaned " + cellsCleaned + "/" + gridRows() + " cells");
         }
         
         return missionComplete;
@@ -101,10 +100,10 @@ public class NettoyeurToutDroit extends RobotCleaner {
         if (wallHit) {
             return "NettoyeurToutDroit [col=" + startCol + ", FAILED - Hit wall at row " + currentRow + "]";
         } else if (missionComplete) {
-            return "NettoyeurToutDroit [col=" + startCol + ", SUCCESS - cleaned " + cellsCleaned + "/" + GRID_SIZE + " cells]";
+            return "NettoyeurToutDroit [col=" + startCol + ", SUCCESS - cleaned " + cellsCleaned + "/" + gridRows() + " cells]";
         } else {
             return "NettoyeurToutDroit [col=" + startCol + ", row=" + currentRow + 
-                   ", cleaned=" + cellsCleaned + "/" + GRID_SIZE + "]";
+                   ", cleaned=" + cellsCleaned + "/" + gridRows() + "]";
         }
     }
     
@@ -117,7 +116,7 @@ public class NettoyeurToutDroit extends RobotCleaner {
     }
     
     public double getProgress() {
-        return (double) cellsCleaned / GRID_SIZE * 100.0;
+        return (double) cellsCleaned / gridRows() * 100.0;
     }
     
     public boolean hitWall() {
@@ -1,29 +1,55 @@
 package robotsimulator.cleaning;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.PriorityQueue;
 
 import javafx.scene.paint.Color;
+import robotsimulator.events.PathSearchEvent;
+import robotsimulator.model.GridBuffer;
 import robotsimulator.model.GridConstants;
+import robotsimulator.planning.CooperativePlanner;
+import robotsimulator.planning.DStarLite;
+import robotsimulator.planning.IncrementalPathSearch;
+import robotsimulator.planning.PathfindingService;
+import robotsimulator.planning.RouteOptimizer;
 import robotsimulator.ui.GridManager;
 
 /**
- * Smart cleaner robot that uses pathfinding (A* algorithm) to find dirty cells
+ * Smart cleaner robot that uses pathfinding (A* algorithm) to find dirty cells.
+ * The search is spread over ticks (a bounded number of node expansions per
+ * mission step); the robot walks greedily towards its target in the meantime.
+ * With a PathfindingService attached, the search runs on a worker thread instead
+ * and the path is picked up at a later tick boundary.
+ * If walls change while a path is being followed, a D* Lite replanner takes
+ * over and repairs only the part of the search the change affected.
+ * Targets are taken in the order of a RouteOptimizer tour over the dirty
+ * cells rather than always the nearest one. The tour covers every dirty
+ * cell of the grid, not a share of them: outside a fleet, several smart
+ * cleaners may head for the same cell. A fleet's CooperativePlanner is what
+ * gives each cleaner its own goal.
  */
 public class SmartCleaner extends RobotCleaner {
+    private static final int PLANNING_EXPANSIONS_PER_STEP = 64;
+    private static final int MAX_ROUTE_CELLS = 200; // above this, just take the nearest dirty cell
+    
     private final  List<Cell> dirtyCells;
-    private int currentTargetIndex;
     private List<Cell> currentPath;
     private int pathStep;
     private final int maxCleaningSteps;
     private int stepsTaken;
+    private CooperativePlanner fleetPlanner;
+    private IncrementalPathSearch pathSearch;
+    private Cell targetCell;
+    private PathfindingService pathfinder;
+    private boolean awaitingPath;
+    private DStarLite replanner;
+    private RouteOptimizer routeOptimizer;
+    private int pathWallVersion;
+    private long planningNanos; // Time spent searching paths inside mission steps
     
     public SmartCleaner(int gridRow, int gridCol, int maxCleaningSteps, GridManager gridManager) {
         super(gridRow, gridCol, GridConstants.CELL_SIZE / 3, gridManager);
         this.dirtyCells = new ArrayList<>();
-        this.currentTargetIndex = 0;
         this.currentPath = new ArrayList<>();
         this.pathStep = 0;
         this.maxCleaningSteps = maxCleaningSteps;
@@ -52,14 +78,47 @@ public class SmartCleaner extends RobotCleaner {
             return true;
         }
         
+        // In a fleet, the cooperative planner decides where to go
+        if (fleetPlanner != null) {
+            return executeFleetStep();
+        }
+        
+        // Heavily soiled cells need several passes: keep cleaning where we stand
+        if (gridManager.isCellDirtyZeroBased(getGridRow(), getGridCol())) {
+            cleanCurrentCell();
+            stepsTaken++;
+            return false;
+        }
+        
         // If we don't have a current target or reached current target, find new target
-        if (currentPath.isEmpty() || pathStep >= currentPath.size()) {
+        if ((currentPath.isEmpty() || pathStep >= currentPath.size()) && pathSearch == null && !awaitingPath) {
             if (!findNextTarget()) {
                 missionComplete = true;
                 return true;
             }
         }
         
+        // Waiting for a worker thread: walk greedily meanwhile
+        if (awaitingPath) {
+            stepGreedily();
+            return false;
+        }
+        
+        // Still planning: expand a few more nodes, walk greedily meanwhile
+        if (pathSearch != null) {
+            advancePathSearch();
+            if (pathSearch != null) {
+                stepGreedily();
+                return false;
+            }
+        }
+        
+        // Walls changed under our path: repair it instead of walking through them
+        if (replanner != null || (pathStep < currentPath.size() && isPathBlocked())) {
+            followReplanner();
+            return false;
+        }
+        
         // Move along the path
         if (!currentPath.isEmpty() && pathStep < currentPath.size()) {
             Cell nextCell = currentPath.get(pathStep);
@@ -71,19 +130,52 @@ public class SmartCleaner extends RobotCleaner {
             if (isAtCell(nextCell)) {
                 gridManager.cleanCell(nextCell.row + 1, nextCell.col + 1);
                 dirtyCells.remove(nextCell);
-                
-                // If we reached a target, find new target
-                if (currentTargetIndex < dirtyCells.size() && 
-                    isAtCell(dirtyCells.get(currentTargetIndex))) {
-                    // Find new target
-                    findNextTarget();
-                }
             }
         }
         
         return false;
     }
     
+    /**
+     * Follow the cooperative plan for one tick, then clean where we stand
+     */
+    private boolean executeFleetStep() {
+        int[] next = fleetPlanner.nextCell(this);
+        if (next != null && (next[0] != getGridRow() || next[1] != getGridCol())) {
+            setGridPosition(next[0] + 1, next[1] + 1); // Convert to 1-based
+        }
+        stepsTaken++; // Waiting counts too, or a robot held back forever never finishes
+        if (gridManager.isCellDirtyZeroBased(getGridRow(), getGridCol())) {
+            cleanCurrentCell();
+        }
+        return false;
+    }
+    
+    /**
+     * Plan with the rest of the fleet (null to plan alone)
+     */
+    public void setFleetPlanner(CooperativePlanner fleetPlanner) {
+        this.fleetPlanner = fleetPlanner;
+        currentPath.clear();
+        pathStep = 0;
+    }
+    
+    /**
+     * Total time this cleaner spent searching paths during its mission steps
+     * (searches on a PathfindingService worker are not counted)
+     */
+    public long getPlanningNanos() {
+        return planningNanos;
+    }
+    
+    /**
+     * Solve path searches on a worker pool (null to search in the mission step)
+     */
+    public void setPathfindingService(PathfindingService pathfinder) {
+        this.pathfinder = pathfinder;
+        awaitingPath = false;
+    }
+    
     /**
      * Update the list of dirty cells from the grid
      */
@@ -91,8 +183,8 @@ public class SmartCleaner extends RobotCleaner {
         dirtyCells.clear();
         
         // Scan the entire grid for dirty cells (1-based indexing)
-        for (int row = 1; row <= GridConstants.GRID_SIZE; row++) {
-            for (int col = 1; col <= GridConstants.GRID_SIZE; col++) {
+        for (int row = 1; row <= gridRows(); row++) {
+            for (int col = 1; col <= gridCols(); col++) {
                 if (gridManager.isCellDirty(row, col)) {
                     // Convert to 0-based for internal storage
                     dirtyCells.add(new Cell(row - 1, col - 1));
@@ -110,28 +202,46 @@ public class SmartCleaner extends RobotCleaner {
             return false;
         }
         
-        // Find the nearest dirty cell
         Cell currentPos = new Cell(getGridRow(), getGridCol());
         Cell nearestCell = null;
         double minDistance = Double.MAX_VALUE;
-        int nearestIndex = -1;
         
-        for (int i = 0; i < dirtyCells.size(); i++) {
-            Cell dirtyCell = dirtyCells.get(i);
-            double distance = calculateManhattanDistance(currentPos, dirtyCell);
-            
-            if (distance < minDistance) {
-                minDistance = distance;
-                nearestCell = dirtyCell;
-                nearestIndex = i;
+        // Follow the optimised tour while it stays affordable
+        if (dirtyCells.size() <= MAX_ROUTE_CELLS) {
+            if (routeOptimizer == null) {
+                routeOptimizer = new RouteOptimizer(gridManager.getBuffer());
+            }
+            int[] targets = new int[dirtyCells.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = toIndex(dirtyCells.get(i));
+            }
+            long planningStart = System.nanoTime();
+            int first = routeOptimizer.update(toIndex(currentPos), targets);
+            planningNanos += System.nanoTime() - planningStart;
+            nearestCell = fromIndex(first);
+        } else {
+            // Otherwise find the nearest dirty cell
+            for (int i = 0; i < dirtyCells.size(); i++) {
+                Cell dirtyCell = dirtyCells.get(i);
+                double distance = calculateManhattanDistance(currentPos, dirtyCell);
+                
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    nearestCell = dirtyCell;
+                }
             }
         }
         
         if (nearestCell != null) {
-            currentTargetIndex = nearestIndex;
-            // Find path to the nearest dirty cell
-            currentPath = findPath(currentPos, nearestCell);
+            targetCell = nearestCell;
+            currentPath = new ArrayList<>();
             pathStep = 0;
+            if (pathfinder != null) {
+                requestPath(currentPos, nearestCell);
+            } else {
+                // Start an incremental search to the nearest dirty cell
+                startPathSearch(toIndex(currentPos), toIndex(nearestCell));
+            }
             return true;
         }
         
@@ -139,102 +249,232 @@ public class SmartCleaner extends RobotCleaner {
     }
     
     /**
-     * Find path from start to target using A* algorithm
+     * Run the bounded part of the path search for this step and pick up
+     * the path as soon as one is known from where we stand
      */
-    private List<Cell> findPath(Cell start, Cell target) {
-        List<Cell> path = new ArrayList<>();
+    private void advancePathSearch() {
+        PathSearchEvent event = new PathSearchEvent();
+        int expansionsBefore = pathSearch.getExpansions();
+        long planningStart = System.nanoTime();
+        event.begin();
+        pathSearch.step(PLANNING_EXPANSIONS_PER_STEP);
+        event.end();
+        planningNanos += System.nanoTime() - planningStart;
+        Cell here = new Cell(getGridRow(), getGridCol());
+        int hereIndex = toIndex(here);
         
-        // If start is target, return empty path
-        if (start.equals(target)) {
-            return path;
+        if (pathSearch.hasPathFrom(hereIndex)) {
+            currentPath = new ArrayList<>();
+            for (int cell : pathSearch.pathFrom(hereIndex)) {
+                currentPath.add(fromIndex(cell));
+            }
+            pathStep = 0;
+            commitSearchStep(event, expansionsBefore, currentPath.size(), true, true);
+            pathSearch = null;
+            pathWallVersion = gridManager.getBuffer().getWallVersion();
+        } else if (pathSearch.isFailed()) {
+            // No path found, use direct movement (fallback)
+            currentPath = getDirectMovementPath(here, targetCell);
+            pathWallVersion = gridManager.getBuffer().getWallVersion();
+            pathStep = 0;
+            commitSearchStep(event, expansionsBefore, -1, false, true);
+            pathSearch = null;
+        } else if (pathSearch.isFinished()) {
+            // We wandered off the searched area: search again from here
+            commitSearchStep(event, expansionsBefore, pathSearch.pathFrom(pathSearch.getStart()).length, true, true);
+            startPathSearch(hereIndex, toIndex(targetCell));
+        } else {
+            commitSearchStep(event, expansionsBefore, -1, false, false);
         }
+    }
+    
+    private void startPathSearch(int from, int to) {
+        pathSearch = new IncrementalPathSearch(gridManager.getBuffer(), from, to);
+    }
+    
+    /**
+     * Record the search work of this step if a JFR recording wants it
+     */
+    private void commitSearchStep(PathSearchEvent event, int expansionsBefore, int pathLength,
+                                  boolean found, boolean finished) {
+        if (event.shouldCommit()) {
+            event.algorithm = "A*";
+            event.start = pathSearch.getStart();
+            event.goal = pathSearch.getGoal();
+            event.expansions = pathSearch.getExpansions() - expansionsBefore;
+            event.pathLength = pathLength;
+            event.found = found;
+            event.finished = finished;
+            event.commit();
+        }
+    }
         
-        // Create open and closed sets
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingDouble(n -> n.fCost));
-        boolean[][] closedSet = new boolean[GridConstants.GRID_SIZE][GridConstants.GRID_SIZE];
-        
-        // Create start node
-        Node startNode = new Node(start.row, start.col);
-        startNode.gCost = 0;
-        startNode.hCost = calculateManhattanDistance(start, target);
-        startNode.fCost = startNode.hCost;
-        openSet.add(startNode);
-        
-        Node[][] nodeGrid = new Node[GridConstants.GRID_SIZE][GridConstants.GRID_SIZE];
-        nodeGrid[start.row][start.col] = startNode;
+    /**
+     * Hand the search to the worker pool; the path arrives at a tick boundary
+     */
+    private void requestPath(Cell from, Cell target) {
+        awaitingPath = true;
+        Cell requestedTarget = target;
+        int wallVersion = gridManager.getBuffer().getWallVersion();
+        pathfinder.request(gridManager.getBuffer(), toIndex(from), toIndex(target),
+            path -> onPathDelivered(requestedTarget, toIndex(from), wallVersion, path));
+    }
+    
+    /**
+     * Pick up a path from the worker pool. We kept walking while it was
+     * being solved, so join it where we stand now.
+     */
+    private void onPathDelivered(Cell requestedTarget, int from, int wallVersion, int[] path) {
+        if (!awaitingPath || !requestedTarget.equals(targetCell)) {
+            return; // Stale answer (mission reset or target changed)
+        }
+        awaitingPath = false;
+        Cell here = new Cell(getGridRow(), getGridCol());
+        int hereIndex = toIndex(here);
+        currentPath = new ArrayList<>();
+        pathStep = 0;
         
-        while (!openSet.isEmpty()) {
-            Node currentNode = openSet.poll();
-            
-            // If we reached the target, reconstruct path
-            if (currentNode.row == target.row && currentNode.col == target.col) {
-                return reconstructPath(currentNode);
+        if (path == null) {
+            // No path found, use direct movement (fallback)
+            currentPath = getDirectMovementPath(here, targetCell);
+            pathWallVersion = gridManager.getBuffer().getWallVersion();
+            return;
+        }
+        int joinAt = hereIndex == from ? 0 : -1;
+        for (int i = 0; i < path.length && joinAt < 0; i++) {
+            if (path[i] == hereIndex) {
+                joinAt = i + 1;
             }
-            
-            closedSet[currentNode.row][currentNode.col] = true;
-            
-            // Check all 4 neighbors
-            int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}}; // Up, Down, Left, Right
-            
-            for (int[] dir : directions) {
-                int newRow = currentNode.row + dir[0];
-                int newCol = currentNode.col + dir[1];
-                
-                // Check if neighbor is within grid bounds
-                if (newRow >= 0 && newRow < GridConstants.GRID_SIZE && 
-                    newCol >= 0 && newCol < GridConstants.GRID_SIZE) {
-                    
-                    if (gridManager.isWallZeroBased(newRow, newCol)) {
-                        continue;
-                    }
-
-                    // Skip if already processed
-                    if (closedSet[newRow][newCol]) {
-                        continue;
-                    }
-                    
-                    // Calculate new movement cost
-                    double newGCost = currentNode.gCost + 1;
-                    
-                    Node neighbor = nodeGrid[newRow][newCol];
-                    if (neighbor == null) {
-                        neighbor = new Node(newRow, newCol);
-                        nodeGrid[newRow][newCol] = neighbor;
-                    }
-                    
-                    // Check if this path is better
-                    if (newGCost < neighbor.gCost) {
-                        neighbor.parent = currentNode;
-                        neighbor.gCost = newGCost;
-                        neighbor.hCost = calculateManhattanDistance(
-                            new Cell(newRow, newCol), target);
-                        neighbor.fCost = neighbor.gCost + neighbor.hCost;
-                        
-                        if (!openSet.contains(neighbor)) {
-                            openSet.add(neighbor);
-                        }
-                    }
+        }
+        if (joinAt < 0) {
+            // We wandered off the path: ask again from here
+            requestPath(here, targetCell);
+            return;
+        }
+        for (int i = joinAt; i < path.length; i++) {
+            currentPath.add(fromIndex(path[i]));
+        }
+        // Solved on the walls of request time: replan if they changed since
+        pathWallVersion = wallVersion;
+    }
+    
+    /**
+     * Check the wall changes since the path was planned against the cells
+     * still ahead of us. Changes elsewhere only move pathWallVersion on,
+     * so D* Lite is set up just for robots whose path was cut.
+     */
+    private boolean isPathBlocked() {
+        GridBuffer grid = gridManager.getBuffer();
+        if (grid.getWallVersion() == pathWallVersion) {
+            return false;
+        }
+        byte[] walls = grid.wallArray();
+        int[] changed = grid.wallChangesSince(pathWallVersion);
+        boolean wallsAdded = changed == null;
+        for (int i = 0; changed != null && i < changed.length && !wallsAdded; i++) {
+            wallsAdded = walls[changed[i]] != 0;
+        }
+        if (wallsAdded) {
+            for (int i = pathStep; i < currentPath.size(); i++) {
+                if (walls[toIndex(currentPath.get(i))] != 0) {
+                    return true;
                 }
             }
         }
+        pathWallVersion = grid.getWallVersion();
+        return false;
+    }
+    
+    /**
+     * Take one step with the D* Lite replanner. It is created from the
+     * current cell on the first wall change; later changes are fed to it
+     * incrementally from the buffer's wall change log.
+     */
+    private void followReplanner() {
+        GridBuffer grid = gridManager.getBuffer();
+        int hereIndex = toIndex(new Cell(getGridRow(), getGridCol()));
+        int targetIndex = toIndex(targetCell);
+        int[] changed = replanner == null ? null : grid.wallChangesSince(pathWallVersion);
+        long planningStart = System.nanoTime();
+        
+        if (changed == null) {
+            replanner = new DStarLite(grid, hereIndex, targetIndex);
+        } else {
+            replanner.moveStart(hereIndex);
+            replanner.updateCells(changed);
+        }
+        pathWallVersion = grid.getWallVersion();
+        currentPath.clear();
+        pathStep = 0;
         
-        // No path found, return direct movement (fallback)
-        return getDirectMovementPath(start, target);
+        PathSearchEvent event = new PathSearchEvent();
+        event.begin();
+        boolean found = replanner.computeShortestPath();
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = "D* Lite";
+            event.start = hereIndex;
+            event.goal = targetIndex;
+            event.expansions = replanner.getExpansions();
+            event.pathLength = -1; // Only the next step is known
+            event.found = found;
+            event.finished = true;
+            event.commit();
+        }
+        int next = replanner.nextStep();
+        planningNanos += System.nanoTime() - planningStart;
+        stepsTaken++;
+        if (next < 0) {
+            // Reached the target, or it is walled off for now: pick a target again
+            replanner = null;
+            return;
+        }
+        Cell nextCell = fromIndex(next);
+        setGridPosition(nextCell.row + 1, nextCell.col + 1); // Convert to 1-based
+        replanner.moveStart(next);
+        gridManager.cleanCell(nextCell.row + 1, nextCell.col + 1);
+        if (next == targetIndex) {
+            replanner = null;
+        }
     }
     
     /**
-     * Reconstruct path from end node to start node
+     * Take one step that gets closer to the target, if there is a free one
      */
-    private List<Cell> reconstructPath(Node endNode) {
-        List<Cell> path = new ArrayList<>();
-        Node current = endNode;
+    private void stepGreedily() {
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}}; // Up, Down, Left, Right
+        Cell here = new Cell(getGridRow(), getGridCol());
+        double bestDistance = calculateManhattanDistance(here, targetCell);
+        Cell best = null;
         
-        while (current.parent != null) {
-            path.add(0, new Cell(current.row, current.col));
-            current = current.parent;
+        for (int[] dir : directions) {
+            Cell candidate = new Cell(here.row + dir[0], here.col + dir[1]);
+            if (candidate.row < 0 || candidate.row >= gridRows() ||
+                candidate.col < 0 || candidate.col >= gridCols() ||
+                hasWallAt(candidate.row, candidate.col) || hasRobotAt(candidate.row, candidate.col)) {
+                continue;
+            }
+            double distance = calculateManhattanDistance(candidate, targetCell);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = candidate;
+            }
         }
         
-        return path;
+        if (best != null) {
+            setGridPosition(best.row + 1, best.col + 1); // Convert to 1-based
+            stepsTaken++;
+            cleanCurrentCell();
+        }
+    }
+    
+    private int toIndex(Cell cell) {
+        return gridManager.getBuffer().index(cell.row, cell.col);
+    }
+        
+    private Cell fromIndex(int index) {
+        int cols = gridManager.getBuffer().getCols();
+        return new Cell(index / cols, index % cols);
     }
     
     /**
@@ -286,9 +526,12 @@ public class SmartCleaner extends RobotCleaner {
         missionComplete = false;
         dirtyCells.clear();
         currentPath.clear();
-        currentTargetIndex = 0;
         pathStep = 0;
         stepsTaken = 0;
+        pathSearch = null;
+        awaitingPath = false;
+        replanner = null;
+        targetCell = null;
     }
     
     @Override
@@ -322,25 +565,4 @@ public class SmartCleaner extends RobotCleaner {
             return 31 * row + col;
         }
     }
-    
-    /**
-     * Helper class for A* pathfinding nodes
-     */
-    private static class Node {
-        int row;
-        int col;
-        double gCost; // Distance from start
-        double hCost; // Heuristic distance to target
-        double fCost; // gCost + hCost
-        Node parent;
-        
-        Node(int row, int col) {
-            this.row = row;
-            this.col = col;
-            this.gCost = Double.MAX_VALUE;
-            this.hCost = 0;
-            this.fCost = Double.MAX_VALUE;
-            this.parent = null;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package robotsimulator.core;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import robotsimulator.model.GridSnapshot;
+import robotsimulator.model.Robot;
+
+/**
+ * Double-buffered hand-over of frames from the simulation thread to a view.
+ * The simulation writes each tick into the frame the view is not meant to
+ * be reading and then makes it the latest; the view copies the latest
+ * frame out whenever it draws. Neither side ever waits for the other:
+ * each frame carries a stamp that is cleared while it is rewritten, and a
+ * copy that raced with a rewrite is simply taken again.
+ */
+public final class FrameBuffer {
+    private final Robot[] robots;
+    private final RobotStore store; // Bulk robots, or null
+    private final FrameSnapshot[] frames;
+    private final AtomicLongArray stamps = new AtomicLongArray(2); // Sequence held by each frame, 0 while written
+    private volatile long latest;
+
+    // Simulation thread only
+    private final int[] lastRows;
+    private final int[] lastCols;
+    private long lastNanos;
+
+    /**
+     * Frames for a fixed set of robots, in this order
+     */
+    public FrameBuffer(Robot[] robots) {
+        this(robots, null);
+    }
+
+    /**
+     * Frames for a fixed set of robots and the bulk robots of a store, which
+     * must not gain or lose robots while frames are published
+     */
+    public FrameBuffer(Robot[] robots, RobotStore store) {
+        int bulkCount = store == null ? 0 : store.size();
+        this.robots = robots.clone();
+        this.store = store;
+        this.frames = new FrameSnapshot[]{new FrameSnapshot(robots.length, bulkCount),
+                new FrameSnapshot(robots.length, bulkCount)};
+        this.lastRows = new int[robots.length];
+        this.lastCols = new int[robots.length];
+    }
+
+    /**
+     * Robots the frames describe, in frame order
+     */
+    public Robot[] getRobots() {
+        return robots.clone();
+    }
+
+    /**
+     * Number of bulk robots the frames describe
+     */
+    public int getBulkCount() {
+        return frames[0].getBulkCount();
+    }
+
+    /**
+     * Publish the robot positions and the grid after a tick; call from the
+     * simulation thread only. The first frame starts from where the robots stand.
+     */
+    public void publish(int tick, GridSnapshot grid, boolean last) {
+        long sequence = latest + 1;
+        int slot = (int) (sequence & 1);
+        FrameSnapshot frame = frames[slot];
+        stamps.set(slot, 0);
+        VarHandle.storeStoreFence(); // Readers must see the cleared stamp before any new data
+
+        long now = System.nanoTime();
+        for (int i = 0; i < robots.length; i++) {
+            int row = robots[i].getGridRow();
+            int col = robots[i].getGridCol();
+            frame.fromRows[i] = sequence == 1 ? row : lastRows[i];
+            frame.fromCols[i] = sequence == 1 ? col : lastCols[i];
+            frame.rows[i] = row;
+            frame.cols[i] = col;
+            lastRows[i] = row;
+            lastCols[i] = col;
+        }
+        if (store != null) {
+            store.copyPositions(frame.bulkRows, frame.bulkCols);
+        }
+        frame.sequence = sequence;
+        frame.tick = tick;
+        frame.startNanos = sequence == 1 ? now : lastNanos;
+        frame.nanos = now;
+        frame.last = last;
+        frame.grid = grid;
+        lastNanos = now;
+
+        stamps.set(slot, sequence);
+        latest = sequence;
+    }
+
+    /**
+     * Copy the latest frame into target if it is newer than what target
+     * holds. Returns false (leaving target alone) when there is nothing new.
+     * A target without bulk robots only gets the robot objects.
+     */
+    public boolean readLatest(FrameSnapshot target) {
+        if (target.getRobotCount() != robots.length) {
+            throw new IllegalArgumentException("Frame is for " + target.getRobotCount()
+                    + " robots, buffer has " + robots.length);
+        }
+        if (target.getBulkCount() != 0 && target.getBulkCount() != getBulkCount()) {
+            throw new IllegalArgumentException("Frame is for " + target.getBulkCount()
+                    + " bulk robots, buffer has " + getBulkCount());
+        }
+        while (true) {
+            long sequence = latest;
+            if (sequence == 0 || sequence == target.sequence) {
+                return false;
+            }
+            int slot = (int) (sequence & 1);
+            if (stamps.get(slot) != sequence) {
+                continue; // Already being rewritten for a newer tick
+            }
+            target.copyFrom(frames[slot]);
+            VarHandle.acquireFence(); // Finish reading the frame before checking the stamp again
+            if (stamps.get(slot) == sequence) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Number of frames published so far
+     */
+    public long getPublishedCount() {
+        return latest;
+    }
+}
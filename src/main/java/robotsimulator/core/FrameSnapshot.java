@@ -0,0 +1,150 @@
+package robotsimulator.core;
+
+import robotsimulator.model.GridSnapshot;
+
+/**
+ * What a view needs to draw one simulation tick: where every robot was
+ * before and after the tick, where the bulk robots stood after it, when
+ * the tick was published and the grid as it stood afterwards. Frames are written by a FrameBuffer and copied out
+ * of it, so a reader owns the copy it draws from.
+ */
+public final class FrameSnapshot {
+    long sequence; // 0 until the first frame is copied in
+    int tick;
+    long startNanos;
+    long nanos;
+    boolean last;
+    final int[] fromRows;
+    final int[] fromCols;
+    final int[] rows;
+    final int[] cols;
+    final int[] bulkRows; // Bulk robots after the tick, by store id
+    final int[] bulkCols;
+    GridSnapshot grid;
+
+    /**
+     * Empty frame for robotCount robots, to copy frames into
+     */
+    public FrameSnapshot(int robotCount) {
+        this(robotCount, 0);
+    }
+
+    /**
+     * Empty frame for robotCount robots and bulkCount bulk robots; a frame
+     * without bulk robots skips them when copied into
+     */
+    public FrameSnapshot(int robotCount, int bulkCount) {
+        this.fromRows = new int[robotCount];
+        this.fromCols = new int[robotCount];
+        this.rows = new int[robotCount];
+        this.cols = new int[robotCount];
+        this.bulkRows = new int[bulkCount];
+        this.bulkCols = new int[bulkCount];
+    }
+
+    void copyFrom(FrameSnapshot frame) {
+        sequence = frame.sequence;
+        tick = frame.tick;
+        startNanos = frame.startNanos;
+        nanos = frame.nanos;
+        last = frame.last;
+        System.arraycopy(frame.fromRows, 0, fromRows, 0, rows.length);
+        System.arraycopy(frame.fromCols, 0, fromCols, 0, rows.length);
+        System.arraycopy(frame.rows, 0, rows, 0, rows.length);
+        System.arraycopy(frame.cols, 0, cols, 0, rows.length);
+        System.arraycopy(frame.bulkRows, 0, bulkRows, 0, bulkRows.length);
+        System.arraycopy(frame.bulkCols, 0, bulkCols, 0, bulkRows.length);
+        grid = frame.grid;
+    }
+
+    /**
+     * Number of the publish that produced this frame (0 for an empty frame)
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Ticks run before this frame was published
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * True for the frame published when the run stopped
+     */
+    public boolean isLast() {
+        return last;
+    }
+
+    public int getRobotCount() {
+        return rows.length;
+    }
+
+    public int getBulkCount() {
+        return bulkRows.length;
+    }
+
+    /**
+     * Row (0-based) of a robot after the tick
+     */
+    public int getRow(int robot) {
+        return rows[robot];
+    }
+
+    /**
+     * Column (0-based) of a robot after the tick
+     */
+    public int getCol(int robot) {
+        return cols[robot];
+    }
+
+    /**
+     * Row (0-based) of a bulk robot after the tick
+     */
+    public int getBulkRow(int id) {
+        return bulkRows[id];
+    }
+
+    /**
+     * Column (0-based) of a bulk robot after the tick
+     */
+    public int getBulkCol(int id) {
+        return bulkCols[id];
+    }
+
+    /**
+     * Grid after the tick
+     */
+    public GridSnapshot getGrid() {
+        return grid;
+    }
+
+    /**
+     * How far a view at time now (System.nanoTime) should be between the
+     * positions before the tick (0) and after it (1). The tick is played back
+     * over as long as it took to produce, starting when it was published.
+     */
+    public double progress(long now) {
+        long duration = nanos - startNanos;
+        if (duration <= 0 || now >= nanos + duration) {
+            return 1.0;
+        }
+        return Math.max(0.0, (double) (now - nanos) / duration);
+    }
+
+    /**
+     * Row (0-based) of a robot at a given progress through the tick
+     */
+    public double rowAt(int robot, double progress) {
+        return fromRows[robot] + (rows[robot] - fromRows[robot]) * progress;
+    }
+
+    /**
+     * Column (0-based) of a robot at a given progress through the tick
+     */
+    public double colAt(int robot, double progress) {
+        return fromCols[robot] + (cols[robot] - fromCols[robot]) * progress;
+    }
+}
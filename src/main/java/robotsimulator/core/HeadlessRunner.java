@@ -0,0 +1,137 @@
+package robotsimulator.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import robotsimulator.cleaning.RobotCleaner;
+import robotsimulator.pollution.RobotPolluter;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Runs a scenario file without any window and prints summary statistics.
+ * The JavaFX toolkit is never started; ticks run back to back, as fast as
+ * the simulation allows.
+ * <pre>
+ * java -cp ... robotsimulator.core.HeadlessRunner [--verbose] scenarios/sample.txt
+ * </pre>
+ * Main also accepts --headless as first argument when JavaFX is on the module path.
+ */
+public class HeadlessRunner {
+    private static final int PROFILE_ROBOTS_SHOWN = 5; // Slowest robots listed after the types
+
+    public static void main(String[] args) {
+        boolean verbose = false;
+        String file = null;
+        for (String arg : args) {
+            if (arg.equals("--verbose")) {
+                verbose = true;
+            } else {
+                file = arg;
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: HeadlessRunner [--verbose] <scenario file>");
+            System.exit(2);
+        }
+
+        try {
+            Scenario scenario = Scenario.load(Path.of(file));
+            run(scenario, verbose);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot run scenario: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run a scenario to completion or its tick limit and print the summary.
+     * Robot chatter on System.out is muted unless verbose. Returns true if
+     * all missions completed before the tick limit.
+     */
+    public static boolean run(Scenario scenario, boolean verbose) throws IOException {
+        long setupStart = System.nanoTime();
+        PrintStream out = System.out;
+        if (!verbose) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        GridManager gridManager;
+        RobotManager robotManager;
+        int ticks = 0;
+        boolean allComplete = false;
+        long runStart;
+        TelemetryWriter telemetry = null;
+        try {
+            gridManager = scenario.createGrid();
+            robotManager = scenario.createRobots(gridManager);
+            telemetry = scenario.createTelemetry();
+            robotManager.setTelemetry(telemetry);
+            runStart = System.nanoTime();
+            while (ticks < scenario.getTickLimit() && !allComplete) {
+                allComplete = robotManager.tick(ticks);
+                ticks++;
+            }
+        } finally {
+            System.setOut(out);
+            if (telemetry != null) {
+                telemetry.close();
+            }
+        }
+        long runEnd = System.nanoTime();
+        robotManager.setAsyncPathfinding(0, false);
+        robotManager.setTiledStepping(0, 0, 0);
+
+        int cleanersDone = 0;
+        for (RobotCleaner cleaner : robotManager.getCleaners()) {
+            if (cleaner.isMissionComplete()) {
+                cleanersDone++;
+            }
+        }
+        int pollutersDone = 0;
+        for (RobotPolluter polluter : robotManager.getPolluters()) {
+            if (polluter.isMissionComplete()) {
+                pollutersDone++;
+            }
+        }
+        double runMillis = (runEnd - runStart) / 1e6;
+
+        out.println("Grid:            " + gridManager.getRows() + " x " + gridManager.getCols());
+        out.println("Robots:          " + robotManager.getCleanerCount() + " cleaners (" + cleanersDone + " done), "
+                + robotManager.getPolluterCount() + " polluters (" + pollutersDone + " done), "
+                + robotManager.getRobotStore().size() + " bulk");
+        out.println("Ticks:           " + ticks + (allComplete ? " (all missions complete)" : " (tick limit)"));
+        out.println("Dirty cells:     " + gridManager.getColoredCount());
+        out.println(String.format("Coverage:        %.1f%%", gridManager.getCoverage()));
+        out.println(String.format("Setup:           %.1f ms", (runStart - setupStart) / 1e6));
+        out.println(String.format("Run:             %.1f ms (%.0f ticks/s)",
+                runMillis, runMillis > 0 ? ticks / (runMillis / 1000) : 0.0));
+        if (telemetry != null) {
+            out.println("Telemetry:       " + telemetry.getWrittenCount() + " rows in " + telemetry.getDirectory()
+                    + (telemetry.getDroppedCount() > 0 ? " (" + telemetry.getDroppedCount() + " dropped)" : ""));
+        }
+        if (robotManager.getStepProfiler() != null) {
+            printProfile(robotManager.getStepProfiler(), out);
+        }
+        return allComplete;
+    }
+
+    /**
+     * Step times per robot type and for the slowest robots
+     */
+    private static void printProfile(StepProfiler profiler, PrintStream out) {
+        out.println("Step profile (one step in " + profiler.getSampleInterval() + "):");
+        out.println(String.format("  %-28s %8s %10s %10s %10s %10s",
+                "", "samples", "mean us", "p99 us", "path us", "alloc B"));
+        List<StepProfiler.Row> robotRows = profiler.getRobotRows();
+        List<StepProfiler.Row> rows = new ArrayList<>(profiler.getTypeRows());
+        rows.addAll(robotRows.subList(0, Math.min(PROFILE_ROBOTS_SHOWN, robotRows.size())));
+        for (StepProfiler.Row row : rows) {
+            out.println(String.format("  %-28s %8d %10.1f %10.1f %10.1f %10.0f", row.name(), row.samples(),
+                    row.meanMicros(), row.p99Micros(), row.planningMicros(), row.allocatedBytes()));
+        }
+    }
+}
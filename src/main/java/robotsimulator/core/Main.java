@@ -1,17 +1,41 @@
 package robotsimulator.core;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import robotsimulator.ui.ScreenBuilder;
 
 public class Main extends Application {
+    // Set by the startup benchmark and the AppCDS training run
+    private static final String EXIT_AFTER_FIRST_FRAME = "robotsimulator.exitAfterFirstFrame";
+
+    private static long mainStartMillis;
     
     @Override
     public void start(Stage primaryStage) {
         // Choose one of the layouts:
-        Scene scene = ScreenBuilder.buildDefaultScene();  // Recommended
-        
+        Scene scene;
+        // --view shows a scenario grid of any size in a zoomable viewport
+        List<String> args = getParameters().getRaw();
+        if (args.size() == 2 && args.get(0).equals("--view")) {
+            try {
+                scene = ScreenBuilder.buildViewportScene(Scenario.load(Path.of(args.get(1))));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Cannot view scenario: " + e.getMessage());
+                Platform.exit();
+                return;
+            }
+        } else {
+            scene = ScreenBuilder.buildDefaultScene();  // Recommended
+        }
+        ScreenBuilder.runAfterFirstFrame(scene, this::reportStartup);
         
         primaryStage.setTitle("Robot Simulator");
         primaryStage.setScene(scene);
@@ -19,8 +43,29 @@ public class Main extends Application {
         primaryStage.setMinHeight(800);
         primaryStage.show();
     }
+
+    /**
+     * Print the time to first frame (and until the controls were built),
+     * counted from JVM start
+     */
+    private void reportStartup(long frameTime) {
+        long jvmStart = ProcessHandle.current().info().startInstant()
+                .map(Instant::toEpochMilli)
+                .orElse(mainStartMillis);
+        System.out.println("Startup: first frame after " + (frameTime - jvmStart) + " ms, controls ready after "
+                + (System.currentTimeMillis() - jvmStart) + " ms");
+        if (Boolean.getBoolean(EXIT_AFTER_FIRST_FRAME)) {
+            Platform.exit();
+        }
+    }
     
     public static void main(String[] args) {
+        mainStartMillis = System.currentTimeMillis();
+        // --headless runs a scenario file without ever starting JavaFX
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         launch(args);
     }
-}
\ No newline at end of file
+}
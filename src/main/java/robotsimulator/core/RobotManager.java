@@ -1,7 +1,9 @@
 package robotsimulator.core;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javafx.animation.AnimationTimer;
 import javafx.scene.Group;
@@ -12,13 +14,19 @@ import robotsimulator.cleaning.NettoyeurSauteurs;
 import robotsimulator.cleaning.NettoyeurToutDroit;
 import robotsimulator.cleaning.RobotCleaner;
 import robotsimulator.cleaning.SmartCleaner;
+import robotsimulator.events.GridChangeEvent;
+import robotsimulator.events.MissionCompletedEvent;
+import robotsimulator.events.TickEvent;
 import static robotsimulator.model.GridConstants.CELL_SIZE;
-import static robotsimulator.model.GridConstants.GRID_SIZE;
+import robotsimulator.model.DirtDiffusionStage;
 import robotsimulator.model.Robot;
+import robotsimulator.planning.CooperativePlanner;
+import robotsimulator.planning.PathfindingService;
 import robotsimulator.pollution.PollueurLibre;
 import robotsimulator.pollution.PollueurSauteurs;
 import robotsimulator.pollution.PollueurToutDroit;
 import robotsimulator.pollution.RobotPolluter;
+import robotsimulator.ui.FrameRenderer;
 import robotsimulator.ui.GridManager;
 import robotsimulator.ui.RobotVisualFactory;
 
@@ -31,9 +39,24 @@ public class RobotManager {
     private final List<RobotCleaner> cleaners;
     private final Pane robotLayer;
     private final GridManager gridManager;
+    private final RobotStore robotStore;
+    private TiledStepper tiledStepper;
+    private DirtDiffusionStage dirtStage;
+    private CooperativePlanner fleetPlanner;
+    private PathfindingService pathfindingService;
     private AnimationTimer gameLoop;
     private AnimationTimer polluterMissionTimer;
     private AnimationTimer cleanerMissionTimer;
+    private AnimationTimer movementTimer;
+    private SimulationLoop simulationLoop;
+    private FrameRenderer frameRenderer;
+    private volatile StepProfiler stepProfiler; // Set from the UI, read by the tick thread
+    private volatile TelemetryWriter telemetry;
+    private final Map<String, Integer> robotsPerType = new LinkedHashMap<>(); // Robot objects by class name
+    private List<String> telemetryTypes = List.of(); // Rebuilt only when the robots change
+    private int[] telemetryCounts = new int[0];
+    private boolean telemetryTypesStale = true;
+    private int telemetryStoreVersion = -1;
     private boolean isRunning;
     private boolean missionsRunning;
     private boolean cleaningMissionsRunning;
@@ -42,15 +65,24 @@ public class RobotManager {
     private long lastMoveTime = 0;
     private long lastMissionTime = 0;
     private long lastCleaningMissionTime = 0;
+    private long lastMovementStepTime = 0;
     private static final long MOVE_DELAY_NANOS = 200_000_000; // 200ms between moves
     private static final long MISSION_STEP_DELAY_NANOS = 500_000_000; // 500ms between mission steps
+    private static final long MOVE_STEP_DELAY_NANOS = 500_000_000; // 500ms per cardinal move step
+    private static final String[] BULK_TYPE_NAMES = {"BulkStraightCleaner", "BulkStraightPolluter", "BulkCompleteCleaner"}; // By RobotStore type
+    private static final int FLEET_PLANNING_WINDOW = 8; // ticks of reservations per plan
+    private static final long FLEET_PLANNING_BUDGET_NANOS = 2_000_000; // 2ms of planning per tick
     
+    /**
+     * @param robotLayer pane the robot visuals go on, or null to run headless
+     */
     public RobotManager(Pane robotLayer, GridManager gridManager) {
         this.robots = new ArrayList<>();
         this.polluters = new ArrayList<>();
         this.cleaners = new ArrayList<>();
         this.robotLayer = robotLayer;
         this.gridManager = gridManager;
+        this.robotStore = new RobotStore(gridManager);
         this.isRunning = false;
         this.missionsRunning = false;
         this.cleaningMissionsRunning = false;
@@ -60,8 +92,8 @@ public class RobotManager {
      * Create a standard robot at the specified grid position (1-based indexing)
      */
     public Robot createRobot(int gridRow, int gridCol) {
-    if (gridRow < 1 || gridRow > GRID_SIZE || 
-        gridCol < 1 || gridCol > GRID_SIZE) {
+    if (gridRow < 1 || gridRow > gridManager.getRows() || 
+        gridCol < 1 || gridCol > gridManager.getCols()) {
         System.out.println("Invalid robot position!");
         return null;
     }
@@ -74,7 +106,7 @@ public class RobotManager {
         
         Robot robot = new Robot(gridRow, gridCol, CELL_SIZE / 3);
         robot.setGridManager(gridManager); // Pass grid manager
-        robots.add(robot);
+        trackRobot(robot);
         addVisualRepresentation(robot);
         
         return robot;
@@ -92,7 +124,7 @@ public class RobotManager {
         
         PollueurToutDroit polluter = new PollueurToutDroit(startCol, gridManager);
         polluter.setGridManager(gridManager); // ADD THIS LINE
-        robots.add(polluter);
+        trackRobot(polluter);
         polluters.add(polluter);
         addVisualRepresentation(polluter);
         
@@ -114,7 +146,7 @@ public class RobotManager {
         
         PollueurSauteurs polluter = new PollueurSauteurs(row, col, jumpSize, gridManager);
         polluter.setGridManager(gridManager); // ADD THIS LINE
-        robots.add(polluter);
+        trackRobot(polluter);
         polluters.add(polluter);
         addVisualRepresentation(polluter);
         
@@ -135,7 +167,7 @@ public class RobotManager {
         
         PollueurLibre polluter = new PollueurLibre(row, col, maxPollutions, gridManager);
         polluter.setGridManager(gridManager); // ADD THIS LINE
-        robots.add(polluter);
+        trackRobot(polluter);
         polluters.add(polluter);
         addVisualRepresentation(polluter);
         
@@ -156,7 +188,9 @@ public class RobotManager {
         
         SmartCleaner cleaner = new SmartCleaner(row, col, maxCleaningSteps, gridManager);
         cleaner.setGridManager(gridManager); // ADD THIS LINE
-        robots.add(cleaner);
+        cleaner.setFleetPlanner(fleetPlanner);
+        cleaner.setPathfindingService(pathfindingService);
+        trackRobot(cleaner);
         cleaners.add(cleaner);
         addVisualRepresentation(cleaner);
         
@@ -175,7 +209,7 @@ public class RobotManager {
         
         NettoyeurToutDroit cleaner = new NettoyeurToutDroit(startCol, gridManager);
         cleaner.setGridManager(gridManager); // ADD THIS LINE
-        robots.add(cleaner);
+        trackRobot(cleaner);
         cleaners.add(cleaner);
         addVisualRepresentation(cleaner);
         
@@ -196,7 +230,7 @@ public class RobotManager {
         
         NettoyeurSauteurs cleaner = new NettoyeurSauteurs(row, col, jumpSize, gridManager);
         cleaner.setGridManager(gridManager); // ADD THIS LINE
-        robots.add(cleaner);
+        trackRobot(cleaner);
         cleaners.add(cleaner);
         addVisualRepresentation(cleaner);
         
@@ -217,7 +251,7 @@ public class RobotManager {
         
         NettoyeurLibre cleaner = new NettoyeurLibre(row, col, maxCleaningSteps, gridManager);
         cleaner.setGridManager(gridManager); // ADD THIS LINE
-        robots.add(cleaner);
+        trackRobot(cleaner);
         cleaners.add(cleaner);
         addVisualRepresentation(cleaner);
         
@@ -230,7 +264,7 @@ public class RobotManager {
     public NettoyeurComplet createCompleteCleaner() {
         NettoyeurComplet cleaner = new NettoyeurComplet(gridManager);
         cleaner.setGridManager(gridManager); // ADD THIS LINE
-        robots.add(cleaner);
+        trackRobot(cleaner);
         cleaners.add(cleaner);
         addVisualRepresentation(cleaner);
         
@@ -239,7 +273,7 @@ public class RobotManager {
 
     private int findNearestNonWallColumn(int startCol) {
         // Try to find a non-wall column nearby
-        for (int offset = 0; offset < GRID_SIZE; offset++) {
+        for (int offset = 0; offset < gridManager.getCols(); offset++) {
             // Check left
             int leftCol = startCol - offset;
             if (leftCol >= 1 && !gridManager.isWall(1, leftCol)) {
@@ -247,7 +281,7 @@ public class RobotManager {
             }
             // Check right
             int rightCol = startCol + offset;
-            if (rightCol <= GRID_SIZE && !gridManager.isWall(1, rightCol)) {
+            if (rightCol <= gridManager.getCols() && !gridManager.isWall(1, rightCol)) {
                 return rightCol;
             }
         }
@@ -256,14 +290,14 @@ public class RobotManager {
 
     private int[] findNearestNonWallPosition(int row, int col) {
         // Try to find nearest non-wall position
-        for (int radius = 0; radius < GRID_SIZE; radius++) {
+        for (int radius = 0; radius < Math.max(gridManager.getRows(), gridManager.getCols()); radius++) {
             for (int dr = -radius; dr <= radius; dr++) {
                 for (int dc = -radius; dc <= radius; dc++) {
                     int newRow = row + dr;
                     int newCol = col + dc;
                     
-                    if (newRow >= 1 && newRow <= GRID_SIZE && 
-                        newCol >= 1 && newCol <= GRID_SIZE &&
+                    if (newRow >= 1 && newRow <= gridManager.getRows() && 
+                        newCol >= 1 && newCol <= gridManager.getCols() &&
                         !gridManager.isWall(newRow, newCol)) {
                         return new int[]{newRow, newCol};
                     }
@@ -273,10 +307,24 @@ public class RobotManager {
         return new int[]{1, 1}; // Default position
     }
     
+    /**
+     * Register a robot in the list and in the grid occupancy index
+     */
+    private void trackRobot(Robot robot) {
+        stopDecoupledMissions();
+        robots.add(robot);
+        robotsPerType.merge(robot.getClass().getSimpleName(), 1, Integer::sum);
+        telemetryTypesStale = true;
+        gridManager.getOccupancy().add(robot);
+    }
+    
     /**
      * Add visual representation for a robot
      */
     private void addVisualRepresentation(Robot robot) {
+        if (robotLayer == null) {
+            return; // Headless: no visuals
+        }
         Group visualSpirit = RobotVisualFactory.createVisualSpirit(robot);
         robotLayer.getChildren().add(visualSpirit);
         robot.setVisualNode(visualSpirit);
@@ -338,22 +386,112 @@ public class RobotManager {
         cleanerMissionTimer.start();
     }
     
+    /**
+     * Run one polluter step and one cleaner step right away, without timers
+     * (used by headless runs). Returns true once every mission is complete.
+     */
+    public boolean tick(int stepCount) {
+        TelemetryWriter writer = telemetry;
+        long start = writer != null ? System.nanoTime() : 0;
+        int dirtyBefore = gridManager.getColoredCount();
+        boolean pollutersDone = executeMissionStep(stepCount);
+        int dirtyBetween = gridManager.getColoredCount();
+        boolean cleanersDone = executeCleaningMissionStep(stepCount);
+        if (writer != null) {
+            recordTelemetry(writer, stepCount, start, dirtyBefore, dirtyBetween);
+        }
+        return pollutersDone && cleanersDone;
+    }
+    
+    /**
+     * Queue the telemetry row of a tick. Robot counts per type are kept as
+     * robots come and go; only the (few) robot objects are walked for the
+     * active mission count, bulk robots report theirs from the step.
+     */
+    private void recordTelemetry(TelemetryWriter writer, int stepCount, long start,
+                                 int dirtyBefore, int dirtyBetween) {
+        long end = System.nanoTime();
+        if (telemetryTypesStale || telemetryStoreVersion != robotStore.getModCount()) {
+            rebuildTelemetryTypes();
+        }
+        int active = robotStore.getRunningCount();
+        for (RobotPolluter polluter : polluters) {
+            active += polluter.isMissionComplete() ? 0 : 1;
+        }
+        for (RobotCleaner cleaner : cleaners) {
+            active += cleaner.isMissionComplete() ? 0 : 1;
+        }
+        int dirtyAfter = gridManager.getColoredCount();
+        writer.record(new TelemetryWriter.TickStats(stepCount, end - start, end, dirtyAfter,
+                dirtyBetween - dirtyBefore, dirtyBetween - dirtyAfter, active, telemetryTypes, telemetryCounts));
+    }
+    
+    /**
+     * Snapshot the robot types present and their counts. A new list and
+     * array each time: rows already queued keep pointing at the old ones.
+     */
+    private void rebuildTelemetryTypes() {
+        List<String> types = new ArrayList<>(robotsPerType.keySet());
+        List<Integer> counts = new ArrayList<>(robotsPerType.values());
+        for (byte type = 0; type < BULK_TYPE_NAMES.length; type++) {
+            if (robotStore.countType(type) > 0) {
+                types.add(BULK_TYPE_NAMES[type]);
+                counts.add(robotStore.countType(type));
+            }
+        }
+        if (!types.equals(telemetryTypes)) {
+            telemetryTypes = List.copyOf(types);
+        }
+        telemetryCounts = counts.stream().mapToInt(Integer::intValue).toArray();
+        telemetryTypesStale = false;
+        telemetryStoreVersion = robotStore.getModCount();
+    }
+    
     /**
      * Execute one step of all polluter missions
      */
     private boolean executeMissionStep(int stepCount) {
+        StepProfiler profiler = stepProfiler; // Read once, the UI may swap it mid-tick
+        TickEvent tickEvent = new TickEvent();
+        tickEvent.begin();
         boolean allComplete = true;
         
         for (RobotPolluter polluter : polluters) {
             if (!polluter.isMissionComplete()) {
+                if (profiler != null) {
+                    profiler.beginStep(polluter, stepCount);
+                }
                 polluter.executeMissionStep(stepCount);
+                if (profiler != null) {
+                    profiler.endStep(polluter);
+                }
                 
                 if (!polluter.isMissionComplete()) {
                     allComplete = false;
+                } else {
+                    missionCompleted(polluter, stepCount);
                 }
             }
         }
         
+        // Bulk polluters are stepped together
+        if (profiler != null) {
+            profiler.beginBatch(stepCount);
+        }
+        GridChangeEvent gridEvent = beginGridChange();
+        boolean bulkDone = tiledStepper != null ? tiledStepper.stepPolluters() : robotStore.stepPolluters();
+        endGridChange(gridEvent, "Bulk polluters");
+        if (profiler != null) {
+            profiler.endBatch("Bulk polluters");
+        }
+        if (!bulkDone) {
+            allComplete = false;
+        }
+        
+        if (gridManager.isSnapshotPublishing()) {
+            gridManager.publishSnapshot();
+        }
+        endTick(tickEvent, stepCount, "polluters", allComplete);
         return allComplete;
     }
     
@@ -361,21 +499,203 @@ public class RobotManager {
      * Execute one step of all cleaner missions
      */
     private boolean executeCleaningMissionStep(int stepCount) {
+        StepProfiler profiler = stepProfiler; // Read once, the UI may swap it mid-tick
+        TickEvent tickEvent = new TickEvent();
+        tickEvent.begin();
         boolean allComplete = true;
         
+        // Paths solved by the worker pool since the last tick are picked up here
+        if (pathfindingService != null) {
+            pathfindingService.deliverCompleted();
+        }
+        
+        // Smart cleaners in a fleet plan together before anyone moves
+        if (fleetPlanner != null) {
+            List<SmartCleaner> fleet = new ArrayList<>();
+            for (RobotCleaner cleaner : cleaners) {
+                if (cleaner instanceof SmartCleaner smartCleaner && !cleaner.isMissionComplete()) {
+                    fleet.add(smartCleaner);
+                }
+            }
+            if (profiler != null) {
+                profiler.beginBatch(stepCount);
+            }
+            fleetPlanner.planTick(fleet);
+            if (profiler != null) {
+                profiler.endBatch("Fleet planning");
+            }
+        }
+        
         for (RobotCleaner cleaner : cleaners) {
             if (!cleaner.isMissionComplete()) {
+                if (profiler != null) {
+                    profiler.beginStep(cleaner, stepCount);
+                }
                 cleaner.executeMissionStep(stepCount);
+                if (profiler != null) {
+                    profiler.endStep(cleaner);
+                }
                 
                 if (!cleaner.isMissionComplete()) {
                     allComplete = false;
+                } else {
+                    missionCompleted(cleaner, stepCount);
                 }
             }
         }
         
+        // Bulk cleaners are stepped together
+        if (profiler != null) {
+            profiler.beginBatch(stepCount);
+        }
+        GridChangeEvent gridEvent = beginGridChange();
+        boolean bulkDone = tiledStepper != null ? tiledStepper.stepCleaners() : robotStore.stepCleaners();
+        endGridChange(gridEvent, "Bulk cleaners");
+        if (profiler != null) {
+            profiler.endBatch("Bulk cleaners");
+        }
+        if (!bulkDone) {
+            allComplete = false;
+        }
+        
+        // Dirt keeps spreading and decaying while the cleaners work
+        if (dirtStage != null) {
+            if (profiler != null) {
+                profiler.beginBatch(stepCount);
+            }
+            GridChangeEvent diffusionEvent = beginGridChange();
+            gridManager.applyDirtStage(dirtStage);
+            endGridChange(diffusionEvent, "Dirt diffusion");
+            if (profiler != null) {
+                profiler.endBatch("Dirt diffusion");
+            }
+        }
+        
+        if (gridManager.isSnapshotPublishing()) {
+            gridManager.publishSnapshot();
+        }
+        endTick(tickEvent, stepCount, "cleaners", allComplete);
         return allComplete;
     }
     
+    /**
+     * Commit a tick phase event if a recording wants it
+     */
+    private void endTick(TickEvent event, int stepCount, String phase, boolean allComplete) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = stepCount;
+            event.phase = phase;
+            event.dirtyCells = gridManager.getColoredCount();
+            event.complete = allComplete;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Record a robot whose mission just ended (it was running before this step)
+     */
+    private void missionCompleted(Robot robot, int stepCount) {
+        MissionCompletedEvent event = new MissionCompletedEvent();
+        if (event.shouldCommit()) {
+            event.robotType = robot.getClass().getSimpleName();
+            event.robot = robot.toString();
+            event.tick = stepCount;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Start timing a bulk grid change; the dirty count is only read when
+     * GridChange events are recorded
+     */
+    private GridChangeEvent beginGridChange() {
+        GridChangeEvent event = new GridChangeEvent();
+        if (event.isEnabled()) {
+            event.dirtyDelta = gridManager.getColoredCount(); // Count before, turned into the change at the end
+            event.begin();
+        }
+        return event;
+    }
+    
+    private void endGridChange(GridChangeEvent event, String source) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.dirtyCells = gridManager.getColoredCount();
+            event.dirtyDelta = event.dirtyCells - event.dirtyDelta;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Run polluter and cleaner missions on a simulation thread at a fixed
+     * tick rate instead of on the JavaFX pulse. Each tick publishes a frame
+     * that a FrameRenderer draws at display rate, interpolating the robots
+     * between ticks. Adding or removing robots stops the run.
+     */
+    public void startDecoupledMissions(double ticksPerSecond) {
+        startDecoupledMissions(ticksPerSecond, 0);
+    }
+    
+    /**
+     * Same, stopping after tickLimit ticks (0 for no limit)
+     */
+    public void startDecoupledMissions(double ticksPerSecond, int tickLimit) {
+        stopDecoupledMissions();
+        stopMissions();
+        stopAllCleaners();
+        FrameBuffer frames = new FrameBuffer(robots.toArray(new Robot[0]), robotStore);
+        gridManager.setEditsDeferred(true); // Cell edits from the UI wait for a tick boundary
+        if (robotLayer != null) {
+            // The simulation thread must not touch the scene graph
+            gridManager.setFrameRendering(true);
+            for (Robot robot : robots) {
+                robot.setFrameDriven(true);
+            }
+            frameRenderer = new FrameRenderer(frames, gridManager, this::stopDecoupledMissions);
+            frameRenderer.start();
+        }
+        simulationLoop = new SimulationLoop(this, frames, ticksPerSecond, tickLimit);
+        simulationLoop.start();
+    }
+    
+    /**
+     * Stop a decoupled run and hand the visuals back to the grid and robots
+     */
+    public void stopDecoupledMissions() {
+        if (simulationLoop == null) {
+            return;
+        }
+        simulationLoop.stop();
+        if (simulationLoop.isAllComplete()) {
+            System.out.println("All missions complete after " + simulationLoop.getTicks() + " ticks");
+        }
+        simulationLoop = null;
+        gridManager.setEditsDeferred(false);
+        gridManager.applyDeferredEdits();
+        if (frameRenderer != null) {
+            frameRenderer.stop();
+            frameRenderer = null;
+            gridManager.setFrameRendering(false);
+            gridManager.bulkDirtChanged(0); // Repaint every cell from the grid
+            for (Robot robot : robots) {
+                robot.setFrameDriven(false);
+            }
+        }
+    }
+    
+    /**
+     * Check if a simulation thread is ticking (and so owns the grid)
+     */
+    public boolean isDecoupledRunning() {
+        return simulationLoop != null && simulationLoop.isRunning();
+    }
+    
+    public SimulationLoop getSimulationLoop() {
+        return simulationLoop;
+    }
+    
     /**
      * Stop polluter missions
      */
@@ -424,14 +744,22 @@ public class RobotManager {
         if (robot == null) {
             return;
         }
-        robots.remove(robot);
+        stopDecoupledMissions();
+        if (robots.remove(robot)) {
+            robotsPerType.computeIfPresent(robot.getClass().getSimpleName(), (type, count) -> count > 1 ? count - 1 : null);
+            telemetryTypesStale = true;
+        }
+        gridManager.getOccupancy().remove(robot);
+        if (stepProfiler != null) {
+            stepProfiler.forget(robot);
+        }
         if (robot instanceof RobotPolluter robotPolluter) {
             polluters.remove(robotPolluter);
         }
         if (robot instanceof RobotCleaner robotCleaner) {
             cleaners.remove(robotCleaner);
         }
-        if (robot.getVisualNode() != null) {
+        if (robot.getVisualNode() != null && robotLayer != null) {
             robotLayer.getChildren().remove(robot.getVisualNode());
         }
     }
@@ -440,10 +768,20 @@ public class RobotManager {
      * Remove all robots
      */
     public void clearAllRobots() {
-        robotLayer.getChildren().clear();
+        stopDecoupledMissions();
+        if (robotLayer != null) {
+            robotLayer.getChildren().clear();
+        }
         robots.clear();
+        robotsPerType.clear();
+        telemetryTypesStale = true;
+        gridManager.getOccupancy().clear();
         polluters.clear();
         cleaners.clear();
+        robotStore.clear();
+        if (stepProfiler != null) {
+            stepProfiler.reset();
+        }
     }
     
     /**
@@ -508,12 +846,52 @@ public class RobotManager {
      * Move a specific robot to a grid position with cardinal animation (1-based)
      */
     public void moveRobotToPosition(Robot robot, int gridRow, int gridCol) {
-        if (gridRow < 1 || gridRow > GRID_SIZE || gridCol < 1 || gridCol > GRID_SIZE) {
+        if (gridRow < 1 || gridRow > gridManager.getRows() || gridCol < 1 || gridCol > gridManager.getCols()) {
             System.out.println("Invalid target position!");
             return;
         }
         
+        stopDecoupledMissions();
         robot.moveToPosition(gridRow, gridCol);
+        if (robot.isMoving()) {
+            startMovementTimer();
+        }
+    }
+    
+    /**
+     * Advance every moving robot by one cardinal step.
+     * This is the single movement pass of the engine tick and does not
+     * need a running JavaFX pulse. Returns true if any robot is still moving.
+     */
+    public boolean advanceMovement() {
+        boolean anyMoving = false;
+        for (Robot robot : robots) {
+            if (robot.isMoving() && robot.performMoveStep()) {
+                anyMoving = true;
+            }
+        }
+        return anyMoving;
+    }
+    
+    /**
+     * Start the shared movement timer if it is not already running
+     */
+    private void startMovementTimer() {
+        if (movementTimer == null) {
+            movementTimer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    if (now - lastMovementStepTime >= MOVE_STEP_DELAY_NANOS) {
+                        lastMovementStepTime = now;
+                        if (!advanceMovement()) {
+                            stop();
+                        }
+                    }
+                }
+            };
+        }
+        lastMovementStepTime = System.nanoTime();
+        movementTimer.start();
     }
 
     /**
@@ -521,6 +899,7 @@ public class RobotManager {
      */
     public void resetPolluterMission(RobotPolluter polluter) {
         if (polluter != null) {
+            stopDecoupledMissions();
             polluter.resetMission();
         }
     }
@@ -530,6 +909,7 @@ public class RobotManager {
      */
     public void resetCleanerMission(RobotCleaner cleaner) {
         if (cleaner != null) {
+            stopDecoupledMissions();
             cleaner.resetMission();
         }
     }
@@ -541,6 +921,7 @@ public class RobotManager {
         if (polluter == null) return;
         
         // Stop any currently running missions first
+        stopDecoupledMissions();
         stopMissions();
         
         // Start a timer for this specific polluter
@@ -553,7 +934,17 @@ public class RobotManager {
             @Override
             public void handle(long now) {
                 if (now - lastUpdate >= STEP_DELAY) {
+                    if (stepProfiler != null) {
+                        stepProfiler.beginStep(polluter, stepCount[0]);
+                    }
+                    boolean wasComplete = polluter.isMissionComplete();
                     boolean completed = polluter.executeMissionStep(stepCount[0]);
+                    if (stepProfiler != null) {
+                        stepProfiler.endStep(polluter);
+                    }
+                    if (completed && !wasComplete) {
+                        missionCompleted(polluter, stepCount[0]);
+                    }
                     stepCount[0]++;
                     
                     if (completed) {
@@ -577,6 +968,7 @@ public class RobotManager {
         if (cleaner == null) return;
         
         // Stop any currently running cleaning missions first
+        stopDecoupledMissions();
         stopAllCleaners();
         
         // Start a timer for this specific cleaner
@@ -589,7 +981,17 @@ public class RobotManager {
             @Override
             public void handle(long now) {
                 if (now - lastUpdate >= STEP_DELAY) {
+                    if (stepProfiler != null) {
+                        stepProfiler.beginStep(cleaner, stepCount[0]);
+                    }
+                    boolean wasComplete = cleaner.isMissionComplete();
                     boolean completed = cleaner.executeMissionStep(stepCount[0]);
+                    if (stepProfiler != null) {
+                        stepProfiler.endStep(cleaner);
+                    }
+                    if (completed && !wasComplete) {
+                        missionCompleted(cleaner, stepCount[0]);
+                    }
                     stepCount[0]++;
                     
                     if (completed) {
@@ -647,6 +1049,119 @@ public class RobotManager {
         return new ArrayList<>(cleaners);
     }
     
+    /**
+     * Turn cooperative (WHCA*) planning for all smart cleaners on or off
+     */
+    public void setFleetPlanning(boolean enabled) {
+        fleetPlanner = enabled
+            ? new CooperativePlanner(gridManager, FLEET_PLANNING_WINDOW, FLEET_PLANNING_BUDGET_NANOS)
+            : null;
+        for (RobotCleaner cleaner : cleaners) {
+            if (cleaner instanceof SmartCleaner smartCleaner) {
+                smartCleaner.setFleetPlanner(fleetPlanner);
+            }
+        }
+    }
+    
+    public boolean isFleetPlanning() {
+        return fleetPlanner != null;
+    }
+    
+    /**
+     * Solve smart cleaner path searches on a pool of worker threads (0 threads to turn off).
+     * Finished paths are handed back at the start of the next cleaning tick.
+     */
+    public void setAsyncPathfinding(int threads, boolean virtualThreads) {
+        if (pathfindingService != null) {
+            pathfindingService.shutdown();
+        }
+        pathfindingService = threads > 0 ? new PathfindingService(threads, virtualThreads) : null;
+        for (RobotCleaner cleaner : cleaners) {
+            if (cleaner instanceof SmartCleaner smartCleaner) {
+                smartCleaner.setPathfindingService(pathfindingService);
+            }
+        }
+    }
+    
+    public PathfindingService getPathfindingService() {
+        return pathfindingService;
+    }
+    
+    /**
+     * Step the bulk robots on worker threads, each owning tiles of a
+     * tileRows x tileCols split of the grid (0 threads to step them inline)
+     */
+    public void setTiledStepping(int tileRows, int tileCols, int threads) {
+        if (tiledStepper != null) {
+            tiledStepper.shutdown();
+        }
+        tiledStepper = threads > 0 ? new TiledStepper(gridManager, robotStore, tileRows, tileCols, threads) : null;
+    }
+    
+    public TiledStepper getTiledStepper() {
+        return tiledStepper;
+    }
+    
+    /**
+     * Set the optional dirt diffusion/decay stage run on each cleaning tick (null to disable)
+     */
+    public void setDirtStage(DirtDiffusionStage dirtStage) {
+        this.dirtStage = dirtStage;
+    }
+    
+    public DirtDiffusionStage getDirtStage() {
+        return dirtStage;
+    }
+    
+    /**
+     * Time one mission step in sampleInterval for every robot (0 to turn off);
+     * results are in getStepProfiler()
+     */
+    public void setStepProfiling(int sampleInterval) {
+        stepProfiler = sampleInterval > 0 ? new StepProfiler(sampleInterval) : null;
+    }
+    
+    /**
+     * Queue per-tick stats to a telemetry writer from tick() (null to stop).
+     * The caller keeps ownership and closes the writer.
+     */
+    public void setTelemetry(TelemetryWriter writer) {
+        telemetry = writer;
+    }
+    
+    public TelemetryWriter getTelemetry() {
+        return telemetry;
+    }
+    
+    public StepProfiler getStepProfiler() {
+        return stepProfiler;
+    }
+    
+    public GridManager getGridManager() {
+        return gridManager;
+    }
+    
+    /**
+     * Get the struct-of-arrays store for bulk robots
+     */
+    public RobotStore getRobotStore() {
+        return robotStore;
+    }
+    
+    /**
+     * Get the k robots nearest to a robot (Manhattan distance, closest first)
+     */
+    public List<Robot> findNearestRobots(Robot robot, int k) {
+        return gridManager.getOccupancy().findNearest(robot.getGridRow(), robot.getGridCol(), k, robot);
+    }
+    
+    /**
+     * Check if a cell (1-based) has a robot on it
+     */
+    public boolean isCellOccupied(int gridRow, int gridCol) {
+        return gridManager.getOccupancy().isOccupied(gridRow - 1, gridCol - 1);
+    }
+    
     /**
      * Get a specific robot by index
      */
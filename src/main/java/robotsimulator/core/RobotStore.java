@@ -0,0 +1,328 @@
+package robotsimulator.core;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import robotsimulator.ui.GridManager;
+
+/**
+ * Struct-of-arrays store for lightweight robots stepped in bulk.
+ * Each robot is an index into parallel primitive arrays instead of a
+ * Robot object, so thousands of them can be advanced in a few tight loops.
+ * Only the simple behaviours are supported: straight column cleaners and
+ * polluters (like NettoyeurToutDroit / PollueurToutDroit) and zigzag
+ * complete cleaners. A bulk complete cleaner sweeps the rows like
+ * NettoyeurComplet does on a grid without walls, but it does not plan
+ * around walls: like the straight robots, its mission ends at the first
+ * wall it meets. Positions are 0-based.
+ * In parallel mode the kernels run over chunks of robots on the common
+ * pool, with the grid taking concurrent cell updates.
+ */
+public class RobotStore {
+    // Robot types
+    public static final byte TYPE_STRAIGHT_CLEANER = 0;
+    public static final byte TYPE_STRAIGHT_POLLUTER = 1;
+    public static final byte TYPE_COMPLETE_CLEANER = 2; // Zigzag sweep, stopped by walls
+
+    // Mission states
+    public static final int MISSION_RUNNING = 0;
+    public static final int MISSION_COMPLETE = 1;
+    public static final int MISSION_WALL_HIT = 2;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ROBOTS_PER_CHUNK = 4096;
+
+    private final GridManager gridManager;
+    private int[] row;
+    private int[] col;
+    private byte[] type;
+    private int[] missionState;
+    private int size;
+    private final int[] typeCounts = new int[3]; // Robots of each type
+    private int runningPolluters; // Running missions as of the last step of each phase
+    private int runningCleaners;
+    private int modCount; // Bumped when robots are added, removed or reset
+    private boolean parallel;
+
+    public RobotStore(GridManager gridManager) {
+        this.gridManager = gridManager;
+        this.row = new int[INITIAL_CAPACITY];
+        this.col = new int[INITIAL_CAPACITY];
+        this.type = new byte[INITIAL_CAPACITY];
+        this.missionState = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Add a straight line cleaner going down the given column (1-based)
+     */
+    public int addStraightCleaner(int startCol) {
+        return add(TYPE_STRAIGHT_CLEANER, 0, clampColumn(startCol) - 1);
+    }
+
+    /**
+     * Add a straight line polluter going down the given column (1-based)
+     */
+    public int addStraightPolluter(int startCol) {
+        return add(TYPE_STRAIGHT_POLLUTER, 0, clampColumn(startCol) - 1);
+    }
+
+    /**
+     * Add a complete grid cleaner starting at (1,1); unlike NettoyeurComplet
+     * it stops at the first wall instead of going around it
+     */
+    public int addCompleteCleaner() {
+        return add(TYPE_COMPLETE_CLEANER, 0, 0);
+    }
+
+    private int add(byte robotType, int startRow, int startCol) {
+        if (size == row.length) {
+            int newCapacity = row.length * 2;
+            row = Arrays.copyOf(row, newCapacity);
+            col = Arrays.copyOf(col, newCapacity);
+            type = Arrays.copyOf(type, newCapacity);
+            missionState = Arrays.copyOf(missionState, newCapacity);
+        }
+        int id = size++;
+        row[id] = startRow;
+        col[id] = startCol;
+        type[id] = robotType;
+        missionState[id] = MISSION_RUNNING;
+        typeCounts[robotType]++;
+        if (robotType == TYPE_STRAIGHT_POLLUTER) {
+            runningPolluters++;
+        } else {
+            runningCleaners++;
+        }
+        modCount++;
+        return id;
+    }
+
+    private int clampColumn(int startCol) {
+        return Math.max(1, Math.min(startCol, gridManager.getCols()));
+    }
+
+    /**
+     * Execute one mission step for every bulk polluter
+     * Returns true if all polluters in the store are done
+     */
+    public boolean stepPolluters() {
+        return step(true);
+    }
+
+    /**
+     * Execute one mission step for every bulk cleaner
+     * Returns true if all cleaners in the store are done
+     */
+    public boolean stepCleaners() {
+        return step(false);
+    }
+
+    private boolean step(boolean polluters) {
+        if (parallel && size > ROBOTS_PER_CHUNK) {
+            int chunks = (size + ROBOTS_PER_CHUNK - 1) / ROBOTS_PER_CHUNK;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int from = chunk * ROBOTS_PER_CHUNK;
+                int to = Math.min(size, from + ROBOTS_PER_CHUNK);
+                markWallHits(polluters, from, to);
+                applyCellEffects(polluters, from, to);
+                advancePositions(polluters, from, to);
+            });
+        } else {
+            markWallHits(polluters, 0, size);
+            applyCellEffects(polluters, 0, size);
+            advancePositions(polluters, 0, size);
+        }
+        if (parallel) {
+            gridManager.settleConcurrentUpdates();
+        }
+        return markCompletions(polluters);
+    }
+
+    /**
+     * Step the robots on several threads; also switches the grid to
+     * concurrent cell updates (or back)
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+        gridManager.setConcurrentUpdates(parallel);
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    private boolean isSelected(int i, boolean polluters) {
+        return (type[i] == TYPE_STRAIGHT_POLLUTER) == polluters;
+    }
+
+    /**
+     * Kernel 1: abort missions whose current cell is a wall
+     */
+    private void markWallHits(boolean polluters, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (missionState[i] == MISSION_RUNNING && isSelected(i, polluters)
+                    && gridManager.isWallZeroBased(row[i], col[i])) {
+                missionState[i] = MISSION_WALL_HIT;
+            }
+        }
+    }
+
+    /**
+     * Kernel 2: clean or dirty the current cell of every running robot
+     */
+    private void applyCellEffects(boolean polluters, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (missionState[i] != MISSION_RUNNING || !isSelected(i, polluters)) {
+                continue;
+            }
+            if (polluters) {
+                gridManager.dirtyCell(row[i] + 1, col[i] + 1);
+            } else {
+                gridManager.cleanCell(row[i] + 1, col[i] + 1);
+            }
+        }
+    }
+
+    /**
+     * Kernel 3: branch-free position update.
+     * Straight robots always go one row down. Zigzag robots move along the
+     * row (right on even rows, left on odd rows) and drop one row at the edge.
+     */
+    private void advancePositions(boolean polluters, int from, int to) {
+        final int[] rows = row;
+        final int[] cols = col;
+        final byte[] types = type;
+        final int colCount = gridManager.getCols();
+        final int[] states = missionState;
+        for (int i = from; i < to; i++) {
+            boolean active = states[i] == MISSION_RUNNING && (types[i] == TYPE_STRAIGHT_POLLUTER) == polluters;
+            boolean zigzag = types[i] == TYPE_COMPLETE_CLEANER;
+            int r = rows[i];
+            int c = cols[i];
+            int nextCol = c + 1 - ((r & 1) << 1);
+            boolean nextRow = !zigzag || nextCol < 0 || nextCol >= colCount;
+            rows[i] = active && nextRow ? r + 1 : r;
+            cols[i] = active && !nextRow ? nextCol : c;
+        }
+    }
+
+    /**
+     * Kernel 4: complete missions that went past the last row
+     */
+    private boolean markCompletions(boolean polluters) {
+        int running = 0;
+        for (int i = 0; i < size; i++) {
+            if (!isSelected(i, polluters)) {
+                continue;
+            }
+            if (missionState[i] == MISSION_RUNNING && row[i] >= gridManager.getRows()) {
+                missionState[i] = MISSION_COMPLETE;
+            }
+            if (missionState[i] == MISSION_RUNNING) {
+                running++;
+            }
+        }
+        setRunningCount(polluters, running);
+        return running == 0;
+    }
+
+    /**
+     * Restart every mission from the initial position of its type
+     */
+    public void resetMissions() {
+        for (int i = 0; i < size; i++) {
+            row[i] = 0;
+            if (type[i] == TYPE_COMPLETE_CLEANER) {
+                col[i] = 0;
+            }
+            missionState[i] = MISSION_RUNNING;
+        }
+        runningPolluters = typeCounts[TYPE_STRAIGHT_POLLUTER];
+        runningCleaners = size - runningPolluters;
+        modCount++;
+    }
+
+    /**
+     * Remove all robots from the store
+     */
+    public void clear() {
+        size = 0;
+        Arrays.fill(typeCounts, 0);
+        runningPolluters = 0;
+        runningCleaners = 0;
+        modCount++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of robots of a type (TYPE_ constants)
+     */
+    public int countType(byte robotType) {
+        return typeCounts[robotType];
+    }
+
+    /**
+     * Number of running missions, as of the last step of each phase
+     */
+    public int getRunningCount() {
+        return runningPolluters + runningCleaners;
+    }
+
+    /**
+     * Record the running missions of a phase after stepping it elsewhere (TiledStepper)
+     */
+    void setRunningCount(boolean polluters, int running) {
+        if (polluters) {
+            runningPolluters = running;
+        } else {
+            runningCleaners = running;
+        }
+    }
+
+    /**
+     * Copy the positions (0-based) of the first rows.length robots out
+     */
+    void copyPositions(int[] rows, int[] cols) {
+        System.arraycopy(row, 0, rows, 0, rows.length);
+        System.arraycopy(col, 0, cols, 0, rows.length);
+    }
+
+    /**
+     * Get row of a robot (0-based)
+     */
+    public int getRow(int id) {
+        return row[id];
+    }
+
+    /**
+     * Get column of a robot (0-based)
+     */
+    public int getCol(int id) {
+        return col[id];
+    }
+
+    public byte getType(int id) {
+        return type[id];
+    }
+
+    public int getMissionState(int id) {
+        return missionState[id];
+    }
+
+    int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Write back the state of a robot stepped elsewhere (TiledStepper)
+     */
+    void update(int id, int newRow, int newCol, int state) {
+        row[id] = newRow;
+        col[id] = newCol;
+        missionState[id] = state;
+    }
+}
@@ -0,0 +1,334 @@
+package robotsimulator.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import robotsimulator.cleaning.NettoyeurLibre;
+import robotsimulator.map.MapGenerator;
+import robotsimulator.map.MapLoader;
+import robotsimulator.model.DirtDiffusionStage;
+import robotsimulator.model.GridBuffer;
+import robotsimulator.model.GridConstants;
+import robotsimulator.pollution.PollueurLibre;
+import robotsimulator.ui.GridManager;
+
+/**
+ * A simulation setup read from a plain text file, one directive per line.
+ * Positions are 1-based; '#' starts a comment.
+ * <pre>
+ * grid 40 60                  rows cols (default GRID_SIZE x GRID_SIZE)
+ * map plans/office.png        walls and size from a PGM, PNG or text map,
+ *                             relative to the scenario file
+ * generate maze 60            generated map: rooms, maze or clutter, then
+ *                             difficulty 0-100 (uses grid size and seed)
+ * seed 42                     seeds random walls and random robot moves
+ * ticks 2000                  tick limit (default 1000)
+ * random-walls                place walls like the UI does (not on maps)
+ * wall 3 4 3 12               wall rectangle: row1 col1 row2 col2
+ * dirt 5 5 8 9                dirty rectangle: row1 col1 row2 col2
+ * diffusion 100 1             dirt diffusion permille, decay per tick
+ * fleet                       cooperative planning for smart cleaners
+ * async-pathfinding 4         path searches on 4 worker threads
+ * tiles 4 4 2                 bulk robots stepped on 2 threads over 4 x 4 tiles
+ * parallel-bulk               bulk robots stepped on the common pool, sharing
+ *                             the grid through atomic cell updates
+ * profile 4                   time one robot step in 4, printed after the run
+ * telemetry out/run 4096 10   per-tick stats as CSV in out/run (relative to the
+ *                             working directory), 4096 KB per file, keep 10 files
+ *                             (0 keeps all)
+ * robot smart 1 1 500         row col maxSteps
+ * robot straight-cleaner 3    col
+ * robot jumping-cleaner 2 2 3 row col jump
+ * robot free-cleaner 5 5 200  row col maxSteps
+ * robot complete-cleaner
+ * robot straight-polluter 4   col
+ * robot jumping-polluter 1 1 2 row col jump
+ * robot free-polluter 3 3 20  row col maxPollutions
+ * robot bulk-straight-cleaner 3    col (stepped in the RobotStore)
+ * robot bulk-straight-polluter 4   col
+ * robot bulk-complete-cleaner
+ * bulk straight-cleaner 500   500 bulk robots spread evenly over the columns
+ * </pre>
+ */
+public class Scenario {
+    // Number of arguments each robot type takes
+    private static final Map<String, Integer> ROBOT_ARGS = Map.ofEntries(
+        Map.entry("smart", 3),
+        Map.entry("straight-cleaner", 1),
+        Map.entry("jumping-cleaner", 3),
+        Map.entry("free-cleaner", 3),
+        Map.entry("complete-cleaner", 0),
+        Map.entry("straight-polluter", 1),
+        Map.entry("jumping-polluter", 3),
+        Map.entry("free-polluter", 3),
+        Map.entry("bulk-straight-cleaner", 1),
+        Map.entry("bulk-straight-polluter", 1),
+        Map.entry("bulk-complete-cleaner", 0));
+
+    private int rows = GridConstants.GRID_SIZE;
+    private int cols = GridConstants.GRID_SIZE;
+    private Long seed;
+    private int tickLimit = 1000;
+    private boolean randomWalls;
+    private final List<int[]> walls = new ArrayList<>();
+    private final List<int[]> dirt = new ArrayList<>();
+    private final List<String[]> robots = new ArrayList<>();
+    private int[] diffusion;
+    private boolean fleetPlanning;
+    private int pathfindingThreads;
+    private int[] tiles;
+    private boolean parallelBulk;
+    private int profileInterval;
+    private Path telemetryDir;
+    private int[] telemetryLimits;
+    private Path mapFile;
+    private MapGenerator.Style generateStyle;
+    private int difficulty;
+    private Path baseDir;
+
+    /**
+     * Read a scenario file; malformed lines are reported with their line number
+     */
+    public static Scenario load(Path file) throws IOException {
+        Scenario scenario = new Scenario();
+        scenario.baseDir = file.toAbsolutePath().getParent();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    scenario.parse(line.split("\\s+"));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return scenario;
+    }
+
+    private void parse(String[] words) {
+        switch (words[0]) {
+            case "grid" -> {
+                int[] size = numbers(words, 2);
+                rows = size[0];
+                cols = size[1];
+            }
+            case "map" -> {
+                if (words.length != 2) {
+                    throw new IllegalArgumentException("map expects a file name");
+                }
+                mapFile = baseDir.resolve(words[1]);
+            }
+            case "generate" -> {
+                if (words.length != 3) {
+                    throw new IllegalArgumentException("generate expects a style and a difficulty");
+                }
+                try {
+                    generateStyle = MapGenerator.Style.valueOf(words[1].toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("unknown map style '" + words[1] + "'");
+                }
+                difficulty = Integer.parseInt(words[2]);
+                if (difficulty < 0 || difficulty > 100) {
+                    throw new IllegalArgumentException("difficulty must be between 0 and 100");
+                }
+            }
+            case "seed" -> seed = Long.parseLong(words[1]);
+            case "ticks" -> tickLimit = numbers(words, 1)[0];
+            case "random-walls" -> randomWalls = true;
+            case "wall" -> walls.add(numbers(words, 4));
+            case "dirt" -> dirt.add(numbers(words, 4));
+            case "diffusion" -> diffusion = numbers(words, 2);
+            case "fleet" -> fleetPlanning = true;
+            case "async-pathfinding" -> pathfindingThreads = numbers(words, 1)[0];
+            case "tiles" -> tiles = numbers(words, 3);
+            case "parallel-bulk" -> parallelBulk = true;
+            case "profile" -> profileInterval = numbers(words, 1)[0];
+            case "telemetry" -> {
+                if (words.length != 4) {
+                    throw new IllegalArgumentException("telemetry expects a directory, a file size in KB and a file count");
+                }
+                telemetryDir = Path.of(words[1]);
+                telemetryLimits = numbers(Arrays.copyOfRange(words, 1, 4), 2);
+            }
+            case "bulk" -> {
+                if (words.length != 3 || !ROBOT_ARGS.containsKey("bulk-" + words[1])) {
+                    throw new IllegalArgumentException("bulk expects a bulk robot type and a count");
+                }
+                Integer.parseInt(words[2]);
+                robots.add(words);
+            }
+            case "robot" -> {
+                if (words.length < 2 || !ROBOT_ARGS.containsKey(words[1])) {
+                    throw new IllegalArgumentException("unknown robot type");
+                }
+                numbers(Arrays.copyOfRange(words, 1, words.length), ROBOT_ARGS.get(words[1]));
+                robots.add(words);
+            }
+            default -> throw new IllegalArgumentException("unknown directive '" + words[0] + "'");
+        }
+    }
+
+    private static int[] numbers(String[] words, int count) {
+        if (words.length - 1 != count) {
+            throw new IllegalArgumentException(words[0] + " expects " + count + " numbers");
+        }
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Integer.parseInt(words[i + 1]);
+        }
+        return values;
+    }
+
+    /**
+     * Build the grid described by the scenario (no visuals)
+     */
+    public GridManager createGrid() throws IOException {
+        GridManager gridManager;
+        if (mapFile != null) {
+            gridManager = new GridManager(MapLoader.load(mapFile));
+        } else if (generateStyle != null) {
+            GridBuffer buffer = new GridBuffer(rows, cols);
+            MapGenerator.generate(buffer, generateStyle, difficulty / 100.0, seed != null ? seed : System.nanoTime());
+            gridManager = new GridManager(buffer);
+        } else {
+            gridManager = new GridManager(rows, cols);
+        }
+        if (seed != null) {
+            gridManager.setSeed(seed);
+        }
+        if (randomWalls) {
+            gridManager.generateInitialWalls();
+        }
+        for (int[] wall : walls) {
+            for (int row = wall[0]; row <= wall[2]; row++) {
+                for (int col = wall[1]; col <= wall[3]; col++) {
+                    gridManager.setWall(row, col, true);
+                }
+            }
+        }
+        for (int[] area : dirt) {
+            for (int row = area[0]; row <= area[2]; row++) {
+                for (int col = area[1]; col <= area[3]; col++) {
+                    if (!gridManager.isWall(row, col)) {
+                        gridManager.dirtyCell(row, col);
+                    }
+                }
+            }
+        }
+        return gridManager;
+    }
+
+    /**
+     * Create the robots and planning options on a headless robot manager
+     */
+    public RobotManager createRobots(GridManager gridManager) {
+        RobotManager robotManager = new RobotManager(null, gridManager);
+        robotManager.setFleetPlanning(fleetPlanning);
+        if (pathfindingThreads > 0) {
+            robotManager.setAsyncPathfinding(pathfindingThreads, false);
+        }
+        if (diffusion != null) {
+            robotManager.setDirtStage(new DirtDiffusionStage(diffusion[0], diffusion[1]));
+        }
+        if (tiles != null) {
+            robotManager.setTiledStepping(tiles[0], tiles[1], tiles[2]);
+        }
+        robotManager.getRobotStore().setParallel(parallelBulk);
+        robotManager.setStepProfiling(profileInterval);
+        long robotSeed = seed != null ? seed : System.nanoTime();
+        for (String[] words : robots) {
+            if (words[0].equals("bulk")) {
+                addBulkRobots(robotManager.getRobotStore(), words[1], Integer.parseInt(words[2]), gridManager.getCols());
+                continue;
+            }
+            int[] args = Arrays.stream(words, 2, words.length).mapToInt(Integer::parseInt).toArray();
+            switch (words[1]) {
+                case "smart" -> robotManager.createSmartCleaner(args[0], args[1], args[2]);
+                case "straight-cleaner" -> robotManager.createStraightCleaner(args[0]);
+                case "jumping-cleaner" -> robotManager.createJumpingCleaner(args[0], args[1], args[2]);
+                case "free-cleaner" -> {
+                    NettoyeurLibre cleaner = robotManager.createFreeCleaner(args[0], args[1], args[2]);
+                    cleaner.setRandomSeed(robotSeed++);
+                }
+                case "complete-cleaner" -> robotManager.createCompleteCleaner();
+                case "straight-polluter" -> robotManager.createStraightPolluter(args[0]);
+                case "jumping-polluter" -> robotManager.createJumpingPolluter(args[0], args[1], args[2]);
+                case "free-polluter" -> {
+                    PollueurLibre polluter = robotManager.createFreePolluter(args[0], args[1], args[2]);
+                    polluter.setRandomSeed(robotSeed++);
+                }
+                case "bulk-straight-cleaner" -> robotManager.getRobotStore().addStraightCleaner(args[0]);
+                case "bulk-straight-polluter" -> robotManager.getRobotStore().addStraightPolluter(args[0]);
+                case "bulk-complete-cleaner" -> robotManager.getRobotStore().addCompleteCleaner();
+                default -> throw new IllegalArgumentException("unknown robot type '" + words[1] + "'");
+            }
+        }
+        return robotManager;
+    }
+
+    private static void addBulkRobots(RobotStore store, String type, int count, int cols) {
+        for (int i = 0; i < count; i++) {
+            int col = 1 + (int) ((long) i * cols / Math.max(1, count));
+            switch (type) {
+                case "straight-cleaner" -> store.addStraightCleaner(col);
+                case "straight-polluter" -> store.addStraightPolluter(col);
+                default -> store.addCompleteCleaner();
+            }
+        }
+    }
+
+    /**
+     * Open the telemetry writer asked for by the scenario, or null if none
+     */
+    public TelemetryWriter createTelemetry() throws IOException {
+        if (telemetryDir == null) {
+            return null;
+        }
+        return new TelemetryWriter(telemetryDir, telemetryLimits[0] * 1024L, telemetryLimits[1]);
+    }
+
+    /**
+     * Whether the scenario has robots that are not bulk robots
+     */
+    public boolean hasObjectRobots() {
+        return robots.stream().anyMatch(words -> !words[0].equals("bulk") && !words[1].startsWith("bulk-"));
+    }
+
+    /**
+     * Grid size from the grid directive; a map file brings its own size
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getTickLimit() {
+        return tickLimit;
+    }
+
+    /**
+     * Dirt diffusion {permille, decay}, or null if the scenario has none
+     */
+    public int[] getDiffusion() {
+        return diffusion == null ? null : diffusion.clone();
+    }
+}
@@ -0,0 +1,124 @@
+package robotsimulator.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs mission ticks on a thread of their own at a fixed rate, publishing a
+ * frame (robot positions and a grid snapshot) after each one. The view
+ * draws the latest frame at display rate, so neither the tick rate nor the
+ * frame rate holds the other back. Cell edits made from the UI meanwhile
+ * are applied by this thread between ticks.
+ */
+public class SimulationLoop {
+    private final RobotManager robotManager;
+    private final FrameBuffer frames;
+    private final long tickNanos;
+    private final int tickLimit;
+    private volatile boolean running;
+    private volatile int ticks;
+    private volatile boolean allComplete;
+    private Thread thread;
+
+    /**
+     * @param ticksPerSecond tick rate, 0 to tick as fast as possible
+     * @param tickLimit most ticks to run, 0 for no limit
+     */
+    public SimulationLoop(RobotManager robotManager, FrameBuffer frames, double ticksPerSecond, int tickLimit) {
+        if (ticksPerSecond < 0 || tickLimit < 0) {
+            throw new IllegalArgumentException("Tick rate and limit cannot be negative");
+        }
+        this.robotManager = robotManager;
+        this.frames = frames;
+        this.tickNanos = ticksPerSecond == 0 ? 0 : (long) (1e9 / ticksPerSecond);
+        this.tickLimit = tickLimit;
+    }
+
+    /**
+     * Start ticking; the loop ends by itself once every mission is complete
+     */
+    public void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Simulation loop already started");
+        }
+        running = true;
+        thread = new Thread(this::run, "simulation-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop ticking and wait for the tick in progress to finish
+     */
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            join();
+        }
+    }
+
+    /**
+     * Wait for the loop to end
+     */
+    public void join() {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Ticks run so far
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    public boolean isAllComplete() {
+        return allComplete;
+    }
+
+    public FrameBuffer getFrames() {
+        return frames;
+    }
+
+    private void run() {
+        frames.publish(0, robotManager.getGridManager().publishSnapshot(), false);
+        long deadline = System.nanoTime();
+        int tick = 0;
+        boolean complete = false;
+        while (running && !complete && (tickLimit == 0 || tick < tickLimit)) {
+            robotManager.getGridManager().applyDeferredEdits();
+            complete = robotManager.tick(tick);
+            tick++;
+            ticks = tick;
+            boolean last = complete || tick == tickLimit;
+            frames.publish(tick, robotManager.getGridManager().publishSnapshot(), last);
+
+            if (tickNanos > 0) {
+                deadline += tickNanos;
+                long wait = deadline - System.nanoTime();
+                if (wait < -tickNanos) {
+                    deadline = System.nanoTime(); // Fell behind: don't race to catch up
+                }
+                while (running && wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                    wait = deadline - System.nanoTime();
+                }
+            }
+        }
+        allComplete = complete;
+        running = false;
+    }
+}
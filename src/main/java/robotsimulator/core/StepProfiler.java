@@ -0,0 +1,221 @@
+package robotsimulator.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import robotsimulator.cleaning.SmartCleaner;
+import robotsimulator.model.Robot;
+
+/**
+ * Samples how long robot mission steps take. On every sampleInterval-th
+ * step a robot's step is timed, together with the path search time inside
+ * it and the bytes it allocated; other steps cost one check. Batches that
+ * are stepped together (bulk robots, fleet planning, dirt diffusion) are
+ * timed as one row each. Results are kept per robot and per robot type:
+ * the mean over all samples and the p99 over the most recent ones.
+ * Steps are recorded on the tick thread; rows can be read from any thread.
+ */
+public class StepProfiler {
+    private static final int RECENT_SAMPLES = 512; // Window for the p99
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter();
+
+    private final int sampleInterval;
+    private final Map<Robot, Stats> robots = new LinkedHashMap<>();
+    private final Map<String, Stats> types = new LinkedHashMap<>();
+    private int nextRobotNumber = 1;
+
+    // State of the step being timed (tick thread only)
+    private boolean sampled;
+    private long startNanos;
+    private long startAllocated;
+    private long startPlanning;
+
+    /**
+     * Profile results for one robot, robot type or batch
+     */
+    public record Row(String name, long samples, double meanMicros, double p99Micros,
+                      double planningMicros, double allocatedBytes) {
+    }
+
+    /**
+     * @param sampleInterval time one step in this many (1 times every step)
+     */
+    public StepProfiler(int sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval must be at least 1");
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Call right before a robot's mission step
+     */
+    public void beginStep(Robot robot, int stepCount) {
+        begin(stepCount);
+        if (sampled) {
+            startPlanning = planningNanos(robot);
+            startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Call right after the mission step started with beginStep
+     */
+    public void endStep(Robot robot) {
+        if (!sampled) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        long planning = planningNanos(robot) - startPlanning;
+        long allocated = allocatedBytes() - startAllocated;
+        synchronized (this) {
+            Stats stats = robots.get(robot);
+            if (stats == null) {
+                stats = new Stats(robot.getClass().getSimpleName() + " #" + nextRobotNumber++);
+                robots.put(robot, stats);
+            }
+            stats.add(nanos, planning, allocated);
+            typeStats(robot.getClass().getSimpleName()).add(nanos, planning, allocated);
+        }
+    }
+
+    /**
+     * Call right before work done for many robots at once
+     */
+    public void beginBatch(int stepCount) {
+        begin(stepCount);
+        if (sampled) {
+            startNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Call right after the batch started with beginBatch; it is listed under name
+     */
+    public void endBatch(String name) {
+        if (!sampled) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        long allocated = allocatedBytes() - startAllocated;
+        synchronized (this) {
+            typeStats(name).add(nanos, 0, allocated);
+        }
+    }
+
+    private void begin(int stepCount) {
+        sampled = stepCount % sampleInterval == 0;
+        if (sampled) {
+            startAllocated = allocatedBytes();
+        }
+    }
+
+    private Stats typeStats(String name) {
+        return types.computeIfAbsent(name, Stats::new);
+    }
+
+    /**
+     * Drop the results of a robot that left the simulation
+     */
+    public synchronized void forget(Robot robot) {
+        robots.remove(robot);
+    }
+
+    /**
+     * Drop all results
+     */
+    public synchronized void reset() {
+        robots.clear();
+        types.clear();
+        nextRobotNumber = 1;
+    }
+
+    /**
+     * One row per robot, slowest mean step first
+     */
+    public synchronized List<Row> getRobotRows() {
+        return rows(robots.values());
+    }
+
+    /**
+     * One row per robot type and per batch, slowest mean step first
+     */
+    public synchronized List<Row> getTypeRows() {
+        return rows(types.values());
+    }
+
+    /**
+     * Check if allocations are measured (a HotSpot feature)
+     */
+    public static boolean isAllocationSupported() {
+        return ALLOCATIONS != null;
+    }
+
+    private static List<Row> rows(Iterable<Stats> all) {
+        List<Row> rows = new ArrayList<>();
+        for (Stats stats : all) {
+            rows.add(stats.toRow());
+        }
+        rows.sort(Comparator.comparingDouble(Row::meanMicros).reversed());
+        return rows;
+    }
+
+    private static long planningNanos(Robot robot) {
+        return robot instanceof SmartCleaner smartCleaner ? smartCleaner.getPlanningNanos() : 0;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS == null ? 0 : ALLOCATIONS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Running totals plus a ring of recent step times
+     */
+    private static final class Stats {
+        private final String name;
+        private final long[] recent = new long[RECENT_SAMPLES];
+        private long samples;
+        private long totalNanos;
+        private long totalPlanning;
+        private long totalAllocated;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        void add(long nanos, long planning, long allocated) {
+            recent[(int) (samples % RECENT_SAMPLES)] = nanos;
+            samples++;
+            totalNanos += nanos;
+            totalPlanning += planning;
+            totalAllocated += allocated;
+        }
+
+        Row toRow() {
+            int count = (int) Math.min(samples, RECENT_SAMPLES);
+            long[] sorted = Arrays.copyOf(recent, count);
+            Arrays.sort(sorted);
+            long p99 = count == 0 ? 0 : sorted[(int) Math.ceil(count * 0.99) - 1];
+            double perSample = samples == 0 ? 0 : 1.0 / samples;
+            return new Row(name, samples, totalNanos * perSample / 1e3, p99 / 1e3,
+                    totalPlanning * perSample / 1e3, totalAllocated * perSample);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package robotsimulator.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Streams per-tick statistics to CSV files in a directory, so long runs can
+ * be analysed afterwards without keeping any history in memory. The tick
+ * thread only queues a row; a background thread formats rows and appends
+ * them through a FileChannel. A file is closed and the next one started
+ * once it would grow past maxFileBytes, or when the set of robot types
+ * changes; every file starts with its own header line. With maxFiles set,
+ * the oldest files are deleted to keep at most that many. Rows queued
+ * while the writer is too far behind are dropped and counted, the tick
+ * thread never waits.
+ */
+public class TelemetryWriter implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_FILE_BYTES = 1024;
+    private static final long POLL_MILLIS = 100; // How long close() may wait for an idle writer
+    private static final String FILE_PREFIX = "telemetry-";
+    private static final String FILE_SUFFIX = ".csv";
+    private static final String HEADER = "tick,time_ms,tick_us,dirty,dirtied,cleaned,active";
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final BlockingQueue<TickStats> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean closing;
+    private volatile IOException failure;
+
+    // Writer thread only
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder line = new StringBuilder();
+    private final Deque<Path> files = new ArrayDeque<>();
+    private FileChannel channel;
+    private long fileBytes;
+    private int fileNumber;
+    private List<String> fileTypes;
+    private long written;
+
+    /**
+     * Aggregates of one tick. dirtied is the change of the dirty count during
+     * the polluter phase, cleaned the drop during the cleaner phase (dirt
+     * diffusion included), so both are net cell counts. robotsPerType holds
+     * the number of robots of each type, in the order of types.
+     */
+    public record TickStats(int tick, long tickNanos, long endNanos, int dirtyCells, int dirtied, int cleaned,
+                            int activeMissions, List<String> types, int[] robotsPerType) {
+    }
+
+    /**
+     * Start writing into directory (created if needed). Numbering continues
+     * after the telemetry files already there.
+     *
+     * @param maxFileBytes start a new file before one grows past this size
+     * @param maxFiles keep at most this many files, deleting the oldest (0 keeps all)
+     */
+    public TelemetryWriter(Path directory, long maxFileBytes, int maxFiles) throws IOException {
+        if (maxFileBytes < MIN_FILE_BYTES) {
+            throw new IllegalArgumentException("Telemetry files must be allowed at least " + MIN_FILE_BYTES + " bytes");
+        }
+        if (maxFiles < 0) {
+            throw new IllegalArgumentException("Maximum file count cannot be negative");
+        }
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        Files.createDirectories(directory);
+        for (Path file : listFiles(directory)) {
+            fileNumber = Math.max(fileNumber, fileNumber(file));
+            files.add(file);
+        }
+        this.thread = new Thread(this::run, "telemetry-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Telemetry files in a directory, oldest first
+     */
+    public static List<Path> listFiles(Path directory) throws IOException {
+        List<Path> found = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(directory)) {
+            entries.filter(file -> fileNumber(file) > 0).forEach(found::add);
+        }
+        found.sort((a, b) -> Integer.compare(fileNumber(a), fileNumber(b)));
+        return found;
+    }
+
+    private static int fileNumber(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Queue the stats of a tick; returns false if the row was dropped
+     */
+    public boolean record(TickStats stats) {
+        if (closing || failure != null || !queue.offer(stats)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rows dropped because the writer fell behind, failed or was closed
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Rows written so far; exact once the writer is closed
+     */
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Write out the queued rows and close the current file. Rethrows the
+     * first write error, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        closing = true; // No interrupt: it would close the FileChannel mid-write
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void run() {
+        List<TickStats> batch = new ArrayList<>();
+        try {
+            while (!closing || !queue.isEmpty()) {
+                TickStats first;
+                try {
+                    first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                for (TickStats stats : batch) {
+                    append(stats);
+                }
+                flush();
+                synchronized (this) {
+                    written += batch.size();
+                }
+                batch.clear();
+            }
+        } catch (IOException e) {
+            failure = e;
+            dropped.addAndGet(batch.size() + queue.size());
+            queue.clear();
+        } finally {
+            try {
+                closeFile();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void append(TickStats stats) throws IOException {
+        line.setLength(0);
+        line.append(stats.tick()).append(',')
+            .append((stats.endNanos() - startNanos) / 1_000_000).append(',')
+            .append(stats.tickNanos() / 1_000).append(',')
+            .append(stats.dirtyCells()).append(',')
+            .append(stats.dirtied()).append(',')
+            .append(stats.cleaned()).append(',')
+            .append(stats.activeMissions());
+        for (int count : stats.robotsPerType()) {
+            line.append(',').append(count);
+        }
+        line.append('\n');
+
+        if (channel == null || !stats.types().equals(fileTypes) || fileBytes + line.length() > maxFileBytes) {
+            startFile(stats.types());
+        }
+        // Rows are plain ASCII, one byte per char
+        if (buffer.remaining() < line.length()) {
+            flush();
+        }
+        for (int i = 0; i < line.length(); i++) {
+            buffer.put((byte) line.charAt(i));
+        }
+        fileBytes += line.length();
+    }
+
+    private void startFile(List<String> types) throws IOException {
+        flush();
+        closeFile();
+        fileNumber++;
+        Path file = directory.resolve(String.format("%s%05d%s", FILE_PREFIX, fileNumber, FILE_SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        files.add(file);
+        while (maxFiles > 0 && files.size() > maxFiles) {
+            Files.deleteIfExists(files.removeFirst());
+        }
+        fileTypes = types;
+        String header = HEADER + (types.isEmpty() ? "" : "," + String.join(",", types)) + "\n";
+        buffer.put(header.getBytes(StandardCharsets.US_ASCII));
+        fileBytes = header.length();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void closeFile() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+            channel = null;
+        }
+    }
+}
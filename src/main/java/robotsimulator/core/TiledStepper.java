@@ -0,0 +1,375 @@
+package robotsimulator.core;
+
+import java.util.Arrays;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import robotsimulator.model.GridBuffer;
+import robotsimulator.model.GridConstants;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Steps the bulk robots of a RobotStore on worker threads, with the grid
+ * split into rectangular tiles. Every tile is owned by one worker, which
+ * keeps its own struct-of-arrays copy of the robots standing in the tile
+ * and is the only thread writing the tile's dirt cells. Walls are shared
+ * read-only.
+ * <p>
+ * A tick runs in two phases separated by a barrier. In the step phase each
+ * worker moves the robots of its tiles and posts those that left the tile
+ * into a mailbox per neighbour. In the drain phase each tile takes in the
+ * robots posted to it. A robot only ever writes the cell it stands on, so
+ * dirt never has to cross a tile boundary; the change in dirty cell count
+ * is summed per tile and applied once on the calling thread.
+ */
+public class TiledStepper {
+    private static final int STEP_POLLUTERS = 0;
+    private static final int STEP_CLEANERS = 1;
+    private static final int STOP = 2;
+    private static final int RECORD = 5; // ints per robot in a mailbox
+
+    private final GridManager gridManager;
+    private final RobotStore store;
+    private final int tileHeight;
+    private final int tileWidth;
+    private final int tileRows;
+    private final int tileCols;
+    private final Tile[] tiles;
+    private final Thread[] workers;
+    private final CyclicBarrier start;
+    private final CyclicBarrier handover;
+    private final CyclicBarrier done;
+    private volatile int command;
+    private volatile Throwable failure;
+    private int storeVersion = -1;
+
+    /**
+     * @param tileRows number of tiles down the grid
+     * @param tileCols number of tiles across the grid
+     * @param threads  worker threads; tiles are shared out in contiguous runs
+     */
+    public TiledStepper(GridManager gridManager, RobotStore store, int tileRows, int tileCols, int threads) {
+        if (tileRows < 1 || tileCols < 1 || threads < 1) {
+            throw new IllegalArgumentException("Tiles and threads must be positive");
+        }
+        this.gridManager = gridManager;
+        this.store = store;
+        int rows = gridManager.getRows();
+        int cols = gridManager.getCols();
+        this.tileHeight = (rows + tileRows - 1) / tileRows;
+        this.tileWidth = (cols + tileCols - 1) / tileCols;
+        // Rounding up the tile size can leave fewer tiles than asked for
+        this.tileRows = (rows + tileHeight - 1) / tileHeight;
+        this.tileCols = (cols + tileWidth - 1) / tileWidth;
+
+        this.tiles = new Tile[this.tileRows * this.tileCols];
+        for (int tr = 0; tr < this.tileRows; tr++) {
+            for (int tc = 0; tc < this.tileCols; tc++) {
+                tiles[tr * this.tileCols + tc] = new Tile(tr, tc);
+            }
+        }
+
+        int workerCount = Math.min(threads, tiles.length);
+        this.start = new CyclicBarrier(workerCount + 1);
+        this.handover = new CyclicBarrier(workerCount);
+        this.done = new CyclicBarrier(workerCount + 1);
+        this.workers = new Thread[workerCount];
+        for (int w = 0; w < workerCount; w++) {
+            int first = tiles.length * w / workerCount;
+            int last = tiles.length * (w + 1) / workerCount;
+            workers[w] = new Thread(() -> work(first, last), "tile-worker-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+    }
+
+    /**
+     * Execute one mission step for every bulk polluter
+     * Returns true if all polluters in the store are done
+     */
+    public boolean stepPolluters() {
+        return step(STEP_POLLUTERS);
+    }
+
+    /**
+     * Execute one mission step for every bulk cleaner
+     * Returns true if all cleaners in the store are done
+     */
+    public boolean stepCleaners() {
+        return step(STEP_CLEANERS);
+    }
+
+    private boolean step(int phase) {
+        if (store.getModCount() != storeVersion) {
+            distribute();
+        }
+        command = phase;
+        await(start);
+        await(done);
+        if (failure != null) {
+            throw new IllegalStateException("Tile worker failed", failure);
+        }
+
+        int coloredDelta = 0;
+        int running = 0;
+        for (Tile tile : tiles) {
+            coloredDelta += tile.coloredDelta;
+            running += tile.running;
+        }
+        boolean allComplete = running == 0;
+        store.setRunningCount(phase == STEP_POLLUTERS, running);
+        if (coloredDelta != 0 || !allComplete) {
+            gridManager.bulkDirtChanged(coloredDelta);
+        }
+        return allComplete;
+    }
+
+    /**
+     * Stop the worker threads; the stepper cannot be used afterwards
+     */
+    public void shutdown() {
+        command = STOP;
+        await(start);
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public int getTileCount() {
+        return tiles.length;
+    }
+
+    public int getThreadCount() {
+        return workers.length;
+    }
+
+    /**
+     * Hand every robot of the store to the tile it stands on
+     */
+    private void distribute() {
+        for (Tile tile : tiles) {
+            tile.size = 0;
+        }
+        int lastRow = gridManager.getRows() - 1;
+        for (int id = 0; id < store.size(); id++) {
+            // Finished robots may stand below the grid; they never move again
+            int row = Math.min(store.getRow(id), lastRow);
+            Tile tile = tiles[(row / tileHeight) * tileCols + store.getCol(id) / tileWidth];
+            tile.add(id, store.getRow(id), store.getCol(id), store.getType(id), store.getMissionState(id));
+        }
+        storeVersion = store.getModCount();
+    }
+
+    private void work(int first, int last) {
+        try {
+            while (true) {
+                start.await();
+                int phase = command;
+                if (phase == STOP) {
+                    return;
+                }
+                try {
+                    for (int t = first; t < last; t++) {
+                        tiles[t].step(phase == STEP_POLLUTERS);
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+                handover.await();
+                for (int t = first; t < last; t++) {
+                    tiles[t].drain();
+                }
+                done.await();
+            }
+        } catch (InterruptedException | BrokenBarrierException e) {
+            failure = e;
+        }
+    }
+
+    private void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tile workers", e);
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException("Tile workers stopped", failure != null ? failure : e);
+        }
+    }
+
+    /**
+     * Robots leaving a tile towards one neighbour, as flat int records.
+     * Written by the owner of the source tile during the step phase and
+     * emptied by the owner of the destination tile during the drain phase.
+     */
+    private static final class Mailbox {
+        private int[] records = new int[4 * RECORD];
+        private int length;
+
+        void post(int id, int row, int col, int type, int state) {
+            if (length + RECORD > records.length) {
+                records = Arrays.copyOf(records, records.length * 2);
+            }
+            records[length] = id;
+            records[length + 1] = row;
+            records[length + 2] = col;
+            records[length + 3] = type;
+            records[length + 4] = state;
+            length += RECORD;
+        }
+    }
+
+    private final class Tile {
+        private final int tileRow;
+        private final int tileCol;
+        private final int top;
+        private final int left;
+        private final int bottom;
+        private final int right;
+        // Mailboxes by direction: (rowStep + 1) * 3 + (colStep + 1)
+        private final Mailbox[] outbox = new Mailbox[9];
+        private int[] id = new int[16];
+        private int[] row = new int[16];
+        private int[] col = new int[16];
+        private byte[] type = new byte[16];
+        private int[] state = new int[16];
+        private int size;
+        private int coloredDelta;
+        private int running; // Robots of the phase still running after the last step
+
+        Tile(int tileRow, int tileCol) {
+            this.tileRow = tileRow;
+            this.tileCol = tileCol;
+            this.top = tileRow * tileHeight;
+            this.left = tileCol * tileWidth;
+            this.bottom = Math.min(gridManager.getRows(), top + tileHeight);
+            this.right = Math.min(gridManager.getCols(), left + tileWidth);
+            for (int d = 0; d < outbox.length; d++) {
+                outbox[d] = new Mailbox();
+            }
+        }
+
+        void add(int robotId, int robotRow, int robotCol, byte robotType, int robotState) {
+            if (size == id.length) {
+                int capacity = id.length * 2;
+                id = Arrays.copyOf(id, capacity);
+                row = Arrays.copyOf(row, capacity);
+                col = Arrays.copyOf(col, capacity);
+                type = Arrays.copyOf(type, capacity);
+                state = Arrays.copyOf(state, capacity);
+            }
+            id[size] = robotId;
+            row[size] = robotRow;
+            col[size] = robotCol;
+            type[size] = robotType;
+            state[size] = robotState;
+            size++;
+        }
+
+        /**
+         * Step phase: same rules as RobotStore, fused into one loop per tile.
+         * Robots that left the tile are handed over in a second pass, which
+         * only runs on the few ticks where one crossed a boundary.
+         */
+        void step(boolean polluters) {
+            GridBuffer buffer = gridManager.getBuffer();
+            byte[] walls = buffer.wallArray();
+            int rows = buffer.getRows();
+            int cols = buffer.getCols();
+            int amount = polluters ? GridConstants.POLLUTION_AMOUNT : -GridConstants.CLEANING_AMOUNT;
+            int delta = 0;
+            int stillRunning = 0;
+            boolean crossed = false;
+
+            for (int i = 0; i < size; i++) {
+                if (state[i] != RobotStore.MISSION_RUNNING || (type[i] == RobotStore.TYPE_STRAIGHT_POLLUTER) != polluters) {
+                    continue;
+                }
+                int r = row[i];
+                int c = col[i];
+                int s = RobotStore.MISSION_RUNNING;
+                if (walls[r * cols + c] != 0) {
+                    s = RobotStore.MISSION_WALL_HIT;
+                } else {
+                    delta += buffer.addDirt(r, c, amount);
+                    int nextCol = c + 1 - ((r & 1) << 1);
+                    if (type[i] != RobotStore.TYPE_COMPLETE_CLEANER || nextCol < 0 || nextCol >= cols) {
+                        r++;
+                    } else {
+                        c = nextCol;
+                    }
+                    if (r >= rows) {
+                        s = RobotStore.MISSION_COMPLETE;
+                    }
+                }
+                row[i] = r;
+                col[i] = c;
+                state[i] = s;
+                store.update(id[i], r, c, s);
+                stillRunning += s == RobotStore.MISSION_RUNNING ? 1 : 0;
+                crossed |= s == RobotStore.MISSION_RUNNING && !contains(r, c);
+            }
+            coloredDelta = delta;
+            running = stillRunning;
+            if (crossed) {
+                handOver();
+            }
+        }
+
+        private boolean contains(int r, int c) {
+            return r >= top && r < bottom && c >= left && c < right;
+        }
+
+        /**
+         * Post the running robots that left the tile to the neighbour they
+         * moved to and compact the rest
+         */
+        private void handOver() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int r = row[i];
+                int c = col[i];
+                if (state[i] == RobotStore.MISSION_RUNNING && !contains(r, c)) {
+                    int rowStep = r < top ? -1 : r >= bottom ? 1 : 0;
+                    int colStep = c < left ? -1 : c >= right ? 1 : 0;
+                    outbox[(rowStep + 1) * 3 + colStep + 1].post(id[i], r, c, type[i], state[i]);
+                    continue;
+                }
+                id[kept] = id[i];
+                row[kept] = r;
+                col[kept] = c;
+                type[kept] = type[i];
+                state[kept] = state[i];
+                kept++;
+            }
+            size = kept;
+        }
+
+        /**
+         * Drain phase: take in the robots the neighbours posted to this tile
+         */
+        void drain() {
+            for (int rowStep = -1; rowStep <= 1; rowStep++) {
+                for (int colStep = -1; colStep <= 1; colStep++) {
+                    int tr = tileRow + rowStep;
+                    int tc = tileCol + colStep;
+                    if ((rowStep == 0 && colStep == 0) || tr < 0 || tr >= tileRows || tc < 0 || tc >= tileCols) {
+                        continue;
+                    }
+                    // The neighbour posted in the opposite direction
+                    Mailbox mailbox = tiles[tr * tileCols + tc].outbox[(1 - rowStep) * 3 + 1 - colStep];
+                    int[] records = mailbox.records;
+                    for (int k = 0; k < mailbox.length; k += RECORD) {
+                        add(records[k], records[k + 1], records[k + 2], (byte) records[k + 3], records[k + 4]);
+                    }
+                    mailbox.length = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package robotsimulator.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+
+import robotsimulator.core.RobotStore;
+import robotsimulator.model.DirtDiffusionStage;
+import robotsimulator.model.GridBuffer;
+import robotsimulator.model.GridConstants;
+import robotsimulator.model.GridKernels;
+
+/**
+ * One process of a distributed run: owns a band of grid rows and the bulk
+ * robots standing in it, and steps them when the Coordinator says so.
+ * The band is stored with one ghost row above and below, which hold the
+ * neighbours' edge rows during dirt diffusion (or walls at the grid edge).
+ * The coordinator sends the band, so a node never holds the whole grid.
+ * <pre>
+ * java -cp ... robotsimulator.distributed.BandNode unix:/tmp/sim.sock
+ * </pre>
+ */
+public class BandNode {
+    private final SocketAddress coordinator;
+    private final RobotBatch robots = new RobotBatch();
+    private final RobotBatch leaving = new RobotBatch();
+    private GridBuffer band;
+    private DirtDiffusionStage dirtStage;
+    private int firstRow;
+    private int lastRow;
+    private int gridRows;
+    private int cols;
+    private int dirtyCells;
+
+    public BandNode(SocketAddress coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: BandNode <coordinator address>");
+            System.exit(2);
+        }
+        try {
+            new BandNode(Protocol.parseAddress(args[0])).run();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Band node failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Connect to the coordinator and serve steps until it says stop
+     */
+    public void run() throws IOException {
+        try (SocketChannel channel = Protocol.connect(coordinator)) {
+            DataInputStream in = Protocol.input(channel);
+            DataOutputStream out = Protocol.output(channel);
+            out.writeByte(Protocol.HELLO);
+            out.writeInt(Protocol.MAGIC);
+            out.flush();
+
+            Protocol.expect(in, Protocol.ASSIGN);
+            int index = in.readInt();
+            int nodes = in.readInt();
+            takeBand(in);
+            System.out.println("Node " + (index + 1) + "/" + nodes + ": rows " + (firstRow + 1) + "-" + lastRow
+                    + ", " + robots.size() + " robots");
+
+            out.writeByte(Protocol.READY);
+            out.writeInt(dirtyCells);
+            out.flush();
+            serve(in, out);
+        }
+    }
+
+    /**
+     * Read the band rows, ghost rows included, the dirt diffusion settings
+     * and the robots standing in the band
+     */
+    private void takeBand(DataInputStream in) throws IOException {
+        gridRows = in.readInt();
+        cols = in.readInt();
+        firstRow = in.readInt();
+        lastRow = in.readInt();
+        int permille = in.readInt();
+        int decay = in.readInt();
+        dirtStage = permille < 0 ? null : new DirtDiffusionStage(permille, decay);
+        band = new GridBuffer(lastRow - firstRow + 2, cols);
+        byte[] walls = band.wallArray();
+        byte[] dirt = band.dirtArray();
+        for (int offset = 0; offset < walls.length; offset += cols) {
+            in.readFully(walls, offset, cols);
+            in.readFully(dirt, offset, cols);
+        }
+        Protocol.readRobots(in, robots);
+        countDirtyCells();
+    }
+
+    private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        byte[] edge = new byte[cols];
+        while (true) {
+            byte message = in.readByte();
+            if (message == Protocol.STOP) {
+                return;
+            }
+            if (message == Protocol.STEP) {
+                boolean polluters = in.readByte() == Protocol.PHASE_POLLUTERS;
+                Protocol.readRobots(in, robots);
+                int running = step(polluters);
+                out.writeByte(Protocol.RESULT);
+                out.writeInt(dirtyCells);
+                out.writeInt(running);
+                Protocol.writeRobots(out, leaving);
+                leaving.clear();
+                if (!polluters && dirtStage != null) {
+                    out.write(band.dirtArray(), cols, cols);
+                    out.write(band.dirtArray(), (lastRow - firstRow) * cols, cols);
+                }
+            } else if (message == Protocol.DIFFUSE) {
+                byte[] dirt = band.dirtArray();
+                in.readFully(edge);
+                System.arraycopy(edge, 0, dirt, 0, cols);
+                in.readFully(edge);
+                System.arraycopy(edge, 0, dirt, (lastRow - firstRow + 1) * cols, cols);
+                dirtStage.step(band);
+                countDirtyCells();
+                out.writeByte(Protocol.DIFFUSED);
+                out.writeInt(dirtyCells);
+            } else {
+                throw new IOException("Unexpected message " + message);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Step the robots of one phase with the RobotStore rules.
+     * Returns how many of them are still running, counting those that
+     * crossed into the next band.
+     */
+    private int step(boolean polluters) {
+        byte[] walls = band.wallArray();
+        int amount = polluters ? GridConstants.POLLUTION_AMOUNT : -GridConstants.CLEANING_AMOUNT;
+        int running = 0;
+        int kept = 0;
+        for (int i = 0; i < robots.size(); i++) {
+            int id = robots.id(i);
+            int r = robots.row(i);
+            int c = robots.col(i);
+            byte type = robots.type(i);
+            if ((type == RobotStore.TYPE_STRAIGHT_POLLUTER) == polluters) {
+                int local = r - firstRow + 1;
+                if (walls[local * cols + c] != 0) {
+                    continue; // Wall hit
+                }
+                dirtyCells += band.addDirt(local, c, amount);
+                int nextCol = c + 1 - ((r & 1) << 1);
+                if (type != RobotStore.TYPE_COMPLETE_CLEANER || nextCol < 0 || nextCol >= cols) {
+                    r++;
+                } else {
+                    c = nextCol;
+                }
+                if (r >= gridRows) {
+                    continue; // Mission complete
+                }
+                running++;
+                if (r >= lastRow) {
+                    leaving.add(id, r, c, type);
+                    continue;
+                }
+            }
+            robots.set(kept++, id, r, c, type);
+        }
+        robots.truncate(kept);
+        return running;
+    }
+
+    private void countDirtyCells() {
+        dirtyCells = GridKernels.get().countDirtyInRegion(band, 1, 0, lastRow - firstRow + 1, cols);
+    }
+}
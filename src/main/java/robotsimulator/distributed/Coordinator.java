@@ -0,0 +1,293 @@
+package robotsimulator.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import robotsimulator.core.RobotManager;
+import robotsimulator.core.RobotStore;
+import robotsimulator.core.Scenario;
+import robotsimulator.model.GridBuffer;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Runs a scenario across several BandNode processes. The coordinator
+ * builds the scenario once, sends every node its band of grid rows and
+ * the robots in it, and drops the grid again. It then drives the ticks as
+ * request/reply rounds (which act as the tick barriers), forwards robots
+ * crossing a band edge and the edge rows needed for dirt diffusion, and
+ * sums the dirty cell counts.
+ * <pre>
+ * java -cp ... robotsimulator.distributed.Coordinator unix:/tmp/sim.sock 4 scenarios/bulk.txt
+ * </pre>
+ * then start 4 BandNodes on the same address.
+ */
+public class Coordinator {
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final int nodes;
+    private final Scenario scenario;
+    private final SocketChannel[] channels;
+    private final DataInputStream[] in;
+    private final DataOutputStream[] out;
+    private final RobotBatch[] crossing;
+    private final int[] dirty;
+    private int rows;
+    private int cols;
+    private byte[][] firstRows;
+    private byte[][] lastRows;
+    private byte[] wallRow; // Stands in for the rows beyond the grid edge
+    private boolean diffusion;
+
+    /**
+     * Outcome of a distributed run
+     */
+    public record Result(int rows, int cols, int ticks, boolean allComplete, int dirtyCells, int freeCells,
+                         long runNanos) {
+        public double coverage() {
+            return freeCells == 0 ? 100.0 : (double) (freeCells - dirtyCells) / freeCells * 100.0;
+        }
+    }
+
+    /**
+     * Bind the address right away, so nodes can connect as soon as this returns
+     */
+    public Coordinator(SocketAddress address, int nodes, Scenario scenario) throws IOException {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("At least one node is needed");
+        }
+        this.server = Protocol.listen(address);
+        this.address = server.getLocalAddress();
+        this.nodes = nodes;
+        this.scenario = scenario;
+        this.channels = new SocketChannel[nodes];
+        this.in = new DataInputStream[nodes];
+        this.out = new DataOutputStream[nodes];
+        // One extra slot takes the (always empty) batch of the last band
+        this.crossing = new RobotBatch[nodes + 1];
+        for (int i = 0; i <= nodes; i++) {
+            crossing[i] = new RobotBatch();
+        }
+        this.dirty = new int[nodes];
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: Coordinator <address> <nodes> <scenario file>");
+            System.exit(2);
+        }
+        try {
+            Scenario scenario = Scenario.load(Path.of(args[2]));
+            Coordinator coordinator = new Coordinator(Protocol.parseAddress(args[0]),
+                    Integer.parseInt(args[1]), scenario);
+            System.out.println("Waiting for " + args[1] + " nodes on " + coordinator.getAddress());
+            print(coordinator.run(), Integer.parseInt(args[1]));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Distributed run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Bound address, in the form nodes take on their command line
+     */
+    public String getAddress() {
+        return Protocol.describe(address);
+    }
+
+    /**
+     * Wait for all nodes, run the scenario to completion or its tick limit
+     * and stop the nodes
+     */
+    public Result run() throws IOException {
+        try {
+            acceptNodes();
+            int freeCells = assignBands();
+            int tickLimit = scenario.getTickLimit();
+
+            long runStart = System.nanoTime();
+            int ticks = 0;
+            boolean allComplete = false;
+            while (ticks < tickLimit && !allComplete) {
+                boolean pollutersDone = step(Protocol.PHASE_POLLUTERS);
+                boolean cleanersDone = step(Protocol.PHASE_CLEANERS);
+                if (diffusion) {
+                    diffuse();
+                }
+                allComplete = pollutersDone && cleanersDone;
+                ticks++;
+            }
+            long runNanos = System.nanoTime() - runStart;
+
+            for (DataOutputStream stream : out) {
+                stream.writeByte(Protocol.STOP);
+                stream.flush();
+            }
+            return new Result(rows, cols, ticks, allComplete, sum(dirty), freeCells, runNanos);
+        } finally {
+            for (SocketChannel channel : channels) {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+            server.close();
+            Protocol.unlink(address);
+        }
+    }
+
+    private void acceptNodes() throws IOException {
+        for (int i = 0; i < nodes; i++) {
+            channels[i] = server.accept();
+            Protocol.configure(channels[i]);
+            in[i] = Protocol.input(channels[i]);
+            out[i] = Protocol.output(channels[i]);
+            Protocol.expect(in[i], Protocol.HELLO);
+            if (in[i].readInt() != Protocol.MAGIC) {
+                throw new IOException("Node " + (i + 1) + " does not speak the band protocol");
+            }
+        }
+    }
+
+    /**
+     * Build the scenario and send node i rows [rows * i / nodes,
+     * rows * (i + 1) / nodes) with a ghost row on either side, and the
+     * robots standing in them. Nothing of the grid is kept afterwards.
+     * Returns the number of free cells in the grid.
+     */
+    private int assignBands() throws IOException {
+        if (scenario.hasObjectRobots()) {
+            throw new IllegalArgumentException("distributed runs only step bulk robots");
+        }
+        GridManager gridManager = scenario.createGrid();
+        RobotManager robotManager = scenario.createRobots(gridManager);
+        robotManager.setAsyncPathfinding(0, false);
+        robotManager.setTiledStepping(0, 0, 0);
+        RobotStore store = robotManager.getRobotStore();
+        GridBuffer grid = gridManager.getBuffer();
+        rows = grid.getRows();
+        cols = grid.getCols();
+        if (rows < nodes) {
+            throw new IOException("More nodes than grid rows");
+        }
+        int[] settings = scenario.getDiffusion();
+        diffusion = settings != null;
+        byte[] walls = grid.wallArray();
+        byte[] dirt = grid.dirtArray();
+        byte[] outsideWalls = new byte[cols];
+        Arrays.fill(outsideWalls, (byte) 1); // Walls exchange nothing, like the grid edge
+        byte[] outsideDirt = new byte[cols];
+        RobotBatch band = new RobotBatch();
+        for (int i = 0; i < nodes; i++) {
+            int from = (int) ((long) rows * i / nodes);
+            int to = (int) ((long) rows * (i + 1) / nodes);
+            out[i].writeByte(Protocol.ASSIGN);
+            out[i].writeInt(i);
+            out[i].writeInt(nodes);
+            out[i].writeInt(rows);
+            out[i].writeInt(cols);
+            out[i].writeInt(from);
+            out[i].writeInt(to);
+            out[i].writeInt(diffusion ? settings[0] : -1);
+            out[i].writeInt(diffusion ? settings[1] : 0);
+            for (int row = from - 1; row <= to; row++) {
+                if (row < 0 || row >= rows) {
+                    out[i].write(outsideWalls);
+                    out[i].write(outsideDirt);
+                } else {
+                    out[i].write(walls, row * cols, cols);
+                    out[i].write(dirt, row * cols, cols);
+                }
+            }
+            band.clear();
+            for (int id = 0; id < store.size(); id++) {
+                int row = store.getRow(id);
+                if (store.getMissionState(id) == RobotStore.MISSION_RUNNING && row >= from && row < to) {
+                    band.add(id, row, store.getCol(id), store.getType(id));
+                }
+            }
+            Protocol.writeRobots(out[i], band);
+            out[i].flush();
+        }
+        int freeCells = 0;
+        for (byte wall : walls) {
+            freeCells += wall == 0 ? 1 : 0;
+        }
+        for (int i = 0; i < nodes; i++) {
+            Protocol.expect(in[i], Protocol.READY);
+            dirty[i] = in[i].readInt();
+        }
+        if (diffusion) {
+            firstRows = new byte[nodes][cols];
+            lastRows = new byte[nodes][cols];
+            wallRow = new byte[cols];
+        }
+        return freeCells;
+    }
+
+    /**
+     * One step round: every node gets the robots that crossed into its band
+     * during the previous step of this phase. Returns true when no robot of
+     * the phase is running any more.
+     */
+    private boolean step(byte phase) throws IOException {
+        for (int i = 0; i < nodes; i++) {
+            out[i].writeByte(Protocol.STEP);
+            out[i].writeByte(phase);
+            Protocol.writeRobots(out[i], crossing[i]);
+            crossing[i].clear();
+            out[i].flush();
+        }
+        int running = 0;
+        for (int i = 0; i < nodes; i++) {
+            Protocol.expect(in[i], Protocol.RESULT);
+            dirty[i] = in[i].readInt();
+            running += in[i].readInt();
+            Protocol.readRobots(in[i], crossing[i + 1]);
+            if (diffusion && phase == Protocol.PHASE_CLEANERS) {
+                in[i].readFully(firstRows[i]);
+                in[i].readFully(lastRows[i]);
+            }
+        }
+        return running == 0;
+    }
+
+    /**
+     * Diffusion round: every node gets the edge rows of its neighbours
+     */
+    private void diffuse() throws IOException {
+        for (int i = 0; i < nodes; i++) {
+            out[i].writeByte(Protocol.DIFFUSE);
+            out[i].write(i > 0 ? lastRows[i - 1] : wallRow);
+            out[i].write(i < nodes - 1 ? firstRows[i + 1] : wallRow);
+            out[i].flush();
+        }
+        for (int i = 0; i < nodes; i++) {
+            Protocol.expect(in[i], Protocol.DIFFUSED);
+            dirty[i] = in[i].readInt();
+        }
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static void print(Result result, int nodes) {
+        double runMillis = result.runNanos() / 1e6;
+        System.out.println("Grid:            " + result.rows() + " x " + result.cols() + " on " + nodes + " nodes");
+        System.out.println("Ticks:           " + result.ticks()
+                + (result.allComplete() ? " (all missions complete)" : " (tick limit)"));
+        System.out.println("Dirty cells:     " + result.dirtyCells());
+        System.out.println(String.format("Coverage:        %.1f%%", result.coverage()));
+        System.out.println(String.format("Run:             %.1f ms (%.0f ticks/s)",
+                runMillis, runMillis > 0 ? result.ticks() / (runMillis / 1000) : 0.0));
+    }
+}
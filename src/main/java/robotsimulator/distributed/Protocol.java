@@ -0,0 +1,159 @@
+package robotsimulator.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+
+/**
+ * Wire format shared by the Coordinator and its BandNodes.
+ * Every message is one type byte followed by big-endian fields
+ * (DataOutputStream). Robots travel as 13-byte records: id, row, col
+ * (ints, global 0-based) and type (byte); only running robots are sent.
+ * Wall and dirt rows travel as one byte per cell. All traffic goes
+ * through the coordinator, so each node only holds one connection.
+ * <pre>
+ * node -> coordinator  HELLO    magic
+ * coordinator -> node  ASSIGN   index, nodes, gridRows, cols, firstRow, lastRow (exclusive),
+ *                               diffusion permille (-1 for none), decay,
+ *                               walls and dirt of each row from firstRow - 1 to lastRow
+ *                               (rows beyond the grid are walls), robots in the band
+ * node -> coordinator  READY    dirtyCells
+ * coordinator -> node  STEP     phase, robots crossing into the band
+ * node -> coordinator  RESULT   dirtyCells, running, robots leaving the band
+ *                               [first row, last row: cleaning step with diffusion]
+ * coordinator -> node  DIFFUSE  row above the band, row below the band
+ * node -> coordinator  DIFFUSED dirtyCells
+ * coordinator -> node  STOP
+ * </pre>
+ * A tick is a polluter STEP, a cleaner STEP and, when the scenario has dirt
+ * diffusion, a DIFFUSE round in which each node gets its neighbours' edge
+ * rows as ghost rows. Robots only move down, so they only ever cross into
+ * the next band. Addresses are "host:port", a bare port on localhost, or
+ * "unix:/path/to/socket".
+ */
+final class Protocol {
+    static final int MAGIC = 0x524F4231; // "ROB1"
+
+    static final byte HELLO = 1;
+    static final byte ASSIGN = 2;
+    static final byte READY = 3;
+    static final byte STEP = 4;
+    static final byte RESULT = 5;
+    static final byte DIFFUSE = 6;
+    static final byte DIFFUSED = 7;
+    static final byte STOP = 8;
+
+    static final byte PHASE_POLLUTERS = 0;
+    static final byte PHASE_CLEANERS = 1;
+
+    private static final String UNIX_PREFIX = "unix:";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Protocol() {
+        // Prevent instantiation
+    }
+
+    static SocketAddress parseAddress(String address) {
+        if (address.startsWith(UNIX_PREFIX)) {
+            return UnixDomainSocketAddress.of(address.substring(UNIX_PREFIX.length()));
+        }
+        int colon = address.lastIndexOf(':');
+        String host = colon < 0 ? "localhost" : address.substring(0, colon);
+        try {
+            return new InetSocketAddress(host, Integer.parseInt(address.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad address '" + address + "'");
+        }
+    }
+
+    static ServerSocketChannel listen(SocketAddress address) throws IOException {
+        ServerSocketChannel server;
+        if (address instanceof UnixDomainSocketAddress unix) {
+            // A socket file left by an earlier run would make bind fail
+            Files.deleteIfExists(unix.getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        return server.bind(address);
+    }
+
+    /**
+     * Remove the socket file of a Unix domain address, if any
+     */
+    static void unlink(SocketAddress address) throws IOException {
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+        }
+    }
+
+    static SocketChannel connect(SocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        configure(channel);
+        return channel;
+    }
+
+    static void configure(SocketChannel channel) throws IOException {
+        if (!(channel.getRemoteAddress() instanceof UnixDomainSocketAddress)) {
+            // Messages are small and strictly request/reply
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+    }
+
+    static DataInputStream input(SocketChannel channel) {
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+    }
+
+    static DataOutputStream output(SocketChannel channel) {
+        return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    }
+
+    static void expect(DataInputStream in, byte type) throws IOException {
+        byte actual = in.readByte();
+        if (actual != type) {
+            throw new IOException("Expected message " + type + ", got " + actual);
+        }
+    }
+
+    /**
+     * Write a batch of robots: count, then 13-byte records
+     */
+    static void writeRobots(DataOutputStream out, RobotBatch batch) throws IOException {
+        out.writeInt(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            out.writeInt(batch.id(i));
+            out.writeInt(batch.row(i));
+            out.writeInt(batch.col(i));
+            out.writeByte(batch.type(i));
+        }
+    }
+
+    static void readRobots(DataInputStream in, RobotBatch batch) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            batch.add(in.readInt(), in.readInt(), in.readInt(), in.readByte());
+        }
+    }
+
+    /**
+     * Address in the form parseAddress accepts
+     */
+    static String describe(SocketAddress address) {
+        if (address instanceof UnixDomainSocketAddress unix) {
+            return UNIX_PREFIX + unix.getPath();
+        }
+        InetSocketAddress inet = (InetSocketAddress) address;
+        return inet.getHostString() + ":" + inet.getPort();
+    }
+}
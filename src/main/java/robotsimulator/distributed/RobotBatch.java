@@ -0,0 +1,79 @@
+package robotsimulator.distributed;
+
+import java.util.Arrays;
+
+/**
+ * Growable struct-of-arrays list of running bulk robots (global ids and
+ * 0-based positions), used for a band's robots and for the ones crossing
+ * into the next band.
+ */
+final class RobotBatch {
+    private int[] id = new int[16];
+    private int[] row = new int[16];
+    private int[] col = new int[16];
+    private byte[] type = new byte[16];
+    private int size;
+
+    void add(int robotId, int robotRow, int robotCol, byte robotType) {
+        if (size == id.length) {
+            int capacity = id.length * 2;
+            id = Arrays.copyOf(id, capacity);
+            row = Arrays.copyOf(row, capacity);
+            col = Arrays.copyOf(col, capacity);
+            type = Arrays.copyOf(type, capacity);
+        }
+        id[size] = robotId;
+        row[size] = robotRow;
+        col[size] = robotCol;
+        type[size] = robotType;
+        size++;
+    }
+
+    /**
+     * Append all robots of another batch and empty it
+     */
+    void takeAll(RobotBatch other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.id[i], other.row[i], other.col[i], other.type[i]);
+        }
+        other.size = 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Keep the first count robots
+     */
+    void truncate(int count) {
+        size = count;
+    }
+
+    void set(int i, int robotId, int robotRow, int robotCol, byte robotType) {
+        id[i] = robotId;
+        row[i] = robotRow;
+        col[i] = robotCol;
+        type[i] = robotType;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int id(int i) {
+        return id[i];
+    }
+
+    int row(int i) {
+        return row[i];
+    }
+
+    int col(int i) {
+        return col[i];
+    }
+
+    byte type(int i) {
+        return type[i];
+    }
+}
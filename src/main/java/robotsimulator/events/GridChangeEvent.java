@@ -0,0 +1,28 @@
+package robotsimulator.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A change made to many cells at once: a bulk robot step or a dirt
+ * diffusion pass
+ */
+@Name("robotsimulator.GridChange")
+@Label("Bulk Grid Change")
+@Category({"Robot Simulator", "Grid"})
+@StackTrace(false)
+public class GridChangeEvent extends jdk.jfr.Event {
+    @Label("Source")
+    public String source;
+
+    @Label("Dirty Cell Change")
+    @Description("Change of the dirty cell count")
+    public int dirtyDelta;
+
+    @Label("Dirty Cells")
+    @Description("Dirty cells after the change")
+    public int dirtyCells;
+}
@@ -0,0 +1,27 @@
+package robotsimulator.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A robot finished its mission. Bulk robots are not reported one by one;
+ * their steps show up as GridChange events.
+ */
+@Name("robotsimulator.MissionCompleted")
+@Label("Mission Completed")
+@Category({"Robot Simulator", "Missions"})
+@StackTrace(false)
+public class MissionCompletedEvent extends jdk.jfr.Event {
+    @Label("Robot Type")
+    public String robotType;
+
+    @Label("Robot")
+    @Description("Robot and the cell it finished on")
+    public String robot;
+
+    @Label("Tick")
+    public int tick;
+}
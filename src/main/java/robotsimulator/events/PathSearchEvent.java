@@ -0,0 +1,45 @@
+package robotsimulator.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Time spent searching a path. A search done in one go is one event; an
+ * incremental search spread over mission steps gives one event per step,
+ * timing only the search work of that step, and the last one has the result.
+ */
+@Name("robotsimulator.PathSearch")
+@Label("Path Search")
+@Category({"Robot Simulator", "Planning"})
+@Description("Path search of a smart cleaner or a pathfinding worker")
+@StackTrace(false)
+public class PathSearchEvent extends jdk.jfr.Event {
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Start Cell")
+    @Description("Flat 0-based cell index")
+    public int start;
+
+    @Label("Goal Cell")
+    @Description("Flat 0-based cell index")
+    public int goal;
+
+    @Label("Nodes Expanded")
+    @Description("Nodes expanded during this event")
+    public int expansions;
+
+    @Label("Path Length")
+    @Description("Cells to walk from the start cell, -1 if no path was found (yet) or the algorithm only gives the next step")
+    public int pathLength;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Finished")
+    @Description("False for a step of an incremental search that goes on at the next step")
+    public boolean finished;
+}
@@ -0,0 +1,32 @@
+package robotsimulator.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase of a mission tick (polluters, then cleaners), from its first
+ * robot step to its last grid update
+ */
+@Name("robotsimulator.Tick")
+@Label("Tick Phase")
+@Category({"Robot Simulator", "Ticks"})
+@Description("Polluter or cleaner phase of one mission tick")
+@StackTrace(false)
+public class TickEvent extends jdk.jfr.Event {
+    @Label("Tick")
+    public int tick;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Dirty Cells")
+    @Description("Dirty cells at the end of the phase")
+    public int dirtyCells;
+
+    @Label("Phase Complete")
+    @Description("Every mission of the phase is complete")
+    public boolean complete;
+}
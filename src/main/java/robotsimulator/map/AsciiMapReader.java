@@ -0,0 +1,86 @@
+package robotsimulator.map;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Reads text maps, one character per cell and one line per row.
+ * '#', '@', 'O', 'T', 'W' and 'X' are walls, anything else is free; short
+ * lines are padded with free cells. Files with a MovingAI benchmark header
+ * ("type", "height", "width", "map" lines) take their size from it, plain
+ * files are scanned once to find it.
+ */
+final class AsciiMapReader {
+    private static final byte[] MOVING_AI_HEADER = "type ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WALL_CHARS = new byte[256];
+
+    static {
+        for (char c : "#@OTWX".toCharArray()) {
+            WALL_CHARS[c] = 1;
+        }
+    }
+
+    private AsciiMapReader() {
+        // Prevent instantiation
+    }
+
+    static GridBuffer read(Path file, MapInput in) throws IOException {
+        int rows;
+        int cols;
+        if (in.startsWith(MOVING_AI_HEADER)) {
+            rows = -1;
+            cols = -1;
+            String line;
+            while ((line = in.readLine()) != null && !line.trim().equals("map")) {
+                String[] words = line.trim().split("\\s+");
+                if (words.length == 2 && words[0].equals("height")) {
+                    rows = parseSize(words[1]);
+                } else if (words.length == 2 && words[0].equals("width")) {
+                    cols = parseSize(words[1]);
+                }
+            }
+            if (rows < 0 || cols < 0) {
+                throw new IOException("Map header without height and width");
+            }
+        } else {
+            int[] size = measure(file);
+            rows = size[0];
+            cols = size[1];
+        }
+
+        GridBuffer grid = MapLoader.newGrid(rows, cols);
+        byte[] walls = grid.wallArray();
+        for (int row = 0; row < rows; row++) {
+            if (in.readLine(walls, row * cols, cols, WALL_CHARS) < 0) {
+                throw new IOException("Map has " + row + " rows, " + rows + " expected");
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Count the lines and the longest line of a plain text map
+     */
+    private static int[] measure(Path file) throws IOException {
+        int[] size;
+        try (MapInput in = new MapInput(Files.newInputStream(file))) {
+            size = in.countLines();
+        }
+        if (size[0] == 0 || size[1] == 0) {
+            throw new IOException("Empty map");
+        }
+        return size;
+    }
+
+    private static int parseSize(String word) throws IOException {
+        try {
+            return Integer.parseInt(word);
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad map size '" + word + "'");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package robotsimulator.map;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Office-like floor plans for benchmarks and demos: blocks of rooms
+ * separated by corridors, one door per room, some desks. The same size and
+ * seed always give the same plan, and every free cell is reachable.
+ * Runs in time linear in the number of cells.
+ */
+public final class FloorPlan {
+    private static final int CORRIDOR = 3;
+    private static final int MIN_BLOCK = 14;
+    private static final int BLOCK_SPREAD = 24;
+    private static final int MIN_ROOM = 6;
+    private static final int ROOM_SPREAD = 9;
+    private static final int DOOR = 2;
+
+    private final GridBuffer grid;
+    private final byte[] walls;
+    private final int cols;
+    private final Random random;
+
+    private FloorPlan(GridBuffer grid, long seed) {
+        this.grid = grid;
+        this.walls = grid.wallArray();
+        this.cols = grid.getCols();
+        this.random = new Random(seed);
+    }
+
+    public static GridBuffer generate(int rows, int cols, long seed) {
+        GridBuffer grid = new GridBuffer(rows, cols);
+        build(grid, seed);
+        return grid;
+    }
+
+    /**
+     * Draw a plan over the walls of a grid that has none yet
+     */
+    static void build(GridBuffer grid, long seed) {
+        new FloorPlan(grid, seed).build();
+    }
+
+    private void build() {
+        int rows = grid.getRows();
+        fill(0, 0, 0, cols - 1);
+        fill(rows - 1, 0, rows - 1, cols - 1);
+        fill(0, 0, rows - 1, 0);
+        fill(0, cols - 1, rows - 1, cols - 1);
+
+        int[] rowBlocks = blocks(rows);
+        int[] colBlocks = blocks(cols);
+        for (int i = 0; i < rowBlocks.length; i += 2) {
+            for (int j = 0; j < colBlocks.length; j += 2) {
+                block(rowBlocks[i], colBlocks[j], rowBlocks[i + 1], colBlocks[j + 1]);
+            }
+        }
+    }
+
+    /**
+     * Split one axis into blocks with corridors in between: {start, end, ...}
+     * inclusive. Whatever is too short for a block stays an open hall.
+     */
+    private int[] blocks(int size) {
+        int[] ranges = new int[2 * (size / MIN_BLOCK + 1)];
+        int count = 0;
+        int position = 1 + CORRIDOR;
+        while (true) {
+            int length = MIN_BLOCK + random.nextInt(BLOCK_SPREAD);
+            if (position + length + CORRIDOR > size - 1) {
+                break;
+            }
+            ranges[count++] = position;
+            ranges[count++] = position + length - 1;
+            position += length + CORRIDOR;
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    /**
+     * Walled block of rooms; tall blocks get two rows of rooms back to back
+     */
+    private void block(int top, int left, int bottom, int right) {
+        fill(top, left, top, right);
+        fill(bottom, left, bottom, right);
+        fill(top, left, bottom, left);
+        fill(top, right, bottom, right);
+        if (bottom - top >= 2 * MIN_ROOM) {
+            int middle = (top + bottom) / 2;
+            fill(middle, left, middle, right);
+            roomRow(top, middle, left, right, top);
+            roomRow(middle, bottom, left, right, bottom);
+        } else {
+            roomRow(top, bottom, left, right, top);
+        }
+    }
+
+    /**
+     * Rooms between rows top and bottom (both walls), each with a door in doorRow
+     */
+    private void roomRow(int top, int bottom, int left, int right, int doorRow) {
+        int col = left;
+        while (col < right) {
+            int next = col + MIN_ROOM + random.nextInt(ROOM_SPREAD);
+            if (next > right - MIN_ROOM) {
+                next = right;
+            }
+            fill(top, next, bottom, next);
+
+            int width = next - col - 1;
+            int door = col + 1 + random.nextInt(width - DOOR + 1);
+            clear(doorRow, door, doorRow, door + DOOR - 1);
+
+            int height = bottom - top - 1;
+            if (width >= 6 && height >= 6 && random.nextBoolean()) {
+                int deskRow = top + 2 + random.nextInt(height - 4);
+                fill(deskRow, col + 2, deskRow + 1, col + 4);
+            }
+            col = next;
+        }
+    }
+
+    private void fill(int top, int left, int bottom, int right) {
+        for (int row = top; row <= bottom; row++) {
+            Arrays.fill(walls, row * cols + left, row * cols + right + 1, (byte) 1);
+        }
+    }
+
+    private void clear(int top, int left, int bottom, int right) {
+        for (int row = top; row <= bottom; row++) {
+            Arrays.fill(walls, row * cols + left, row * cols + right + 1, (byte) 0);
+        }
+    }
+}
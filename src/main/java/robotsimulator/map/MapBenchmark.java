@@ -0,0 +1,67 @@
+package robotsimulator.map;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Times MapLoader on a generated floor plan saved in every format.
+ * The plan only depends on size and seed, so runs are repeatable.
+ * <pre>
+ * java -Xmx2g -cp target/classes robotsimulator.map.MapBenchmark [size] [seed] [runs]
+ * </pre>
+ */
+public class MapBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        GridBuffer plan = FloorPlan.generate(size, size, seed);
+        int wallCount = 0;
+        for (byte wall : plan.wallArray()) {
+            wallCount += wall;
+        }
+        System.out.println(String.format("Floor plan %d x %d, seed %d, %.1f%% walls",
+                size, size, seed, 100.0 * wallCount / plan.size()));
+
+        Path dir = Files.createTempDirectory("robot-maps");
+        try {
+            Path pgm = dir.resolve("plan.pgm");
+            Path png = dir.resolve("plan.png");
+            Path txt = dir.resolve("plan.txt");
+            MapWriter.writePgm(plan, pgm);
+            MapWriter.writePng(plan, png);
+            MapWriter.writeAscii(plan, txt);
+            byte[] expected = plan.wallArray();
+            plan = null; // Let the loads have the heap
+
+            for (Path file : new Path[]{pgm, png, txt}) {
+                long[] times = new long[runs];
+                for (int run = 0; run < runs; run++) {
+                    long start = System.nanoTime();
+                    GridBuffer loaded = MapLoader.load(file);
+                    times[run] = System.nanoTime() - start;
+                    if (!Arrays.equals(expected, loaded.wallArray())) {
+                        System.out.println(file.getFileName() + ": loaded walls differ from the plan");
+                        System.exit(1);
+                    }
+                }
+                Arrays.sort(times);
+                System.out.println(String.format("%-10s %8.1f MB   best %7.1f ms   median %7.1f ms",
+                        file.getFileName(), Files.size(file) / 1e6, times[0] / 1e6, times[runs / 2] / 1e6));
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package robotsimulator.map;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Seedable procedural maps, drawn straight into a grid's wall array in time
+ * linear in the number of cells. The same size, style, difficulty and seed
+ * always give the same map, and every free cell is reachable from every
+ * other one.
+ * <ul>
+ * <li>ROOMS: office blocks, rooms and corridors (see FloorPlan)</li>
+ * <li>MAZE: recursive division; harder mazes have narrower corridors</li>
+ * <li>CLUTTER: open floor with Perlin noise blobs; harder means more of them</li>
+ * </ul>
+ * Difficulty goes from 0 (easy) to 1 (hard) and does not change ROOMS maps.
+ */
+public final class MapGenerator {
+    private static final int MAX_CORRIDOR = 4;
+    private static final double MIN_CLUTTER = 0.05;
+    private static final double MAX_CLUTTER = 0.40;
+    private static final int NOISE_PERIOD = 24; // Cells per noise lattice step
+
+    public enum Style { ROOMS, MAZE, CLUTTER }
+
+    private MapGenerator() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Replace all walls of a grid with a generated map
+     */
+    public static void generate(GridBuffer grid, Style style, double difficulty, long seed) {
+        if (difficulty < 0 || difficulty > 1) {
+            throw new IllegalArgumentException("Difficulty must be between 0 and 1: " + difficulty);
+        }
+        Arrays.fill(grid.wallArray(), (byte) 0);
+        SplittableRandom random = new SplittableRandom(seed);
+        switch (style) {
+            case ROOMS -> FloorPlan.build(grid, seed);
+            case MAZE -> maze(grid, difficulty, random);
+            case CLUTTER -> clutter(grid, difficulty, random);
+        }
+        grid.wallsReplaced();
+    }
+
+    /**
+     * Pick a random start for a straight wall of the given length over free
+     * cells only, as a flat index, or -1 if no such place exists. Every fitting
+     * place is equally likely; two passes over the grid, no retries.
+     */
+    public static int placeSegment(GridBuffer grid, boolean horizontal, int length, Random random) {
+        int count = countSegments(grid, horizontal, length, -1);
+        if (count == 0) {
+            return -1;
+        }
+        return countSegments(grid, horizontal, length, random.nextInt(count));
+    }
+
+    /**
+     * Count the places a segment fits, or with pick >= 0, return the start of the pick-th one
+     */
+    private static int countSegments(GridBuffer grid, boolean horizontal, int length, int pick) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] walls = grid.wallArray();
+        int lines = horizontal ? rows : cols;
+        int span = horizontal ? cols : rows;
+        int step = horizontal ? 1 : cols;
+        int count = 0;
+        for (int line = 0; line < lines; line++) {
+            int first = horizontal ? line * cols : line;
+            int run = 0;
+            for (int k = 0; k < span; k++) {
+                int cell = first + k * step;
+                run = walls[cell] == 0 ? run + 1 : 0;
+                if (run >= length) {
+                    if (count == pick) {
+                        return cell - (length - 1) * step;
+                    }
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Recursive division on a lattice of corridor-wide cells separated by
+     * one-cell walls; each dividing wall gets one gap, which makes a perfect maze
+     */
+    private static void maze(GridBuffer grid, double difficulty, SplittableRandom random) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int corridor = 1 + (int) Math.round((1 - difficulty) * (MAX_CORRIDOR - 1));
+        int period = corridor + 1;
+        int unitRows = (rows - 1) / period;
+        int unitCols = (cols - 1) / period;
+        if (unitRows < 1 || unitCols < 1) {
+            return; // Too small for even one corridor cell
+        }
+        // Frame, including the strips left over below and right of the lattice
+        int lastRow = unitRows * period;
+        int lastCol = unitCols * period;
+        fill(grid, 0, 0, 0, cols - 1);
+        fill(grid, lastRow, 0, rows - 1, cols - 1);
+        fill(grid, 0, 0, rows - 1, 0);
+        fill(grid, 0, lastCol, rows - 1, cols - 1);
+
+        IntStack chambers = new IntStack();
+        chambers.push(0, unitRows, 0, unitCols);
+        while (!chambers.isEmpty()) {
+            int right = chambers.pop();
+            int left = chambers.pop();
+            int bottom = chambers.pop();
+            int top = chambers.pop();
+            int height = bottom - top;
+            int width = right - left;
+            if (height < 2 && width < 2) {
+                continue;
+            }
+            boolean horizontal = width < 2 || (height >= 2 && (height > width || (height == width && random.nextBoolean())));
+            if (horizontal) {
+                int split = top + 1 + random.nextInt(height - 1);
+                int gap = left + random.nextInt(width);
+                fill(grid, split * period, left * period, split * period, right * period);
+                clear(grid, split * period, gap * period + 1, split * period, gap * period + corridor);
+                chambers.push(top, split, left, right);
+                chambers.push(split, bottom, left, right);
+            } else {
+                int split = left + 1 + random.nextInt(width - 1);
+                int gap = top + random.nextInt(height);
+                fill(grid, top * period, split * period, bottom * period, split * period);
+                clear(grid, gap * period + 1, split * period, gap * period + corridor, split * period);
+                chambers.push(top, bottom, left, split);
+                chambers.push(top, bottom, split, right);
+            }
+        }
+    }
+
+    /**
+     * Walls where two octaves of Perlin noise are highest, with the threshold
+     * chosen from a histogram so the wall share matches the difficulty
+     */
+    private static void clutter(GridBuffer grid, double difficulty, SplittableRandom random) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] walls = grid.wallArray();
+        Noise noise = new Noise(random);
+
+        // Quantised noise goes into the wall array first
+        int[] histogram = new int[256];
+        double[] line = new double[cols];
+        for (int row = 0; row < rows; row++) {
+            Arrays.fill(line, 0);
+            noise.addRow(line, row, NOISE_PERIOD, 1.0);
+            noise.addRow(line, row, NOISE_PERIOD / 2, 0.5);
+            int base = row * cols;
+            for (int col = 0; col < cols; col++) {
+                int level = Math.max(0, Math.min(255, (int) ((line[col] + 1.5) * 85)));
+                walls[base + col] = (byte) level;
+                histogram[level]++;
+            }
+        }
+        long target = Math.round((MIN_CLUTTER + difficulty * (MAX_CLUTTER - MIN_CLUTTER)) * walls.length);
+        int threshold = 256;
+        long count = 0;
+        while (threshold > 0 && count + histogram[threshold - 1] <= target) {
+            threshold--;
+            count += histogram[threshold];
+        }
+        for (int i = 0; i < walls.length; i++) {
+            walls[i] = (walls[i] & 0xff) >= threshold ? (byte) 1 : 0;
+        }
+        keepLargestRegion(grid);
+    }
+
+    /**
+     * Wall off every free cell outside the largest connected free area.
+     * Each area is marked as it is found; the biggest so far keeps its mark,
+     * the other one is walled at once, so the largest is only flooded once.
+     */
+    static void keepLargestRegion(GridBuffer grid) {
+        byte[] walls = grid.wallArray();
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        IntStack stack = new IntStack();
+        byte bestMark = 2;
+        int bestSeed = -1;
+        long bestSize = 0;
+        for (int i = 0; i < walls.length; i++) {
+            if (walls[i] == 0) {
+                byte mark = bestMark == 2 ? (byte) 3 : (byte) 2;
+                long size = flood(walls, rows, cols, i, (byte) 0, mark, stack);
+                if (size > bestSize) {
+                    if (bestSeed >= 0) {
+                        flood(walls, rows, cols, bestSeed, bestMark, (byte) 1, stack);
+                    }
+                    bestMark = mark;
+                    bestSeed = i;
+                    bestSize = size;
+                } else {
+                    flood(walls, rows, cols, i, mark, (byte) 1, stack);
+                }
+            }
+        }
+        for (int i = 0; i < walls.length; i++) {
+            if (walls[i] == bestMark) {
+                walls[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Scanline flood fill of the 4-connected area of value 'from' around seed;
+     * returns its size
+     */
+    private static long flood(byte[] walls, int rows, int cols, int seed, byte from, byte to, IntStack stack) {
+        long size = 0;
+        stack.push(seed);
+        while (!stack.isEmpty()) {
+            int cell = stack.pop();
+            if (walls[cell] != from) {
+                continue;
+            }
+            int row = cell / cols;
+            int rowStart = row * cols;
+            int left = cell;
+            while (left > rowStart && walls[left - 1] == from) {
+                left--;
+            }
+            int right = cell;
+            while (right < rowStart + cols - 1 && walls[right + 1] == from) {
+                right++;
+            }
+            Arrays.fill(walls, left, right + 1, to);
+            size += right - left + 1;
+            if (row > 0) {
+                pushRuns(walls, left - cols, right - cols, from, stack);
+            }
+            if (row < rows - 1) {
+                pushRuns(walls, left + cols, right + cols, from, stack);
+            }
+        }
+        return size;
+    }
+
+    private static void pushRuns(byte[] walls, int first, int last, byte value, IntStack stack) {
+        boolean inRun = false;
+        for (int i = first; i <= last; i++) {
+            if (walls[i] == value) {
+                if (!inRun) {
+                    stack.push(i);
+                    inRun = true;
+                }
+            } else {
+                inRun = false;
+            }
+        }
+    }
+
+    private static void fill(GridBuffer grid, int top, int left, int bottom, int right) {
+        setRange(grid, top, left, bottom, right, (byte) 1);
+    }
+
+    private static void clear(GridBuffer grid, int top, int left, int bottom, int right) {
+        setRange(grid, top, left, bottom, right, (byte) 0);
+    }
+
+    private static void setRange(GridBuffer grid, int top, int left, int bottom, int right, byte value) {
+        int cols = grid.getCols();
+        byte[] walls = grid.wallArray();
+        if (left == right) {
+            for (int i = top * cols + left; i <= bottom * cols + left; i += cols) {
+                walls[i] = value;
+            }
+            return;
+        }
+        for (int row = top; row <= bottom; row++) {
+            Arrays.fill(walls, row * cols + left, row * cols + right + 1, value);
+        }
+    }
+
+    /**
+     * Classic 2D gradient (Perlin) noise, values roughly in [-1, 1]
+     */
+    private static class Noise {
+        // The eight gradient directions, picked by hash & 7
+        private static final double[] GRADIENT_X = {1, -1, 1, -1, 1, -1, 0, 0};
+        private static final double[] GRADIENT_Y = {1, 1, -1, -1, 0, 0, 1, -1};
+
+        private final int[] permutation = new int[512];
+
+        Noise(SplittableRandom random) {
+            int[] values = new int[256];
+            for (int i = 0; i < 256; i++) {
+                values[i] = i;
+            }
+            for (int i = 255; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = values[i];
+                values[i] = values[j];
+                values[j] = tmp;
+            }
+            for (int i = 0; i < 512; i++) {
+                permutation[i] = values[i & 255];
+            }
+        }
+
+        /**
+         * Add amplitude * noise(col / period, row / period) to every entry of
+         * line. Inside one lattice cell the noise is e1*x + e0 + fade(x)*(f1*x + f0)
+         * in the cell offset x, so each cell costs four coefficients and each
+         * entry a few multiplications.
+         */
+        void addRow(double[] line, int row, int period, double amplitude) {
+            double[] offsets = new double[period];
+            double[] fades = new double[period];
+            for (int k = 0; k < period; k++) {
+                offsets[k] = (double) k / period;
+                fades[k] = fade(offsets[k]);
+            }
+            int yi = row / period;
+            double yf = (double) (row - yi * period) / period;
+            double v = fade(yf);
+            yi &= 255;
+
+            for (int start = 0, cell = 0; start < line.length; start += period, cell++) {
+                int xh = cell & 255;
+                int aa = permutation[permutation[xh] + yi] & 7;
+                int ab = permutation[permutation[xh] + yi + 1] & 7;
+                int ba = permutation[permutation[xh + 1] + yi] & 7;
+                int bb = permutation[permutation[xh + 1] + yi + 1] & 7;
+                // Corner gradient dot products as a1*x + a0 and so on
+                double a1 = GRADIENT_X[aa];
+                double a0 = GRADIENT_Y[aa] * yf;
+                double b1 = GRADIENT_X[ba];
+                double b0 = GRADIENT_Y[ba] * yf - GRADIENT_X[ba];
+                double c1 = GRADIENT_X[ab];
+                double c0 = GRADIENT_Y[ab] * (yf - 1);
+                double d1 = GRADIENT_X[bb];
+                double d0 = GRADIENT_Y[bb] * (yf - 1) - GRADIENT_X[bb];
+                double e1 = amplitude * lerp(v, a1, c1);
+                double e0 = amplitude * lerp(v, a0, c0);
+                double f1 = amplitude * lerp(v, b1 - a1, d1 - c1);
+                double f0 = amplitude * lerp(v, b0 - a0, d0 - c0);
+
+                int end = Math.min(line.length, start + period);
+                for (int col = start, k = 0; col < end; col++, k++) {
+                    double x = offsets[k];
+                    line[col] += e1 * x + e0 + fades[k] * (f1 * x + f0);
+                }
+            }
+        }
+
+        private static double fade(double t) {
+            return t * t * t * (t * (t * 6 - 15) + 10);
+        }
+
+        private static double lerp(double t, double a, double b) {
+            return a + t * (b - a);
+        }
+    }
+
+    /**
+     * Growable stack of ints without boxing
+     */
+    private static class IntStack {
+        private int[] values = new int[64];
+        private int size;
+
+        void push(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void push(int a, int b, int c, int d) {
+            push(a);
+            push(b);
+            push(c);
+            push(d);
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package robotsimulator.map;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Buffered reader over a map file with the few token helpers the map formats
+ * need. Unlike BufferedInputStream, single byte reads are not synchronized,
+ * which matters when a map has a hundred million cells.
+ */
+class MapInput implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    MapInput(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Next byte (0-255), or -1 at the end of the file
+     */
+    int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    /**
+     * Check the first bytes of the file without consuming them; only valid
+     * before anything has been read
+     */
+    boolean startsWith(byte[] prefix) throws IOException {
+        if (limit == 0) {
+            fill();
+        }
+        if (limit - position < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[position + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read exactly length bytes
+     */
+    void readFully(byte[] target, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position == limit && !fill()) {
+                throw new EOFException("Map file ends early");
+            }
+            int count = Math.min(length, limit - position);
+            System.arraycopy(buffer, position, target, offset, count);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Read up to length bytes (fewer only at the end of the file)
+     */
+    int readSome(byte[] target, int offset, int length) throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        int count = Math.min(length, limit - position);
+        System.arraycopy(buffer, position, target, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Read one line, mapping its first count characters through table into
+     * target; '\r' is skipped and longer lines are cut. Returns the number of
+     * characters stored, or -1 at the end of the file.
+     */
+    int readLine(byte[] target, int offset, int count, byte[] table) throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        int stored = 0;
+        while (true) {
+            byte[] buf = buffer;
+            int i = position;
+            int end = limit;
+            while (i < end) {
+                byte c = buf[i++];
+                if (c == '\n') {
+                    position = i;
+                    return stored;
+                }
+                if (c != '\r' && stored < count) {
+                    target[offset + stored++] = table[c & 0xff];
+                }
+            }
+            position = i;
+            if (!fill()) {
+                return stored;
+            }
+        }
+    }
+
+    /**
+     * Count the lines and the longest line (without '\r') up to the end of the file
+     */
+    int[] countLines() throws IOException {
+        int lines = 0;
+        int longest = 0;
+        int width = 0;
+        while (position < limit || fill()) {
+            byte[] buf = buffer;
+            for (int i = position; i < limit; i++) {
+                byte c = buf[i];
+                if (c == '\n') {
+                    lines++;
+                    longest = Math.max(longest, width);
+                    width = 0;
+                } else if (c != '\r') {
+                    width++;
+                }
+            }
+            position = limit;
+        }
+        if (width > 0) {
+            lines++;
+            longest = Math.max(longest, width);
+        }
+        return new int[]{lines, longest};
+    }
+
+    int readInt32() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = read();
+            if (b < 0) {
+                throw new EOFException("Map file ends early");
+            }
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    void skip(long count) throws IOException {
+        while (count > 0) {
+            if (position == limit && !fill()) {
+                throw new EOFException("Map file ends early");
+            }
+            int step = (int) Math.min(count, limit - position);
+            position += step;
+            count -= step;
+        }
+    }
+
+    /**
+     * Skip whitespace and '#' comments (as in PGM headers), then read a
+     * non-negative decimal number
+     */
+    int readNumber() throws IOException {
+        int c = read();
+        while (c == '#' || isSpace(c)) {
+            if (c == '#') {
+                while (c >= 0 && c != '\n' && c != '\r') {
+                    c = read();
+                }
+            }
+            c = read();
+        }
+        if (c < '0' || c > '9') {
+            throw new IOException("Number expected in map file");
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Number too large in map file");
+            }
+            c = read();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Read one text line without its line ending, or null at the end of the file
+     */
+    String readLine() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (c >= 0 && c != '\n') {
+            if (c != '\r') {
+                line.append((char) c);
+            }
+            c = read();
+        }
+        return line.toString();
+    }
+
+    static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private boolean fill() throws IOException {
+        int count = in.read(buffer, 0, BUFFER_SIZE);
+        if (count <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = count;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
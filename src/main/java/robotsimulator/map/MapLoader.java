@@ -0,0 +1,66 @@
+package robotsimulator.map;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Loads floor plans into a GridBuffer, one pixel or character per cell.
+ * The format is picked from the file contents: PGM (P2/P5), PNG, or a text
+ * map (plain or with a MovingAI benchmark header).
+ * Files are parsed in a single streaming pass straight into the wall array;
+ * no per-cell objects are created.
+ * Image pixels are walls unless they are near white, the same rule as the
+ * ROS map_server defaults, so occupied (dark) and unknown (grey) are walls.
+ */
+public final class MapLoader {
+    // Brightness (per mille of the maximum) above which a pixel is free
+    private static final int FREE_PERMILLE = 804;
+
+    private static final byte[] PGM_BINARY = "P5".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PGM_PLAIN = "P2".getBytes(StandardCharsets.US_ASCII);
+
+    private MapLoader() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Read a map file into a new grid of the map's size
+     */
+    public static GridBuffer load(Path file) throws IOException {
+        try (MapInput in = new MapInput(Files.newInputStream(file))) {
+            if (in.startsWith(PGM_BINARY) || in.startsWith(PGM_PLAIN)) {
+                return PgmReader.read(in);
+            }
+            if (PngReader.isPng(in)) {
+                return PngReader.read(in);
+            }
+            return AsciiMapReader.read(file, in);
+        }
+    }
+
+    static GridBuffer newGrid(int rows, int cols) throws IOException {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE - 8) {
+            throw new IOException("Bad map size " + rows + "x" + cols);
+        }
+        return new GridBuffer(rows, cols);
+    }
+
+    static boolean isWall(int value, int maxValue) {
+        return value * 1000L <= (long) maxValue * FREE_PERMILLE;
+    }
+
+    /**
+     * Wall flag for every pixel value up to maxValue (at most 255)
+     */
+    static byte[] wallTable(int maxValue) {
+        byte[] table = new byte[256];
+        for (int value = 0; value < 256; value++) {
+            table[value] = isWall(Math.min(value, maxValue), maxValue) ? (byte) 1 : 0;
+        }
+        return table;
+    }
+}
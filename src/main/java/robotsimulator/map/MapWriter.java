@@ -0,0 +1,167 @@
+package robotsimulator.map;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Writes the walls of a grid in the formats MapLoader reads:
+ * walls are black pixels or '#', free cells white pixels or '.'.
+ */
+public final class MapWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private MapWriter() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Binary 8-bit PGM (P5)
+     */
+    public static void writePgm(GridBuffer grid, Path file) throws IOException {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] walls = grid.wallArray();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            out.write(("P5\n" + cols + " " + rows + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+            byte[] line = new byte[cols];
+            for (int row = 0; row < rows; row++) {
+                toPixels(walls, row * cols, line, 0, cols);
+                out.write(line);
+            }
+        }
+    }
+
+    /**
+     * 8-bit greyscale PNG; every row but the first uses the Up filter
+     */
+    public static void writePng(GridBuffer grid, Path file) throws IOException {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] walls = grid.wallArray();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE))) {
+            out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+
+            DataChunk header = new DataChunk("IHDR", 13);
+            header.putInt(cols);
+            header.putInt(rows);
+            header.put(8); // Bit depth
+            header.put(0); // Greyscale
+            header.put(0);
+            header.put(0);
+            header.put(0); // Not interlaced
+            header.writeTo(out);
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            DataChunk data = new DataChunk("IDAT", BUFFER_SIZE);
+            byte[] previous = new byte[cols + 1];
+            byte[] current = new byte[cols + 1];
+            byte[] filtered = new byte[cols + 1];
+            try {
+                for (int row = 0; row < rows; row++) {
+                    toPixels(walls, row * cols, current, 1, cols);
+                    filtered[0] = (byte) (row == 0 ? 0 : 2);
+                    for (int i = 1; i <= cols; i++) {
+                        filtered[i] = (byte) (current[i] - (row == 0 ? 0 : previous[i]));
+                    }
+                    deflater.setInput(filtered);
+                    while (!deflater.needsInput()) {
+                        data.deflate(deflater, out);
+                    }
+                    byte[] swap = previous;
+                    previous = current;
+                    current = swap;
+                }
+                deflater.finish();
+                while (!deflater.finished()) {
+                    data.deflate(deflater, out);
+                }
+                data.writeTo(out);
+            } finally {
+                deflater.end();
+            }
+            new DataChunk("IEND", 0).writeTo(out);
+        }
+    }
+
+    /**
+     * Plain text map, one line per row
+     */
+    public static void writeAscii(GridBuffer grid, Path file) throws IOException {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] walls = grid.wallArray();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            byte[] line = new byte[cols + 1];
+            line[cols] = '\n';
+            for (int row = 0; row < rows; row++) {
+                int base = row * cols;
+                for (int col = 0; col < cols; col++) {
+                    line[col] = walls[base + col] != 0 ? (byte) '#' : (byte) '.';
+                }
+                out.write(line);
+            }
+        }
+    }
+
+    private static void toPixels(byte[] walls, int from, byte[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = walls[from + i] != 0 ? 0 : (byte) 255;
+        }
+    }
+
+    /**
+     * A PNG chunk being filled; writeTo adds length and CRC
+     */
+    private static class DataChunk {
+        private final byte[] type;
+        private final byte[] data;
+        private int size;
+
+        DataChunk(String type, int capacity) {
+            this.type = type.getBytes(StandardCharsets.US_ASCII);
+            this.data = new byte[capacity];
+        }
+
+        void put(int b) {
+            data[size++] = (byte) b;
+        }
+
+        void putInt(int value) {
+            put(value >>> 24);
+            put(value >>> 16);
+            put(value >>> 8);
+            put(value);
+        }
+
+        /**
+         * Deflate into the chunk, flushing it to out whenever it is full
+         */
+        void deflate(Deflater deflater, DataOutputStream out) throws IOException {
+            size += deflater.deflate(data, size, data.length - size);
+            if (size == data.length) {
+                writeTo(out);
+            }
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(data, 0, size);
+            out.writeInt(size);
+            out.write(type);
+            out.write(data, 0, size);
+            out.writeInt((int) crc.getValue());
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package robotsimulator.map;
+
+import java.io.IOException;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Reads binary (P5) and plain (P2) PGM maps, one pixel per cell.
+ * Binary 8-bit rasters are read straight into the wall array and converted
+ * in place.
+ */
+final class PgmReader {
+
+    private PgmReader() {
+        // Prevent instantiation
+    }
+
+    static GridBuffer read(MapInput in) throws IOException {
+        if (in.read() != 'P') {
+            throw new IOException("Not a PGM file");
+        }
+        int kind = in.read();
+        if (kind != '2' && kind != '5') {
+            throw new IOException("Only P2 and P5 PGM files are supported");
+        }
+        int width = in.readNumber();
+        int height = in.readNumber();
+        int maxValue = in.readNumber();
+        if (maxValue <= 0 || maxValue > 0xffff) {
+            throw new IOException("Bad PGM maximum value " + maxValue);
+        }
+        GridBuffer grid = MapLoader.newGrid(height, width);
+        byte[] walls = grid.wallArray();
+
+        if (kind == '2') {
+            for (int i = 0; i < walls.length; i++) {
+                walls[i] = MapLoader.isWall(in.readNumber(), maxValue) ? (byte) 1 : 0;
+            }
+        } else if (maxValue < 256) {
+            byte[] table = MapLoader.wallTable(maxValue);
+            for (int row = 0; row < height; row++) {
+                int start = row * width;
+                in.readFully(walls, start, width);
+                for (int i = start; i < start + width; i++) {
+                    walls[i] = table[walls[i] & 0xff];
+                }
+            }
+        } else {
+            byte[] line = new byte[width * 2];
+            for (int row = 0; row < height; row++) {
+                in.readFully(line, 0, line.length);
+                int start = row * width;
+                for (int col = 0; col < width; col++) {
+                    int value = ((line[2 * col] & 0xff) << 8) | (line[2 * col + 1] & 0xff);
+                    walls[start + col] = MapLoader.isWall(value, maxValue) ? (byte) 1 : 0;
+                }
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,267 @@
+package robotsimulator.map;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Streaming PNG decoder that only keeps two image rows in memory.
+ * IDAT data is inflated row by row, unfiltered against the previous row and
+ * turned into walls right away. All colour types and bit depths are read;
+ * interlaced images are not supported. Colour pixels use their luminance,
+ * and mostly transparent pixels (alpha channel or palette tRNS) are free.
+ * Chunk CRCs are not checked.
+ */
+final class PngReader {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int IHDR = 0x49484452;
+    private static final int PLTE = 0x504c5445;
+    private static final int TRNS = 0x74524e53;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454e44;
+
+    private final MapInput in;
+    private int width;
+    private int height;
+    private int bitDepth;
+    private int colorType;
+    private int channels;
+    private int bytesPerPixel;
+    private byte[] paletteWalls;
+    private int paletteEntries;
+    private GridBuffer grid;
+    private byte[] current;
+    private byte[] previous;
+    private int filled;
+    private int row;
+    private final byte[] wallTable = MapLoader.wallTable(255);
+
+    private PngReader(MapInput in) {
+        this.in = in;
+    }
+
+    static boolean isPng(MapInput in) throws IOException {
+        return in.startsWith(SIGNATURE);
+    }
+
+    static GridBuffer read(MapInput in) throws IOException {
+        return new PngReader(in).read();
+    }
+
+    private GridBuffer read() throws IOException {
+        in.skip(SIGNATURE.length);
+        Inflater inflater = new Inflater();
+        try {
+            while (true) {
+                int length = in.readInt32();
+                int type = in.readInt32();
+                if (type == IHDR) {
+                    readHeader();
+                } else if (type == PLTE) {
+                    readPalette(length);
+                } else if (type == TRNS && colorType == 3 && paletteWalls != null) {
+                    readPaletteAlpha(length);
+                } else if (type == IDAT) {
+                    if (grid == null) {
+                        throw new IOException("PNG image data before header");
+                    }
+                    if (colorType == 3 && paletteWalls == null) {
+                        throw new IOException("PNG palette missing");
+                    }
+                    inflate(inflater, length);
+                } else if (type == IEND) {
+                    break;
+                } else {
+                    in.skip(length);
+                }
+                in.skip(4); // CRC
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt PNG image data", e);
+        } finally {
+            inflater.end();
+        }
+        if (grid == null || row < height) {
+            throw new IOException("PNG image data ends early");
+        }
+        return grid;
+    }
+
+    private void readHeader() throws IOException {
+        width = in.readInt32();
+        height = in.readInt32();
+        bitDepth = in.read();
+        colorType = in.read();
+        int compression = in.read();
+        int filter = in.read();
+        int interlace = in.read();
+        if (compression != 0 || filter != 0) {
+            throw new IOException("Unknown PNG compression or filter method");
+        }
+        if (interlace != 0) {
+            throw new IOException("Interlaced PNG files are not supported");
+        }
+        channels = switch (colorType) {
+            case 0, 3 -> 1;
+            case 2 -> 3;
+            case 4 -> 2;
+            case 6 -> 4;
+            default -> throw new IOException("Unknown PNG colour type " + colorType);
+        };
+        boolean validDepth = switch (colorType) {
+            case 0 -> bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8 || bitDepth == 16;
+            case 3 -> bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8;
+            default -> bitDepth == 8 || bitDepth == 16;
+        };
+        if (!validDepth) {
+            throw new IOException("Bad PNG bit depth " + bitDepth + " for colour type " + colorType);
+        }
+        long stride = ((long) width * channels * bitDepth + 7) / 8;
+        if (width <= 0 || stride >= Integer.MAX_VALUE) {
+            throw new IOException("Bad PNG width " + width);
+        }
+        grid = MapLoader.newGrid(height, width);
+        bytesPerPixel = Math.max(1, channels * bitDepth / 8);
+        // Rows keep their filter type byte at index 0
+        current = new byte[(int) stride + 1];
+        previous = new byte[(int) stride + 1];
+    }
+
+    private void readPalette(int length) throws IOException {
+        if (length <= 0 || length % 3 != 0 || length / 3 > 256) {
+            throw new IOException("Bad PNG palette length " + length);
+        }
+        paletteEntries = length / 3;
+        paletteWalls = new byte[256];
+        for (int i = 0; i < paletteEntries; i++) {
+            int r = in.read();
+            int g = in.read();
+            int b = in.read();
+            paletteWalls[i] = wallTable[luminance(r, g, b)];
+        }
+    }
+
+    private void readPaletteAlpha(int length) throws IOException {
+        if (length < 0 || length > paletteEntries) {
+            throw new IOException("PNG transparency has " + length + " entries for a palette of " + paletteEntries);
+        }
+        for (int i = 0; i < length; i++) {
+            if (in.read() < 128) {
+                paletteWalls[i] = 0;
+            }
+        }
+    }
+
+    private void inflate(Inflater inflater, int length) throws IOException, DataFormatException {
+        byte[] chunk = new byte[Math.min(length, 1 << 16)];
+        int remaining = length;
+        while (remaining > 0) {
+            int count = in.readSome(chunk, 0, Math.min(chunk.length, remaining));
+            if (count < 0) {
+                throw new IOException("PNG file ends early");
+            }
+            remaining -= count;
+            inflater.setInput(chunk, 0, count);
+            while (row < height) {
+                int produced = inflater.inflate(current, filled, current.length - filled);
+                if (produced == 0) {
+                    if (inflater.needsDictionary()) {
+                        throw new IOException("PNG image data needs a preset dictionary");
+                    }
+                    break; // Needs more input, or the stream is finished
+                }
+                filled += produced;
+                if (filled == current.length) {
+                    unfilter();
+                    storeRow();
+                    byte[] swap = previous;
+                    previous = current;
+                    current = swap;
+                    filled = 0;
+                    row++;
+                }
+            }
+        }
+    }
+
+    private void unfilter() throws IOException {
+        byte[] cur = current;
+        byte[] prev = previous;
+        int bpp = bytesPerPixel;
+        int n = cur.length;
+        switch (cur[0]) {
+            case 0 -> { }
+            case 1 -> {
+                for (int i = 1 + bpp; i < n; i++) {
+                    cur[i] += cur[i - bpp];
+                }
+            }
+            case 2 -> {
+                for (int i = 1; i < n; i++) {
+                    cur[i] += prev[i];
+                }
+            }
+            case 3 -> {
+                for (int i = 1; i < n; i++) {
+                    int left = i > bpp ? cur[i - bpp] & 0xff : 0;
+                    cur[i] += (byte) ((left + (prev[i] & 0xff)) >>> 1);
+                }
+            }
+            case 4 -> {
+                for (int i = 1; i < n; i++) {
+                    int a = i > bpp ? cur[i - bpp] & 0xff : 0;
+                    int b = prev[i] & 0xff;
+                    int c = i > bpp ? prev[i - bpp] & 0xff : 0;
+                    int p = a + b - c;
+                    int pa = Math.abs(p - a);
+                    int pb = Math.abs(p - b);
+                    int pc = Math.abs(p - c);
+                    cur[i] += (byte) (pa <= pb && pa <= pc ? a : pb <= pc ? b : c);
+                }
+            }
+            default -> throw new IOException("Unknown PNG filter type " + cur[0]);
+        }
+    }
+
+    private void storeRow() {
+        byte[] walls = grid.wallArray();
+        byte[] cur = current;
+        int start = row * width;
+
+        if (bitDepth < 8) {
+            int mask = (1 << bitDepth) - 1;
+            for (int col = 0; col < width; col++) {
+                int bit = col * bitDepth;
+                int sample = (cur[1 + bit / 8] >> (8 - bitDepth - bit % 8)) & mask;
+                walls[start + col] = colorType == 3 ? paletteWalls[sample] : wallTable[sample * 255 / mask];
+            }
+            return;
+        }
+        if (colorType == 0 && bitDepth == 8) {
+            for (int col = 0; col < width; col++) {
+                walls[start + col] = wallTable[cur[1 + col] & 0xff];
+            }
+            return;
+        }
+        // 8 or 16 bits per sample; 16-bit samples only use their high byte
+        int step = bitDepth / 8;
+        int pixel = channels * step;
+        for (int col = 0, i = 1; col < width; col++, i += pixel) {
+            int first = cur[i] & 0xff;
+            walls[start + col] = switch (colorType) {
+                case 0 -> wallTable[first];
+                case 3 -> paletteWalls[first];
+                case 4 -> (cur[i + step] & 0xff) < 128 ? 0 : wallTable[first];
+                case 2 -> wallTable[luminance(first, cur[i + step] & 0xff, cur[i + 2 * step] & 0xff)];
+                default -> (cur[i + 3 * step] & 0xff) < 128 ? 0
+                        : wallTable[luminance(first, cur[i + step] & 0xff, cur[i + 2 * step] & 0xff)];
+            };
+        }
+    }
+
+    private static int luminance(int r, int g, int b) {
+        return (77 * r + 150 * g + 29 * b) >> 8;
+    }
+}
@@ -48,6 +48,10 @@ public class CellData {
             rectangle.setFill(GridConstants.WALL_COLOR);
             rectangle.setStroke(GridConstants.WALL_BORDER_COLOR);
             rectangle.setStrokeWidth(2);
+        } else {
+            rectangle.setFill(GridConstants.DEFAULT_COLOR);
+            rectangle.setStroke(Color.GRAY);
+            rectangle.setStrokeWidth(GridConstants.CELL_STROKE);
         }
     }
     public boolean isWall() {
@@ -0,0 +1,191 @@
+package robotsimulator.model;
+
+import java.util.Arrays;
+
+/**
+ * Mip levels of a grid for drawing it zoomed out: level k splits the grid
+ * into blocks of 2^k x 2^k cells and keeps the dirt sum and wall count of
+ * each block (level 0 is the cells themselves, read from the snapshot).
+ * Dirt sums are longs: a top block of a large grid holds more than an int.
+ * Updating from a newer GridSnapshot only redoes the chunks that changed.
+ * Robot counts per block are kept for one level at a time.
+ */
+public class DensityPyramid {
+    private final int rows;
+    private final int cols;
+    private final int levels;
+    private final long[][] dirt;
+    private final int[][] walls;
+    private GridSnapshot snapshot;
+    private int robotLevel = -1;
+    private int[] robots;
+
+    public DensityPyramid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        int top = 0;
+        while (blocks(Math.max(rows, cols), top) > 1) {
+            top++;
+        }
+        this.levels = top + 1;
+        this.dirt = new long[levels][];
+        this.walls = new int[levels][];
+        for (int level = 1; level < levels; level++) {
+            dirt[level] = new long[blocks(rows, level) * blocks(cols, level)];
+            walls[level] = new int[dirt[level].length];
+        }
+    }
+
+    /**
+     * Number of levels; the last one is a single block
+     */
+    public int getLevelCount() {
+        return levels;
+    }
+
+    /**
+     * Blocks needed to cover a number of cells at a level
+     */
+    public static int blocks(int cells, int level) {
+        return (cells + (1 << level) - 1) >> level;
+    }
+
+    public int getBlockRows(int level) {
+        return blocks(rows, level);
+    }
+
+    public int getBlockCols(int level) {
+        return blocks(cols, level);
+    }
+
+    /**
+     * Snapshot the levels were last built from (null before the first update)
+     */
+    public GridSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Bring the levels up to a newer snapshot of the same grid
+     */
+    public void update(GridSnapshot next) {
+        if (next.getRows() != rows || next.getCols() != cols) {
+            throw new IllegalArgumentException("Snapshot is " + next.getRows() + " x " + next.getCols()
+                    + ", pyramid is " + rows + " x " + cols);
+        }
+        if (next == snapshot) {
+            return;
+        }
+        // Levels up to the chunk size only change inside changed chunks
+        int chunkLevels = Math.min(GridSnapshot.CHUNK_SHIFT, levels - 1);
+        boolean changed = false;
+        for (int chunkRow = 0; chunkRow < rows; chunkRow += GridSnapshot.CHUNK_SIZE) {
+            for (int chunkCol = 0; chunkCol < cols; chunkCol += GridSnapshot.CHUNK_SIZE) {
+                if (!next.isChunkChanged(snapshot, chunkRow, chunkCol)) {
+                    continue;
+                }
+                changed = true;
+                for (int level = 1; level <= chunkLevels; level++) {
+                    int span = GridSnapshot.CHUNK_SHIFT - level;
+                    buildLevel(next, level, chunkRow >> level, chunkCol >> level, span);
+                }
+            }
+        }
+        // The few blocks above the chunk size are redone whenever anything changed
+        for (int level = chunkLevels + 1; changed && level < levels; level++) {
+            buildLevel(next, level, 0, 0, 30);
+        }
+        snapshot = next;
+    }
+
+    /**
+     * Recompute the blocks of a level in a square of 2^span blocks
+     */
+    private void buildLevel(GridSnapshot next, int level, int firstRow, int firstCol, int span) {
+        int blockRows = getBlockRows(level);
+        int blockCols = getBlockCols(level);
+        int rowEnd = (int) Math.min(blockRows, firstRow + (1L << span));
+        int colEnd = (int) Math.min(blockCols, firstCol + (1L << span));
+        for (int blockRow = firstRow; blockRow < rowEnd; blockRow++) {
+            for (int blockCol = firstCol; blockCol < colEnd; blockCol++) {
+                long dirtSum = 0;
+                int wallCount = 0;
+                // Sum the 2 x 2 children a level down
+                for (int row = blockRow * 2; row < blockRow * 2 + 2; row++) {
+                    for (int col = blockCol * 2; col < blockCol * 2 + 2; col++) {
+                        if (level == 1) {
+                            if (row < rows && col < cols) {
+                                dirtSum += next.getDirt(row, col);
+                                wallCount += next.isWall(row, col) ? 1 : 0;
+                            }
+                        } else if (row < getBlockRows(level - 1) && col < getBlockCols(level - 1)) {
+                            int child = row * getBlockCols(level - 1) + col;
+                            dirtSum += dirt[level - 1][child];
+                            wallCount += walls[level - 1][child];
+                        }
+                    }
+                }
+                dirt[level][blockRow * blockCols + blockCol] = dirtSum;
+                walls[level][blockRow * blockCols + blockCol] = wallCount;
+            }
+        }
+    }
+
+    /**
+     * Number of grid cells a block covers (less than 4^level at the grid edges)
+     */
+    public int getCellCount(int level, int blockRow, int blockCol) {
+        int height = Math.min(rows, (blockRow + 1) << level) - (blockRow << level);
+        int width = Math.min(cols, (blockCol + 1) << level) - (blockCol << level);
+        return height * width;
+    }
+
+    /**
+     * Total dirt of a block
+     */
+    public long getDirt(int level, int blockRow, int blockCol) {
+        if (level == 0) {
+            return snapshot.getDirt(blockRow, blockCol);
+        }
+        return dirt[level][blockRow * getBlockCols(level) + blockCol];
+    }
+
+    /**
+     * Number of wall cells in a block
+     */
+    public int getWalls(int level, int blockRow, int blockCol) {
+        if (level == 0) {
+            return snapshot.isWall(blockRow, blockCol) ? 1 : 0;
+        }
+        return walls[level][blockRow * getBlockCols(level) + blockCol];
+    }
+
+    /**
+     * Start counting robots per block at a level (see addRobot)
+     */
+    public void clearRobots(int level) {
+        int size = getBlockRows(level) * getBlockCols(level);
+        if (robots == null || robots.length < size) {
+            robots = new int[size];
+        } else {
+            Arrays.fill(robots, 0, size, 0);
+        }
+        robotLevel = level;
+    }
+
+    /**
+     * Count a robot standing on a cell (0-based) at the level last cleared
+     */
+    public void addRobot(int row, int col) {
+        if (row >= 0 && row < rows && col >= 0 && col < cols) {
+            robots[(row >> robotLevel) * getBlockCols(robotLevel) + (col >> robotLevel)]++;
+        }
+    }
+
+    /**
+     * Robots counted in a block of the level last cleared
+     */
+    public int getRobots(int blockRow, int blockCol) {
+        return robots[blockRow * getBlockCols(robotLevel) + blockCol];
+    }
+}
@@ -0,0 +1,114 @@
+package robotsimulator.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Optional per-tick simulation stage that spreads dirt to neighbouring
+ * cells and lets it decay over time.
+ * The stencil reads the current dirt array and writes into a back buffer,
+ * which is then swapped in, so every cell sees the same tick-start state.
+ * Dirt flows between each pair of neighbours by the same (truncated)
+ * amount both ways, so without decay the total dirt is conserved.
+ * Large grids are processed as row bands in parallel. The chunks whose
+ * dirt changed are recorded, so snapshots and views only redo those.
+ */
+public class DirtDiffusionStage {
+    private static final int PARALLEL_THRESHOLD = 64 * 1024; // cells
+    private static final int ROWS_PER_BAND = GridSnapshot.CHUNK_SIZE; // A chunk is never split between bands
+
+    private final int diffusionPermille;
+    private final int decayPerTick;
+    private byte[] backBuffer;
+    private byte[] changedChunks; // Chunks whose dirt changed in the last step
+    private int chunkCols;
+
+    /**
+     * @param diffusionPermille share of the difference with each neighbour
+     *                          exchanged per tick, in 1/1000 (0-250)
+     * @param decayPerTick      dirt removed from every cell per tick
+     */
+    public DirtDiffusionStage(int diffusionPermille, int decayPerTick) {
+        this.diffusionPermille = Math.max(0, Math.min(250, diffusionPermille));
+        this.decayPerTick = Math.max(0, decayPerTick);
+    }
+
+    /**
+     * Run one diffusion/decay tick on the grid
+     */
+    public void step(GridBuffer grid) {
+        if (backBuffer == null || backBuffer.length != grid.size()) {
+            backBuffer = new byte[grid.size()];
+        }
+        int chunks = GridSnapshot.chunkCount(grid.getRows()) * GridSnapshot.chunkCount(grid.getCols());
+        if (changedChunks == null || changedChunks.length != chunks) {
+            changedChunks = new byte[chunks];
+        } else {
+            Arrays.fill(changedChunks, (byte) 0);
+        }
+        chunkCols = GridSnapshot.chunkCount(grid.getCols());
+        byte[] src = grid.dirtArray();
+        byte[] dst = backBuffer;
+        byte[] walls = grid.wallArray();
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+
+        if (grid.size() >= PARALLEL_THRESHOLD) {
+            int bands = (rows + ROWS_PER_BAND - 1) / ROWS_PER_BAND;
+            IntStream.range(0, bands).parallel().forEach(band -> {
+                int fromRow = band * ROWS_PER_BAND;
+                int toRow = Math.min(rows, fromRow + ROWS_PER_BAND);
+                stepRows(src, dst, walls, rows, cols, fromRow, toRow);
+            });
+        } else {
+            stepRows(src, dst, walls, rows, cols, 0, rows);
+        }
+
+        backBuffer = grid.swapDirt(dst, changedChunks);
+    }
+
+    /**
+     * Check if the last step changed any dirt in the chunk holding a cell (0-based)
+     */
+    public boolean isChunkChanged(int row, int col) {
+        return changedChunks != null
+                && changedChunks[(row >> GridSnapshot.CHUNK_SHIFT) * chunkCols + (col >> GridSnapshot.CHUNK_SHIFT)] != 0;
+    }
+
+    private void stepRows(byte[] src, byte[] dst, byte[] walls,
+                          int rows, int cols, int fromRow, int toRow) {
+        for (int row = fromRow; row < toRow; row++) {
+            int base = row * cols;
+            for (int col = 0; col < cols; col++) {
+                int i = base + col;
+                if (walls[i] != 0) {
+                    dst[i] = 0;
+                    continue;
+                }
+                int center = src[i];
+                // Walls and grid edges exchange nothing: they count as the center value
+                int up = row > 0 && walls[i - cols] == 0 ? src[i - cols] : center;
+                int down = row < rows - 1 && walls[i + cols] == 0 ? src[i + cols] : center;
+                int left = col > 0 && walls[i - 1] == 0 ? src[i - 1] : center;
+                int right = col < cols - 1 && walls[i + 1] == 0 ? src[i + 1] : center;
+
+                // Truncating each exchange on its own keeps it equal and opposite for the neighbour
+                int flow = (up - center) * diffusionPermille / 1000 + (down - center) * diffusionPermille / 1000
+                         + (left - center) * diffusionPermille / 1000 + (right - center) * diffusionPermille / 1000;
+                int next = center + flow - decayPerTick;
+                dst[i] = (byte) Math.max(0, Math.min(GridConstants.MAX_DIRT_LEVEL, next));
+                if (dst[i] != src[i]) {
+                    changedChunks[(row >> GridSnapshot.CHUNK_SHIFT) * chunkCols + (col >> GridSnapshot.CHUNK_SHIFT)] = 1;
+                }
+            }
+        }
+    }
+
+    public int getDiffusionPermille() {
+        return diffusionPermille;
+    }
+
+    public int getDecayPerTick() {
+        return decayPerTick;
+    }
+}
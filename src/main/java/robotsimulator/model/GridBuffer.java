@@ -0,0 +1,326 @@
+package robotsimulator.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Primitive, row-major storage of the grid state.
+ * Walls and dirt are kept in flat byte arrays indexed by row * cols + col,
+ * so bulk operations can scan the grid without touching CellData objects.
+ * Dirt is an intensity from 0 (clean) to MAX_DIRT_LEVEL.
+ * All positions are 0-based.
+ * Changes are tracked per chunk so that publishSnapshot only copies the
+ * chunks written since the previous snapshot.
+ */
+public class GridBuffer {
+    private static final int WALL_LOG_SIZE = 256; // recent wall changes kept for replanners
+    private static final VarHandle DIRT = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int rows;
+    private final int cols;
+    private final byte[] walls;
+    private byte[] dirt;
+    private int wallVersion;
+    private final int[] wallLog;
+    private int wallLogStart;
+    private final int chunkCols;
+    private final byte[] touched; // Chunks whose dirt changed since the last snapshot
+    private final byte[] wallsTouched; // Chunks whose walls changed since the last snapshot
+    private byte[][] dirtChunks;
+    private byte[][] wallChunks;
+    private long epoch;
+    private volatile GridSnapshot snapshot;
+
+    public GridBuffer(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Grid size must be positive: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.walls = new byte[rows * cols];
+        this.dirt = new byte[rows * cols];
+        this.wallLog = new int[WALL_LOG_SIZE];
+        this.chunkCols = GridSnapshot.chunkCount(cols);
+        this.touched = new byte[GridSnapshot.chunkCount(rows) * chunkCols];
+        this.wallsTouched = new byte[touched.length];
+        Arrays.fill(touched, (byte) 1);
+        Arrays.fill(wallsTouched, (byte) 1);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int size() {
+        return walls.length;
+    }
+
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    public boolean isValidPosition(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    public boolean isWall(int row, int col) {
+        return walls[index(row, col)] != 0;
+    }
+
+    /**
+     * Set or remove a wall. A new wall always clears the dirt under it.
+     */
+    public void setWall(int row, int col, boolean wall) {
+        int i = index(row, col);
+        walls[i] = (byte) (wall ? 1 : 0);
+        if (wall) {
+            dirt[i] = 0;
+        }
+        touch(row, col);
+        wallsTouched[(row >> GridSnapshot.CHUNK_SHIFT) * chunkCols + (col >> GridSnapshot.CHUNK_SHIFT)] = 1;
+        wallLog[wallVersion % WALL_LOG_SIZE] = i;
+        wallVersion++;
+    }
+
+    /**
+     * Counter bumped on every wall change, to detect stale wall copies
+     */
+    public int getWallVersion() {
+        return wallVersion;
+    }
+
+    /**
+     * Call after writing the wall array directly: clears the dirt under the
+     * walls and bumps the wall version so that wall copies and replanners
+     * start over instead of reading the change log
+     */
+    public void wallsReplaced() {
+        for (int i = 0; i < walls.length; i++) {
+            if (walls[i] != 0) {
+                dirt[i] = 0;
+            }
+        }
+        wallVersion++;
+        wallLogStart = wallVersion;
+        dirtReplaced();
+        Arrays.fill(wallsTouched, (byte) 1);
+    }
+
+    /**
+     * Copy of the walls only (no dirt), safe to hand to other threads
+     * as long as nobody writes to it
+     */
+    public GridBuffer copyWalls() {
+        GridBuffer copy = new GridBuffer(rows, cols);
+        System.arraycopy(walls, 0, copy.walls, 0, walls.length);
+        copy.wallVersion = wallVersion;
+        copy.wallLogStart = wallVersion;
+        return copy;
+    }
+
+    /**
+     * Get the cells (flat indices) whose wall changed since a wall version,
+     * or null if the change log no longer reaches back that far
+     */
+    public int[] wallChangesSince(int version) {
+        if (version < wallLogStart || version > wallVersion || wallVersion - version > WALL_LOG_SIZE) {
+            return null;
+        }
+        int[] changed = new int[wallVersion - version];
+        for (int v = version; v < wallVersion; v++) {
+            changed[v - version] = wallLog[v % WALL_LOG_SIZE];
+        }
+        return changed;
+    }
+
+    public boolean isDirty(int row, int col) {
+        return dirt[index(row, col)] != 0;
+    }
+
+    /**
+     * Get the dirt intensity of a cell (0 = clean)
+     */
+    public int getDirt(int row, int col) {
+        return dirt[index(row, col)];
+    }
+
+    /**
+     * Mark a cell dirty (with POLLUTION_AMOUNT) or fully clean. Walls cannot be dirtied.
+     * Returns true if the dirty state of the cell changed.
+     */
+    public boolean setDirty(int row, int col, boolean dirty) {
+        int i = index(row, col);
+        if (walls[i] != 0) {
+            return false;
+        }
+        boolean wasDirty = dirt[i] != 0;
+        touch(row, col);
+        if (!dirty) {
+            dirt[i] = 0;
+        } else if (!wasDirty) {
+            dirt[i] = (byte) GridConstants.POLLUTION_AMOUNT;
+        }
+        return wasDirty != dirty;
+    }
+
+    /**
+     * Add (or remove, with a negative amount) dirt on a cell, clamped to
+     * [0, MAX_DIRT_LEVEL]. Walls are left untouched.
+     * Returns +1 if the cell became dirty, -1 if it became clean, 0 otherwise.
+     */
+    public int addDirt(int row, int col, int amount) {
+        int i = index(row, col);
+        if (walls[i] != 0) {
+            return 0;
+        }
+        int before = dirt[i];
+        int after = Math.max(0, Math.min(GridConstants.MAX_DIRT_LEVEL, before + amount));
+        dirt[i] = (byte) after;
+        touch(row, col);
+        if (before == 0 && after != 0) {
+            return 1;
+        }
+        if (before != 0 && after == 0) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * Thread-safe addDirt: the cell is updated with a compare-and-set loop,
+     * so robots on several threads can change the same cell at once.
+     * Walls must not change and the dirt array must not be swapped meanwhile.
+     */
+    public int addDirtAtomic(int row, int col, int amount) {
+        int i = index(row, col);
+        if (walls[i] != 0) {
+            return 0;
+        }
+        byte[] cells = dirt;
+        int before;
+        int after;
+        do {
+            before = (byte) DIRT.getVolatile(cells, i);
+            after = Math.max(0, Math.min(GridConstants.MAX_DIRT_LEVEL, before + amount));
+            if (after == before) {
+                return 0;
+            }
+        } while (!DIRT.compareAndSet(cells, i, (byte) before, (byte) after));
+        touch(row, col); // Racing writers all store 1: no update can be lost
+        if (before == 0) {
+            return 1;
+        }
+        return after == 0 ? -1 : 0;
+    }
+
+    /**
+     * Install a new dirt array (double buffering) and return the previous one
+     */
+    public byte[] swapDirt(byte[] next) {
+        if (next.length != dirt.length) {
+            throw new IllegalArgumentException("Dirt buffer size mismatch: " + next.length);
+        }
+        byte[] previous = dirt;
+        dirt = next;
+        dirtReplaced();
+        return previous;
+    }
+
+    /**
+     * Install a new dirt array that differs from the current one only in
+     * the chunks flagged in changedChunks (row-major, one byte per chunk)
+     * and return the previous one
+     */
+    public byte[] swapDirt(byte[] next, byte[] changedChunks) {
+        if (next.length != dirt.length || changedChunks.length != touched.length) {
+            throw new IllegalArgumentException("Dirt buffer size mismatch: " + next.length);
+        }
+        byte[] previous = dirt;
+        dirt = next;
+        for (int chunk = 0; chunk < touched.length; chunk++) {
+            touched[chunk] |= changedChunks[chunk];
+        }
+        return previous;
+    }
+
+    /**
+     * Call after writing the dirt array directly, so the next snapshot
+     * copies every chunk
+     */
+    public void dirtReplaced() {
+        Arrays.fill(touched, (byte) 1);
+    }
+
+    private void touch(int row, int col) {
+        touched[(row >> GridSnapshot.CHUNK_SHIFT) * chunkCols + (col >> GridSnapshot.CHUNK_SHIFT)] = 1;
+    }
+
+    /**
+     * Publish the current state as a new snapshot for readers on other
+     * threads. Only the chunks written since the previous publish are
+     * copied, the others are shared with it. Call from the writing thread,
+     * between ticks.
+     */
+    public GridSnapshot publishSnapshot(int dirtyCount) {
+        int chunkRows = touched.length / chunkCols;
+        byte[][] nextDirt = dirtChunks == null ? new byte[touched.length][] : dirtChunks.clone();
+        byte[][] nextWalls = wallChunks == null ? new byte[touched.length][] : wallChunks.clone();
+        for (int chunkRow = 0; chunkRow < chunkRows; chunkRow++) {
+            for (int chunkCol = 0; chunkCol < chunkCols; chunkCol++) {
+                int chunk = chunkRow * chunkCols + chunkCol;
+                if (touched[chunk] != 0) {
+                    touched[chunk] = 0;
+                    nextDirt[chunk] = copyChunk(dirt, chunkRow, chunkCol);
+                }
+                if (wallsTouched[chunk] != 0) {
+                    wallsTouched[chunk] = 0;
+                    nextWalls[chunk] = copyChunk(walls, chunkRow, chunkCol);
+                }
+            }
+        }
+        dirtChunks = nextDirt;
+        wallChunks = nextWalls;
+        epoch++;
+        GridSnapshot published = new GridSnapshot(epoch, rows, cols, nextDirt, nextWalls, dirtyCount, wallVersion);
+        snapshot = published;
+        return published;
+    }
+
+    private byte[] copyChunk(byte[] cells, int chunkRow, int chunkCol) {
+        int size = GridSnapshot.CHUNK_SIZE;
+        byte[] chunk = new byte[size * size];
+        int fromCol = chunkCol * size;
+        int width = Math.min(size, cols - fromCol);
+        int toRow = Math.min(rows, (chunkRow + 1) * size);
+        for (int row = chunkRow * size; row < toRow; row++) {
+            System.arraycopy(cells, row * cols + fromCol, chunk, (row - chunkRow * size) * size, width);
+        }
+        return chunk;
+    }
+
+    /**
+     * Latest published snapshot, or null before the first publish; any thread
+     */
+    public GridSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Direct access to the wall array for bulk kernels
+     */
+    public byte[] wallArray() {
+        return walls;
+    }
+
+    /**
+     * Direct access to the dirt array for bulk kernels
+     */
+    public byte[] dirtArray() {
+        return dirt;
+    }
+}
@@ -25,6 +25,11 @@ public class GridConstants {
     public static final int MIN_WALL_LENGTH = 2; // Minimum wall length
     public static final int MAX_WALL_LENGTH = 4; // Maximum wall length
 
+    // Dirt intensity parameters (stored per cell as a byte)
+    public static final int MAX_DIRT_LEVEL = 100; // Dirtiest a cell can get
+    public static final int POLLUTION_AMOUNT = 40; // Dirt added by one pollution
+    public static final int CLEANING_AMOUNT = 40; // Dirt removed by one cleaning pass
+
     private GridConstants() {
         // Prevent instantiation
     }
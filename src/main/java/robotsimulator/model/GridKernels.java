@@ -0,0 +1,69 @@
+package robotsimulator.model;
+
+/**
+ * Bulk operations over a GridBuffer.
+ * A SIMD implementation built on jdk.incubator.vector is used when that
+ * module is available at runtime, otherwise a plain scalar one.
+ */
+public interface GridKernels {
+
+    /**
+     * Count dirty cells in the whole grid
+     */
+    int countDirty(GridBuffer grid);
+
+    /**
+     * Count wall cells in the whole grid
+     */
+    int countWalls(GridBuffer grid);
+
+    /**
+     * Clear dirt from every cell that is not a wall
+     */
+    void clearDirt(GridBuffer grid);
+
+    /**
+     * Count dirty cells per row
+     */
+    int[] rowDirtyCounts(GridBuffer grid);
+
+    /**
+     * Count dirty cells in the region [fromRow, toRow) x [fromCol, toCol) (0-based)
+     */
+    int countDirtyInRegion(GridBuffer grid, int fromRow, int fromCol, int toRow, int toCol);
+
+    /**
+     * Spread dirt one cell to the orthogonal neighbours (walls stay clean).
+     * Each cell takes the highest dirt value of itself and its neighbours.
+     * The scratch array must be at least grid.size() long.
+     */
+    void spreadDirt(GridBuffer grid, byte[] scratch);
+
+    /**
+     * Get the kernels for this JVM
+     */
+    static GridKernels get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Lazy holder so the kernel choice is made once
+     */
+    final class Holder {
+        private static final GridKernels INSTANCE = create();
+
+        private Holder() {
+        }
+
+        private static GridKernels create() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    return new VectorGridKernels();
+                } catch (LinkageError e) {
+                    System.out.println("Vector API unavailable, using scalar grid kernels");
+                }
+            }
+            return new ScalarGridKernels();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package robotsimulator.model;
+
+/**
+ * Immutable view of the grid at the end of a tick, safe to read from any
+ * thread while the simulation keeps writing to its GridBuffer.
+ * The cells are stored in square chunks; chunks that did not change
+ * between two snapshots are the same arrays in both (copy-on-write), so
+ * publishing a snapshot only copies what the tick touched.
+ * Snapshots are numbered by an epoch that grows by one per publish.
+ */
+public final class GridSnapshot {
+    static final int CHUNK_SHIFT = 6; // 64 x 64 cells per chunk
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private final long epoch;
+    private final int rows;
+    private final int cols;
+    private final int chunkCols;
+    private final byte[][] dirtChunks;
+    private final byte[][] wallChunks;
+    private final int dirtyCount;
+    private final int wallVersion;
+
+    GridSnapshot(long epoch, int rows, int cols, byte[][] dirtChunks, byte[][] wallChunks,
+                 int dirtyCount, int wallVersion) {
+        this.epoch = epoch;
+        this.rows = rows;
+        this.cols = cols;
+        this.chunkCols = chunkCount(cols);
+        this.dirtChunks = dirtChunks;
+        this.wallChunks = wallChunks;
+        this.dirtyCount = dirtyCount;
+        this.wallVersion = wallVersion;
+    }
+
+    static int chunkCount(int cells) {
+        return (cells + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+    }
+
+    /**
+     * Number of the publish that produced this snapshot (the first one is 1)
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Dirty cell count of the grid when the snapshot was taken
+     */
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * GridBuffer wall version when the snapshot was taken
+     */
+    public int getWallVersion() {
+        return wallVersion;
+    }
+
+    /**
+     * Get the dirt intensity of a cell (0-based, 0 = clean)
+     */
+    public int getDirt(int row, int col) {
+        return dirtChunks[chunkIndex(row, col)][offset(row, col)];
+    }
+
+    public boolean isDirty(int row, int col) {
+        return getDirt(row, col) != 0;
+    }
+
+    public boolean isWall(int row, int col) {
+        return wallChunks[chunkIndex(row, col)][offset(row, col)] != 0;
+    }
+
+    /**
+     * Copy one row of dirt into target, starting at target[0]
+     */
+    public void copyDirtRow(int row, byte[] target) {
+        int base = (row >> CHUNK_SHIFT) * chunkCols;
+        int inChunk = (row & (CHUNK_SIZE - 1)) << CHUNK_SHIFT;
+        for (int chunkCol = 0; chunkCol < chunkCols; chunkCol++) {
+            int col = chunkCol << CHUNK_SHIFT;
+            System.arraycopy(dirtChunks[base + chunkCol], inChunk, target, col, Math.min(CHUNK_SIZE, cols - col));
+        }
+    }
+
+    /**
+     * Check if the chunk holding a cell may differ between an older snapshot
+     * and this one (always true without an older snapshot of the same grid).
+     * Lets a view repaint only what changed since the snapshot it last drew.
+     */
+    public boolean isChunkChanged(GridSnapshot older, int row, int col) {
+        if (older == null || older.rows != rows || older.cols != cols) {
+            return true;
+        }
+        int chunk = chunkIndex(row, col);
+        return older.dirtChunks[chunk] != dirtChunks[chunk] || older.wallChunks[chunk] != wallChunks[chunk];
+    }
+
+    /**
+     * Chunk array holding a cell, to check sharing between snapshots
+     */
+    byte[] dirtChunk(int row, int col) {
+        return dirtChunks[chunkIndex(row, col)];
+    }
+
+    private int chunkIndex(int row, int col) {
+        return (row >> CHUNK_SHIFT) * chunkCols + (col >> CHUNK_SHIFT);
+    }
+
+    private static int offset(int row, int col) {
+        return ((row & (CHUNK_SIZE - 1)) << CHUNK_SHIFT) | (col & (CHUNK_SIZE - 1));
+    }
+}
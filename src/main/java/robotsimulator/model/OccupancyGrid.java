@@ -0,0 +1,271 @@
+package robotsimulator.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-cell index of the robots on the grid.
+ * Every registered robot gets an integer id; each cell keeps a doubly linked
+ * list of the ids standing on it in primitive arrays, so adding, moving,
+ * removing and "is this cell taken" checks are O(1).
+ * Nearest-robot queries scan outwards ring by ring from the query cell,
+ * stopping once k robots (or every robot there is) are found. Once the
+ * rings have covered more cells than there are robots, the rest is found
+ * by going through the robots instead, so sparse robots far away cost
+ * O(robots) rather than O(cells).
+ * All positions are 0-based.
+ */
+public class OccupancyGrid {
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int rows;
+    private final int cols;
+    private final int[] cellHead;
+    private int[] next;
+    private int[] prev;
+    private int[] robotCell;
+    private Robot[] robots;
+    private int[] freeIds;
+    private int freeCount;
+    private int idCount;
+
+    public OccupancyGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cellHead = new int[rows * cols];
+        Arrays.fill(cellHead, NONE);
+        this.next = new int[INITIAL_CAPACITY];
+        this.prev = new int[INITIAL_CAPACITY];
+        this.robotCell = new int[INITIAL_CAPACITY];
+        this.robots = new Robot[INITIAL_CAPACITY];
+        this.freeIds = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Register a robot at its current position and give it an id
+     */
+    public int add(Robot robot) {
+        if (robot.occupancyId != NONE) {
+            return robot.occupancyId;
+        }
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (idCount == robots.length) {
+                grow();
+            }
+            id = idCount++;
+        }
+        robots[id] = robot;
+        robot.occupancyId = id;
+        robotCell[id] = NONE;
+        link(id, clampIndex(robot.getGridRow(), robot.getGridCol()));
+        return id;
+    }
+
+    /**
+     * Unregister a robot
+     */
+    public void remove(Robot robot) {
+        int id = robot.occupancyId;
+        if (id == NONE || robots[id] != robot) {
+            return;
+        }
+        unlink(id);
+        robots[id] = null;
+        robot.occupancyId = NONE;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    /**
+     * Update the index after a robot changed cell
+     */
+    public void move(Robot robot) {
+        int id = robot.occupancyId;
+        if (id == NONE || robots[id] != robot) {
+            return;
+        }
+        int cell = clampIndex(robot.getGridRow(), robot.getGridCol());
+        if (robotCell[id] != cell) {
+            unlink(id);
+            link(id, cell);
+        }
+    }
+
+    /**
+     * Remove every robot from the index
+     */
+    public void clear() {
+        for (int id = 0; id < idCount; id++) {
+            if (robots[id] != null) {
+                robots[id].occupancyId = NONE;
+                robots[id] = null;
+            }
+        }
+        Arrays.fill(cellHead, NONE);
+        idCount = 0;
+        freeCount = 0;
+    }
+
+    private void grow() {
+        int newCapacity = robots.length * 2;
+        next = Arrays.copyOf(next, newCapacity);
+        prev = Arrays.copyOf(prev, newCapacity);
+        robotCell = Arrays.copyOf(robotCell, newCapacity);
+        robots = Arrays.copyOf(robots, newCapacity);
+        freeIds = Arrays.copyOf(freeIds, newCapacity);
+    }
+
+    private void link(int id, int cell) {
+        int head = cellHead[cell];
+        next[id] = head;
+        prev[id] = NONE;
+        if (head != NONE) {
+            prev[head] = id;
+        }
+        cellHead[cell] = id;
+        robotCell[id] = cell;
+    }
+
+    private void unlink(int id) {
+        int cell = robotCell[id];
+        if (cell == NONE) {
+            return;
+        }
+        if (prev[id] != NONE) {
+            next[prev[id]] = next[id];
+        } else {
+            cellHead[cell] = next[id];
+        }
+        if (next[id] != NONE) {
+            prev[next[id]] = prev[id];
+        }
+        robotCell[id] = NONE;
+    }
+
+    private int clampIndex(int row, int col) {
+        row = Math.max(0, Math.min(rows - 1, row));
+        col = Math.max(0, Math.min(cols - 1, col));
+        return row * cols + col;
+    }
+
+    private boolean isValidPosition(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    /**
+     * Check if any robot stands on a cell
+     */
+    public boolean isOccupied(int row, int col) {
+        return isValidPosition(row, col) && cellHead[row * cols + col] != NONE;
+    }
+
+    /**
+     * Check if a robot other than the given one stands on a cell
+     */
+    public boolean isOccupiedByOther(int row, int col, Robot self) {
+        if (!isValidPosition(row, col)) {
+            return false;
+        }
+        for (int id = cellHead[row * cols + col]; id != NONE; id = next[id]) {
+            if (robots[id] != self) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the robots standing on a cell
+     */
+    public List<Robot> getRobotsAt(int row, int col) {
+        List<Robot> result = new ArrayList<>();
+        if (isValidPosition(row, col)) {
+            for (int id = cellHead[row * cols + col]; id != NONE; id = next[id]) {
+                result.add(robots[id]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find up to k robots nearest to a cell (Manhattan distance), closest first.
+     * The excluded robot (may be null) is never returned.
+     */
+    public List<Robot> findNearest(int row, int col, int k, Robot exclude) {
+        List<Robot> result = new ArrayList<>();
+        int available = size() - (contains(exclude) ? 1 : 0);
+        int wanted = Math.min(k, available);
+        int maxDistance = Math.max(row, rows - 1 - row) + Math.max(col, cols - 1 - col);
+        long scanned = 0;
+        for (int d = 0; d <= maxDistance && result.size() < wanted; d++) {
+            if (scanned > available) {
+                collectByScan(row, col, d, exclude, wanted, result);
+                break;
+            }
+            // Walk the diamond ring at distance d, over the rows inside the grid only
+            int firstDr = Math.max(-d, -row);
+            int lastDr = Math.min(d, rows - 1 - row);
+            scanned += 2L * (lastDr - firstDr + 1);
+            for (int dr = firstDr; dr <= lastDr && result.size() < wanted; dr++) {
+                int dc = d - Math.abs(dr);
+                collect(row + dr, col - dc, exclude, wanted, result);
+                if (dc != 0) {
+                    collect(row + dr, col + dc, exclude, wanted, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of robots in the index
+     */
+    public int size() {
+        return idCount - freeCount;
+    }
+
+    private boolean contains(Robot robot) {
+        return robot != null && robot.occupancyId != NONE && robot.occupancyId < idCount
+                && robots[robot.occupancyId] == robot;
+    }
+
+    /**
+     * Add the robots at distance minDistance or more, closest first, until
+     * result holds k robots
+     */
+    private void collectByScan(int row, int col, int minDistance, Robot exclude, int k, List<Robot> result) {
+        long[] found = new long[size()]; // Distance in the high half, id in the low half
+        int count = 0;
+        for (int id = 0; id < idCount; id++) {
+            if (robots[id] == null || robots[id] == exclude || robotCell[id] == NONE) {
+                continue;
+            }
+            int distance = Math.abs(robotCell[id] / cols - row) + Math.abs(robotCell[id] % cols - col);
+            if (distance >= minDistance) {
+                found[count++] = (long) distance << 32 | id;
+            }
+        }
+        Arrays.sort(found, 0, count);
+        for (int i = 0; i < count && result.size() < k; i++) {
+            result.add(robots[(int) found[i]]);
+        }
+    }
+
+    private void collect(int row, int col, Robot exclude, int k, List<Robot> result) {
+        if (!isValidPosition(row, col)) {
+            return;
+        }
+        for (int id = cellHead[row * cols + col]; id != NONE && result.size() < k; id = next[id]) {
+            if (robots[id] != exclude) {
+                result.add(robots[id]);
+            }
+        }
+    }
+}
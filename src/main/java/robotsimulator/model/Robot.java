@@ -1,6 +1,5 @@
 package robotsimulator.model;
 
-import javafx.animation.AnimationTimer;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -24,11 +23,8 @@ public class Robot {
     private int targetRow;
     private int targetCol;
     
-    // Movement state
+    // Movement state (advanced by the shared engine tick)
     private final BooleanProperty isMoving;
-    private AnimationTimer moveTimer;
-    private long lastMoveTime;
-    private static final long MOVE_STEP_DELAY_NANOS = 500_000_000; // 50ms per step
     
     // Visual position properties (for binding to visual nodes)
     private final DoubleProperty x;
@@ -38,8 +34,12 @@ public class Robot {
     private final double radius;
     private Color color;
     private Node visualNode;
+    private boolean frameDriven; // Visual position comes from published frames
     
     protected  GridManager gridManager;
+    
+    // Id in the grid's OccupancyGrid (-1 when not registered)
+    int occupancyId = -1;
 
     public void setGridManager(GridManager gridManager) {
         this.gridManager = gridManager;
@@ -60,24 +60,6 @@ public class Robot {
         this.x = new SimpleDoubleProperty();
         this.y = new SimpleDoubleProperty();
         updateVisualPosition();
-        
-        // Initialize movement timer
-        initializeMoveTimer();
-    }
-    
-    /**
-     * Initialize the movement animation timer
-     */
-    private void initializeMoveTimer() {
-        moveTimer = new AnimationTimer() {
-            @Override
-            public void handle(long now) {
-                if (now - lastMoveTime >= MOVE_STEP_DELAY_NANOS) {
-                    performMoveStep();
-                    lastMoveTime = now;
-                }
-            }
-        };
     }
 
     @Override
@@ -86,9 +68,15 @@ public class Robot {
     }
     
     /**
-     * Perform one step of movement towards target
+     * Perform one step of movement towards target.
+     * Called by the shared engine tick for every moving robot.
+     * Returns true if the robot is still moving after this step.
      */
-    private void performMoveStep() {
+    public boolean performMoveStep() {
+        if (!isMoving.get()) {
+            return false;
+        }
+        
         // First move vertically (row), then horizontally (col)
         if (gridRow != targetRow) {
             int nextRow = (gridRow < targetRow) ? gridRow + 1 : gridRow - 1;
@@ -97,12 +85,11 @@ public class Robot {
             if (gridManager != null && gridManager.isWallZeroBased(nextRow, gridCol)) {
                 System.out.println("Path blocked by wall! Stopping movement.");
                 isMoving.set(false);
-                moveTimer.stop();
-                return;
+                return false;
             }
             
-            gridRow = nextRow;
-            updateVisualPosition();
+            relocate(nextRow, gridCol);
+            return true;
             
         } else if (gridCol != targetCol) {
             int nextCol = (gridCol < targetCol) ? gridCol + 1 : gridCol - 1;
@@ -111,22 +98,22 @@ public class Robot {
             if (gridManager != null && gridManager.isWallZeroBased(gridRow, nextCol)) {
                 System.out.println("Path blocked by wall! Stopping movement.");
                 isMoving.set(false);
-                moveTimer.stop();
-                return;
+                return false;
             }
             
-            gridCol = nextCol;
-            updateVisualPosition();
+            relocate(gridRow, nextCol);
+            return true;
             
         } else {
             // Reached target
             isMoving.set(false);
-            moveTimer.stop();
+            return false;
         }
     }
     
     /**
-     * Start moving to a target position with cardinal animation
+     * Start moving to a target position with cardinal animation.
+     * Only records the move intent; steps are taken by performMoveStep.
      */
     public void moveToPosition(int targetGridRow, int targetGridCol) {
         // Convert from 1-based to 0-based
@@ -147,10 +134,8 @@ public class Robot {
             return;
         }
         
-        // Start movement animation
+        // Register the move intent
         isMoving.set(true);
-        lastMoveTime = System.nanoTime();
-        moveTimer.start();
     }
     
     /**
@@ -171,13 +156,40 @@ public class Robot {
      * Update visual position based on grid position
      */
     private void updateVisualPosition() {
-        // Calculate center of current cell
+        if (!frameDriven) {
+            showAt(gridRow, gridCol);
+        }
+    }
+    
+    /**
+     * Let a frame renderer place the visual (see showAt); moves then leave
+     * the x/y properties alone, so they can run off the FX thread.
+     * Turning it off snaps the visual back to the current cell.
+     */
+    public void setFrameDriven(boolean frameDriven) {
+        this.frameDriven = frameDriven;
+        updateVisualPosition();
+    }
+    
+    public boolean isFrameDriven() {
+        return frameDriven;
+    }
+    
+    /**
+     * Put the visual at a (possibly fractional) 0-based cell position
+     */
+    public void showAt(double row, double col) {
+        setX(cellCenter(col));
+        setY(cellCenter(row));
+    }
+    
+    /**
+     * Pixel position of the center of a cell along one axis.
+     * Linear in the cell index, so fractional cells land between centers.
+     */
+    public static double cellCenter(double cell) {
         // Add 20 pixels to account for GridPane padding
-        double centerX = gridCol * CELL_SIZE + CELL_SIZE / 2 + CELL_STROKE * (gridCol + 1) + GRID_PADDING;
-        double centerY = gridRow * CELL_SIZE + CELL_SIZE / 2 + CELL_STROKE * (gridRow + 1) + GRID_PADDING;
-        
-        setX(centerX);
-        setY(centerY);
+        return cell * CELL_SIZE + CELL_SIZE / 2 + CELL_STROKE * (cell + 1) + GRID_PADDING;
     }
     
     /**
@@ -190,8 +202,7 @@ public class Robot {
                 System.out.println("Hit a wall! Cannot move up.");
                 return;
             }
-            gridRow--;
-            updateVisualPosition();
+            relocate(gridRow - 1, gridCol);
         }
     }
     
@@ -199,13 +210,12 @@ public class Robot {
      * Move down one cell
      */
     public void moveDown() {
-        if (gridRow < GridConstants.GRID_SIZE - 1) {
+        if (gridRow < gridRows() - 1) {
             if (gridManager != null && gridManager.isWallZeroBased(gridRow + 1, gridCol)) {
                 System.out.println("Hit a wall! Cannot move down.");
                 return;
             }
-            gridRow++;
-            updateVisualPosition();
+            relocate(gridRow + 1, gridCol);
         }
     }
     
@@ -218,8 +228,7 @@ public class Robot {
                 System.out.println("Hit a wall! Cannot move left.");
                 return;
             }
-            gridCol--;
-            updateVisualPosition();
+            relocate(gridRow, gridCol - 1);
         }
     }
     
@@ -227,13 +236,12 @@ public class Robot {
      * Move right one cell
      */
     public void moveRight() {
-        if (gridCol < GridConstants.GRID_SIZE - 1) {
+        if (gridCol < gridCols() - 1) {
             if (gridManager != null && gridManager.isWallZeroBased(gridRow, gridCol + 1)) {
                 System.out.println("Hit a wall! Cannot move right.");
                 return;
             }
-            gridCol++;
-            updateVisualPosition();
+            relocate(gridRow, gridCol + 1);
         }
     }
     
@@ -241,11 +249,9 @@ public class Robot {
      * Set grid position directly (1-based indexing) - TELEPORT (no animation)
      */
     public void setGridPosition(int gridRow, int gridCol) {
-        this.gridRow = gridRow - 1;
-        this.gridCol = gridCol - 1;
+        relocate(gridRow - 1, gridCol - 1);
         this.targetRow = this.gridRow;
         this.targetCol = this.gridCol;
-        updateVisualPosition();
     }
 
     /**
@@ -263,13 +269,44 @@ public class Robot {
             return false;
         }
         
-        this.gridRow = newRow;
-        this.gridCol = newCol;
+        relocate(newRow, newCol);
         this.targetRow = this.gridRow;
         this.targetCol = this.gridCol;
-        updateVisualPosition();
         return true;
     }
+    
+    /**
+     * Change cell (0-based), keeping the occupancy index and visuals in sync
+     */
+    private void relocate(int newRow, int newCol) {
+        this.gridRow = newRow;
+        this.gridCol = newCol;
+        if (gridManager != null && occupancyId >= 0) {
+            gridManager.getOccupancy().move(this);
+        }
+        updateVisualPosition();
+    }
+
+    /**
+     * Number of rows of the grid the robot lives on
+     */
+    protected int gridRows() {
+        return gridManager != null ? gridManager.getRows() : GridConstants.GRID_SIZE;
+    }
+
+    /**
+     * Number of columns of the grid the robot lives on
+     */
+    protected int gridCols() {
+        return gridManager != null ? gridManager.getCols() : GridConstants.GRID_SIZE;
+    }
+
+    /**
+     * Check if another robot stands on a position (0-based)
+     */
+    protected boolean hasRobotAt(int row, int col) {
+        return gridManager != null && gridManager.getOccupancy().isOccupiedByOther(row, col, this);
+    }
 
     /**
      * Check if a position has a wall (0-based)
@@ -0,0 +1,87 @@
+package robotsimulator.model;
+
+/**
+ * Scalar grid kernels, used when the Vector API module is not present.
+ * The loops are simple enough for the JIT to auto-vectorise.
+ */
+public class ScalarGridKernels implements GridKernels {
+
+    @Override
+    public int countDirty(GridBuffer grid) {
+        return countNonZero(grid.dirtArray(), 0, grid.size());
+    }
+
+    @Override
+    public int countWalls(GridBuffer grid) {
+        return countNonZero(grid.wallArray(), 0, grid.size());
+    }
+
+    @Override
+    public void clearDirt(GridBuffer grid) {
+        byte[] dirt = grid.dirtArray();
+        byte[] walls = grid.wallArray();
+        for (int i = 0; i < dirt.length; i++) {
+            dirt[i] = walls[i] == 0 ? 0 : dirt[i];
+        }
+        grid.dirtReplaced();
+    }
+
+    @Override
+    public int[] rowDirtyCounts(GridBuffer grid) {
+        int cols = grid.getCols();
+        int[] counts = new int[grid.getRows()];
+        for (int row = 0; row < counts.length; row++) {
+            counts[row] = countNonZero(grid.dirtArray(), row * cols, row * cols + cols);
+        }
+        return counts;
+    }
+
+    @Override
+    public int countDirtyInRegion(GridBuffer grid, int fromRow, int fromCol, int toRow, int toCol) {
+        int cols = grid.getCols();
+        fromRow = Math.max(0, fromRow);
+        fromCol = Math.max(0, fromCol);
+        toRow = Math.min(grid.getRows(), toRow);
+        toCol = Math.min(cols, toCol);
+        int count = 0;
+        for (int row = fromRow; row < toRow; row++) {
+            count += countNonZero(grid.dirtArray(), row * cols + fromCol, row * cols + toCol);
+        }
+        return count;
+    }
+
+    @Override
+    public void spreadDirt(GridBuffer grid, byte[] scratch) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] dirt = grid.dirtArray();
+        byte[] walls = grid.wallArray();
+        for (int row = 0; row < rows; row++) {
+            int base = row * cols;
+            int up = row > 0 ? base - cols : base;
+            int down = row < rows - 1 ? base + cols : base;
+            for (int col = 0; col < cols; col++) {
+                int value = dirt[base + col];
+                value = Math.max(value, dirt[up + col]);
+                value = Math.max(value, dirt[down + col]);
+                if (col > 0) {
+                    value = Math.max(value, dirt[base + col - 1]);
+                }
+                if (col < cols - 1) {
+                    value = Math.max(value, dirt[base + col + 1]);
+                }
+                scratch[base + col] = walls[base + col] != 0 ? 0 : (byte) value;
+            }
+        }
+        System.arraycopy(scratch, 0, dirt, 0, dirt.length);
+        grid.dirtReplaced();
+    }
+
+    private static int countNonZero(byte[] values, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            count += values[i] != 0 ? 1 : 0;
+        }
+        return count;
+    }
+}
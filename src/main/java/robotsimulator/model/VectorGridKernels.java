@@ -0,0 +1,128 @@
+package robotsimulator.model;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD grid kernels built on the incubating Vector API.
+ * Requires --add-modules jdk.incubator.vector at compile and run time.
+ */
+public class VectorGridKernels implements GridKernels {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final byte ZERO = 0;
+
+    @Override
+    public int countDirty(GridBuffer grid) {
+        return countNonZero(grid.dirtArray(), 0, grid.size());
+    }
+
+    @Override
+    public int countWalls(GridBuffer grid) {
+        return countNonZero(grid.wallArray(), 0, grid.size());
+    }
+
+    @Override
+    public void clearDirt(GridBuffer grid) {
+        byte[] dirt = grid.dirtArray();
+        byte[] walls = grid.wallArray();
+        int i = 0;
+        int bound = SPECIES.loopBound(dirt.length);
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector d = ByteVector.fromArray(SPECIES, dirt, i);
+            VectorMask<Byte> free = ByteVector.fromArray(SPECIES, walls, i).compare(VectorOperators.EQ, ZERO);
+            d.blend(ZERO, free).intoArray(dirt, i);
+        }
+        for (; i < dirt.length; i++) {
+            dirt[i] = walls[i] == 0 ? 0 : dirt[i];
+        }
+        grid.dirtReplaced();
+    }
+
+    @Override
+    public int[] rowDirtyCounts(GridBuffer grid) {
+        int cols = grid.getCols();
+        int[] counts = new int[grid.getRows()];
+        for (int row = 0; row < counts.length; row++) {
+            counts[row] = countNonZero(grid.dirtArray(), row * cols, row * cols + cols);
+        }
+        return counts;
+    }
+
+    @Override
+    public int countDirtyInRegion(GridBuffer grid, int fromRow, int fromCol, int toRow, int toCol) {
+        int cols = grid.getCols();
+        fromRow = Math.max(0, fromRow);
+        fromCol = Math.max(0, fromCol);
+        toRow = Math.min(grid.getRows(), toRow);
+        toCol = Math.min(cols, toCol);
+        int count = 0;
+        for (int row = fromRow; row < toRow; row++) {
+            count += countNonZero(grid.dirtArray(), row * cols + fromCol, row * cols + toCol);
+        }
+        return count;
+    }
+
+    @Override
+    public void spreadDirt(GridBuffer grid, byte[] scratch) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] dirt = grid.dirtArray();
+        byte[] walls = grid.wallArray();
+        for (int row = 0; row < rows; row++) {
+            int base = row * cols;
+            int up = row > 0 ? base - cols : base;
+            int down = row < rows - 1 ? base + cols : base;
+
+            // Interior columns: every lane has a left and right neighbour
+            int col = 1;
+            int bound = 1 + SPECIES.loopBound(Math.max(0, cols - 2));
+            for (; col < bound; col += SPECIES.length()) {
+                ByteVector value = ByteVector.fromArray(SPECIES, dirt, base + col)
+                    .max(ByteVector.fromArray(SPECIES, dirt, up + col))
+                    .max(ByteVector.fromArray(SPECIES, dirt, down + col))
+                    .max(ByteVector.fromArray(SPECIES, dirt, base + col - 1))
+                    .max(ByteVector.fromArray(SPECIES, dirt, base + col + 1));
+                VectorMask<Byte> wall = ByteVector.fromArray(SPECIES, walls, base + col)
+                    .compare(VectorOperators.NE, ZERO);
+                value.blend(ZERO, wall).intoArray(scratch, base + col);
+            }
+
+            // Edge columns and the tail
+            spreadScalar(dirt, walls, scratch, base, up, down, 0, cols);
+            for (; col < cols; col++) {
+                spreadScalar(dirt, walls, scratch, base, up, down, col, cols);
+            }
+        }
+        System.arraycopy(scratch, 0, dirt, 0, dirt.length);
+        grid.dirtReplaced();
+    }
+
+    private static void spreadScalar(byte[] dirt, byte[] walls, byte[] scratch,
+                                     int base, int up, int down, int col, int cols) {
+        int value = dirt[base + col];
+        value = Math.max(value, dirt[up + col]);
+        value = Math.max(value, dirt[down + col]);
+        if (col > 0) {
+            value = Math.max(value, dirt[base + col - 1]);
+        }
+        if (col < cols - 1) {
+            value = Math.max(value, dirt[base + col + 1]);
+        }
+        scratch[base + col] = walls[base + col] != 0 ? 0 : (byte) value;
+    }
+
+    private static int countNonZero(byte[] values, int from, int to) {
+        int count = 0;
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            count += ByteVector.fromArray(SPECIES, values, i).compare(VectorOperators.NE, ZERO).trueCount();
+        }
+        for (; i < to; i++) {
+            count += values[i] != 0 ? 1 : 0;
+        }
+        return count;
+    }
+}
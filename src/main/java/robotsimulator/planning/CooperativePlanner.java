@@ -0,0 +1,432 @@
+package robotsimulator.planning;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import robotsimulator.model.GridBuffer;
+import robotsimulator.model.Robot;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Windowed Cooperative A* (WHCA*) planner for a fleet of cleaning robots.
+ * Robots plan one after another in a space-time grid; every planned path
+ * is written into a shared ReservationTable for the next window ticks, so
+ * later robots route (or wait) around earlier ones instead of colliding.
+ * Each robot heads for the nearest dirty cell no other robot has claimed.
+ * Replanning per tick stops when the tick budget is used up, also in the
+ * middle of a robot's search; robots that missed out keep their old plan
+ * or wait in place. No planning step walks the whole grid: goals are
+ * looked for in a bounded flood around the robot and paths use the
+ * Manhattan distance as heuristic. A robot that found no goal waits
+ * without planning until the dirty count or the walls change.
+ */
+public class CooperativePlanner {
+    // Up, Down, Left, Right, Wait
+    private static final int[] DR = {-1, 1, 0, 0, 0};
+    private static final int[] DC = {0, 0, -1, 1, 0};
+    private static final int MAX_EXPANSIONS = 4096;
+    private static final int MAX_GOAL_SCAN = 16384; // Cells flooded when looking for a goal
+    private static final int NOT_FOUND = -2;
+    private static final int OUT_OF_TIME = -3;
+    private static final int DEADLINE_CHECK_INTERVAL = 256; // Expansions between budget checks
+
+    private final GridManager gridManager;
+    private final int window;
+    private final long tickBudgetNanos;
+    private final ReservationTable reservations;
+    private final Map<Robot, Plan> plans;
+    private final Map<Integer, Integer> claims = new HashMap<>(); // Goal cell -> robots heading there
+    private final Set<Robot> members = new HashSet<>(); // The fleet of the current tick
+    private final Deque<Robot> yielded = new ArrayDeque<>(); // Robots that gave way this tick
+    private int[] visited = new int[0]; // Flood stamps per cell, sized to the grid when needed
+    private int[] floodQueue = new int[0];
+    private int floodStamp;
+    private long deadline;
+    private int now;
+    private int searchesLastTick;
+
+    public CooperativePlanner(GridManager gridManager, int window, long tickBudgetNanos) {
+        this.gridManager = gridManager;
+        this.window = Math.max(2, window);
+        this.tickBudgetNanos = tickBudgetNanos;
+        this.reservations = new ReservationTable();
+        this.plans = new HashMap<>();
+        this.now = 0;
+    }
+
+    /**
+     * Plan the next tick for all robots of the fleet
+     */
+    public void planTick(List<? extends Robot> fleet) {
+        now++;
+        reservations.purgeBefore(now);
+        searchesLastTick = 0;
+
+        // Forget robots that left the fleet
+        members.clear();
+        members.addAll(fleet);
+        Iterator<Map.Entry<Robot, Plan>> it = plans.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Robot, Plan> entry = it.next();
+            if (!members.contains(entry.getKey())) {
+                reservations.release(entry.getKey(), now);
+                unclaim(entry.getValue().goal);
+                it.remove();
+            }
+        }
+
+        deadline = System.nanoTime() + tickBudgetNanos;
+        int size = fleet.size();
+        for (int k = 0; k < size; k++) {
+            // Rotate priorities so no robot is always planned last
+            planRobot(fleet.get((k + now) % size));
+        }
+        // Robots that gave way to one that could not move plan again
+        while (!yielded.isEmpty()) {
+            Robot robot = yielded.poll();
+            if (!plans.containsKey(robot)) {
+                planRobot(robot);
+            }
+        }
+    }
+
+    /**
+     * Get where a robot should be on the next tick (0-based {row, col}),
+     * or null if the planner has nothing for it
+     */
+    public int[] nextCell(Robot robot) {
+        Plan plan = plans.get(robot);
+        if (plan == null) {
+            return null;
+        }
+        int cell = plan.cellAt(now + 1);
+        int cols = gridManager.getBuffer().getCols();
+        return new int[]{cell / cols, cell % cols};
+    }
+
+    /**
+     * Forget all plans and reservations
+     */
+    public void reset() {
+        plans.clear();
+        claims.clear();
+        reservations.clear();
+    }
+
+    public int getSearchesLastTick() {
+        return searchesLastTick;
+    }
+
+    private int cellOf(Robot robot) {
+        return gridManager.getBuffer().index(robot.getGridRow(), robot.getGridCol());
+    }
+
+    private void planRobot(Robot robot) {
+        if (!needsReplan(robot)) {
+            return;
+        }
+        if (System.nanoTime() < deadline && replan(robot)) {
+            searchesLastTick++;
+        } else {
+            holdPosition(robot);
+        }
+    }
+
+    private boolean needsReplan(Robot robot) {
+        Plan plan = plans.get(robot);
+        if (plan == null || plan.cellAt(now) != cellOf(robot)) {
+            return true;
+        }
+        GridBuffer grid = gridManager.getBuffer();
+        if (plan.goal < 0) {
+            if (plan.dirtyCount != gridManager.getColoredCount() || plan.wallVersion != grid.getWallVersion()) {
+                return true;
+            }
+            // Nothing new to look for: keep waiting where we are
+            if (plan.reservedUntil < now + window
+                    && reservations.reserve(plan.cellAt(now), plan.reservedUntil + 1, robot)) {
+                plan.reservedUntil++;
+            }
+            return plan.reservedUntil <= now;
+        }
+        if (plan.reservedUntil <= now || grid.dirtArray()[plan.goal] == 0) {
+            return true;
+        }
+        // Standard WHCA*: replan after half a window
+        return now - plan.startTime >= window / 2;
+    }
+
+    private void holdPosition(Robot robot) {
+        Plan old = plans.get(robot);
+        int goal = old == null ? -1 : old.goal;
+        int cell = cellOf(robot);
+        reservations.release(robot, now + 1);
+        standStill(robot, cell);
+        // No dirty count: plan again on the next tick
+        putPlan(robot, new Plan(now, new int[]{cell}, goal, now + 1, -1, -1));
+    }
+
+    /**
+     * Reserve the cell a robot stands on for the next tick. A robot that
+     * cannot move keeps its cell: whoever planned to move in gives way and
+     * plans again. Every such swap hands a cell to the robot on it, so
+     * there are at most as many per tick as robots.
+     */
+    private void standStill(Robot robot, int cell) {
+        Object owner = reservations.ownerOf(cell, now + 1);
+        if (owner != null && owner != robot && cellOf((Robot) owner) != cell) {
+            Robot other = (Robot) owner;
+            reservations.release(other, now + 1);
+            removePlan(other);
+            yielded.add(other);
+        }
+        reservations.reserve(cell, now + 1, robot);
+    }
+
+    /**
+     * Plan a robot's next window; returns false (changing nothing) if the
+     * tick budget ran out before a goal was chosen. Reservations stop at
+     * the first cell another robot already holds, the robot plans again
+     * before it gets there.
+     */
+    private boolean replan(Robot robot) {
+        int start = cellOf(robot);
+        Plan old = plans.get(robot);
+        int goal = chooseGoal(start, old);
+        if (goal == OUT_OF_TIME) {
+            return false;
+        }
+        reservations.release(robot, now + 1);
+        int[] path = goal < 0 ? new int[]{start} : search(robot, start, goal);
+        Plan plan = new Plan(now, path, goal, now, gridManager.getColoredCount(),
+                gridManager.getBuffer().getWallVersion());
+        while (plan.reservedUntil < now + window
+                && reservations.reserve(plan.cellAt(plan.reservedUntil + 1), plan.reservedUntil + 1, robot)) {
+            plan.reservedUntil++;
+        }
+        if (plan.reservedUntil == now) {
+            // Hemmed in: the search found no free cell for the next tick
+            standStill(robot, start);
+            plan.reservedUntil = now + 1;
+        }
+        putPlan(robot, plan);
+        return true;
+    }
+
+    private void putPlan(Robot robot, Plan plan) {
+        removePlan(robot);
+        plans.put(robot, plan);
+        if (plan.goal >= 0) {
+            claims.merge(plan.goal, 1, Integer::sum);
+        }
+    }
+
+    private void removePlan(Robot robot) {
+        Plan plan = plans.remove(robot);
+        if (plan != null) {
+            unclaim(plan.goal);
+        }
+    }
+
+    private void unclaim(int goal) {
+        if (goal >= 0) {
+            claims.computeIfPresent(goal, (cell, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Keep the current goal while it is dirty, otherwise take the nearest
+     * reachable dirty cell that no other robot is heading for. Returns -1
+     * if the flood finds none within MAX_GOAL_SCAN cells, or OUT_OF_TIME
+     * if the tick budget ran out.
+     */
+    private int chooseGoal(int start, Plan old) {
+        GridBuffer grid = gridManager.getBuffer();
+        if (old != null && old.goal >= 0 && grid.dirtArray()[old.goal] != 0) {
+            return old.goal;
+        }
+        int flooded = flood(grid, start);
+        return flooded == NOT_FOUND ? -1 : flooded;
+    }
+
+    /**
+     * Breadth-first flood from start for the first unclaimed dirty cell.
+     * Returns the cell, -1 if the flood covered the whole reachable area
+     * without finding one, OUT_OF_TIME, or NOT_FOUND once it reached
+     * MAX_GOAL_SCAN cells.
+     */
+    private int flood(GridBuffer grid, int start) {
+        if (visited.length != grid.size()) {
+            visited = new int[grid.size()];
+            floodQueue = new int[Math.min(grid.size(), MAX_GOAL_SCAN)];
+            floodStamp = 0;
+        }
+        floodStamp++;
+        byte[] walls = grid.wallArray();
+        byte[] dirt = grid.dirtArray();
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int head = 0;
+        int tail = 0;
+        floodQueue[tail++] = start;
+        visited[start] = floodStamp;
+        while (head < tail) {
+            int cell = floodQueue[head++];
+            if (dirt[cell] != 0 && !claims.containsKey(cell)) {
+                return cell;
+            }
+            if (head % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                return OUT_OF_TIME;
+            }
+            int row = cell / cols;
+            int col = cell % cols;
+            for (int d = 0; d < 4; d++) {
+                int newRow = row + DR[d];
+                int newCol = col + DC[d];
+                if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) {
+                    continue;
+                }
+                int next = newRow * cols + newCol;
+                if (walls[next] == 0 && visited[next] != floodStamp) {
+                    if (tail == floodQueue.length) {
+                        return NOT_FOUND;
+                    }
+                    visited[next] = floodStamp;
+                    floodQueue[tail++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Space-time A* from start towards goal, honouring reservations inside
+     * the window, with the Manhattan distance to the goal as heuristic.
+     * When the expansion cap or the tick budget is reached, the most
+     * promising partial path is taken.
+     */
+    private int[] search(Robot robot, int start, int goal) {
+        GridBuffer grid = gridManager.getBuffer();
+        byte[] walls = grid.wallArray();
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int size = grid.size();
+
+        PriorityQueue<StateNode> open = new PriorityQueue<>(
+            Comparator.<StateNode>comparingInt(n -> n.f).thenComparingInt(n -> n.f - n.g));
+        Set<Long> closed = new HashSet<>();
+        StateNode best = new StateNode(start, 0, 0, GridDistances.manhattan(start, goal, cols), null);
+        open.add(best);
+        int expansions = 0;
+
+        while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+            StateNode node = open.poll();
+            if (node.cell == goal || node.t == window) {
+                return reconstruct(node);
+            }
+            if (!closed.add((long) node.t * size + node.cell)) {
+                continue;
+            }
+            expansions++;
+            if (node.f - node.g < best.f - best.g) {
+                best = node;
+            }
+            if (expansions % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+
+            int row = node.cell / cols;
+            int col = node.cell % cols;
+            int time = now + node.t;
+            for (int d = 0; d < DR.length; d++) {
+                int newRow = row + DR[d];
+                int newCol = col + DC[d];
+                if (newRow < 0 || newRow >= rows || newCol < 0 || newCol >= cols) {
+                    continue;
+                }
+                int nextCell = newRow * cols + newCol;
+                if (walls[nextCell] != 0
+                        || reservations.isReservedByOther(nextCell, time + 1, robot)
+                        || reservations.isSwapConflict(node.cell, nextCell, time, robot)) {
+                    continue;
+                }
+                int nextT = node.t + 1;
+                if (closed.contains((long) nextT * size + nextCell)) {
+                    continue;
+                }
+                int g = node.g + 1;
+                open.add(new StateNode(nextCell, nextT, g, g + GridDistances.manhattan(nextCell, goal, cols), node));
+            }
+        }
+        // Search or tick budget exhausted: follow the most promising partial path
+        return reconstruct(best);
+    }
+
+    private int[] reconstruct(StateNode end) {
+        List<Integer> cells = new ArrayList<>();
+        for (StateNode n = end; n != null; n = n.parent) {
+            cells.add(0, n.cell);
+        }
+        return cells.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * A robot's path: cells[i] is where it is at tick startTime + i.
+     * After the last cell the robot stays put. It holds reservations up to
+     * tick reservedUntil; dirtyCount and wallVersion are the grid state a
+     * goal-less plan was made for.
+     */
+    private static class Plan {
+        final int startTime;
+        final int[] cells;
+        final int goal;
+        final int dirtyCount;
+        final int wallVersion;
+        int reservedUntil;
+
+        Plan(int startTime, int[] cells, int goal, int reservedUntil, int dirtyCount, int wallVersion) {
+            this.startTime = startTime;
+            this.cells = cells;
+            this.goal = goal;
+            this.reservedUntil = reservedUntil;
+            this.dirtyCount = dirtyCount;
+            this.wallVersion = wallVersion;
+        }
+
+        int cellAt(int time) {
+            int i = time - startTime;
+            if (i < 0) {
+                return cells[0];
+            }
+            return cells[Math.min(i, cells.length - 1)];
+        }
+    }
+
+    /**
+     * Search node in the space-time grid
+     */
+    private static class StateNode {
+        final int cell;
+        final int t;
+        final int g;
+        final int f;
+        final StateNode parent;
+
+        StateNode(int cell, int t, int g, int f, StateNode parent) {
+            this.cell = cell;
+            this.t = t;
+            this.g = g;
+            this.f = f;
+            this.parent = parent;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package robotsimulator.planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Boustrophedon coverage planner.
+ * The free cells still to cover are split into regions: a region is a stack
+ * of row segments where each segment overlaps exactly one segment of the row
+ * above and below, so it can be swept back and forth without leaving it.
+ * Regions are visited in nearest-neighbour order (real BFS distances, each
+ * region entered at whichever of its four corners is closest) and joined
+ * with shortest paths around the walls. The BFS for the next region stops
+ * at the first corner it reaches and reuses its arrays across the plan,
+ * so a leg costs the cells around it rather than the whole grid.
+ * Cells are flat 0-based indices (row * cols + col).
+ */
+public class CoveragePlanner {
+    private final GridBuffer grid;
+    private int regionCount;
+
+    // Nearest-corner search state of the current plan
+    private int[] cornerRegion; // Region a cell is a corner of, or -1
+    private boolean[] swept;
+    private int[] seen; // Search number that last reached a cell
+    private int[] parent;
+    private int[] queue;
+    private int search;
+
+    public CoveragePlanner(GridBuffer grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Plan a route from start that passes over every reachable free cell not
+     * yet covered (covered may be null). The start cell itself is not part of
+     * the route. Cells cut off from start by walls are left out.
+     */
+    public int[] plan(int start, boolean[] covered) {
+        List<Region> regions = decompose(covered);
+        regionCount = regions.size();
+        RouteBuilder route = new RouteBuilder();
+        int position = start;
+
+        int size = grid.size();
+        cornerRegion = new int[size];
+        Arrays.fill(cornerRegion, -1);
+        for (int id = 0; id < regions.size(); id++) {
+            for (int which = 0; which < 4; which++) {
+                cornerRegion[regions.get(id).corner(which)] = id;
+            }
+        }
+        swept = new boolean[regions.size()];
+        seen = new int[size];
+        parent = new int[size];
+        queue = new int[size];
+        search = 0;
+
+        for (int left = regions.size(); left > 0; left--) {
+            int corner = nearestCorner(position);
+            if (corner < 0) {
+                break; // Everything left is walled off from us
+            }
+            Region best = regions.get(cornerRegion[corner]);
+            swept[cornerRegion[corner]] = true;
+            appendPath(position, corner, route);
+            position = best.sweep(best.entryAt(corner), route);
+        }
+        cornerRegion = null;
+        swept = null;
+        seen = null;
+        parent = null;
+        queue = null;
+        return route.toArray();
+    }
+
+    /**
+     * Breadth-first search from a cell up to the first corner of a region
+     * not swept yet; returns that corner or -1 if none can be reached
+     */
+    private int nearestCorner(int source) {
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        byte[] walls = grid.wallArray();
+        search++;
+        int head = 0;
+        int tail = 0;
+        seen[source] = search;
+        parent[source] = -1;
+        queue[tail++] = source;
+        while (head < tail) {
+            int cell = queue[head++];
+            int region = cornerRegion[cell];
+            if (region >= 0 && !swept[region]) {
+                return cell;
+            }
+            int row = cell / cols;
+            int col = cell % cols;
+            if (row > 0) {
+                tail = visit(walls, cell, cell - cols, tail);
+            }
+            if (row < rows - 1) {
+                tail = visit(walls, cell, cell + cols, tail);
+            }
+            if (col > 0) {
+                tail = visit(walls, cell, cell - 1, tail);
+            }
+            if (col < cols - 1) {
+                tail = visit(walls, cell, cell + 1, tail);
+            }
+        }
+        return -1;
+    }
+
+    private int visit(byte[] walls, int from, int cell, int tail) {
+        if (walls[cell] == 0 && seen[cell] != search) {
+            seen[cell] = search;
+            parent[cell] = from;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * Append the path the last search found from source (excluded) to target
+     */
+    private void appendPath(int source, int target, RouteBuilder route) {
+        int length = 0;
+        for (int cell = target; cell != source; cell = parent[cell]) {
+            queue[length++] = cell; // The queue is free again once the search is over
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            route.add(queue[i]);
+        }
+    }
+
+    /**
+     * Number of regions found by the last plan() call
+     */
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    private List<Region> decompose(boolean[] covered) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        byte[] walls = grid.wallArray();
+        List<Region> regions = new ArrayList<>();
+        List<int[]> previous = new ArrayList<>(); // {left, right, region}
+
+        for (int row = 0; row < rows; row++) {
+            List<int[]> current = new ArrayList<>();
+            int base = row * cols;
+            for (int col = 0; col < cols; col++) {
+                if (isTodo(walls, covered, base + col)) {
+                    int left = col;
+                    while (col + 1 < cols && isTodo(walls, covered, base + col + 1)) {
+                        col++;
+                    }
+                    current.add(new int[]{left, col, -1});
+                }
+            }
+            for (int[] segment : current) {
+                int[] above = null;
+                int overlaps = 0;
+                for (int[] candidate : previous) {
+                    if (candidate[0] <= segment[1] && segment[0] <= candidate[1]) {
+                        above = candidate;
+                        overlaps++;
+                    }
+                }
+                // Continue the region above only on a clean one-to-one overlap
+                if (overlaps == 1 && countOverlaps(current, above) == 1) {
+                    segment[2] = above[2];
+                } else {
+                    segment[2] = regions.size();
+                    regions.add(new Region(grid));
+                }
+                regions.get(segment[2]).add(row, segment[0], segment[1]);
+            }
+            previous = current;
+        }
+        return regions;
+    }
+
+    private static boolean isTodo(byte[] walls, boolean[] covered, int cell) {
+        return walls[cell] == 0 && (covered == null || !covered[cell]);
+    }
+
+    private static int countOverlaps(List<int[]> segments, int[] other) {
+        int count = 0;
+        for (int[] segment : segments) {
+            if (other[0] <= segment[1] && segment[0] <= other[1]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Consecutive row segments swept back and forth
+     */
+    private static class Region {
+        private final GridBuffer grid;
+        private final List<int[]> segments = new ArrayList<>(); // {row, left, right}
+
+        Region(GridBuffer grid) {
+            this.grid = grid;
+        }
+
+        void add(int row, int left, int right) {
+            segments.add(new int[]{row, left, right});
+        }
+
+        /**
+         * Corner 0: top-left, 1: top-right, 2: bottom-left, 3: bottom-right
+         */
+        int corner(int which) {
+            int[] segment = segments.get(which < 2 ? 0 : segments.size() - 1);
+            return grid.index(segment[0], which % 2 == 0 ? segment[1] : segment[2]);
+        }
+
+        /**
+         * Which corner a cell is (the first match when corners coincide)
+         */
+        int entryAt(int cell) {
+            int which = 0;
+            while (corner(which) != cell) {
+                which++;
+            }
+            return which;
+        }
+
+        /**
+         * Append the sweep starting at a corner; returns the cell it ends on
+         */
+        int sweep(int which, RouteBuilder route) {
+            boolean downwards = which < 2;
+            int count = segments.size();
+            int[] first = segments.get(downwards ? 0 : count - 1);
+            int row = first[0];
+            int col = which % 2 == 0 ? first[1] : first[2];
+
+            for (int i = 0; i < count; i++) {
+                int[] segment = segments.get(downwards ? i : count - 1 - i);
+                int left = segment[1];
+                int right = segment[2];
+                if (i > 0) {
+                    // Slide along the finished row until the next row is right below
+                    while (col > right) {
+                        route.add(grid.index(row, --col));
+                    }
+                    while (col < left) {
+                        route.add(grid.index(row, ++col));
+                    }
+                    row = segment[0];
+                    route.add(grid.index(row, col));
+                }
+                // Sweep to the nearer end first (if we entered mid-row), then to the far end
+                if (col - left <= right - col) {
+                    while (col > left) {
+                        route.add(grid.index(row, --col));
+                    }
+                    while (col < right) {
+                        route.add(grid.index(row, ++col));
+                    }
+                } else {
+                    while (col < right) {
+                        route.add(grid.index(row, ++col));
+                    }
+                    while (col > left) {
+                        route.add(grid.index(row, --col));
+                    }
+                }
+            }
+            return grid.index(row, col);
+        }
+    }
+
+    /**
+     * Growable list of cells without boxing
+     */
+    private static class RouteBuilder {
+        private int[] cells = new int[64];
+        private int size;
+
+        void add(int cell) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            cells[size++] = cell;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(cells, size);
+        }
+    }
+}
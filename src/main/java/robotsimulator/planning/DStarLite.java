@@ -0,0 +1,266 @@
+package robotsimulator.planning;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * D* Lite replanner for one robot heading to one goal.
+ * Like IncrementalPathSearch it searches backwards from the goal, but it
+ * keeps its g/rhs values between calls: when walls change only the cells
+ * whose distance to the goal actually changed are re-expanded, and the
+ * robot moving along does not invalidate the search (the km offset).
+ * Moves are 4-connected with unit cost; walls cannot be entered.
+ * Cells are flat 0-based indices (row * cols + col).
+ */
+public class DStarLite {
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private final GridBuffer grid;
+    private final int goal;
+    private final int[] g;
+    private final int[] rhs;
+    private final PriorityQueue<Entry> open;
+    private int start;
+    private int km;
+    private int expansions;
+
+    public DStarLite(GridBuffer grid, int start, int goal) {
+        this.grid = grid;
+        this.start = start;
+        this.goal = goal;
+        this.g = new int[grid.size()];
+        this.rhs = new int[grid.size()];
+        this.open = new PriorityQueue<>();
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        if (grid.wallArray()[goal] == 0) {
+            rhs[goal] = 0;
+            open.add(new Entry(heuristic(goal), 0, goal));
+        }
+    }
+
+    /**
+     * The robot moved: search on from its new cell without throwing work away
+     */
+    public void moveStart(int newStart) {
+        if (newStart != start) {
+            km += GridDistances.manhattan(start, newStart, grid.getCols());
+            start = newStart;
+        }
+    }
+
+    /**
+     * Cells whose wall changed (flat indices). Only these cells and their
+     * neighbours are touched here; computeShortestPath() spreads the change.
+     */
+    public void updateCells(int[] changed) {
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        for (int cell : changed) {
+            updateVertex(cell);
+            int row = cell / cols;
+            int col = cell % cols;
+            if (row > 0) {
+                updateVertex(cell - cols);
+            }
+            if (row < rows - 1) {
+                updateVertex(cell + cols);
+            }
+            if (col > 0) {
+                updateVertex(cell - 1);
+            }
+            if (col < cols - 1) {
+                updateVertex(cell + 1);
+            }
+        }
+    }
+
+    /**
+     * Bring the search up to date for the current start.
+     * Returns true if the goal is reachable.
+     */
+    public boolean computeShortestPath() {
+        expansions = 0;
+        while (!open.isEmpty()) {
+            Entry top = open.peek();
+            if (!isLocallyInconsistent(top.cell) || !top.matches(key1(top.cell), key2(top.cell))) {
+                // Stale entry: the cell was settled, or its key went up since
+                // (km grew) and it has to be queued again with the new key
+                open.poll();
+                if (isLocallyInconsistent(top.cell) && top.compareTo(key1(top.cell), key2(top.cell)) < 0) {
+                    open.add(new Entry(key1(top.cell), key2(top.cell), top.cell));
+                }
+                continue;
+            }
+            if (top.compareTo(key1(start), key2(start)) >= 0 && rhs[start] == g[start]) {
+                break;
+            }
+            open.poll();
+            expansions++;
+            int cell = top.cell;
+            if (g[cell] > rhs[cell]) {
+                g[cell] = rhs[cell];
+                updateNeighbours(cell);
+            } else {
+                g[cell] = INFINITY;
+                updateVertex(cell);
+                updateNeighbours(cell);
+            }
+        }
+        return hasPath();
+    }
+
+    /**
+     * Check if the goal is reachable from the current start
+     */
+    public boolean hasPath() {
+        return g[start] < INFINITY && rhs[start] == g[start];
+    }
+
+    /**
+     * Get the best neighbour to step to from the current start,
+     * or -1 if there is no path (or we already stand on the goal)
+     */
+    public int nextStep() {
+        if (start == goal || !hasPath()) {
+            return -1;
+        }
+        int best = -1;
+        int bestCost = INFINITY;
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        int row = start / cols;
+        int col = start % cols;
+        int[] candidates = {
+            row > 0 ? start - cols : -1,
+            row < rows - 1 ? start + cols : -1,
+            col > 0 ? start - 1 : -1,
+            col < cols - 1 ? start + 1 : -1
+        };
+        for (int next : candidates) {
+            if (next >= 0 && isFree(next) && g[next] + 1 < bestCost) {
+                bestCost = g[next] + 1;
+                best = next;
+            }
+        }
+        return best;
+    }
+
+    private void updateNeighbours(int cell) {
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        int row = cell / cols;
+        int col = cell % cols;
+        if (row > 0) {
+            updateVertex(cell - cols);
+        }
+        if (row < rows - 1) {
+            updateVertex(cell + cols);
+        }
+        if (col > 0) {
+            updateVertex(cell - 1);
+        }
+        if (col < cols - 1) {
+            updateVertex(cell + 1);
+        }
+    }
+
+    private void updateVertex(int cell) {
+        if (cell != goal) {
+            rhs[cell] = isFree(cell) ? bestNeighbourCost(cell) : INFINITY;
+        } else {
+            rhs[cell] = isFree(cell) ? 0 : INFINITY;
+        }
+        if (isLocallyInconsistent(cell)) {
+            open.add(new Entry(key1(cell), key2(cell), cell));
+        }
+    }
+
+    private int bestNeighbourCost(int cell) {
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        int row = cell / cols;
+        int col = cell % cols;
+        int best = INFINITY;
+        if (row > 0 && isFree(cell - cols)) {
+            best = Math.min(best, g[cell - cols] + 1);
+        }
+        if (row < rows - 1 && isFree(cell + cols)) {
+            best = Math.min(best, g[cell + cols] + 1);
+        }
+        if (col > 0 && isFree(cell - 1)) {
+            best = Math.min(best, g[cell - 1] + 1);
+        }
+        if (col < cols - 1 && isFree(cell + 1)) {
+            best = Math.min(best, g[cell + 1] + 1);
+        }
+        return Math.min(best, INFINITY);
+    }
+
+    private boolean isFree(int cell) {
+        return grid.wallArray()[cell] == 0;
+    }
+
+    private boolean isLocallyInconsistent(int cell) {
+        return g[cell] != rhs[cell];
+    }
+
+    private int key2(int cell) {
+        return Math.min(g[cell], rhs[cell]);
+    }
+
+    private int key1(int cell) {
+        int k2 = key2(cell);
+        return k2 >= INFINITY ? INFINITY : k2 + heuristic(cell) + km;
+    }
+
+    private int heuristic(int cell) {
+        return GridDistances.manhattan(cell, start, grid.getCols());
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getGoal() {
+        return goal;
+    }
+
+    /**
+     * Number of cells expanded by the last computeShortestPath() call
+     */
+    public int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Queue entry; entries are never updated in place, outdated ones are
+     * recognised by their key and skipped
+     */
+    private static class Entry implements Comparable<Entry> {
+        final int k1;
+        final int k2;
+        final int cell;
+
+        Entry(int k1, int k2, int cell) {
+            this.k1 = k1;
+            this.k2 = k2;
+            this.cell = cell;
+        }
+
+        boolean matches(int otherK1, int otherK2) {
+            return k1 == otherK1 && k2 == otherK2;
+        }
+
+        int compareTo(int otherK1, int otherK2) {
+            return k1 != otherK1 ? Integer.compare(k1, otherK1) : Integer.compare(k2, otherK2);
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return compareTo(other.k1, other.k2);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package robotsimulator.planning;
+
+import java.util.Arrays;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Breadth-first distance maps over the free cells of a grid.
+ * Cells are flat 0-based indices (row * cols + col).
+ */
+public final class GridDistances {
+    public static final int UNREACHABLE = -1;
+
+    private GridDistances() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Shortest 4-connected distance from a cell to every other cell
+     * (UNREACHABLE for walls and cut-off cells)
+     */
+    public static int[] from(GridBuffer grid, int source) {
+        int cols = grid.getCols();
+        int size = grid.size();
+        byte[] walls = grid.wallArray();
+        int[] dist = new int[size];
+        Arrays.fill(dist, UNREACHABLE);
+        if (walls[source] != 0) {
+            return dist;
+        }
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        dist[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / cols;
+            int col = cell % cols;
+            int d = dist[cell] + 1;
+            if (row > 0 && walls[cell - cols] == 0 && dist[cell - cols] == UNREACHABLE) {
+                dist[cell - cols] = d;
+                queue[tail++] = cell - cols;
+            }
+            if (row < grid.getRows() - 1 && walls[cell + cols] == 0 && dist[cell + cols] == UNREACHABLE) {
+                dist[cell + cols] = d;
+                queue[tail++] = cell + cols;
+            }
+            if (col > 0 && walls[cell - 1] == 0 && dist[cell - 1] == UNREACHABLE) {
+                dist[cell - 1] = d;
+                queue[tail++] = cell - 1;
+            }
+            if (col < cols - 1 && walls[cell + 1] == 0 && dist[cell + 1] == UNREACHABLE) {
+                dist[cell + 1] = d;
+                queue[tail++] = cell + 1;
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Walk a distance map back from target to its source: the cells to visit
+     * after the source (excluded) up to the target (included).
+     * Returns null if the target is unreachable.
+     */
+    public static int[] pathTo(int[] dist, GridBuffer grid, int target) {
+        if (dist[target] == UNREACHABLE) {
+            return null;
+        }
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        int[] path = new int[dist[target]];
+        int cell = target;
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = cell;
+            int row = cell / cols;
+            int col = cell % cols;
+            int d = dist[cell] - 1;
+            if (row > 0 && dist[cell - cols] == d) {
+                cell -= cols;
+            } else if (row < rows - 1 && dist[cell + cols] == d) {
+                cell += cols;
+            } else if (col > 0 && dist[cell - 1] == d) {
+                cell -= 1;
+            } else {
+                cell += 1;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Manhattan distance between two cells
+     */
+    public static int manhattan(int a, int b, int cols) {
+        return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+    }
+}
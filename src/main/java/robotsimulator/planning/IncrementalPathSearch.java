@@ -0,0 +1,247 @@
+package robotsimulator.planning;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * A* search that can be run a few node expansions at a time.
+ * The search runs backwards, from the goal towards the start, so every
+ * settled cell already knows its way to the goal. A robot may wander
+ * (e.g. greedily) while the search is still running and pick up a path
+ * as soon as it stands on any cell the search has reached.
+ * Cells are flat 0-based indices (row * cols + col). Only the cells the
+ * search touches are stored, so starting a search costs the same on any
+ * grid size.
+ */
+public class IncrementalPathSearch {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int NO_PARENT = -1;
+
+    private final GridBuffer grid;
+    private final int start;
+    private final int goal;
+    private final CellTable cells = new CellTable();
+    private final PriorityQueue<Long> open;
+    private boolean finished;
+    private boolean failed;
+    private int expansions;
+
+    public IncrementalPathSearch(GridBuffer grid, int start, int goal) {
+        this.grid = grid;
+        this.start = start;
+        this.goal = goal;
+        this.open = new PriorityQueue<>();
+        if (grid.wallArray()[goal] != 0) {
+            failed = true;
+            finished = true;
+        } else {
+            cells.costs[cells.slot(goal)] = 0;
+            open.add(pack(heuristic(goal), goal));
+        }
+    }
+
+    /**
+     * Expand at most maxExpansions nodes.
+     * Returns true once the search is finished (found or failed).
+     */
+    public boolean step(int maxExpansions) {
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        byte[] walls = grid.wallArray();
+        for (int n = 0; n < maxExpansions && !finished; n++) {
+            if (open.isEmpty()) {
+                failed = true;
+                finished = true;
+                break;
+            }
+            int cell = (int) (long) open.poll();
+            int slot = cells.find(cell);
+            if (cells.closed[slot]) {
+                continue;
+            }
+            cells.closed[slot] = true;
+            expansions++;
+            if (cell == start) {
+                finished = true;
+                break;
+            }
+            int row = cell / cols;
+            int col = cell % cols;
+            if (row > 0) {
+                relax(cell, cell - cols, walls);
+            }
+            if (row < rows - 1) {
+                relax(cell, cell + cols, walls);
+            }
+            if (col > 0) {
+                relax(cell, cell - 1, walls);
+            }
+            if (col < cols - 1) {
+                relax(cell, cell + 1, walls);
+            }
+        }
+        return finished;
+    }
+
+    private void relax(int from, int to, byte[] walls) {
+        if (walls[to] != 0) {
+            return;
+        }
+        int cost = cost(from) + 1;
+        int slot = cells.slot(to);
+        if (!cells.closed[slot] && cost < cells.costs[slot]) {
+            cells.costs[slot] = cost;
+            cells.parents[slot] = from;
+            open.add(pack(cost + heuristic(to), to));
+        }
+    }
+
+    private int cost(int cell) {
+        int slot = cells.find(cell);
+        return slot < 0 ? INFINITY : cells.costs[slot];
+    }
+
+    private int heuristic(int cell) {
+        return GridDistances.manhattan(cell, start, grid.getCols());
+    }
+
+    private static long pack(int f, int cell) {
+        return ((long) f << 32) | cell;
+    }
+
+    /**
+     * Check if a path to the goal is already known from a cell
+     */
+    public boolean hasPathFrom(int cell) {
+        return cell >= 0 && cell < grid.size() && cost(cell) != INFINITY;
+    }
+
+    /**
+     * Get the cells to walk from a cell to the goal (excluding the cell itself).
+     * Only valid when hasPathFrom(cell) is true.
+     */
+    public int[] pathFrom(int cell) {
+        int[] path = new int[cost(cell)];
+        int current = cell;
+        for (int i = 0; i < path.length; i++) {
+            current = cells.parents[cells.find(current)];
+            path[i] = current;
+        }
+        return path;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getGoal() {
+        return goal;
+    }
+
+    /**
+     * Cost, parent and closed flag of the touched cells, in an
+     * open-addressing hash table keyed by cell index
+     */
+    private static final class CellTable {
+        private static final int EMPTY = -1;
+        private static final int INITIAL_CAPACITY = 64;
+
+        private int[] keys;
+        private int[] costs;
+        private int[] parents;
+        private boolean[] closed;
+        private int size;
+
+        CellTable() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            costs = new int[capacity];
+            parents = new int[capacity];
+            closed = new boolean[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        /**
+         * Slot of a cell, or -1 if the search has not touched it
+         */
+        int find(int cell) {
+            int mask = keys.length - 1;
+            for (int slot = hash(cell) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == cell) {
+                    return slot;
+                }
+                if (keys[slot] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Slot of a cell, added with no cost and no parent if new. Slots
+         * returned earlier are invalid after a call that adds a cell.
+         */
+        int slot(int cell) {
+            int found = find(cell);
+            if (found >= 0) {
+                return found;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(cell) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = cell;
+            costs[slot] = INFINITY;
+            parents[slot] = NO_PARENT;
+            size++;
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCosts = costs;
+            int[] oldParents = parents;
+            boolean[] oldClosed = closed;
+            allocate(keys.length * 2);
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) {
+                    continue;
+                }
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                costs[slot] = oldCosts[i];
+                parents[slot] = oldParents[i];
+                closed[slot] = oldClosed[i];
+            }
+        }
+
+        private static int hash(int cell) {
+            int h = cell * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package robotsimulator.planning;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import robotsimulator.events.PathSearchEvent;
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Solves path requests on a bounded pool of worker threads.
+ * Workers only see an immutable copy of the walls, taken on the tick thread
+ * whenever the walls changed. Results are queued and handed to the
+ * requesters on the tick thread when deliverCompleted() is called at the
+ * next tick boundary, so robots never see a path mid-tick.
+ * Identical requests (same walls, start and goal) in flight at the same
+ * time are solved once and delivered to every requester. A search that
+ * fails is delivered as "no path", so no requester waits forever.
+ */
+public class PathfindingService {
+    private final ExecutorService workers;
+    private final Semaphore searchPermits; // Bounds concurrent searches with virtual threads, null otherwise
+    private final Map<PathKey, List<Consumer<int[]>>> inFlight;
+    private final Queue<Completed> completed;
+    private GridBuffer wallSnapshot;
+    private int requestCount;
+    private int coalescedCount;
+
+    /**
+     * @param threads        number of platform worker threads, or of searches
+     *                       running at once with virtual threads
+     * @param virtualThreads use one virtual thread per request instead of a fixed pool
+     */
+    public PathfindingService(int threads, boolean virtualThreads) {
+        this.workers = virtualThreads
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(Math.max(1, threads), new WorkerThreadFactory());
+        this.searchPermits = virtualThreads ? new Semaphore(Math.max(1, threads)) : null;
+        this.inFlight = new HashMap<>();
+        this.completed = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Ask for a path from start to goal (flat 0-based cells) on the given grid.
+     * The callback runs on the tick thread inside deliverCompleted() and
+     * receives the cells to walk (excluding start), or null if there is no path.
+     * Must be called from the tick thread.
+     */
+    public void request(GridBuffer grid, int start, int goal, Consumer<int[]> callback) {
+        requestCount++;
+        if (wallSnapshot == null || wallSnapshot.getWallVersion() != grid.getWallVersion()
+                || wallSnapshot.size() != grid.size()) {
+            wallSnapshot = grid.copyWalls();
+        }
+        PathKey key = new PathKey(wallSnapshot.getWallVersion(), start, goal);
+        List<Consumer<int[]>> waiting = inFlight.get(key);
+        if (waiting != null) {
+            waiting.add(callback);
+            coalescedCount++;
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        inFlight.put(key, waiting);
+
+        GridBuffer walls = wallSnapshot;
+        workers.execute(() -> solveAndPost(key, walls, start, goal));
+    }
+
+    /**
+     * Worker side of a request: always posts a result, null if the search failed
+     */
+    private void solveAndPost(PathKey key, GridBuffer walls, int start, int goal) {
+        int[] path = null;
+        try {
+            if (searchPermits != null) {
+                searchPermits.acquire(); // Virtual threads wait here cheaply
+            }
+            try {
+                path = solve(walls, start, goal);
+            } finally {
+                if (searchPermits != null) {
+                    searchPermits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Shutting down
+        } catch (RuntimeException e) {
+            System.out.println("Path search from " + start + " to " + goal + " failed: " + e);
+        } finally {
+            completed.add(new Completed(key, path));
+        }
+    }
+
+    /**
+     * Hand finished paths to their requesters. Call once per tick from the tick thread.
+     * Returns the number of requests delivered.
+     */
+    public int deliverCompleted() {
+        int delivered = 0;
+        Completed result;
+        while ((result = completed.poll()) != null) {
+            List<Consumer<int[]>> waiting = inFlight.remove(result.key);
+            if (waiting == null) {
+                continue;
+            }
+            for (Consumer<int[]> callback : waiting) {
+                callback.accept(result.path);
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    private static int[] solve(GridBuffer walls, int start, int goal) {
+        if (start == goal) {
+            return new int[0];
+        }
+        PathSearchEvent event = new PathSearchEvent();
+        event.begin();
+        IncrementalPathSearch search = new IncrementalPathSearch(walls, start, goal);
+        search.step(Integer.MAX_VALUE);
+        int[] path = search.hasPathFrom(start) ? search.pathFrom(start) : null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = "A* (worker)";
+            event.start = start;
+            event.goal = goal;
+            event.expansions = search.getExpansions();
+            event.pathLength = path == null ? -1 : path.length;
+            event.found = path != null;
+            event.finished = true;
+            event.commit();
+        }
+        return path;
+    }
+
+    /**
+     * Check if any request is still waiting for a result
+     */
+    public boolean hasPending() {
+        return !inFlight.isEmpty();
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    public int getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Stop the workers; pending requests are dropped
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+        inFlight.clear();
+        completed.clear();
+    }
+
+    private record PathKey(int wallVersion, int start, int goal) {
+    }
+
+    private record Completed(PathKey key, int[] path) {
+    }
+
+    /**
+     * Daemon worker threads so a running search never keeps the app alive
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "pathfinder-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
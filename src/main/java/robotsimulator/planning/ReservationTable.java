@@ -0,0 +1,79 @@
+package robotsimulator.planning;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Space-time reservation table for cooperative path planning.
+ * A reservation says "robot X will be on cell C at tick T".
+ * Cells are flat 0-based indices (row * cols + col).
+ */
+public class ReservationTable {
+    private final Map<Integer, Map<Integer, Object>> byTime;
+
+    public ReservationTable() {
+        this.byTime = new HashMap<>();
+    }
+
+    /**
+     * Reserve a cell at a tick for an owner; returns false, changing
+     * nothing, if another owner already has it
+     */
+    public boolean reserve(int cell, int time, Object owner) {
+        Object current = byTime.computeIfAbsent(time, t -> new HashMap<>()).putIfAbsent(cell, owner);
+        return current == null || current == owner;
+    }
+
+    /**
+     * Get who reserved a cell at a tick, or null
+     */
+    public Object ownerOf(int cell, int time) {
+        Map<Integer, Object> cells = byTime.get(time);
+        return cells == null ? null : cells.get(cell);
+    }
+
+    /**
+     * Check if a cell is reserved at a tick by someone other than the owner
+     */
+    public boolean isReservedByOther(int cell, int time, Object owner) {
+        Object current = ownerOf(cell, time);
+        return current != null && current != owner;
+    }
+
+    /**
+     * Check if moving from -> to between time and time + 1 would swap places
+     * with another robot going the other way
+     */
+    public boolean isSwapConflict(int from, int to, int time, Object owner) {
+        Object other = ownerOf(to, time);
+        return other != null && other != owner && ownerOf(from, time + 1) == other;
+    }
+
+    /**
+     * Drop all reservations made by an owner from a tick onwards
+     */
+    public void release(Object owner, int fromTime) {
+        for (Map.Entry<Integer, Map<Integer, Object>> entry : byTime.entrySet()) {
+            if (entry.getKey() >= fromTime) {
+                entry.getValue().values().removeIf(o -> o == owner);
+            }
+        }
+    }
+
+    /**
+     * Forget all reservations before a tick
+     */
+    public void purgeBefore(int time) {
+        Iterator<Integer> it = byTime.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next() < time) {
+                it.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        byTime.clear();
+    }
+}
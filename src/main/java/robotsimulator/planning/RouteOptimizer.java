@@ -0,0 +1,418 @@
+package robotsimulator.planning;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Keeps a short visiting order (an open tour starting at the robot) over a
+ * set of target cells, using real path distances around the walls.
+ * New cells are put where they add the least to the tour, removed cells are
+ * simply unlinked, and the tour is then improved with 2-opt and Or-opt moves.
+ * Distances between targets are found with one BFS per added cell and kept
+ * in a matrix until the walls change. Distances from the robot come from
+ * that matrix when it stands on a target it just reached, from the BFS of
+ * each new cell, and otherwise from a BFS of their own. Every BFS stops
+ * once it has reached the cells it measures. Per update, targets join the
+ * tour nearest first, at most MAX_ADDS_PER_UPDATE of them and only while
+ * ADD_BUDGET_NANOS lasts (one always does), so a wall change that drops all
+ * distances does not measure them all in one tick.
+ * Cells are flat 0-based indices (row * cols + col).
+ */
+public class RouteOptimizer {
+    private static final int START = -1;
+    private static final int END = -2;
+    static final int MAX_IMPROVE_PASSES = 8;
+    private static final int MAX_SEGMENT = 3; // Or-opt moves segments of up to 3 cells
+    static final int MAX_ADDS_PER_UPDATE = 64;
+    private static final long ADD_BUDGET_NANOS = 2_000_000;
+
+    private final GridBuffer grid;
+    private final int unreachableCost;
+    private final Map<Integer, Integer> slotOf;
+    private int[] slotCell;
+    private int[][] dist;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+    private final int improvePasses;
+    private final long addBudgetNanos;
+    private int[] tour;
+    private int tourSize;
+    private int[] startCost; // Steps from the robot to each slot
+    private int wallVersion;
+
+    // Search state, allocated on first use
+    private int[] slotSteps; // Steps from the last search source to each slot
+    private int[] seen;
+    private int[] queueCells;
+    private int[] queueDist;
+    private int search;
+
+    public RouteOptimizer(GridBuffer grid) {
+        this(grid, MAX_IMPROVE_PASSES, ADD_BUDGET_NANOS);
+    }
+
+    /**
+     * Optimizer making at most improvePasses rounds of 2-opt and Or-opt per
+     * update (0 keeps the cheapest insertion tour as it is) and adding
+     * targets for at most addBudgetNanos per update
+     */
+    RouteOptimizer(GridBuffer grid, int improvePasses, long addBudgetNanos) {
+        this.grid = grid;
+        this.improvePasses = improvePasses;
+        this.addBudgetNanos = addBudgetNanos;
+        this.unreachableCost = grid.size() + 1;
+        this.slotOf = new HashMap<>();
+        this.slotCell = new int[16];
+        this.dist = new int[16][16];
+        this.freeSlots = new int[16];
+        this.startCost = new int[16];
+        this.slotSteps = new int[16];
+        this.tour = new int[16];
+        this.wallVersion = grid.getWallVersion();
+    }
+
+    /**
+     * Bring the tour up to date for a robot at start and the given targets,
+     * then return the first cell to visit (-1 if there are no targets)
+     */
+    public int update(int start, int[] targets) {
+        if (grid.getWallVersion() != wallVersion) {
+            clear();
+            wallVersion = grid.getWallVersion();
+        }
+        // Standing on a cell of the tour: the matrix already knows the way on
+        Integer startSlot = slotOf.get(start);
+        boolean measured = startSlot != null;
+        if (measured) {
+            for (int i = 0; i < tourSize; i++) {
+                startCost[tour[i]] = dist[startSlot][tour[i]];
+            }
+        }
+
+        Set<Integer> wanted = new HashSet<>();
+        for (int cell : targets) {
+            wanted.add(cell);
+        }
+        for (Integer cell : slotOf.keySet().toArray(new Integer[0])) {
+            if (!wanted.contains(cell)) {
+                remove(cell);
+            }
+        }
+        if (!measured) {
+            measureFrom(start, -1);
+            for (int i = 0; i < tourSize; i++) {
+                startCost[tour[i]] = slotSteps[tour[i]];
+            }
+        }
+        int[] missing = Arrays.stream(targets).filter(cell -> !slotOf.containsKey(cell)).toArray();
+        if (missing.length > MAX_ADDS_PER_UPDATE) {
+            // The rest join on later updates
+            int cols = grid.getCols();
+            missing = Arrays.stream(missing).boxed()
+                .sorted(Comparator.comparingInt(cell -> GridDistances.manhattan(start, cell, cols)))
+                .limit(MAX_ADDS_PER_UPDATE).mapToInt(Integer::intValue).toArray();
+        }
+        long addStart = System.nanoTime();
+        for (int i = 0; i < missing.length && (i == 0 || System.nanoTime() - addStart < addBudgetNanos); i++) {
+            add(missing[i], start);
+        }
+        improve();
+        return tourSize == 0 ? -1 : slotCell[tour[0]];
+    }
+
+    /**
+     * Get the current visiting order
+     */
+    public int[] getTour() {
+        int[] cells = new int[tourSize];
+        for (int i = 0; i < tourSize; i++) {
+            cells[i] = slotCell[tour[i]];
+        }
+        return cells;
+    }
+
+    /**
+     * Total steps of the current tour from the last start
+     */
+    public int getTourLength() {
+        int length = 0;
+        for (int i = 0; i < tourSize; i++) {
+            length += cost(i == 0 ? START : tour[i - 1], tour[i]);
+        }
+        return length;
+    }
+
+    /**
+     * Forget all targets and distances
+     */
+    public void clear() {
+        slotOf.clear();
+        freeCount = 0;
+        slotCount = 0;
+        tourSize = 0;
+    }
+
+    private void add(int cell, int start) {
+        int slot = allocateSlot();
+        startCost[slot] = measureFrom(cell, start);
+        for (int i = 0; i < tourSize; i++) {
+            int other = tour[i];
+            dist[slot][other] = slotSteps[other];
+            dist[other][slot] = slotSteps[other];
+        }
+        dist[slot][slot] = 0;
+        slotCell[slot] = cell;
+        slotOf.put(cell, slot);
+
+        // Cheapest insertion
+        int bestPosition = 0;
+        int bestDelta = Integer.MAX_VALUE;
+        for (int position = 0; position <= tourSize; position++) {
+            int before = position == 0 ? START : tour[position - 1];
+            int after = position == tourSize ? END : tour[position];
+            int delta = cost(before, slot) + cost(slot, after) - cost(before, after);
+            if (delta < bestDelta) {
+                bestDelta = delta;
+                bestPosition = position;
+            }
+        }
+        if (tourSize == tour.length) {
+            tour = Arrays.copyOf(tour, tourSize * 2);
+        }
+        System.arraycopy(tour, bestPosition, tour, bestPosition + 1, tourSize - bestPosition);
+        tour[bestPosition] = slot;
+        tourSize++;
+    }
+
+    /**
+     * Breadth-first search from source that stops once every cell of the
+     * tour, and extra unless it is -1, is reached. Leaves the steps to each
+     * slot of the tour in slotSteps and returns the steps to extra;
+     * unreachable cells cost unreachableCost.
+     */
+    private int measureFrom(int source, int extra) {
+        int size = grid.size();
+        if (seen == null) {
+            seen = new int[size];
+            queueCells = new int[size];
+            queueDist = new int[size];
+        }
+        for (int i = 0; i < tourSize; i++) {
+            slotSteps[tour[i]] = unreachableCost;
+        }
+        int extraSteps = unreachableCost;
+        byte[] walls = grid.wallArray();
+        if (walls[source] != 0) {
+            return extraSteps;
+        }
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        int wanted = tourSize + (extra >= 0 ? 1 : 0);
+        search++;
+        int head = 0;
+        int tail = 0;
+        int found = 0;
+        seen[source] = search;
+        queueCells[tail] = source;
+        queueDist[tail++] = 0;
+        while (head < tail && found < wanted) {
+            int cell = queueCells[head];
+            int d = queueDist[head++];
+            Integer slot = slotOf.get(cell);
+            if (slot != null) {
+                slotSteps[slot] = d;
+                found++;
+            }
+            if (cell == extra) {
+                extraSteps = d;
+                found++;
+            }
+            int row = cell / cols;
+            int col = cell % cols;
+            if (row > 0) {
+                tail = visit(walls, cell - cols, d + 1, tail);
+            }
+            if (row < rows - 1) {
+                tail = visit(walls, cell + cols, d + 1, tail);
+            }
+            if (col > 0) {
+                tail = visit(walls, cell - 1, d + 1, tail);
+            }
+            if (col < cols - 1) {
+                tail = visit(walls, cell + 1, d + 1, tail);
+            }
+        }
+        return extraSteps;
+    }
+
+    private int visit(byte[] walls, int cell, int d, int tail) {
+        if (walls[cell] == 0 && seen[cell] != search) {
+            seen[cell] = search;
+            queueCells[tail] = cell;
+            queueDist[tail++] = d;
+        }
+        return tail;
+    }
+
+    private void remove(int cell) {
+        int slot = slotOf.remove(cell);
+        for (int i = 0; i < tourSize; i++) {
+            if (tour[i] == slot) {
+                System.arraycopy(tour, i + 1, tour, i, tourSize - i - 1);
+                tourSize--;
+                break;
+            }
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == slotCell.length) {
+            int capacity = slotCount * 2;
+            slotCell = Arrays.copyOf(slotCell, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+            startCost = Arrays.copyOf(startCost, capacity);
+            slotSteps = Arrays.copyOf(slotSteps, capacity);
+            int[][] grown = new int[capacity][capacity];
+            for (int i = 0; i < slotCount; i++) {
+                System.arraycopy(dist[i], 0, grown[i], 0, slotCount);
+            }
+            dist = grown;
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Travel cost between two tour entries; START is the robot, END is free
+     */
+    private int cost(int from, int to) {
+        if (to == END || from == END) {
+            return 0;
+        }
+        if (from == START) {
+            return startCost[to];
+        }
+        return dist[from][to];
+    }
+
+    private int at(int position) {
+        if (position < 0) {
+            return START;
+        }
+        return position >= tourSize ? END : tour[position];
+    }
+
+    private void improve() {
+        for (int pass = 0; pass < improvePasses; pass++) {
+            boolean improved = twoOpt();
+            improved |= orOpt();
+            if (!improved) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Reverse tour[i..j] whenever that shortens the tour
+     */
+    private boolean twoOpt() {
+        boolean improved = false;
+        for (int i = 0; i < tourSize - 1; i++) {
+            for (int j = i + 1; j < tourSize; j++) {
+                int before = at(i - 1);
+                int after = at(j + 1);
+                int delta = cost(before, tour[j]) + cost(tour[i], after)
+                          - cost(before, tour[i]) - cost(tour[j], after);
+                if (delta < 0) {
+                    reverse(i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Move runs of up to MAX_SEGMENT cells (either way round) to a better place
+     */
+    private boolean orOpt() {
+        boolean improved = false;
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            for (int i = 0; i + length <= tourSize; i++) {
+                int first = tour[i];
+                int last = tour[i + length - 1];
+                int before = at(i - 1);
+                int after = at(i + length);
+                int removeGain = cost(before, first) + cost(last, after) - cost(before, after);
+
+                int bestPosition = -1;
+                boolean bestReversed = false;
+                int bestDelta = 0;
+                for (int p = 0; p <= tourSize; p++) {
+                    if (p >= i && p <= i + length) {
+                        continue; // Inside or next to the run itself
+                    }
+                    int a = at(p - 1);
+                    int b = at(p);
+                    int forward = cost(a, first) + cost(last, b) - cost(a, b) - removeGain;
+                    int reversed = cost(a, last) + cost(first, b) - cost(a, b) - removeGain;
+                    if (forward < bestDelta) {
+                        bestDelta = forward;
+                        bestPosition = p;
+                        bestReversed = false;
+                    }
+                    if (reversed < bestDelta) {
+                        bestDelta = reversed;
+                        bestPosition = p;
+                        bestReversed = true;
+                    }
+                }
+                if (bestPosition >= 0) {
+                    moveRun(i, length, bestPosition, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private void reverse(int i, int j) {
+        while (i < j) {
+            int tmp = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = tmp;
+        }
+    }
+
+    /**
+     * Move tour[i..i+length) so it sits before what is now at position p
+     */
+    private void moveRun(int i, int length, int p, boolean reversed) {
+        int[] run = Arrays.copyOfRange(tour, i, i + length);
+        if (reversed) {
+            for (int k = 0; k < length / 2; k++) {
+                int tmp = run[k];
+                run[k] = run[length - 1 - k];
+                run[length - 1 - k] = tmp;
+            }
+        }
+        System.arraycopy(tour, i + length, tour, i, tourSize - i - length);
+        int target = p > i ? p - length : p;
+        System.arraycopy(tour, target, tour, target + length, tourSize - length - target);
+        System.arraycopy(run, 0, tour, target, length);
+    }
+
+    public int size() {
+        return tourSize;
+    }
+}
@@ -6,7 +6,6 @@ import java.util.Random;
 
 import javafx.scene.paint.Color;
 import robotsimulator.model.GridConstants;
-import static robotsimulator.model.GridConstants.GRID_SIZE;
 import robotsimulator.ui.GridManager;
 
 /**
@@ -41,13 +40,20 @@ public class PollueurLibre extends RobotPolluter {
      * Constructor with random position
      */
     public PollueurLibre(GridManager gridManager) {
-        this((int) (SHARED_RANDOM.nextDouble() * GRID_SIZE) + 1,
-             (int) (SHARED_RANDOM.nextDouble() * GRID_SIZE) + 1,
+        this((int) (SHARED_RANDOM.nextDouble() * gridManager.getRows()) + 1,
+             (int) (SHARED_RANDOM.nextDouble() * gridManager.getCols()) + 1,
              20, // Default: pollute 20 cells
              gridManager);
     }
     
     
+    /**
+     * Seed the random moves, for reproducible runs
+     */
+    public void setRandomSeed(long seed) {
+        this.random = new Random(seed);
+    }
+    
     @Override
     public boolean executeMissionStep(int stepCount) {
         // If mission already complete or wall was hit, return true
@@ -128,8 +134,8 @@ public class PollueurLibre extends RobotPolluter {
             int newCol = currentCol + dir[1];
             
             // Check bounds
-            if (newRow >= 1 && newRow <= GRID_SIZE && 
-                newCol >= 1 && newCol <= GRID_SIZE) {
+            if (newRow >= 1 && newRow <= gridRows() && 
+                newCol >= 1 && newCol <= gridCols()) {
                 
                 // Check if not a wall
                 if (!hasWallAtOneBased(newRow, newCol)) {
@@ -2,7 +2,6 @@ package robotsimulator.pollution;
 
 import javafx.scene.paint.Color;
 import robotsimulator.model.GridConstants;
-import static robotsimulator.model.GridConstants.GRID_SIZE;
 import robotsimulator.ui.GridManager;
 
 
@@ -35,8 +34,8 @@ public class PollueurSauteurs extends RobotPolluter {
      * Constructor with random position and jump size
      */
     public PollueurSauteurs(GridManager gridManager) {
-        this((int) (Math.random() * GRID_SIZE) + 1,
-             (int) (Math.random() * GRID_SIZE) + 1,
+        this((int) (Math.random() * gridManager.getRows()) + 1,
+             (int) (Math.random() * gridManager.getCols()) + 1,
              (int) (Math.random() * 3) + 2, // Jump 2-4 cells
              gridManager);
     }
@@ -63,8 +62,8 @@ public class PollueurSauteurs extends RobotPolluter {
         currentCol += jumpSize;
         
         // Wrap around if out of bounds
-        if (currentRow > GRID_SIZE) currentRow = ((currentRow - 1) % GRID_SIZE) + 1;
-        if (currentCol > GRID_SIZE) currentCol = ((currentCol - 1) % GRID_SIZE) + 1;
+        if (currentRow > gridRows()) currentRow = ((currentRow - 1) % gridRows()) + 1;
+        if (currentCol > gridCols()) currentCol = ((currentCol - 1) % gridCols()) + 1;
         
         return false;
     }
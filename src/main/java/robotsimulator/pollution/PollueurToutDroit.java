@@ -2,7 +2,6 @@ package robotsimulator.pollution;
 
 import javafx.scene.paint.Color;
 import robotsimulator.model.GridConstants;
-import static robotsimulator.model.GridConstants.GRID_SIZE;
 import robotsimulator.ui.GridManager;
 
 /**
@@ -20,7 +19,7 @@ public class PollueurToutDroit extends RobotPolluter {
      */
     public PollueurToutDroit(int startCol, GridManager gridManager) {
         super(1, startCol, GridConstants.CELL_SIZE / 3, gridManager);
-        this.startCol = Math.max(1, Math.min(startCol, GRID_SIZE));
+        this.startCol = Math.max(1, Math.min(startCol, gridCols()));
         this.startRow = 1;
         this.currentRow = 1; // Start at row 1
         this.wallHit = false;
@@ -32,7 +31,7 @@ public class PollueurToutDroit extends RobotPolluter {
      * Constructor with random starting column
      */
     public PollueurToutDroit(GridManager gridManager) {
-        this((int) (Math.random() * GRID_SIZE) + 1, gridManager);
+        this((int) (Math.random() * gridManager.getCols()) + 1, gridManager);
     }
     
     @Override
@@ -43,7 +42,7 @@ public class PollueurToutDroit extends RobotPolluter {
         }
         
         // Check if we've already processed all rows
-        if (currentRow > GRID_SIZE) {
+        if (currentRow > gridRows()) {
             missionComplete = true;
             System.out.println("PollueurToutDroit: Completed polluting column " + startCol + 
                              ", polluted " + cellsPolluted + " cells");
@@ -71,10 +70,10 @@ public class PollueurToutDroit extends RobotPolluter {
         currentRow++;
         
         // Check if we've reached beyond the last row
-        if (currentRow > GRID_SIZE) {
+        if (currentRow > gridRows()) {
             missionComplete = true;
             System.out.println("PollueurToutDroit: Successfully finished column " + startCol + 
-                             ", polluted " + cellsPolluted + "/" + GRID_SIZE + " cells");
+                             ", polluted " + cellsPolluted + "/" + gridRows() + " cells");
         }
         
         return missionComplete;
@@ -100,10 +99,10 @@ public class PollueurToutDroit extends RobotPolluter {
         if (wallHit) {
             return "PollueurToutDroit [col=" + startCol + ", FAILED - Hit wall at row " + currentRow + "]";
         } else if (missionComplete) {
-            return "PollueurToutDroit [col=" + startCol + ", SUCCESS - polluted " + cellsPolluted + "/" + GRID_SIZE + " cells]";
+            return "PollueurToutDroit [col=" + startCol + ", SUCCESS - polluted " + cellsPolluted + "/" + gridRows() + " cells]";
         } else {
             return "PollueurToutDroit [col=" + startCol + ", row=" + currentRow + 
-                   ", polluted=" + cellsPolluted + "/" + GRID_SIZE + "]";
+                   ", polluted=" + cellsPolluted + "/" + gridRows() + "]";
         }
     }
     
@@ -116,7 +115,7 @@ public class PollueurToutDroit extends RobotPolluter {
     }
     
     public double getProgress() {
-        return (double) cellsPolluted / GRID_SIZE * 100.0;
+        return (double) cellsPolluted / gridRows() * 100.0;
     }
     
     public boolean hitWall() {
@@ -1,16 +1,25 @@
 package robotsimulator.ui;
 
+import java.util.function.Function;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 import robotsimulator.cleaning.RobotCleaner;
 import robotsimulator.core.RobotManager;
+import robotsimulator.core.StepProfiler;
 import static robotsimulator.model.GridConstants.GRID_SIZE;
 import robotsimulator.model.Robot;
 import robotsimulator.pollution.RobotPolluter;
@@ -33,11 +42,17 @@ public class ControlPanel {
     private final TextField cellColInput;
     private final TextField robotRowInput;
     private final TextField robotColInput;
+    private final TextField tickRateInput;
     
     // Selectors
     private final ComboBox<Robot> robotSelector;
     private final ComboBox<String> polluterTypeSelector;
     private final ComboBox<String> cleanerTypeSelector;
+    private final ComboBox<String> profileGrouping;
+    
+    // Step profiler view, refreshed while profiling
+    private final TableView<StepProfiler.Row> profileTable;
+    private final Timeline profileRefresh;
     
     // Parameter inputs
     private final TextField polluterParam1Input;
@@ -60,6 +75,8 @@ public class ControlPanel {
     private static final String NORMAL_FONT = "-fx-font-size: 13px;";
     private static final String IND = "-fx-font-size: 18px; ; -fx-font-weight: bold;";
     
+    private static final int PROFILER_SAMPLE_INTERVAL = 4; // Time one mission step in 4
+    
     public ControlPanel(GridManager gridManager, RobotManager robotManager) {
         this.gridManager = gridManager;
         this.robotManager = robotManager;
@@ -75,11 +92,16 @@ public class ControlPanel {
         this.cellColInput = createStyledTextField();
         this.robotRowInput = createStyledTextField();
         this.robotColInput = createStyledTextField();
+        this.tickRateInput = createStyledTextField();
         
         // Initialize selectors
         this.robotSelector = new ComboBox<>();
         this.polluterTypeSelector = new ComboBox<>();
         this.cleanerTypeSelector = new ComboBox<>();
+        this.profileGrouping = new ComboBox<>();
+        this.profileTable = new TableView<>();
+        this.profileRefresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> refreshProfile()));
+        profileRefresh.setCycleCount(Timeline.INDEFINITE);
         
         // Initialize parameter inputs
         this.polluterParam1Input = createStyledTextField();
@@ -176,6 +198,7 @@ public class ControlPanel {
         Button resetButton = createStyledButton("RESET ALL", DANGER_COLOR);
         resetButton.setStyle(resetButton.getStyle() + " -fx-font-size: 14px;");
         resetButton.setOnAction(e -> {
+            robotManager.stopDecoupledMissions();
             gridManager.resetGrid();
             robotManager.stopSimulation();
             robotManager.stopMissions();
@@ -187,7 +210,13 @@ public class ControlPanel {
             updateRobotSelector();
         });
         
-        HBox resetBox = new HBox(resetButton);
+        // All missions on the simulation thread, drawn at display rate
+        Button runAllButton = createStyledButton("RUN ALL MISSIONS", SUCCESS_COLOR);
+        tickRateInput.setPromptText("Ticks/s");
+        tickRateInput.setText("20");
+        runAllButton.setOnAction(e -> handleRunAllAction());
+        
+        HBox resetBox = new HBox(10, resetButton, runAllButton, tickRateInput);
         resetBox.setAlignment(Pos.CENTER);
         
         statusPanel.getChildren().addAll(statusGrid, resetBox);
@@ -388,12 +417,36 @@ public class ControlPanel {
 
         robotControlPanel.getChildren().addAll(selectionBox, directionBox);
         
+        // ========== STEP PROFILER PANEL ==========
+        VBox profilerPanel = createPanel("STEP PROFILER");
+        
+        configureProfileTable();
+        Button profileButton = createStyledButton("START PROFILING", WARNING_COLOR);
+        profileButton.setOnAction(e -> {
+            if (robotManager.getStepProfiler() == null) {
+                robotManager.setStepProfiling(PROFILER_SAMPLE_INTERVAL);
+                profileRefresh.play();
+                profileButton.setText("STOP PROFILING");
+            } else {
+                robotManager.setStepProfiling(0);
+                profileRefresh.stop();
+                profileButton.setText("START PROFILING");
+            }
+        });
+        
+        HBox profileControls = new HBox(10);
+        profileControls.setAlignment(Pos.CENTER_LEFT);
+        profileControls.getChildren().addAll(profileButton, createHeaderLabel("Show:"), profileGrouping);
+        
+        profilerPanel.getChildren().addAll(profileControls, profileTable);
+        
         // ========== ASSEMBLE MAIN CONTAINER ==========
         mainContainer.getChildren().addAll(
             statusPanel,
             cellPanel,
             robotCreationPanel,
-            robotControlPanel
+            robotControlPanel,
+            profilerPanel
         );
         
         return mainContainer;
@@ -549,7 +602,7 @@ public class ControlPanel {
         try {
             int row = Integer.parseInt(cellRowInput.getText());
             int col = Integer.parseInt(cellColInput.getText());
-            gridManager.dirtyCell(row, col);
+            gridManager.edit(() -> gridManager.dirtyCell(row, col));
         } catch (NumberFormatException ex) {
             System.out.println("Invalid cell input!");
         }
@@ -559,7 +612,7 @@ public class ControlPanel {
         try {
             int row = Integer.parseInt(cellRowInput.getText());
             int col = Integer.parseInt(cellColInput.getText());
-            gridManager.cleanCell(row, col);
+            gridManager.edit(() -> gridManager.cleanCell(row, col));
         } catch (NumberFormatException ex) {
             System.out.println("Invalid cell input!");
         }
@@ -711,6 +764,69 @@ public class ControlPanel {
         }
     }
     
+    private void handleRunAllAction() {
+        if (robotManager.isDecoupledRunning()) {
+            robotManager.stopDecoupledMissions();
+            return;
+        }
+        try {
+            double ticksPerSecond = Double.parseDouble(tickRateInput.getText().trim());
+            if (ticksPerSecond < 0) {
+                System.out.println("Tick rate cannot be negative!");
+                return;
+            }
+            for (RobotPolluter polluter : robotManager.getPolluters()) {
+                robotManager.resetPolluterMission(polluter);
+            }
+            for (RobotCleaner cleaner : robotManager.getCleaners()) {
+                robotManager.resetCleanerMission(cleaner);
+            }
+            robotManager.startDecoupledMissions(ticksPerSecond);
+        } catch (NumberFormatException ex) {
+            System.out.println("Please enter a valid tick rate (0 = as fast as possible)!");
+        }
+    }
+    
+    private void configureProfileTable() {
+        profileGrouping.getItems().addAll("Per robot", "Per type");
+        profileGrouping.setValue("Per robot");
+        profileGrouping.setOnAction(e -> refreshProfile());
+        
+        profileTable.getColumns().add(profileColumn("Robot", StepProfiler.Row::name, 140));
+        profileTable.getColumns().add(profileColumn("Samples", StepProfiler.Row::samples, 65));
+        profileTable.getColumns().add(profileColumn("Mean µs", row -> round(row.meanMicros()), 70));
+        profileTable.getColumns().add(profileColumn("p99 µs", row -> round(row.p99Micros()), 70));
+        profileTable.getColumns().add(profileColumn("Path µs", row -> round(row.planningMicros()), 70));
+        profileTable.getColumns().add(profileColumn("Alloc B",
+            row -> StepProfiler.isAllocationSupported() ? Math.round(row.allocatedBytes()) : "n/a", 70));
+        profileTable.setPlaceholder(createHeaderLabel("Start profiling, then run missions"));
+        profileTable.setPrefHeight(220);
+    }
+    
+    private static <T> TableColumn<StepProfiler.Row, T> profileColumn(String title,
+            Function<StepProfiler.Row, T> value, double width) {
+        TableColumn<StepProfiler.Row, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+        column.setPrefWidth(width);
+        return column;
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+    
+    /**
+     * Show the latest profile, slowest first
+     */
+    private void refreshProfile() {
+        StepProfiler profiler = robotManager.getStepProfiler();
+        if (profiler == null) {
+            return;
+        }
+        boolean perType = "Per type".equals(profileGrouping.getValue());
+        profileTable.getItems().setAll(perType ? profiler.getTypeRows() : profiler.getRobotRows());
+    }
+    
     private void handleStartSelectedMission() {
         Robot selectedRobot = robotSelector.getSelectionModel().getSelectedItem();
         if (selectedRobot == null) {
@@ -768,6 +884,7 @@ public class ControlPanel {
             System.out.println("Please select a robot first!");
             return;
         }
+        robotManager.stopDecoupledMissions(); // The simulation thread must not see the robot move under it
         switch (direction) {
             case "UP" -> selectedRobot.moveUp();
             case "DOWN" -> selectedRobot.moveDown();
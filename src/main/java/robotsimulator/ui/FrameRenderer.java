@@ -0,0 +1,60 @@
+package robotsimulator.ui;
+
+import javafx.animation.AnimationTimer;
+import robotsimulator.core.FrameBuffer;
+import robotsimulator.core.FrameSnapshot;
+import robotsimulator.model.GridSnapshot;
+import robotsimulator.model.Robot;
+
+/**
+ * Draws the frames a SimulationLoop publishes, once per JavaFX pulse.
+ * Robots glide between their positions before and after the latest tick;
+ * grid cells are repainted only in the chunks that changed since the
+ * snapshot drawn last.
+ */
+public class FrameRenderer extends AnimationTimer {
+    private final FrameBuffer frames;
+    private final GridManager gridManager;
+    private final Robot[] robots;
+    private final FrameSnapshot frame;
+    private final Runnable onLastFrame;
+    private GridSnapshot drawnGrid;
+    private double drawnProgress = -1;
+
+    /**
+     * @param onLastFrame run on the FX thread once the last frame of the run is fully drawn
+     */
+    public FrameRenderer(FrameBuffer frames, GridManager gridManager, Runnable onLastFrame) {
+        this.frames = frames;
+        this.gridManager = gridManager;
+        this.robots = frames.getRobots();
+        this.frame = new FrameSnapshot(robots.length);
+        this.onLastFrame = onLastFrame;
+    }
+
+    @Override
+    public void handle(long now) {
+        if (frames.readLatest(frame)) {
+            drawnProgress = -1;
+            if (frame.getGrid() != drawnGrid) {
+                gridManager.renderSnapshot(drawnGrid, frame.getGrid());
+                drawnGrid = frame.getGrid();
+            }
+        }
+        if (frame.getSequence() == 0) {
+            return; // Nothing published yet
+        }
+
+        double progress = frame.progress(now);
+        if (progress != drawnProgress) {
+            for (int i = 0; i < robots.length; i++) {
+                robots[i].showAt(frame.rowAt(i, progress), frame.colAt(i, progress));
+            }
+            drawnProgress = progress;
+        }
+        if (frame.isLast() && progress >= 1.0) {
+            stop();
+            onLastFrame.run();
+        }
+    }
+}
@@ -1,37 +1,94 @@
 package robotsimulator.ui;
 
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
+import javafx.scene.Node;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
+import robotsimulator.map.MapGenerator;
 import robotsimulator.model.CellData;
+import robotsimulator.model.DirtDiffusionStage;
+import robotsimulator.model.GridBuffer;
+import robotsimulator.model.GridKernels;
+import robotsimulator.model.GridSnapshot;
+import robotsimulator.model.OccupancyGrid;
 import static robotsimulator.model.GridConstants.CELL_SIZE;
 import static robotsimulator.model.GridConstants.CELL_STROKE;
+import static robotsimulator.model.GridConstants.CLEANING_AMOUNT;
 import static robotsimulator.model.GridConstants.CLICKED_COLOR;
 import static robotsimulator.model.GridConstants.DEFAULT_COLOR;
 import static robotsimulator.model.GridConstants.DIRTY_COLOR;
 import static robotsimulator.model.GridConstants.GRID_PADDING;
 import static robotsimulator.model.GridConstants.GRID_SIZE;
 import static robotsimulator.model.GridConstants.HOVER_COLOR;
+import static robotsimulator.model.GridConstants.MAX_DIRT_LEVEL;
 import static robotsimulator.model.GridConstants.MAX_WALL_LENGTH;
 import static robotsimulator.model.GridConstants.MIN_WALL_LENGTH;
 import static robotsimulator.model.GridConstants.NUM_WALLS;
+import static robotsimulator.model.GridConstants.POLLUTION_AMOUNT;
 
 /**
  * Manages the grid state and operations.
+ * The wall and dirt state lives in a primitive GridBuffer; CellData objects
+ * only hold the visuals and exist once buildGrid() has been called.
  */
 public class GridManager {
-    private final CellData[][] cells;
+    private CellData[][] cells;
+    private final GridBuffer buffer;
+    private final GridKernels kernels;
+    private final OccupancyGrid occupancy;
     private int coloredCount;
+    private LongAdder pendingColored; // Dirty count changes from concurrent updates, null when off
+    private boolean publishingSnapshots;
+    private boolean frameRendering; // Cell visuals follow published snapshots instead of every write
+    private volatile boolean editsDeferred;
+    private final Queue<Runnable> deferredEdits = new ConcurrentLinkedQueue<>(); // UI edits waiting for a tick boundary
     private GridStateListener listener;
     private final Random random = new Random();
     private boolean wallsGenerated = false;
+    private CellData hoveredCell;
     
     public GridManager() {
-        this.cells = new CellData[GRID_SIZE][GRID_SIZE];
-        this.coloredCount = 0;
+        this(GRID_SIZE, GRID_SIZE);
+    }
+
+    /**
+     * Grid of any size; cell visuals are only allocated by buildGrid()
+     */
+    public GridManager(int rows, int cols) {
+        this(new GridBuffer(rows, cols));
+        this.wallsGenerated = false;
+    }
+
+    /**
+     * Grid over existing wall storage, such as an imported map;
+     * no random walls are added to it
+     */
+    public GridManager(GridBuffer buffer) {
+        this.buffer = buffer;
+        this.kernels = GridKernels.get();
+        this.occupancy = new OccupancyGrid(buffer.getRows(), buffer.getCols());
+        this.coloredCount = kernels.countDirty(buffer);
+        this.wallsGenerated = true;
+    }
+
+    public int getRows() {
+        return buffer.getRows();
+    }
+
+    public int getCols() {
+        return buffer.getCols();
+    }
+
+    /**
+     * Seed the random wall placement, for reproducible runs
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
     }
 
     public void generateInitialWalls() {
@@ -55,65 +112,54 @@ public class GridManager {
         int wallLength = MIN_WALL_LENGTH + 
                         random.nextInt(MAX_WALL_LENGTH - MIN_WALL_LENGTH + 1);
         
-        int attempts = 0;
-        boolean placed = false;
-        
-        // Try to place wall (max 10 attempts)
-        while (!placed && attempts < 10) {
-            if (horizontal) {
-                placed = tryPlaceHorizontalWall(wallLength);
-            } else {
-                placed = tryPlaceVerticalWall(wallLength);
-            }
-            attempts++;
+        // Uniform pick among all free places the wall fits in
+        int start = MapGenerator.placeSegment(buffer, horizontal, wallLength, random);
+        if (start < 0) {
+            System.out.println("No room left for a wall of length " + wallLength);
+            return;
+        }
+        int startRow = start / getCols();
+        int startCol = start % getCols();
+        for (int k = 0; k < wallLength; k++) {
+            setWallZeroBased(horizontal ? startRow : startRow + k, horizontal ? startCol + k : startCol);
         }
     }
 
-    private boolean tryPlaceHorizontalWall(int length) {
-        int startRow = random.nextInt(GRID_SIZE);
-        int startCol = random.nextInt(GRID_SIZE - length + 1);
-        
-        // Check if all cells are available (not walls and not at edges)
-        for (int col = startCol; col < startCol + length; col++) {
-            if (cells[startRow][col] != null && cells[startRow][col].isWall()) {
-                return false; // Cell already has a wall
-            }
+    /**
+     * Turn a cell into a wall (0-based).
+     * Works before the grid is built: the cell gets the wall look when it is created.
+     */
+    private void setWallZeroBased(int row, int col) {
+        if (buffer.isDirty(row, col)) {
+            coloredCount--;
         }
-        
-        // Place the wall
-        for (int col = startCol; col < startCol + length; col++) {
-            if (cells[startRow][col] == null) {
-                // Cell not initialized yet, mark for later
-                // We'll handle this in createCell
-            } else {
-                cells[startRow][col].setWall(true);
-            }
+        buffer.setWall(row, col, true);
+        CellData cellData = cellAt(row, col);
+        if (cellData != null) {
+            cellData.setColored(false);
+            cellData.setWall(true);
         }
-        
-        return true;
     }
-    
-    private boolean tryPlaceVerticalWall(int length) {
-        int startRow = random.nextInt(GRID_SIZE - length + 1);
-        int startCol = random.nextInt(GRID_SIZE);
-        
-        // Check if all cells are available
-        for (int row = startRow; row < startRow + length; row++) {
-            if (cells[row][startCol] != null && cells[row][startCol].isWall()) {
-                return false;
-            }
+
+    /**
+     * Add or remove a wall while the simulation runs (1-based).
+     * Robots following a path notice the change through the buffer's wall version.
+     */
+    public void setWall(int row, int col, boolean wall) {
+        row--;
+        col--;
+        if (!isValidPosition(row, col) || buffer.isWall(row, col) == wall) {
+            return;
         }
-        
-        // Place the wall
-        for (int row = startRow; row < startRow + length; row++) {
-            if (cells[row][startCol] == null) {
-                // Cell not initialized yet
-            } else {
-                cells[row][startCol].setWall(true);
+        if (wall) {
+            setWallZeroBased(row, col);
+        } else {
+            buffer.setWall(row, col, false);
+            if (cellAt(row, col) != null) {
+                cellAt(row, col).setWall(false);
             }
         }
-        
-        return true;
+        notifyStateChanged();
     }
 
     public void setListener(GridStateListener listener) {
@@ -121,7 +167,121 @@ public class GridManager {
     }
 
     public int getColoredCount() {
-        return coloredCount;
+        return pendingColored == null ? coloredCount : coloredCount + (int) pendingColored.sum();
+    }
+
+    /**
+     * Let dirtyCell and cleanCell run on several threads at once. Cells are
+     * updated with compare-and-set and the dirty count goes to a LongAdder;
+     * the view and the listener catch up in settleConcurrentUpdates.
+     */
+    public void setConcurrentUpdates(boolean concurrent) {
+        if (!concurrent && pendingColored != null) {
+            settleConcurrentUpdates();
+        }
+        pendingColored = concurrent ? new LongAdder() : null;
+    }
+
+    // Pending changes are already in a full recount
+    private void discardConcurrentCount() {
+        if (pendingColored != null) {
+            pendingColored.reset();
+        }
+    }
+
+    public boolean isConcurrentUpdates() {
+        return pendingColored != null;
+    }
+
+    /**
+     * Fold the concurrent updates into the dirty count and refresh the view;
+     * call from the simulation thread once the workers are done
+     */
+    public void settleConcurrentUpdates() {
+        bulkDirtChanged((int) pendingColored.sumThenReset());
+    }
+
+    /**
+     * Publish a GridSnapshot after every mission step (see publishSnapshot)
+     */
+    public void setSnapshotPublishing(boolean publishing) {
+        this.publishingSnapshots = publishing;
+        if (publishing && buffer.getSnapshot() == null) {
+            publishSnapshot();
+        }
+    }
+
+    public boolean isSnapshotPublishing() {
+        return publishingSnapshots;
+    }
+
+    /**
+     * Publish the grid as it is now for readers on other threads;
+     * call from the simulation thread between steps
+     */
+    public GridSnapshot publishSnapshot() {
+        return buffer.publishSnapshot(getColoredCount());
+    }
+
+    /**
+     * Leave the cell visuals and the listener to renderSnapshot, so the grid
+     * can be written from a simulation thread while the FX thread draws
+     */
+    public void setFrameRendering(boolean frameRendering) {
+        this.frameRendering = frameRendering;
+    }
+
+    public boolean isFrameRendering() {
+        return frameRendering;
+    }
+
+    /**
+     * Repaint the cells of the chunks that differ between the snapshot drawn
+     * last (null to repaint everything) and a newer one, then report its
+     * dirty count to the listener; call from the FX thread
+     */
+    public void renderSnapshot(GridSnapshot drawn, GridSnapshot snapshot) {
+        int chunk = GridSnapshot.CHUNK_SIZE;
+        for (int chunkRow = 0; cells != null && chunkRow < snapshot.getRows(); chunkRow += chunk) {
+            for (int chunkCol = 0; chunkCol < snapshot.getCols(); chunkCol += chunk) {
+                if (!snapshot.isChunkChanged(drawn, chunkRow, chunkCol)) {
+                    continue;
+                }
+                int rowEnd = Math.min(chunkRow + chunk, snapshot.getRows());
+                int colEnd = Math.min(chunkCol + chunk, snapshot.getCols());
+                for (int row = chunkRow; row < rowEnd; row++) {
+                    for (int col = chunkCol; col < colEnd; col++) {
+                        if (!snapshot.isWall(row, col)) {
+                            paintCell(cells[row][col], snapshot.getDirt(row, col));
+                        }
+                    }
+                }
+            }
+        }
+        if (listener != null) {
+            listener.onStateChanged(snapshot.getDirtyCount());
+        }
+    }
+
+    /**
+     * Latest published grid snapshot (null if none yet); any thread
+     */
+    public GridSnapshot getSnapshot() {
+        return buffer.getSnapshot();
+    }
+
+    /**
+     * Get the primitive grid storage used by bulk operations
+     */
+    public GridBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Get the index of which robots stand on which cell
+     */
+    public OccupancyGrid getOccupancy() {
+        return occupancy;
     }
 
     public GridPane buildGrid() {
@@ -129,12 +289,26 @@ public class GridManager {
         gridPane.setStyle("-fx-padding: " + GRID_PADDING + ";");
         
         // First create all cells
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                StackPane cell = createCell(row, col);
-                gridPane.add(cell, col, row);
+        cells = new CellData[getRows()][getCols()];
+        for (int row = 0; row < getRows(); row++) {
+            for (int col = 0; col < getCols(); col++) {
+                gridPane.add(createCell(row, col), col, row);
             }
         }
+
+        // One set of handlers on the pane instead of three per cell
+        gridPane.setOnMouseClicked(e -> {
+            int[] position = cellPosition(e.getPickResult().getIntersectedNode());
+            if (position != null) {
+                handleCellClick(position[0], position[1]);
+            }
+        });
+        gridPane.setOnMouseMoved(e -> {
+            int[] position = cellPosition(e.getPickResult().getIntersectedNode());
+            CellData cellData = position == null ? null : cells[position[0]][position[1]];
+            setHoveredCell(cellData);
+        });
+        gridPane.setOnMouseExited(e -> setHoveredCell(null));
         
         // Now generate walls (after all cells are created)
         generateInitialWalls();
@@ -142,24 +316,44 @@ public class GridManager {
         return gridPane;
     }
 
-    private StackPane createCell(int row, int col) {
+    private Rectangle createCell(int row, int col) {
         Rectangle rect = new Rectangle(CELL_SIZE, CELL_SIZE);
         rect.setFill(DEFAULT_COLOR);
         rect.setStroke(Color.GRAY);
         rect.setStrokeWidth(CELL_STROKE);
 
-            
         // Initialize as regular cell
         CellData cellData = new CellData(rect);
         cells[row][col] = cellData;
-        
-        StackPane cell = new StackPane(rect);
-        
-        cell.setOnMouseClicked(e -> handleCellClick(cellData));
-        cell.setOnMouseEntered(e -> handleCellHover(cellData, true));
-        cell.setOnMouseExited(e -> handleCellHover(cellData, false));
-        
-        return cell;
+        if (buffer.isWall(row, col)) {
+            cellData.setWall(true);
+        }
+        return rect;
+    }
+
+    /**
+     * Grid position {row, col} of a picked cell rectangle, null for anything else
+     */
+    private static int[] cellPosition(Node node) {
+        if (!(node instanceof Rectangle)) {
+            return null;
+        }
+        Integer row = GridPane.getRowIndex(node);
+        Integer col = GridPane.getColumnIndex(node);
+        return row == null || col == null ? null : new int[]{row, col};
+    }
+
+    private void setHoveredCell(CellData cellData) {
+        if (cellData == hoveredCell) {
+            return;
+        }
+        if (hoveredCell != null) {
+            handleCellHover(hoveredCell, false);
+        }
+        hoveredCell = cellData;
+        if (cellData != null) {
+            handleCellHover(cellData, true);
+        }
     }
 
     public boolean isWall(int row, int col) {
@@ -168,7 +362,7 @@ public class GridManager {
         if (!isValidPosition(row, col)) {
             return false;
         }
-        return cells[row][col].isWall();
+        return buffer.isWall(row, col);
     }
 
     // Check if a cell has a wall (0-based)
@@ -176,27 +370,51 @@ public class GridManager {
         if (!isValidPosition(row, col)) {
             return false;
         }
-        return cells[row][col].isWall();
+        return buffer.isWall(row, col);
     }
     
     
-
-    
-    private void handleCellClick(CellData cellData) {
-        if (cellData.isColored()) {
-            cellData.setFill(CLICKED_COLOR);
-            if (coloredCount != 0){
-                coloredCount--;
-                notifyStateChanged();
-            }    
-            cellData.setColored(false);      
-        } 
-        else {
-            cellData.setFill(CLICKED_COLOR);
-            if (cellData.getFill() != CLICKED_COLOR){
+    private void handleCellClick(int row, int col) {
+        CellData cellData = cells[row][col];
+        cellData.setFill(CLICKED_COLOR);
+        edit(() -> {
+            if (buffer.isDirty(row, col)) {
+                buffer.setDirty(row, col, false);
+                if (hasLiveCells()) {
+                    cellData.setColored(false);
+                }
                 coloredCount--;
             }
             notifyStateChanged();
+        });
+    }
+
+    /**
+     * Apply a change to the grid now, or queue it for the next tick boundary
+     * while a simulation thread owns the grid (see setEditsDeferred)
+     */
+    public void edit(Runnable change) {
+        if (editsDeferred) {
+            deferredEdits.add(change);
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Queue edit() changes instead of running them, while another thread ticks
+     */
+    public void setEditsDeferred(boolean deferred) {
+        this.editsDeferred = deferred;
+    }
+
+    /**
+     * Run the queued edit() changes; call from the thread that owns the grid
+     */
+    public void applyDeferredEdits() {
+        Runnable change;
+        while ((change = deferredEdits.poll()) != null) {
+            change.run();
         }
     }
 
@@ -208,50 +426,134 @@ public class GridManager {
 
     public void resetGrid() {
         coloredCount = 0;
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
+        discardConcurrentCount();
+        kernels.clearDirt(buffer);
+        for (int row = 0; cells != null && row < getRows(); row++) {
+            for (int col = 0; col < getCols(); col++) {
                 CellData cellData = cells[row][col];
-                cellData.setFill(DEFAULT_COLOR);
-                cellData.setColored(false);
+                if (cellData != null) {
+                    cellData.setFill(DEFAULT_COLOR);
+                    cellData.setColored(false);
+                }
             }
         }
         notifyStateChanged();
     }
 
-    // dirty a cell
+    // dirty a cell (adds POLLUTION_AMOUNT of dirt)
     public void dirtyCell(int row, int col) {
         row--;
         col--;
-        if (!isValidPosition(row, col) || cells[row][col].isWall()) {
+        if (!isValidPosition(row, col) || buffer.isWall(row, col)) {
             System.out.println("Cannot dirty wall cell!");
             return;
         }
-        
-        CellData cellData = cells[row][col];
-        cellData.setFill(DIRTY_COLOR);
-        if (!cellData.isColored()) {
-            cellData.setColored(true);
-            coloredCount++;
+        if (pendingColored != null) {
+            pendingColored.add(buffer.addDirtAtomic(row, col, POLLUTION_AMOUNT));
+            return;
         }
+        
+        coloredCount += buffer.addDirt(row, col, POLLUTION_AMOUNT);
+        refreshCell(row, col);
         notifyStateChanged();
     }
 
+    // clean a cell (removes CLEANING_AMOUNT of dirt)
     public void cleanCell(int row, int col) {
         row--;
         col--;
-        if (!isValidPosition(row, col) || cells[row][col].isWall()) {
+        if (!isValidPosition(row, col) || buffer.isWall(row, col)) {
             System.out.println("Cannot clean wall cell!");
             return;
         }
+        if (pendingColored != null) {
+            pendingColored.add(buffer.addDirtAtomic(row, col, -CLEANING_AMOUNT));
+            return;
+        }
         
-        CellData cellData = cells[row][col];
-        if (cellData.isColored()) {
-            cellData.setFill(DEFAULT_COLOR);
-            cellData.setColored(false);
-            coloredCount--;
+        if (buffer.isDirty(row, col)) {
+            coloredCount += buffer.addDirt(row, col, -CLEANING_AMOUNT);
+            refreshCell(row, col);
             notifyStateChanged();
         }
     }
+
+    /**
+     * Get the dirt intensity of a cell (1-based), 0 if clean or invalid
+     */
+    public int getDirtLevel(int row, int col) {
+        row--;
+        col--;
+        if (!isValidPosition(row, col)) {
+            return 0;
+        }
+        return buffer.getDirt(row, col);
+    }
+
+    /**
+     * Run one tick of a dirt diffusion/decay stage and refresh the view of
+     * the chunks it changed
+     */
+    public void applyDirtStage(DirtDiffusionStage stage) {
+        stage.step(buffer);
+        coloredCount = kernels.countDirty(buffer);
+        discardConcurrentCount();
+        int chunk = GridSnapshot.CHUNK_SIZE;
+        for (int chunkRow = 0; hasLiveCells() && chunkRow < getRows(); chunkRow += chunk) {
+            for (int chunkCol = 0; chunkCol < getCols(); chunkCol += chunk) {
+                if (!stage.isChunkChanged(chunkRow, chunkCol)) {
+                    continue;
+                }
+                int rowEnd = Math.min(chunkRow + chunk, getRows());
+                int colEnd = Math.min(chunkCol + chunk, getCols());
+                for (int row = chunkRow; row < rowEnd; row++) {
+                    for (int col = chunkCol; col < colEnd; col++) {
+                        refreshCell(row, col);
+                    }
+                }
+            }
+        }
+        notifyStateChanged();
+    }
+
+    /**
+     * Account for dirt written straight into the buffer by a bulk stepper:
+     * adjust the dirty count by the net change and refresh the view
+     */
+    public void bulkDirtChanged(int coloredDelta) {
+        coloredCount += coloredDelta;
+        for (int row = 0; hasLiveCells() && row < getRows(); row++) {
+            for (int col = 0; col < getCols(); col++) {
+                refreshCell(row, col);
+            }
+        }
+        notifyStateChanged();
+    }
+
+    /**
+     * Update the cell visuals from its dirt level (0-based, no-op before buildGrid)
+     */
+    private void refreshCell(int row, int col) {
+        CellData cellData = cellAt(row, col);
+        if (cellData == null || frameRendering || buffer.isWall(row, col)) {
+            return;
+        }
+        paintCell(cellData, buffer.getDirt(row, col));
+    }
+
+    /**
+     * Show a dirt level on a cell
+     */
+    private static void paintCell(CellData cellData, int level) {
+        cellData.setColored(level != 0);
+        if (level == 0) {
+            cellData.setFill(DEFAULT_COLOR);
+        } else {
+            // Light stains fade towards the default color
+            double ratio = 0.4 + 0.6 * Math.min(1.0, (double) level / MAX_DIRT_LEVEL);
+            cellData.setFill(DEFAULT_COLOR.interpolate(DIRTY_COLOR, ratio));
+        }
+    }
     
     /**
      * Check if a cell is dirty/colored
@@ -265,7 +567,7 @@ public class GridManager {
         if (!isValidPosition(row, col)) {
             return false;
         }
-        return cells[row][col].isColored();
+        return buffer.isDirty(row, col);
     }
     
     /**
@@ -278,7 +580,7 @@ public class GridManager {
         if (!isValidPosition(row, col)) {
             return false;
         }
-        return cells[row][col].isColored();
+        return buffer.isDirty(row, col);
     }
     
     /**
@@ -290,10 +592,10 @@ public class GridManager {
     public Color getCellColor(int row, int col) {
         row--;
         col--;
-        if (!isValidPosition(row, col)) {
+        if (!isValidPosition(row, col) || cellAt(row, col) == null) {
             return null;
         }
-        return (Color) cells[row][col].getFill();
+        return (Color) cellAt(row, col).getFill();
     }
     
     /**
@@ -301,33 +603,69 @@ public class GridManager {
      * @return list of [row, col] arrays for dirty cells
      */
     public int[][] getDirtyCells() {
-        int[][] dirtyCells = new int[coloredCount][2];
+        byte[] dirt = buffer.dirtArray();
+        int[][] dirtyCells = new int[kernels.countDirty(buffer)][2];
         int index = 0;
         
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                if (cells[row][col].isColored()) {
-                    dirtyCells[index][0] = row;
-                    dirtyCells[index][1] = col;
-                    index++;
-                }
+        for (int i = 0; i < dirt.length && index < dirtyCells.length; i++) {
+            if (dirt[i] != 0) {
+                dirtyCells[index][0] = i / getCols();
+                dirtyCells[index][1] = i % getCols();
+                index++;
             }
         }
         
         return dirtyCells;
     }
 
+    /**
+     * Count dirty cells per row (0-based row index)
+     */
+    public int[] getRowDirtyCounts() {
+        return kernels.rowDirtyCounts(buffer);
+    }
+
+    /**
+     * Count dirty cells in a rectangular region (1-based, inclusive)
+     */
+    public int countDirtyInRegion(int fromRow, int fromCol, int toRow, int toCol) {
+        return kernels.countDirtyInRegion(buffer, fromRow - 1, fromCol - 1, toRow, toCol);
+    }
+
+    /**
+     * Get the percentage of non-wall cells that are clean
+     */
+    public double getCoverage() {
+        int freeCells = buffer.size() - kernels.countWalls(buffer);
+        if (freeCells == 0) {
+            return 100.0;
+        }
+        return (double) (freeCells - kernels.countDirty(buffer)) / freeCells * 100.0;
+    }
+
     private boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < GRID_SIZE && col >= 0 && col < GRID_SIZE;
+        return buffer.isValidPosition(row, col);
+    }
+
+    /**
+     * Get the visuals of a cell (0-based), null before buildGrid()
+     */
+    private CellData cellAt(int row, int col) {
+        return cells == null ? null : cells[row][col];
+    }
+
+    // Cell visuals are painted as the grid changes (not from snapshots)
+    private boolean hasLiveCells() {
+        return cells != null && !frameRendering;
     }
 
     private void notifyStateChanged() {
-        if (listener != null) {
-            listener.onStateChanged(coloredCount);
+        if (listener != null && !frameRendering) {
+            listener.onStateChanged(getColoredCount());
         }
     }
     
     public interface GridStateListener {
         void onStateChanged(int coloredCount);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,363 @@
+package robotsimulator.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import robotsimulator.core.FrameBuffer;
+import robotsimulator.core.FrameSnapshot;
+import robotsimulator.core.RobotManager;
+import robotsimulator.core.SimulationLoop;
+import static robotsimulator.model.GridConstants.BACKGROUND_COLOR;
+import static robotsimulator.model.GridConstants.DEFAULT_COLOR;
+import static robotsimulator.model.GridConstants.DIRTY_COLOR;
+import static robotsimulator.model.GridConstants.MAX_DIRT_LEVEL;
+import static robotsimulator.model.GridConstants.POLLUTION_AMOUNT;
+import static robotsimulator.model.GridConstants.WALL_COLOR;
+import robotsimulator.model.DensityPyramid;
+import robotsimulator.model.GridSnapshot;
+import robotsimulator.model.Robot;
+
+/**
+ * Pannable, zoomable view of a grid of any size, drawn on a canvas.
+ * Only the cells in view are drawn, one image pixel per cell, scaled up.
+ * Zoomed out below a few pixels per cell it draws blocks of a
+ * DensityPyramid instead: a heatmap of dirt, walls and robots per block.
+ * Either way a frame costs about the same whatever the grid size.
+ * While a simulation thread runs, grid and robots are drawn from the
+ * frames it publishes, never from the live robots.
+ * Drag to pan, scroll to zoom, double-click to fit the grid.
+ */
+public class GridViewport extends Pane {
+    private static final double MIN_BLOCK_PIXELS = 4; // Smaller cells are drawn as blocks of a coarser level
+    private static final double GRID_LINE_PIXELS = 12; // Cell borders from this zoom on
+    private static final double ZOOM_STEP = 1.15;
+    private static final double MAX_CELL_PIXELS = 120;
+    private static final Color ROBOT_COLOR = Color.DODGERBLUE;
+    private static final Color BULK_ROBOT_COLOR = Color.MEDIUMPURPLE;
+
+    private final GridManager gridManager;
+    private final RobotManager robotManager;
+    private final Canvas canvas;
+    private final DensityPyramid pyramid;
+    private final AnimationTimer redrawTimer;
+    private final int[] cellColors; // ARGB per dirt level, as GridManager paints cells
+    private FrameBuffer frames; // Frames of the running simulation, null when drawing the robots directly
+    private FrameSnapshot frame;
+    private Robot[] frameRobots;
+    private WritableImage image;
+    private int[] pixels;
+    private double scale; // Pixels per cell
+    private double offsetX; // Screen position of the grid's top-left corner
+    private double offsetY;
+    private boolean fitted;
+    private double dragX;
+    private double dragY;
+
+    public GridViewport(GridManager gridManager, RobotManager robotManager) {
+        this.gridManager = gridManager;
+        this.robotManager = robotManager;
+        this.canvas = new Canvas();
+        this.pyramid = new DensityPyramid(gridManager.getRows(), gridManager.getCols());
+        this.cellColors = new int[Byte.MAX_VALUE + 1];
+        for (int level = 0; level < cellColors.length; level++) {
+            double ratio = 0.4 + 0.6 * Math.min(1.0, (double) level / MAX_DIRT_LEVEL);
+            cellColors[level] = argb(level == 0 ? DEFAULT_COLOR : DEFAULT_COLOR.interpolate(DIRTY_COLOR, ratio));
+        }
+        getChildren().add(canvas);
+        setMinSize(0, 0);
+
+        setOnMousePressed(e -> {
+            dragX = e.getX();
+            dragY = e.getY();
+        });
+        setOnMouseDragged(e -> {
+            offsetX += e.getX() - dragX;
+            offsetY += e.getY() - dragY;
+            dragX = e.getX();
+            dragY = e.getY();
+        });
+        setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 2) {
+                fitGrid();
+            }
+        });
+        setOnScroll(e -> zoom(Math.pow(ZOOM_STEP, e.getDeltaY() / 40), e.getX(), e.getY()));
+
+        this.redrawTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                draw();
+            }
+        };
+    }
+
+    /**
+     * Redraw on every pulse from now on
+     */
+    public void start() {
+        redrawTimer.start();
+    }
+
+    public void stop() {
+        redrawTimer.stop();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        canvas.setWidth(getWidth());
+        canvas.setHeight(getHeight());
+    }
+
+    /**
+     * Zoom by a factor, keeping the point (x, y) of the view in place
+     */
+    public void zoom(double factor, double x, double y) {
+        if (scale == 0) {
+            return; // Not laid out yet
+        }
+        double next = Math.max(minScale(), Math.min(MAX_CELL_PIXELS, scale * factor));
+        offsetX = x - (x - offsetX) * next / scale;
+        offsetY = y - (y - offsetY) * next / scale;
+        scale = next;
+    }
+
+    /**
+     * Zoom and pan so the whole grid is in view
+     */
+    public void fitGrid() {
+        scale = Math.min(MAX_CELL_PIXELS, minScale());
+        offsetX = (getWidth() - gridManager.getCols() * scale) / 2;
+        offsetY = (getHeight() - gridManager.getRows() * scale) / 2;
+    }
+
+    // Zooming out stops with the whole grid in view
+    private double minScale() {
+        return Math.min(getWidth() / gridManager.getCols(), getHeight() / gridManager.getRows());
+    }
+
+    /**
+     * Pixels per cell at the current zoom
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    private void draw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.setFill(BACKGROUND_COLOR);
+        gc.fillRect(0, 0, width, height);
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (!fitted) {
+            fitGrid();
+            fitted = true;
+        }
+
+        // A simulation thread publishes its own frames; otherwise the FX thread owns the grid
+        SimulationLoop loop = robotManager.getSimulationLoop();
+        GridSnapshot snapshot = loop != null ? readFrame(loop.getFrames()) : publishDirectly();
+        if (snapshot == null) {
+            return;
+        }
+        pyramid.update(snapshot);
+
+        int level = 0;
+        while (level < pyramid.getLevelCount() - 1 && scale * (1 << level) < MIN_BLOCK_PIXELS) {
+            level++;
+        }
+        double unit = scale * (1 << level);
+        int firstRow = clamp((int) Math.floor(-offsetY / unit), pyramid.getBlockRows(level));
+        int lastRow = clamp((int) Math.ceil((height - offsetY) / unit), pyramid.getBlockRows(level));
+        int firstCol = clamp((int) Math.floor(-offsetX / unit), pyramid.getBlockCols(level));
+        int lastCol = clamp((int) Math.ceil((width - offsetX) / unit), pyramid.getBlockCols(level));
+        int viewRows = lastRow - firstRow;
+        int viewCols = lastCol - firstCol;
+        if (viewRows > 0 && viewCols > 0) {
+            if (level > 0) {
+                countRobots(level);
+            }
+            fillPixels(level, firstRow, firstCol, viewRows, viewCols);
+            gc.setImageSmoothing(false);
+            gc.drawImage(image, 0, 0, viewCols, viewRows,
+                    offsetX + firstCol * unit, offsetY + firstRow * unit, viewCols * unit, viewRows * unit);
+            if (level == 0) {
+                drawCellDetail(gc, firstRow, firstCol, lastRow, lastCol);
+            }
+        }
+
+        gc.setFill(Color.WHITE);
+        gc.fillText(String.format("%.2f px/cell, %s  |  dirty cells: %d%s", scale,
+                level == 0 ? "cells" : (1 << level) + " x " + (1 << level) + " blocks", snapshot.getDirtyCount(),
+                loop == null ? "" : "  |  tick " + loop.getTicks()), 10, height - 10);
+    }
+
+    /**
+     * Latest grid of a simulation thread, keeping its frame for the robots
+     */
+    private GridSnapshot readFrame(FrameBuffer source) {
+        if (source != frames) {
+            frames = source;
+            frameRobots = source.getRobots();
+            frame = new FrameSnapshot(frameRobots.length, source.getBulkCount());
+        }
+        frames.readLatest(frame);
+        return frame.getSequence() == 0 ? null : frame.getGrid();
+    }
+
+    private GridSnapshot publishDirectly() {
+        frames = null;
+        frame = null;
+        frameRobots = null;
+        return gridManager.publishSnapshot();
+    }
+
+    // Robots to draw: from the frame while a simulation thread runs, else the robots themselves
+    private int robotCount() {
+        return frame != null ? frameRobots.length : robotManager.getRobots().size();
+    }
+
+    private Robot robot(int index) {
+        return frame != null ? frameRobots[index] : robotManager.getRobots().get(index);
+    }
+
+    private int robotRow(int index) {
+        return frame != null ? frame.getRow(index) : robotManager.getRobots().get(index).getGridRow();
+    }
+
+    private int robotCol(int index) {
+        return frame != null ? frame.getCol(index) : robotManager.getRobots().get(index).getGridCol();
+    }
+
+    private int bulkCount() {
+        return frame != null ? frame.getBulkCount() : robotManager.getRobotStore().size();
+    }
+
+    private int bulkRow(int id) {
+        return frame != null ? frame.getBulkRow(id) : robotManager.getRobotStore().getRow(id);
+    }
+
+    private int bulkCol(int id) {
+        return frame != null ? frame.getBulkCol(id) : robotManager.getRobotStore().getCol(id);
+    }
+
+    private static int clamp(int value, int limit) {
+        return Math.max(0, Math.min(limit, value));
+    }
+
+    private void countRobots(int level) {
+        pyramid.clearRobots(level);
+        for (int i = 0; i < robotCount(); i++) {
+            pyramid.addRobot(robotRow(i), robotCol(i));
+        }
+        for (int id = 0; id < bulkCount(); id++) {
+            pyramid.addRobot(bulkRow(id), bulkCol(id));
+        }
+    }
+
+    /**
+     * One pixel per cell or block in view into the image
+     */
+    private void fillPixels(int level, int firstRow, int firstCol, int viewRows, int viewCols) {
+        if (image == null || image.getWidth() < viewCols || image.getHeight() < viewRows) {
+            image = new WritableImage(Math.max(viewCols, image == null ? 0 : (int) image.getWidth()),
+                    Math.max(viewRows, image == null ? 0 : (int) image.getHeight()));
+            pixels = new int[(int) image.getWidth() * (int) image.getHeight()];
+        }
+        int wall = argb(WALL_COLOR);
+        for (int r = 0; r < viewRows; r++) {
+            int row = firstRow + r;
+            for (int c = 0; c < viewCols; c++) {
+                int col = firstCol + c;
+                int color;
+                if (level == 0) {
+                    color = pyramid.getWalls(0, row, col) != 0 ? wall
+                            : cellColors[(int) Math.min(Byte.MAX_VALUE, pyramid.getDirt(0, row, col))];
+                } else {
+                    color = blockColor(level, row, col);
+                }
+                pixels[r * viewCols + c] = color;
+            }
+        }
+        image.getPixelWriter().setPixels(0, 0, viewCols, viewRows, PixelFormat.getIntArgbInstance(),
+                pixels, 0, viewCols);
+    }
+
+    /**
+     * Heatmap color of a block: dirt per free cell, tinted by robot density
+     * and greyed by the share of walls
+     */
+    private int blockColor(int level, int row, int col) {
+        int cells = pyramid.getCellCount(level, row, col);
+        int walls = pyramid.getWalls(level, row, col);
+        int free = cells - walls;
+        double dirtShare = free == 0 ? 0 : Math.min(1.0, pyramid.getDirt(level, row, col) / ((double) free * POLLUTION_AMOUNT));
+        double robotShare = free == 0 ? 0 : Math.min(1.0, Math.sqrt(pyramid.getRobots(row, col) * 4.0 / free));
+        double wallShare = (double) walls / cells;
+        double red = mix(mix(mix(DEFAULT_COLOR.getRed(), DIRTY_COLOR.getRed(), dirtShare),
+                ROBOT_COLOR.getRed(), 0.8 * robotShare), WALL_COLOR.getRed(), wallShare);
+        double green = mix(mix(mix(DEFAULT_COLOR.getGreen(), DIRTY_COLOR.getGreen(), dirtShare),
+                ROBOT_COLOR.getGreen(), 0.8 * robotShare), WALL_COLOR.getGreen(), wallShare);
+        double blue = mix(mix(mix(DEFAULT_COLOR.getBlue(), DIRTY_COLOR.getBlue(), dirtShare),
+                ROBOT_COLOR.getBlue(), 0.8 * robotShare), WALL_COLOR.getBlue(), wallShare);
+        return argb(red, green, blue);
+    }
+
+    private static double mix(double from, double to, double ratio) {
+        return from + (to - from) * ratio;
+    }
+
+    private static int argb(Color color) {
+        return argb(color.getRed(), color.getGreen(), color.getBlue());
+    }
+
+    private static int argb(double red, double green, double blue) {
+        return 0xFF000000 | (int) Math.round(red * 255) << 16 | (int) Math.round(green * 255) << 8
+                | (int) Math.round(blue * 255);
+    }
+
+    /**
+     * Cell borders and robots, for the cells in view only
+     */
+    private void drawCellDetail(GraphicsContext gc, int firstRow, int firstCol, int lastRow, int lastCol) {
+        if (scale >= GRID_LINE_PIXELS) {
+            gc.setStroke(Color.GRAY);
+            gc.setLineWidth(1);
+            for (int row = firstRow; row <= lastRow; row++) {
+                double y = offsetY + row * scale;
+                gc.strokeLine(offsetX + firstCol * scale, y, offsetX + lastCol * scale, y);
+            }
+            for (int col = firstCol; col <= lastCol; col++) {
+                double x = offsetX + col * scale;
+                gc.strokeLine(x, offsetY + firstRow * scale, x, offsetY + lastRow * scale);
+            }
+        }
+        double size = Math.max(2, scale * 2 / 3);
+        for (int i = 0; i < robotCount(); i++) {
+            int row = robotRow(i);
+            int col = robotCol(i);
+            if (row >= firstRow && row < lastRow && col >= firstCol && col < lastCol) {
+                Robot robot = robot(i);
+                gc.setFill(robot.getColor() != null ? robot.getColor() : ROBOT_COLOR);
+                gc.fillOval(offsetX + (col + 0.5) * scale - size / 2, offsetY + (row + 0.5) * scale - size / 2,
+                        size, size);
+            }
+        }
+        gc.setFill(BULK_ROBOT_COLOR);
+        for (int id = 0; id < bulkCount(); id++) {
+            int row = bulkRow(id);
+            int col = bulkCol(id);
+            if (row >= firstRow && row < lastRow && col >= firstCol && col < lastCol) {
+                gc.fillRect(offsetX + (col + 0.5) * scale - size / 2, offsetY + (row + 0.5) * scale - size / 2,
+                        size, size);
+            }
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package robotsimulator.ui;
 
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
@@ -9,6 +16,7 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import robotsimulator.core.RobotManager;
+import robotsimulator.core.Scenario;
 import static robotsimulator.model.GridConstants.BACKGROUND_COLOR;
 import static robotsimulator.model.GridConstants.CELL_SIZE;
 import static robotsimulator.model.GridConstants.GRID_SIZE;
@@ -234,8 +242,11 @@ public class ScreenBuilder {
             "-fx-padding: 10;"
         );
         
-        // Control panel with styling
-        VBox controls = controlPanel.build();
+        // The control panel is built once the grid is on screen; until then
+        // its column only shows a placeholder
+        Label loading = new Label("Loading controls...");
+        loading.setStyle("-fx-text-fill: #ECF0F1; -fx-font-size: 14px;");
+        VBox controls = new VBox(loading);
         controls.setStyle(
             "-fx-background-color: #2C3E50;" +
             "-fx-padding: 15;" +
@@ -261,6 +272,80 @@ public class ScreenBuilder {
         
         container.getChildren().addAll(gameGrid, controls);
         
-        return new Scene(container, 1400, 1000);
+        Scene scene = new Scene(container, 1400, 1000);
+        runAfterFirstFrame(scene, frameTime -> {
+            VBox built = controlPanel.build();
+            controls.setSpacing(built.getSpacing());
+            controls.setAlignment(built.getAlignment());
+            controls.getChildren().setAll(built.getChildren());
+        });
+        return scene;
+    }
+
+    /**
+     * Viewer for a scenario grid of any size: a pannable, zoomable viewport
+     * with the missions running on a simulation thread
+     */
+    public static Scene buildViewportScene(Scenario scenario) throws IOException {
+        GridManager gridManager = scenario.createGrid();
+        RobotManager robotManager = scenario.createRobots(gridManager);
+        GridViewport viewport = new GridViewport(gridManager, robotManager);
+        viewport.setStyle("-fx-border-color: #3498DB; -fx-border-width: 2;");
+        
+        TextField tickRate = new TextField("60");
+        tickRate.setPrefWidth(80);
+        tickRate.setPromptText("Ticks/s");
+        Button runButton = new Button("RUN");
+        runButton.setStyle("-fx-background-color: #2ECC71; -fx-text-fill: white; -fx-font-weight: bold;");
+        runButton.setOnAction(e -> {
+            // A run that ended by itself is cleared on the next click
+            if (robotManager.getSimulationLoop() != null) {
+                robotManager.stopDecoupledMissions();
+                runButton.setText("RUN");
+                return;
+            }
+            try {
+                robotManager.startDecoupledMissions(Double.parseDouble(tickRate.getText().trim()),
+                        scenario.getTickLimit());
+                runButton.setText("STOP");
+            } catch (IllegalArgumentException ex) {
+                System.out.println("Please enter a valid tick rate (0 = as fast as possible)!");
+            }
+        });
+        Label hint = new Label("Drag to pan, scroll to zoom, double-click to fit");
+        hint.setStyle("-fx-text-fill: #ECF0F1;");
+        Label rateLabel = new Label("Ticks/s:");
+        rateLabel.setStyle("-fx-text-fill: #ECF0F1;");
+        HBox toolbar = new HBox(10, runButton, rateLabel, tickRate, hint);
+        toolbar.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+        toolbar.setPadding(new Insets(10));
+        
+        BorderPane layout = new BorderPane(viewport);
+        layout.setTop(toolbar);
+        layout.setStyle("-fx-background-color: " + toHexString(BACKGROUND_COLOR) + ";");
+        viewport.start();
+        return new Scene(layout, 1400, 900);
+    }
+
+    /**
+     * Run an action on the FX thread right after the scene's first pulse.
+     * The action gets the wall clock time (ms) at which that pulse was laid out.
+     */
+    public static void runAfterFirstFrame(Scene scene, LongConsumer action) {
+        boolean[] fired = new boolean[1];
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            if (fired[0]) {
+                return;
+            }
+            fired[0] = true;
+            long frameTime = System.currentTimeMillis();
+            // Removed later, not while the scene is walking its listeners
+            Platform.runLater(() -> {
+                scene.removePostLayoutPulseListener(listener[0]);
+                action.accept(frameTime);
+            });
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package robotsimulator.cleaning;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.model.GridBuffer;
+import robotsimulator.planning.GridDistances;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that the complete cleaner walks one cell at a time and covers
+ * every free cell it can reach, around walls and walled-off pockets.
+ */
+public class NettoyeurCompletTest
+{
+    @Test
+    public void coversEveryReachableCell()
+    {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 20; trial++) {
+            int rows = 5 + random.nextInt(30);
+            int cols = 5 + random.nextInt(30);
+            GridManager grid = new GridManager(rows, cols);
+            for (int i = 0; i < rows * cols / 4; i++) {
+                grid.getBuffer().setWall(random.nextInt(rows), random.nextInt(cols), true);
+            }
+            grid.getBuffer().setWall(0, 0, false);
+            checkCoverage(grid);
+        }
+    }
+
+    @Test
+    public void coversAnOpenGrid()
+    {
+        checkCoverage(new GridManager(17, 23));
+    }
+
+    private static void checkCoverage(GridManager grid)
+    {
+        GridBuffer buffer = grid.getBuffer();
+        int[] dist = GridDistances.from(buffer, 0);
+        boolean[] visited = new boolean[buffer.size()];
+        visited[0] = true;
+        NettoyeurComplet cleaner = new NettoyeurComplet(grid);
+        int row = cleaner.getGridRow();
+        int col = cleaner.getGridCol();
+        int steps = 0;
+        while (!cleaner.executeMissionStep(steps)) {
+            int nextRow = cleaner.getGridRow();
+            int nextCol = cleaner.getGridCol();
+            assertEquals("step " + steps + " moves one cell", 1,
+                    Math.abs(nextRow - row) + Math.abs(nextCol - col));
+            assertTrue(!buffer.isWall(nextRow, nextCol));
+            row = nextRow;
+            col = nextCol;
+            visited[buffer.index(row, col)] = true;
+            steps++;
+            assertTrue("route ends", steps <= 4 * buffer.size());
+        }
+        for (int cell = 0; cell < dist.length; cell++) {
+            assertEquals("cell " + cell, dist[cell] != GridDistances.UNREACHABLE, visited[cell]);
+        }
+        assertEquals(100.0, cleaner.getProgress(), 1e-9);
+    }
+}
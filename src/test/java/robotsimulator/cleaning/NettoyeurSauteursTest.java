@@ -0,0 +1,66 @@
+package robotsimulator.cleaning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that the jumping cleaner's targets, now computed on demand, come
+ * in the same order as the visit pattern it used to precompute.
+ */
+public class NettoyeurSauteursTest
+{
+    @Test
+    public void visitsTheOldPatternInOrder()
+    {
+        int[][] shapes = {{10, 10}, {7, 13}, {13, 7}, {1, 9}, {20, 3}};
+        for (int[] shape : shapes) {
+            for (int jump = 1; jump <= 4; jump++) {
+                for (int startCol = 1; startCol <= shape[1]; startCol += 2) {
+                    checkOrder(shape[0], shape[1], jump, startCol);
+                }
+            }
+        }
+    }
+
+    private static void checkOrder(int rows, int cols, int jump, int startCol)
+    {
+        GridManager grid = new GridManager(rows, cols);
+        NettoyeurSauteurs cleaner = new NettoyeurSauteurs(1, startCol, jump, grid);
+        List<int[]> expected = precomputedPattern(rows, cols, cleaner.getJumpDistance(), startCol);
+        String label = rows + "x" + cols + " jump " + jump + " from column " + startCol;
+        assertEquals(label, expected.size(), cleaner.getStepsRemaining());
+
+        int steps = 0;
+        boolean complete = false;
+        while (!complete) {
+            complete = cleaner.executeMissionStep(steps);
+            int[] target = expected.get(steps);
+            assertEquals(label + " step " + steps + " row", target[0], cleaner.getGridRowOneBased());
+            assertEquals(label + " step " + steps + " col", target[1], cleaner.getGridColOneBased());
+            steps++;
+        }
+        assertEquals(label, expected.size(), steps);
+    }
+
+    /**
+     * The visit order the cleaner used to build up front: rows every jump,
+     * each row every jump-th column from the start column, capped at the
+     * estimated number of steps
+     */
+    private static List<int[]> precomputedPattern(int rows, int cols, int jump, int startCol)
+    {
+        int estimatedSteps = (rows * cols) / (jump * jump) + rows;
+        List<int[]> pattern = new ArrayList<>();
+        for (int i = 0; i < rows && pattern.size() < estimatedSteps; i++) {
+            for (int j = 0; j < cols && pattern.size() < estimatedSteps; j += jump) {
+                pattern.add(new int[]{(i * jump) % rows + 1, (j + startCol - 1) % cols + 1});
+            }
+        }
+        return pattern;
+    }
+}
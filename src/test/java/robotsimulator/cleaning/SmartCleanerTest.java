@@ -0,0 +1,63 @@
+package robotsimulator.cleaning;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that only wall changes on the path ahead start a D* Lite repair.
+ */
+public class SmartCleanerTest
+{
+    @Test
+    public void onlyWallsOnThePathStartARepair() throws Exception
+    {
+        // The only shortest path runs along the top row
+        assertEquals(0, repairSearches(5, 5));
+        assertTrue(repairSearches(1, 8) > 0);
+    }
+
+    /**
+     * Walk from (1, 1) to the dirt at (1, 10), adding a wall at (row, col)
+     * on the way, and count the D* Lite searches
+     */
+    private int repairSearches(int row, int col) throws Exception
+    {
+        GridManager grid = new GridManager(10, 10);
+        grid.dirtyCell(1, 10);
+        SmartCleaner cleaner = new SmartCleaner(1, 1, 100, grid);
+
+        Path file = Files.createTempFile("smart-cleaner", ".jfr");
+        int repairs = 0;
+        try (Recording recording = new Recording()) {
+            recording.enable("robotsimulator.PathSearch").withThreshold(Duration.ZERO);
+            recording.start();
+            for (int step = 0; step < 100 && !cleaner.executeMissionStep(step); step++) {
+                if (step == 3) {
+                    grid.setWall(row, col, true);
+                }
+                assertFalse(grid.isWallZeroBased(cleaner.getGridRow(), cleaner.getGridCol()));
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getString("algorithm").equals("D* Lite")) {
+                repairs++;
+            }
+        }
+        Files.delete(file);
+        assertEquals(0, grid.getColoredCount());
+        return repairs;
+    }
+}
@@ -0,0 +1,106 @@
+package robotsimulator.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import robotsimulator.model.GridBuffer;
+import robotsimulator.model.GridKernels;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that concurrent cell updates lose nothing and that parallel bulk
+ * stepping ends like the sequential one.
+ */
+public class ConcurrentUpdatesTest
+{
+    @Test
+    public void atomicDirtLosesNoUpdates() throws InterruptedException
+    {
+        GridBuffer grid = new GridBuffer(1, 3);
+        grid.addDirt(0, 1, 50);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int k = 0; k < 100_000; k++) {
+                    grid.addDirtAtomic(0, 1, 3);
+                    grid.addDirtAtomic(0, 1, -3);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(50, grid.getDirt(0, 1));
+    }
+
+    @Test
+    public void concurrentCountMatchesGrid() throws InterruptedException
+    {
+        GridManager gridManager = new GridManager(new GridBuffer(6, 7));
+        gridManager.setConcurrentUpdates(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Random random = new Random(t);
+            Thread thread = new Thread(() -> {
+                for (int k = 0; k < 50_000; k++) {
+                    int row = 1 + random.nextInt(6);
+                    int col = 1 + random.nextInt(7);
+                    if (random.nextBoolean()) {
+                        gridManager.dirtyCell(row, col);
+                    } else {
+                        gridManager.cleanCell(row, col);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int dirty = GridKernels.get().countDirty(gridManager.getBuffer());
+        assertEquals(dirty, gridManager.getColoredCount());
+        gridManager.settleConcurrentUpdates();
+        assertEquals(dirty, gridManager.getColoredCount());
+    }
+
+    @Test
+    public void parallelStoreMatchesSequential()
+    {
+        GridManager sequentialGrid = new GridManager(new GridBuffer(30, 40));
+        GridManager parallelGrid = new GridManager(new GridBuffer(30, 40));
+        RobotStore sequential = new RobotStore(sequentialGrid);
+        RobotStore parallel = new RobotStore(parallelGrid);
+        parallel.setParallel(true);
+        for (RobotStore store : new RobotStore[]{sequential, parallel}) {
+            Random random = new Random(9);
+            for (int i = 0; i < 9_000; i++) {
+                int col = 1 + random.nextInt(40);
+                switch (random.nextInt(3)) {
+                    case 0 -> store.addStraightCleaner(col);
+                    case 1 -> store.addStraightPolluter(col);
+                    default -> store.addCompleteCleaner();
+                }
+            }
+        }
+        sequentialGrid.setWall(10, 10, true);
+        parallelGrid.setWall(10, 10, true);
+
+        for (int tick = 0; tick < 1300; tick++) {
+            assertEquals(sequential.stepPolluters(), parallel.stepPolluters());
+            assertEquals(sequential.stepCleaners(), parallel.stepCleaners());
+            assertEquals(sequentialGrid.getColoredCount(), parallelGrid.getColoredCount());
+        }
+        assertArrayEquals(sequentialGrid.getBuffer().dirtArray(), parallelGrid.getBuffer().dirtArray());
+        for (int id = 0; id < sequential.size(); id++) {
+            assertEquals(sequential.getMissionState(id), parallel.getMissionState(id));
+        }
+    }
+}
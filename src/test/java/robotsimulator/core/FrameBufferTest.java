@@ -0,0 +1,134 @@
+package robotsimulator.core;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.model.Robot;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that frames reach readers whole, that the simulation loop ends
+ * like ticking by hand and that UI edits wait for it.
+ */
+public class FrameBufferTest
+{
+    @Test
+    public void readersSeeWholeFrames() throws InterruptedException
+    {
+        // The writer walks two robots in step; every frame must hold matching positions
+        Robot first = new Robot(1, 1, 1);
+        Robot second = new Robot(1, 1, 1);
+        FrameBuffer frames = new FrameBuffer(new Robot[]{first, second});
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            FrameSnapshot frame = new FrameSnapshot(2);
+            while (frame.getTick() < 20_000 && failure.get() == null) {
+                long seen = frame.getSequence();
+                if (!frames.readLatest(frame) || frame.getTick() == 0) {
+                    continue;
+                }
+                int col = frame.getTick() % 50;
+                if (frame.getSequence() <= seen || frame.colAt(0, 1.0) != col || frame.colAt(1, 1.0) != col
+                        || frame.colAt(0, 0.0) != (frame.getTick() + 49) % 50 || frame.getTick() != frame.getSequence() - 1) {
+                    failure.set("tick " + frame.getTick() + ": " + frame.colAt(0, 0.0) + " -> "
+                            + frame.colAt(0, 1.0) + ", " + frame.colAt(1, 1.0));
+                }
+            }
+        });
+        reader.start();
+        frames.publish(0, null, false);
+        for (int tick = 1; tick <= 20_000; tick++) {
+            first.setGridPosition(1, tick % 50 + 1);
+            second.setGridPosition(1, tick % 50 + 1);
+            frames.publish(tick, null, tick == 20_000);
+        }
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(20_001, frames.getPublishedCount());
+    }
+
+    @Test
+    public void loopMatchesManualTicks()
+    {
+        GridManager manualGrid = new GridManager(12, 9);
+        GridManager loopGrid = new GridManager(12, 9);
+        RobotManager manual = new RobotManager(null, manualGrid);
+        RobotManager looped = new RobotManager(null, loopGrid);
+        for (RobotManager robotManager : new RobotManager[]{manual, looped}) {
+            robotManager.createStraightPolluter(3);
+            robotManager.createStraightPolluter(7);
+            robotManager.createStraightCleaner(3);
+            robotManager.createCompleteCleaner();
+        }
+        int ticks = 0;
+        while (!manual.tick(ticks)) {
+            ticks++;
+        }
+        ticks++;
+
+        FrameBuffer frames = new FrameBuffer(looped.getRobots().toArray(new Robot[0]));
+        SimulationLoop loop = new SimulationLoop(looped, frames, 0, 0);
+        loop.start();
+        loop.join();
+        assertTrue(loop.isAllComplete());
+        assertFalse(loop.isRunning());
+        assertEquals(ticks, loop.getTicks());
+        assertEquals(manualGrid.getColoredCount(), loopGrid.getColoredCount());
+
+        FrameSnapshot frame = new FrameSnapshot(4);
+        assertTrue(frames.readLatest(frame));
+        assertFalse(frames.readLatest(frame));
+        assertTrue(frame.isLast());
+        assertEquals(ticks, frame.getTick());
+        assertEquals(loopGrid.getColoredCount(), frame.getGrid().getDirtyCount());
+        for (int i = 0; i < 4; i++) {
+            Robot robot = manual.getRobot(i);
+            assertEquals(robot.getGridRow(), frame.rowAt(i, 1.0), 0.0);
+            assertEquals(robot.getGridCol(), frame.colAt(i, 1.0), 0.0);
+        }
+    }
+
+    @Test
+    public void framesCarryBulkRobots()
+    {
+        GridManager grid = new GridManager(10, 6);
+        RobotManager robotManager = new RobotManager(null, grid);
+        robotManager.getRobotStore().addStraightCleaner(2);
+        robotManager.getRobotStore().addStraightPolluter(5);
+        robotManager.startDecoupledMissions(0, 3);
+        robotManager.getSimulationLoop().join();
+
+        FrameBuffer frames = robotManager.getSimulationLoop().getFrames();
+        assertEquals(2, frames.getBulkCount());
+        FrameSnapshot frame = new FrameSnapshot(0, 2);
+        assertTrue(frames.readLatest(frame));
+        RobotStore store = robotManager.getRobotStore();
+        for (int id = 0; id < 2; id++) {
+            assertEquals(store.getRow(id), frame.getBulkRow(id));
+            assertEquals(store.getCol(id), frame.getBulkCol(id));
+        }
+        assertEquals(3, store.getRow(0)); // Moved one row per tick
+        robotManager.stopDecoupledMissions();
+    }
+
+    @Test
+    public void editsWaitForTheLoop()
+    {
+        GridManager grid = new GridManager(6, 6);
+        RobotManager robotManager = new RobotManager(null, grid);
+        robotManager.createStraightCleaner(2);
+        robotManager.startDecoupledMissions(0, 1);
+        robotManager.getSimulationLoop().join();
+        grid.edit(() -> grid.dirtyCell(5, 5));
+        assertEquals(0, grid.getColoredCount()); // Still owned by the (finished) run
+        robotManager.stopDecoupledMissions();
+        assertEquals(1, grid.getColoredCount());
+        grid.edit(() -> grid.dirtyCell(4, 4));
+        assertEquals(2, grid.getColoredCount());
+    }
+}
@@ -0,0 +1,64 @@
+package robotsimulator.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.cleaning.NettoyeurComplet;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that a bulk complete cleaner sweeps a wall-free grid in the same
+ * order as NettoyeurComplet, and that a wall ends its mission.
+ */
+public class RobotStoreTest
+{
+    private static final int ROWS = 7;
+    private static final int COLS = 9;
+
+    @Test
+    public void completeCleanerMatchesObjectRobot()
+    {
+        GridManager bulkGrid = new GridManager(ROWS, COLS);
+        RobotStore store = new RobotStore(bulkGrid);
+        store.addCompleteCleaner();
+        List<Integer> bulkCells = new ArrayList<>();
+        do {
+            bulkCells.add(store.getRow(0) * COLS + store.getCol(0)); // Cleaned by this step
+        } while (!store.stepCleaners());
+
+        GridManager objectGrid = new GridManager(ROWS, COLS);
+        NettoyeurComplet cleaner = new NettoyeurComplet(objectGrid);
+        List<Integer> objectCells = new ArrayList<>();
+        objectCells.add(cleaner.getGridRow() * COLS + cleaner.getGridCol());
+        for (int step = 0; !cleaner.executeMissionStep(step); step++) {
+            objectCells.add(cleaner.getGridRow() * COLS + cleaner.getGridCol()); // Cleaned on arrival
+        }
+
+        assertEquals(ROWS * COLS, bulkCells.size());
+        assertEquals(objectCells, bulkCells);
+        assertEquals(RobotStore.MISSION_COMPLETE, store.getMissionState(0));
+    }
+
+    @Test
+    public void wallEndsCompleteCleaner()
+    {
+        GridManager grid = new GridManager(ROWS, COLS);
+        grid.getBuffer().setWall(1, 4, true);
+        RobotStore store = new RobotStore(grid);
+        store.addCompleteCleaner();
+        int steps = 0;
+        while (!store.stepCleaners()) {
+            steps++;
+            assertTrue(steps < ROWS * COLS);
+        }
+        assertEquals(RobotStore.MISSION_WALL_HIT, store.getMissionState(0));
+        assertEquals(1, store.getRow(0));
+        assertEquals(4, store.getCol(0));
+        assertFalse(store.getRunningCount() > 0);
+    }
+}
@@ -0,0 +1,172 @@
+package robotsimulator.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that every scenario directive takes effect, that bad lines are
+ * reported with their line number, that maps are found next to the
+ * scenario file and that the headless runner runs a scenario to the end.
+ */
+public class ScenarioTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void directivesTakeEffect() throws IOException
+    {
+        Path telemetryDir = folder.getRoot().toPath().resolve("telemetry");
+        Scenario scenario = Scenario.load(write("all.txt",
+                "# Every directive but map, generate and random-walls",
+                "grid 20 30",
+                "seed 42",
+                "ticks 77   # trailing comment",
+                "wall 2 2 2 6",
+                "dirt 10 10 12 14",
+                "diffusion 100 1",
+                "fleet",
+                "async-pathfinding 2",
+                "tiles 2 2 2",
+                "parallel-bulk",
+                "profile 4",
+                "telemetry " + telemetryDir + " 4 3",
+                "robot smart 5 5 50",
+                "robot straight-cleaner 3",
+                "robot jumping-cleaner 6 6 2",
+                "robot free-cleaner 7 7 20",
+                "robot complete-cleaner",
+                "robot straight-polluter 4",
+                "robot jumping-polluter 8 8 2",
+                "robot free-polluter 9 9 5",
+                "robot bulk-straight-cleaner 3",
+                "robot bulk-straight-polluter 4",
+                "robot bulk-complete-cleaner",
+                "bulk straight-cleaner 10"));
+        assertEquals(20, scenario.getRows());
+        assertEquals(30, scenario.getCols());
+        assertEquals(77, scenario.getTickLimit());
+        assertArrayEquals(new int[]{100, 1}, scenario.getDiffusion());
+        assertTrue(scenario.hasObjectRobots());
+
+        GridManager grid = scenario.createGrid();
+        assertEquals(20, grid.getRows());
+        assertEquals(30, grid.getCols());
+        for (int col = 2; col <= 6; col++) {
+            assertTrue(grid.isWall(2, col));
+        }
+        assertFalse(grid.isWall(2, 7));
+        assertEquals(15, grid.getColoredCount());
+
+        RobotManager robotManager = scenario.createRobots(grid);
+        try {
+            assertEquals(5, robotManager.getCleanerCount());
+            assertEquals(3, robotManager.getPolluterCount());
+            assertEquals(13, robotManager.getRobotStore().size());
+            assertTrue(robotManager.isFleetPlanning());
+            assertTrue(robotManager.getPathfindingService() != null);
+            assertEquals(4, robotManager.getTiledStepper().getTileCount());
+            assertEquals(2, robotManager.getTiledStepper().getThreadCount());
+            assertTrue(robotManager.getRobotStore().isParallel());
+            assertEquals(4, robotManager.getStepProfiler().getSampleInterval());
+            assertEquals(100, robotManager.getDirtStage().getDiffusionPermille());
+            assertEquals(1, robotManager.getDirtStage().getDecayPerTick());
+        } finally {
+            robotManager.setAsyncPathfinding(0, false);
+            robotManager.setTiledStepping(0, 0, 0);
+        }
+        try (TelemetryWriter telemetry = scenario.createTelemetry()) {
+            assertEquals(telemetryDir, telemetry.getDirectory());
+        }
+    }
+
+    @Test
+    public void seedRepeatsGeneratedWalls() throws IOException
+    {
+        Scenario scenario = Scenario.load(write("generated.txt",
+                "grid 24 32",
+                "seed 7",
+                "generate maze 40",
+                "random-walls"));
+        GridManager first = scenario.createGrid();
+        GridManager second = scenario.createGrid();
+        assertEquals(24, first.getRows());
+        assertArrayEquals(first.getBuffer().wallArray(), second.getBuffer().wallArray());
+        int walls = 0;
+        for (byte wall : first.getBuffer().wallArray()) {
+            walls += wall;
+        }
+        assertTrue(walls > 0);
+        assertFalse(scenario.hasObjectRobots());
+    }
+
+    @Test
+    public void badLinesNameTheirLine() throws IOException
+    {
+        expectError("grid 10", "grid expects 2 numbers");
+        expectError("robot hover 1 1", "unknown robot type");
+        expectError("robot smart 1 1", "smart expects 3 numbers");
+        expectError("dance", "unknown directive 'dance'");
+        expectError("generate clutter 101", "difficulty must be between 0 and 100");
+        expectError("generate swamp 10", "unknown map style 'swamp'");
+        expectError("bulk straight-cleaner", "bulk expects a bulk robot type and a count");
+        expectError("seed many", "many");
+    }
+
+    @Test
+    public void mapIsFoundNextToTheScenario() throws IOException
+    {
+        Path maps = folder.newFolder("maps").toPath();
+        Files.writeString(maps.resolve("room.txt"), String.join("\n",
+                "#######",
+                "#.....#",
+                "#..#..#",
+                "#.....#",
+                "#######",
+                ""));
+        folder.newFolder("scenarios");
+        Scenario scenario = Scenario.load(write("scenarios/room.txt",
+                "map ../maps/room.txt",
+                "dirt 2 2 4 6",
+                "robot smart 2 2 200",
+                "ticks 500"));
+        GridManager grid = scenario.createGrid();
+        assertEquals(5, grid.getRows());
+        assertEquals(7, grid.getCols());
+        assertTrue(grid.isWall(3, 4));
+        assertEquals(14, grid.getColoredCount()); // 15 cells less the pillar
+
+        assertTrue(HeadlessRunner.run(scenario, false));
+    }
+
+    private void expectError(String badLine, String message) throws IOException
+    {
+        Path file = write("bad.txt", "grid 10 10", "# a comment", badLine, "ticks 5");
+        try {
+            Scenario.load(file);
+            fail(badLine + " should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(file + ":3: "));
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    private Path write(String name, String... lines) throws IOException
+    {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.writeString(file, String.join("\n", lines) + "\n");
+        return file;
+    }
+}
@@ -0,0 +1,55 @@
+package robotsimulator.core;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.cleaning.SmartCleaner;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that the step profiler samples the requested share of steps and
+ * splits the results per robot and per type.
+ */
+public class StepProfilerTest
+{
+    @Test
+    public void samplesEveryNthStepPerRobotAndType()
+    {
+        GridManager grid = new GridManager(15, 15);
+        grid.dirtyCell(15, 15);
+        grid.dirtyCell(8, 3);
+        RobotManager robotManager = new RobotManager(null, grid);
+        SmartCleaner first = robotManager.createSmartCleaner(1, 1, 10_000);
+        robotManager.createSmartCleaner(15, 1, 10_000);
+        robotManager.createStraightPolluter(4);
+        robotManager.getRobotStore().addStraightCleaner(2);
+        robotManager.setStepProfiling(3);
+
+        for (int tick = 0; tick < 10; tick++) {
+            robotManager.tick(tick);
+        }
+        StepProfiler profiler = robotManager.getStepProfiler();
+        List<StepProfiler.Row> robots = profiler.getRobotRows();
+        assertEquals(3, robots.size());
+        for (StepProfiler.Row row : robots) {
+            assertEquals(row.name(), 4, row.samples()); // Steps 0, 3, 6 and 9
+            assertTrue(row.p99Micros() >= 0 && row.meanMicros() > 0);
+        }
+        List<StepProfiler.Row> types = profiler.getTypeRows();
+        assertEquals(8, rowNamed(types, "SmartCleaner").samples());
+        assertEquals(4, rowNamed(types, "Bulk cleaners").samples());
+        assertTrue(first.getPlanningNanos() > 0);
+        assertTrue(rowNamed(types, "SmartCleaner").planningMicros() > 0);
+
+        robotManager.removeRobot(first);
+        assertEquals(2, profiler.getRobotRows().size());
+    }
+
+    private static StepProfiler.Row rowNamed(List<StepProfiler.Row> rows, String name)
+    {
+        return rows.stream().filter(row -> row.name().equals(name)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,102 @@
+package robotsimulator.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that telemetry rows survive rotation whole and that the robot
+ * manager reports every tick.
+ */
+public class TelemetryWriterTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rotatesBySizeAndTypes() throws IOException
+    {
+        Path directory = folder.getRoot().toPath().resolve("telemetry");
+        List<String> types = List.of("SmartCleaner", "BulkStraightCleaner");
+        try (TelemetryWriter writer = new TelemetryWriter(directory, 1024, 0)) {
+            for (int tick = 0; tick < 500; tick++) {
+                assertTrue(writer.record(new TelemetryWriter.TickStats(tick, 1_000, System.nanoTime(),
+                        tick, 1, 2, 3, tick < 400 ? types : types.subList(0, 1), new int[]{tick < 400 ? 5 : 6, 7})));
+            }
+        }
+
+        List<Path> files = TelemetryWriter.listFiles(directory);
+        assertTrue(files.size() > 2);
+        List<String> rows = new ArrayList<>();
+        for (Path file : files) {
+            assertTrue(Files.size(file) <= 1024);
+            List<String> lines = Files.readAllLines(file);
+            assertTrue(lines.get(0).startsWith("tick,"));
+            rows.addAll(lines.subList(1, lines.size()));
+        }
+        assertEquals(500, rows.size());
+        for (int tick = 0; tick < 500; tick++) {
+            String[] fields = rows.get(tick).split(",");
+            assertEquals(String.valueOf(tick), fields[0]);
+            assertEquals(tick < 400 ? "5" : "6", fields[7]);
+        }
+        // Types changed at tick 400: a new file with the new header
+        List<String> last = Files.readAllLines(files.get(files.size() - 1));
+        assertTrue(last.get(0).endsWith(",active,SmartCleaner"));
+
+        // A second writer continues the numbering and keeps only the newest files
+        try (TelemetryWriter writer = new TelemetryWriter(directory, 1024, 2)) {
+            for (int tick = 0; tick < 100; tick++) {
+                writer.record(new TelemetryWriter.TickStats(tick, 1_000, System.nanoTime(), 0, 0, 0, 0, types, new int[2]));
+            }
+        }
+        List<Path> kept = TelemetryWriter.listFiles(directory);
+        assertEquals(2, kept.size());
+        assertTrue(kept.get(0).getFileName().toString().compareTo(files.get(files.size() - 1).getFileName().toString()) > 0);
+    }
+
+    @Test
+    public void robotManagerWritesEveryTick() throws IOException
+    {
+        GridManager grid = new GridManager(10, 10);
+        RobotManager robotManager = new RobotManager(null, grid);
+        robotManager.createStraightPolluter(3);
+        robotManager.createStraightCleaner(3);
+        robotManager.getRobotStore().addStraightCleaner(5);
+        Path directory = folder.getRoot().toPath();
+        int ticks = 0;
+        try (TelemetryWriter writer = new TelemetryWriter(directory, 1 << 20, 0)) {
+            robotManager.setTelemetry(writer);
+            while (!robotManager.tick(ticks)) {
+                ticks++;
+            }
+            ticks++;
+        }
+
+        List<Path> files = TelemetryWriter.listFiles(directory);
+        assertEquals(1, files.size());
+        List<String> lines = Files.readAllLines(files.get(0));
+        assertEquals("tick,time_ms,tick_us,dirty,dirtied,cleaned,active,"
+                + "PollueurToutDroit,NettoyeurToutDroit,BulkStraightCleaner", lines.get(0));
+        assertEquals(ticks + 1, lines.size());
+        int dirty = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            dirty += Integer.parseInt(fields[4]) - Integer.parseInt(fields[5]);
+            assertEquals(String.valueOf(dirty), fields[3]);
+            assertEquals("1,1,1", fields[7] + "," + fields[8] + "," + fields[9]);
+        }
+        assertEquals(grid.getColoredCount(), dirty);
+        assertEquals("0", lines.get(lines.size() - 1).split(",")[6]); // No mission left running
+    }
+}
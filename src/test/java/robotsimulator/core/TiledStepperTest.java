@@ -0,0 +1,82 @@
+package robotsimulator.core;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import robotsimulator.model.GridBuffer;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that tiled stepping gives the same grid and robots as RobotStore.
+ */
+public class TiledStepperTest
+{
+    private static final int ROWS = 41;
+    private static final int COLS = 53;
+
+    private GridManager randomGrid(long seed)
+    {
+        Random random = new Random(seed);
+        GridBuffer buffer = new GridBuffer(ROWS, COLS);
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLS; col++) {
+                if (random.nextInt(60) == 0) {
+                    buffer.setWall(row, col, true);
+                } else if (random.nextInt(3) == 0) {
+                    buffer.addDirt(row, col, 1 + random.nextInt(5));
+                }
+            }
+        }
+        return new GridManager(buffer);
+    }
+
+    private void addRobots(RobotStore store, long seed)
+    {
+        Random random = new Random(seed);
+        for (int i = 0; i < 300; i++) {
+            int col = 1 + random.nextInt(COLS);
+            switch (random.nextInt(3)) {
+                case 0 -> store.addStraightCleaner(col);
+                case 1 -> store.addStraightPolluter(col);
+                default -> store.addCompleteCleaner();
+            }
+        }
+    }
+
+    @Test
+    public void matchesSingleThreadedStore()
+    {
+        GridManager expectedGrid = randomGrid(3);
+        RobotStore expected = new RobotStore(expectedGrid);
+        addRobots(expected, 4);
+
+        GridManager tiledGrid = randomGrid(3);
+        RobotStore store = new RobotStore(tiledGrid);
+        addRobots(store, 4);
+        TiledStepper stepper = new TiledStepper(tiledGrid, store, 4, 5, 3);
+        try {
+            for (int tick = 0; tick < ROWS * COLS + 10; tick++) {
+                assertEquals(expected.stepPolluters(), stepper.stepPolluters());
+                assertEquals(expected.stepCleaners(), stepper.stepCleaners());
+                if (tick == 100) {
+                    // Changes to the store are picked up on the next step
+                    expected.resetMissions();
+                    store.resetMissions();
+                }
+            }
+        } finally {
+            stepper.shutdown();
+        }
+
+        assertArrayEquals(expectedGrid.getBuffer().dirtArray(), tiledGrid.getBuffer().dirtArray());
+        assertEquals(expectedGrid.getColoredCount(), tiledGrid.getColoredCount());
+        for (int id = 0; id < store.size(); id++) {
+            assertEquals(expected.getRow(id), store.getRow(id));
+            assertEquals(expected.getCol(id), store.getCol(id));
+            assertEquals(expected.getMissionState(id), store.getMissionState(id));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package robotsimulator.distributed;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import robotsimulator.core.RobotManager;
+import robotsimulator.core.Scenario;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that a run split over band nodes ends like the same run in one process.
+ * Most runs start the nodes as threads of this JVM, which share nothing but the
+ * socket; processSmokeRun starts them as separate JVMs, like
+ * scripts/distributed-run.sh does.
+ */
+public class DistributedRunTest
+{
+    private static final String SCENARIO = String.join("\n",
+            "grid 45 38",
+            "seed 7",
+            "generate clutter 30",
+            "dirt 1 1 45 12",
+            "diffusion 120 0",
+            "bulk straight-polluter 25",
+            "bulk straight-cleaner 30",
+            "robot bulk-complete-cleaner",
+            "");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void bandsOverTcpMatchOneProcess() throws Exception
+    {
+        checkAgainstOneProcess("localhost:0", 3);
+    }
+
+    @Test
+    public void bandsOverUnixSocketMatchOneProcess() throws Exception
+    {
+        checkAgainstOneProcess("unix:" + folder.getRoot().toPath().resolve("sim.sock"), 4);
+    }
+
+    @Test(timeout = 120000)
+    public void nodeProcessesMatchOneProcess() throws Exception
+    {
+        int tickLimit = 40;
+        Path file = folder.getRoot().toPath().resolve("scenario.txt");
+        Files.writeString(file, SCENARIO + "ticks " + tickLimit + "\n", StandardCharsets.US_ASCII);
+        Scenario scenario = Scenario.load(file);
+        GridManager grid = scenario.createGrid();
+        RobotManager robotManager = scenario.createRobots(grid);
+        for (int tick = 0; tick < tickLimit; tick++) {
+            robotManager.tick(tick);
+        }
+
+        Coordinator coordinator = new Coordinator(Protocol.parseAddress("localhost:0"), 2, scenario);
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> nodes = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                nodes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        BandNode.class.getName(), coordinator.getAddress())
+                        .redirectErrorStream(true)
+                        .redirectOutput(folder.getRoot().toPath().resolve("node" + i + ".log").toFile())
+                        .start());
+            }
+            Coordinator.Result result = coordinator.run();
+            for (int i = 0; i < nodes.size(); i++) {
+                Path log = folder.getRoot().toPath().resolve("node" + i + ".log");
+                assertEquals(Files.readString(log), 0, nodes.get(i).waitFor());
+            }
+            assertEquals("ticks", tickLimit, result.ticks());
+            assertEquals("dirty cells", grid.getColoredCount(), result.dirtyCells());
+        } finally {
+            for (Process node : nodes) {
+                node.destroyForcibly();
+            }
+        }
+    }
+
+    private void checkAgainstOneProcess(String address, int nodes) throws Exception
+    {
+        for (int tickLimit : new int[]{1, 17, 1000}) {
+            Path file = folder.getRoot().toPath().resolve("scenario" + tickLimit + ".txt");
+            Files.writeString(file, SCENARIO + "ticks " + tickLimit + "\n", StandardCharsets.US_ASCII);
+            Scenario scenario = Scenario.load(file);
+
+            GridManager grid = scenario.createGrid();
+            RobotManager robotManager = scenario.createRobots(grid);
+            int ticks = 0;
+            boolean allComplete = false;
+            while (ticks < tickLimit && !allComplete) {
+                allComplete = robotManager.tick(ticks);
+                ticks++;
+            }
+
+            Coordinator.Result result = runDistributed(scenario, address, nodes);
+            assertEquals("ticks", ticks, result.ticks());
+            assertEquals("complete", allComplete, result.allComplete());
+            assertEquals("dirty cells after " + ticks, grid.getColoredCount(), result.dirtyCells());
+            assertEquals(grid.getCoverage(), result.coverage(), 1e-9);
+        }
+    }
+
+    private Coordinator.Result runDistributed(Scenario scenario, String address, int nodes) throws Exception
+    {
+        Coordinator coordinator = new Coordinator(Protocol.parseAddress(address), nodes, scenario);
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            Thread node = new Thread(() -> {
+                try {
+                    new BandNode(Protocol.parseAddress(coordinator.getAddress())).run();
+                } catch (IOException e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            node.start();
+            threads.add(node);
+        }
+        Coordinator.Result result = coordinator.run();
+        for (Thread node : threads) {
+            node.join();
+        }
+        assertEquals(List.of(), failures);
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package robotsimulator.events;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.core.RobotManager;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that a run records tick, path search, mission and bulk grid events,
+ * with incremental searches reported step by step.
+ */
+public class SimulatorEventsTest
+{
+    @Test
+    public void runEmitsSimulatorEvents() throws Exception
+    {
+        GridManager grid = new GridManager(12, 12);
+        for (int col = 1; col < 12; col++) {
+            grid.setWall(6, col, true); // A detour through the last column: too far for one search step
+        }
+        grid.dirtyCell(10, 9);
+        RobotManager robotManager = new RobotManager(null, grid);
+        robotManager.createSmartCleaner(1, 1, 1_000);
+        robotManager.createStraightPolluter(4);
+        robotManager.getRobotStore().addStraightCleaner(6);
+
+        Path file = Files.createTempFile("simulator", ".jfr");
+        int ticks = 0;
+        try (Recording recording = new Recording()) {
+            for (String event : new String[]{"Tick", "PathSearch", "MissionCompleted", "GridChange"}) {
+                recording.enable("robotsimulator." + event).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            while (!robotManager.tick(ticks) && ticks < 1_000) {
+                ticks++;
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, Integer> counts = new HashMap<>();
+        int searchSteps = 0;
+        int finishedSearches = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            counts.merge(event.getEventType().getName(), 1, Integer::sum);
+            if (event.getEventType().getName().equals("robotsimulator.PathSearch")) {
+                assertTrue(event.getInt("expansions") > 0);
+                searchSteps++;
+                if (event.getBoolean("finished")) {
+                    finishedSearches++;
+                    assertTrue(!event.getBoolean("found") || event.getInt("pathLength") > 0);
+                } else {
+                    assertEquals(-1, event.getInt("pathLength"));
+                }
+            }
+        }
+        Files.delete(file);
+        assertEquals(2 * (ticks + 1), (int) counts.get("robotsimulator.Tick"));
+        assertEquals(2 * (ticks + 1), (int) counts.get("robotsimulator.GridChange"));
+        assertEquals(2, (int) counts.getOrDefault("robotsimulator.MissionCompleted", 0)); // Not the bulk cleaner
+        assertTrue(finishedSearches > 0);
+        assertTrue(searchSteps > finishedSearches);
+    }
+}
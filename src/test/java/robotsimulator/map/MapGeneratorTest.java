@@ -0,0 +1,99 @@
+package robotsimulator.map;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.model.GridBuffer;
+import robotsimulator.planning.GridDistances;
+
+/**
+ * Checks that generated maps are repeatable and fully connected.
+ */
+public class MapGeneratorTest
+{
+    private static final int ROWS = 83;
+    private static final int COLS = 121;
+
+    @Test
+    public void everyFreeCellIsReachable()
+    {
+        for (MapGenerator.Style style : MapGenerator.Style.values()) {
+            for (double difficulty : new double[]{0, 0.5, 1}) {
+                GridBuffer grid = new GridBuffer(ROWS, COLS);
+                MapGenerator.generate(grid, style, difficulty, 17);
+                int free = 0;
+                int first = -1;
+                for (int i = 0; i < grid.size(); i++) {
+                    if (grid.wallArray()[i] == 0) {
+                        free++;
+                        first = first < 0 ? i : first;
+                    }
+                }
+                assertTrue(style + " " + difficulty, free > 0);
+                int reached = 0;
+                for (int d : GridDistances.from(grid, first)) {
+                    if (d != GridDistances.UNREACHABLE) {
+                        reached++;
+                    }
+                }
+                assertEquals(style + " " + difficulty, free, reached);
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedSameMap()
+    {
+        for (MapGenerator.Style style : MapGenerator.Style.values()) {
+            GridBuffer a = new GridBuffer(ROWS, COLS);
+            GridBuffer b = new GridBuffer(ROWS, COLS);
+            MapGenerator.generate(a, style, 0.7, 99);
+            MapGenerator.generate(b, style, 0.7, 99);
+            assertArrayEquals(style.toString(), a.wallArray(), b.wallArray());
+        }
+    }
+
+    @Test
+    public void harderMapsHaveMoreWalls()
+    {
+        for (MapGenerator.Style style : new MapGenerator.Style[]{MapGenerator.Style.MAZE, MapGenerator.Style.CLUTTER}) {
+            GridBuffer easy = new GridBuffer(ROWS, COLS);
+            GridBuffer hard = new GridBuffer(ROWS, COLS);
+            MapGenerator.generate(easy, style, 0, 5);
+            MapGenerator.generate(hard, style, 1, 5);
+            assertTrue(style.toString(), countWalls(hard) > countWalls(easy));
+        }
+    }
+
+    @Test
+    public void segmentsOnlyGoOnFreeCells()
+    {
+        GridBuffer grid = new GridBuffer(3, 5);
+        grid.setWall(0, 2, true);
+        grid.setWall(1, 2, true);
+        grid.setWall(2, 2, true);
+        Random random = new Random(1);
+        for (int k = 0; k < 50; k++) {
+            int start = MapGenerator.placeSegment(grid, true, 2, random);
+            int col = start % 5;
+            assertTrue(col == 0 || col == 3);
+        }
+        assertEquals(-1, MapGenerator.placeSegment(grid, true, 3, random));
+        int start = MapGenerator.placeSegment(grid, false, 3, random);
+        assertFalse(start % 5 == 2);
+    }
+
+    private static int countWalls(GridBuffer grid)
+    {
+        int walls = 0;
+        for (byte wall : grid.wallArray()) {
+            walls += wall;
+        }
+        return walls;
+    }
+}
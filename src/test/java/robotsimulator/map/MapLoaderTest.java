@@ -0,0 +1,158 @@
+package robotsimulator.map;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Checks that every map format loads back the same walls.
+ */
+public class MapLoaderTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writtenFormatsLoadBackTheSameWalls() throws IOException
+    {
+        GridBuffer plan = FloorPlan.generate(90, 120, 3);
+        Path pgm = folder.getRoot().toPath().resolve("plan.pgm");
+        Path png = folder.getRoot().toPath().resolve("plan.png");
+        Path txt = folder.getRoot().toPath().resolve("plan.txt");
+        MapWriter.writePgm(plan, pgm);
+        MapWriter.writePng(plan, png);
+        MapWriter.writeAscii(plan, txt);
+
+        for (Path file : new Path[]{pgm, png, txt}) {
+            GridBuffer loaded = MapLoader.load(file);
+            assertEquals(90, loaded.getRows());
+            assertEquals(120, loaded.getCols());
+            assertArrayEquals(file.toString(), plan.wallArray(), loaded.wallArray());
+        }
+    }
+
+    @Test
+    public void pngFromImageIoMatchesPixelBrightness() throws IOException
+    {
+        Random random = new Random(5);
+        int[] types = {BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB};
+        for (int type : types) {
+            BufferedImage image = new BufferedImage(37, 23, type);
+            byte[] expected = new byte[37 * 23];
+            for (int y = 0; y < 23; y++) {
+                for (int x = 0; x < 37; x++) {
+                    int grey = random.nextInt(256);
+                    // Smooth rows make the encoder pick all the filter types
+                    int value = x % 5 == 0 ? grey : (x * 7 + y * 3) & 0xff;
+                    int alpha = type == BufferedImage.TYPE_INT_ARGB && random.nextInt(4) == 0 ? 0 : 255;
+                    if (type == BufferedImage.TYPE_BYTE_GRAY) {
+                        image.getRaster().setSample(x, y, 0, value);
+                    } else {
+                        image.setRGB(x, y, (alpha << 24) | (value << 16) | (value << 8) | value);
+                    }
+                    boolean wall = alpha == 255 && MapLoader.isWall(value, 255);
+                    expected[y * 37 + x] = wall ? (byte) 1 : 0;
+                }
+            }
+            Path file = folder.getRoot().toPath().resolve("image" + type + ".png");
+            ImageIO.write(image, "png", file.toFile());
+            assertArrayEquals("type " + type, expected, MapLoader.load(file).wallArray());
+        }
+    }
+
+    @Test
+    public void textMapsWithAndWithoutHeader() throws IOException
+    {
+        Path plain = folder.getRoot().toPath().resolve("plain.txt");
+        Files.writeString(plain, "#..#\r\n.#\r\n####\r\n", StandardCharsets.US_ASCII);
+        GridBuffer grid = MapLoader.load(plain);
+        assertEquals(3, grid.getRows());
+        assertEquals(4, grid.getCols());
+        assertArrayEquals(new byte[]{1, 0, 0, 1, 0, 1, 0, 0, 1, 1, 1, 1}, grid.wallArray());
+
+        Path movingAi = folder.getRoot().toPath().resolve("arena.map");
+        Files.writeString(movingAi, "type octile\nheight 2\nwidth 3\nmap\n.@T\nGS.\n", StandardCharsets.US_ASCII);
+        grid = MapLoader.load(movingAi);
+        assertArrayEquals(new byte[]{0, 1, 1, 0, 0, 0}, grid.wallArray());
+
+        Path pgm = folder.getRoot().toPath().resolve("plain.pgm");
+        Files.writeString(pgm, "P2\n# comment\n3 1\n15\n0 15 13\n", StandardCharsets.US_ASCII);
+        assertArrayEquals(new byte[]{1, 0, 0}, MapLoader.load(pgm).wallArray());
+    }
+
+    @Test
+    public void paletteSizesAreChecked() throws IOException
+    {
+        byte[] blackPair = {0, 0, 0, 0, 0, 0};
+        // Index 0 is see-through, index 1 an opaque black wall
+        Path good = writePalettePng("good.png", blackPair, new byte[]{0});
+        assertArrayEquals(new byte[]{0, 1}, MapLoader.load(good).wallArray());
+
+        expectBadPng(writePalettePng("long.png", new byte[257 * 3], null), "palette length");
+        expectBadPng(writePalettePng("ragged.png", new byte[7], null), "palette length");
+        expectBadPng(writePalettePng("alpha.png", blackPair, new byte[3]), "transparency");
+    }
+
+    private void expectBadPng(Path file, String message)
+    {
+        try {
+            MapLoader.load(file);
+            fail(file + " should not load");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    /**
+     * A 2 x 1 palette image with pixels 0 and 1 (CRCs left at 0, they are not checked)
+     */
+    private Path writePalettePng(String name, byte[] palette, byte[] alpha) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+        writeChunk(out, "IHDR", new byte[]{0, 0, 0, 2, 0, 0, 0, 1, 8, 3, 0, 0, 0});
+        writeChunk(out, "PLTE", palette);
+        if (alpha != null) {
+            writeChunk(out, "tRNS", alpha);
+        }
+        Deflater deflater = new Deflater();
+        deflater.setInput(new byte[]{0, 0, 1}); // Filter type 0, then the two indices
+        deflater.finish();
+        byte[] data = new byte[64];
+        int length = deflater.deflate(data);
+        deflater.end();
+        writeChunk(out, "IDAT", Arrays.copyOf(data, length));
+        writeChunk(out, "IEND", new byte[0]);
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, bytes.toByteArray());
+        return file;
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException
+    {
+        out.writeInt(data.length);
+        out.write(type.getBytes(StandardCharsets.US_ASCII));
+        out.write(data);
+        out.writeInt(0);
+    }
+}
@@ -0,0 +1,76 @@
+package robotsimulator.model;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that every mip level sums the cells below it, also after updates
+ * that only touch a few chunks.
+ */
+public class DensityPyramidTest
+{
+    @Test
+    public void levelsMatchCellSumsAfterUpdates()
+    {
+        GridBuffer grid = new GridBuffer(150, 97);
+        Random random = new Random(4);
+        for (int k = 0; k < 3000; k++) {
+            grid.addDirt(random.nextInt(150), random.nextInt(97), 1 + random.nextInt(30));
+            grid.setWall(random.nextInt(150), random.nextInt(97), random.nextInt(4) == 0);
+        }
+        DensityPyramid pyramid = new DensityPyramid(150, 97);
+        assertEquals(9, pyramid.getLevelCount());
+        pyramid.update(grid.publishSnapshot(0));
+        checkLevels(pyramid, grid);
+
+        // Only the chunks holding these cells are redone
+        grid.addDirt(149, 96, 7);
+        grid.setWall(3, 70, true);
+        grid.addDirt(80, 10, 12);
+        pyramid.update(grid.publishSnapshot(0));
+        checkLevels(pyramid, grid);
+    }
+
+    @Test
+    public void robotsAreCountedPerBlock()
+    {
+        GridBuffer grid = new GridBuffer(10, 10);
+        DensityPyramid pyramid = new DensityPyramid(10, 10);
+        pyramid.update(grid.publishSnapshot(0));
+        pyramid.clearRobots(2);
+        pyramid.addRobot(0, 0);
+        pyramid.addRobot(3, 3);
+        pyramid.addRobot(9, 9);
+        pyramid.addRobot(-1, 4); // Off the grid, ignored
+        assertEquals(2, pyramid.getRobots(0, 0));
+        assertEquals(1, pyramid.getRobots(2, 2));
+        assertEquals(4, pyramid.getCellCount(2, 2, 2));
+        assertEquals(16, pyramid.getCellCount(2, 1, 0));
+    }
+
+    private static void checkLevels(DensityPyramid pyramid, GridBuffer grid)
+    {
+        for (int level = 1; level < pyramid.getLevelCount(); level++) {
+            int size = 1 << level;
+            for (int blockRow = 0; blockRow < pyramid.getBlockRows(level); blockRow++) {
+                for (int blockCol = 0; blockCol < pyramid.getBlockCols(level); blockCol++) {
+                    int dirt = 0;
+                    int walls = 0;
+                    int cells = 0;
+                    for (int row = blockRow * size; row < Math.min(150, (blockRow + 1) * size); row++) {
+                        for (int col = blockCol * size; col < Math.min(97, (blockCol + 1) * size); col++) {
+                            dirt += grid.getDirt(row, col);
+                            walls += grid.isWall(row, col) ? 1 : 0;
+                            cells++;
+                        }
+                    }
+                    assertEquals("dirt at level " + level, dirt, pyramid.getDirt(level, blockRow, blockCol));
+                    assertEquals("walls at level " + level, walls, pyramid.getWalls(level, blockRow, blockCol));
+                    assertEquals(cells, pyramid.getCellCount(level, blockRow, blockCol));
+                }
+            }
+        }
+    }
+}
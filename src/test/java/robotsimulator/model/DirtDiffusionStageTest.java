@@ -0,0 +1,120 @@
+package robotsimulator.model;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks that diffusion conserves dirt without decay, never crosses walls,
+ * decays and clamps levels, and only flags the chunks it changed.
+ */
+public class DirtDiffusionStageTest
+{
+    @Test
+    public void conservesDirtWithoutDecay()
+    {
+        // The larger grid is stepped in parallel bands
+        for (int size : new int[]{37, 300}) {
+            Random random = new Random(size);
+            GridBuffer grid = new GridBuffer(size, size);
+            for (int i = 0; i < size * size / 10; i++) {
+                grid.setWall(random.nextInt(size), random.nextInt(size), true);
+            }
+            for (int i = 0; i < size * size / 3; i++) {
+                grid.addDirt(random.nextInt(size), random.nextInt(size), 1 + random.nextInt(GridConstants.MAX_DIRT_LEVEL));
+            }
+            long total = totalDirt(grid);
+            DirtDiffusionStage stage = new DirtDiffusionStage(250, 0);
+            for (int tick = 0; tick < 50; tick++) {
+                stage.step(grid);
+                assertEquals("tick " + tick, total, totalDirt(grid));
+            }
+        }
+    }
+
+    @Test
+    public void wallsBlockTheFlow()
+    {
+        GridBuffer grid = new GridBuffer(10, 10);
+        for (int row = 0; row < 10; row++) {
+            grid.setWall(row, 5, true);
+        }
+        for (int row = 0; row < 10; row++) {
+            grid.addDirt(row, 4, GridConstants.MAX_DIRT_LEVEL);
+        }
+        DirtDiffusionStage stage = new DirtDiffusionStage(200, 0);
+        for (int tick = 0; tick < 100; tick++) {
+            stage.step(grid);
+        }
+        assertTrue(grid.getDirt(3, 0) > 0); // Spread through the left side
+        for (int row = 0; row < 10; row++) {
+            assertEquals(0, grid.getDirt(row, 5));
+            for (int col = 6; col < 10; col++) {
+                assertEquals(0, grid.getDirt(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void decaysAndClamps()
+    {
+        GridBuffer grid = new GridBuffer(3, 3);
+        grid.addDirt(0, 0, 5);
+        grid.addDirt(2, 2, GridConstants.MAX_DIRT_LEVEL);
+        DirtDiffusionStage stage = new DirtDiffusionStage(0, 2);
+        stage.step(grid);
+        assertEquals(3, grid.getDirt(0, 0));
+        assertEquals(GridConstants.MAX_DIRT_LEVEL - 2, grid.getDirt(2, 2));
+        stage.step(grid);
+        stage.step(grid);
+        assertEquals(0, grid.getDirt(0, 0)); // 5 - 6 stops at 0
+
+        // Out of range settings are clamped, and levels stay within bounds
+        DirtDiffusionStage strong = new DirtDiffusionStage(900, -4);
+        assertEquals(250, strong.getDiffusionPermille());
+        assertEquals(0, strong.getDecayPerTick());
+        for (int row = 0; row < 3; row++) {
+            grid.addDirt(row, 1, GridConstants.MAX_DIRT_LEVEL);
+        }
+        for (int tick = 0; tick < 20; tick++) {
+            strong.step(grid);
+            for (int row = 0; row < 3; row++) {
+                for (int col = 0; col < 3; col++) {
+                    int level = grid.getDirt(row, col);
+                    assertTrue(level >= 0 && level <= GridConstants.MAX_DIRT_LEVEL);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void onlyChangedChunksAreFlagged()
+    {
+        int size = GridSnapshot.CHUNK_SIZE * 3;
+        GridBuffer grid = new GridBuffer(size, size);
+        GridSnapshot before = grid.publishSnapshot(0);
+        grid.addDirt(10, 10, GridConstants.MAX_DIRT_LEVEL);
+        grid.publishSnapshot(1);
+        DirtDiffusionStage stage = new DirtDiffusionStage(200, 0);
+        stage.step(grid);
+        assertTrue(stage.isChunkChanged(10, 10));
+        assertFalse(stage.isChunkChanged(size - 1, size - 1));
+        assertFalse(stage.isChunkChanged(0, GridSnapshot.CHUNK_SIZE));
+        GridSnapshot after = grid.publishSnapshot(1);
+        assertTrue(after.isChunkChanged(before, 0, 0));
+        assertFalse(after.isChunkChanged(before, size - 1, size - 1));
+        assertEquals(grid.getDirt(10, 11), after.getDirt(10, 11));
+    }
+
+    private static long totalDirt(GridBuffer grid)
+    {
+        long total = 0;
+        for (byte level : grid.dirtArray()) {
+            total += level;
+        }
+        return total;
+    }
+}
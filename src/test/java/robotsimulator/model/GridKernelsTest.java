@@ -0,0 +1,64 @@
+package robotsimulator.model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that the vector grid kernels match the scalar ones.
+ */
+public class GridKernelsTest
+{
+    private final GridKernels scalar = new ScalarGridKernels();
+    private final GridKernels vector = new VectorGridKernels();
+
+    private GridBuffer randomGrid(int rows, int cols, long seed)
+    {
+        Random random = new Random(seed);
+        GridBuffer grid = new GridBuffer(rows, cols);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (random.nextInt(5) == 0) {
+                    grid.setWall(row, col, true);
+                } else {
+                    grid.setDirty(row, col, random.nextInt(3) == 0);
+                }
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    public void countsMatchScalar()
+    {
+        GridBuffer grid = randomGrid(37, 101, 1);
+        assertEquals(scalar.countDirty(grid), vector.countDirty(grid));
+        assertEquals(scalar.countWalls(grid), vector.countWalls(grid));
+        assertArrayEquals(scalar.rowDirtyCounts(grid), vector.rowDirtyCounts(grid));
+        assertEquals(scalar.countDirtyInRegion(grid, 3, 5, 30, 90),
+                     vector.countDirtyInRegion(grid, 3, 5, 30, 90));
+    }
+
+    @Test
+    public void spreadMatchesScalar()
+    {
+        GridBuffer a = randomGrid(41, 67, 2);
+        GridBuffer b = randomGrid(41, 67, 2);
+        scalar.spreadDirt(a, new byte[a.size()]);
+        vector.spreadDirt(b, new byte[b.size()]);
+        assertArrayEquals(a.dirtArray(), b.dirtArray());
+    }
+
+    @Test
+    public void clearLeavesNoDirt()
+    {
+        GridBuffer grid = randomGrid(20, 20, 3);
+        byte[] walls = Arrays.copyOf(grid.wallArray(), grid.size());
+        vector.clearDirt(grid);
+        assertEquals(0, vector.countDirty(grid));
+        assertArrayEquals(walls, grid.wallArray());
+    }
+}
@@ -0,0 +1,84 @@
+package robotsimulator.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks that grid snapshots stay fixed, share untouched chunks and are
+ * consistent for readers on other threads.
+ */
+public class GridSnapshotTest
+{
+    @Test
+    public void snapshotsAreCopyOnWrite()
+    {
+        GridBuffer grid = new GridBuffer(130, 200);
+        assertNull(grid.getSnapshot());
+        GridSnapshot first = grid.publishSnapshot(0);
+        grid.addDirt(5, 5, GridConstants.POLLUTION_AMOUNT);
+        GridSnapshot second = grid.publishSnapshot(1);
+        grid.setWall(129, 199, true);
+        GridSnapshot third = grid.publishSnapshot(1);
+
+        assertEquals(1, first.getEpoch());
+        assertEquals(3, third.getEpoch());
+        assertSame(third, grid.getSnapshot());
+        assertEquals(0, first.getDirt(5, 5));
+        assertEquals(GridConstants.POLLUTION_AMOUNT, second.getDirt(5, 5));
+        assertEquals(1, second.getDirtyCount());
+        assertFalse(second.isWall(129, 199));
+        assertTrue(third.isWall(129, 199));
+
+        assertNotSame(first.dirtChunk(5, 5), second.dirtChunk(5, 5));
+        assertSame(first.dirtChunk(100, 150), second.dirtChunk(100, 150));
+        assertSame(second.dirtChunk(5, 5), third.dirtChunk(5, 5));
+
+        byte[] row = new byte[200];
+        second.copyDirtRow(5, row);
+        for (int col = 0; col < 200; col++) {
+            assertEquals(grid.getDirt(5, col), row[col]);
+        }
+    }
+
+    @Test
+    public void readersSeeWholeTicks() throws InterruptedException
+    {
+        // The writer moves one dirt token between chunks; every snapshot must hold exactly one
+        int[][] spots = {{0, 0}, {70, 3}, {140, 150}, {3, 190}, {199, 64}};
+        GridBuffer grid = new GridBuffer(200, 200);
+        grid.addDirt(0, 0, 1);
+        grid.publishSnapshot(1);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            long lastEpoch = 0;
+            while (lastEpoch < 20_000 && failure.get() == null) {
+                GridSnapshot snapshot = grid.getSnapshot();
+                int tokens = 0;
+                for (int[] spot : spots) {
+                    tokens += snapshot.getDirt(spot[0], spot[1]);
+                }
+                if (tokens != 1 || snapshot.getEpoch() < lastEpoch) {
+                    failure.set("epoch " + snapshot.getEpoch() + ": " + tokens + " tokens");
+                }
+                lastEpoch = snapshot.getEpoch();
+            }
+        });
+        reader.start();
+        for (int move = 0; move < 20_000; move++) {
+            int[] from = spots[move % spots.length];
+            int[] to = spots[(move + 1) % spots.length];
+            grid.addDirt(from[0], from[1], -1);
+            grid.addDirt(to[0], to[1], 1);
+            grid.publishSnapshot(1);
+        }
+        reader.join();
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,91 @@
+package robotsimulator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks the cell index through adds, moves and removes, and that nearest
+ * queries match a sort of every robot, for crowded and sparse grids.
+ */
+public class OccupancyGridTest
+{
+    @Test
+    public void tracksAddMoveRemove()
+    {
+        OccupancyGrid grid = new OccupancyGrid(8, 8);
+        Robot first = new Robot(3, 4, 1);
+        Robot second = new Robot(3, 4, 1);
+        grid.add(first);
+        grid.add(second);
+        assertEquals(2, grid.size());
+        assertTrue(grid.isOccupied(2, 3));
+        assertEquals(2, grid.getRobotsAt(2, 3).size());
+        assertTrue(grid.isOccupiedByOther(2, 3, first));
+
+        first.setGridPosition(8, 8);
+        grid.move(first);
+        assertTrue(grid.isOccupied(7, 7));
+        assertFalse(grid.isOccupiedByOther(2, 3, second));
+
+        grid.remove(second);
+        assertFalse(grid.isOccupied(2, 3));
+        assertEquals(1, grid.size());
+        grid.remove(second); // Already gone
+        assertEquals(1, grid.size());
+        assertEquals(List.of(first), grid.findNearest(0, 0, 5, null));
+
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertFalse(grid.isOccupied(7, 7));
+    }
+
+    @Test
+    public void nearestMatchesAFullScan()
+    {
+        Random random = new Random(4);
+        OccupancyGrid grid = new OccupancyGrid(40, 25);
+        List<Robot> all = new ArrayList<>();
+        for (int round = 0; round < 600; round++) {
+            // Crowded at first (found by rings), sparse later (found by a scan of the robots)
+            int action = round < 150 ? 0 : random.nextInt(3) + 1;
+            if (action == 0 || all.isEmpty()) {
+                Robot robot = new Robot(random.nextInt(40) + 1, random.nextInt(25) + 1, 1);
+                grid.add(robot);
+                all.add(robot);
+            } else if (action == 1) {
+                grid.remove(all.remove(random.nextInt(all.size())));
+            } else {
+                Robot robot = all.get(random.nextInt(all.size()));
+                robot.setGridPosition(random.nextInt(40) + 1, random.nextInt(25) + 1);
+                grid.move(robot);
+            }
+
+            int row = random.nextInt(40);
+            int col = random.nextInt(25);
+            int k = 1 + random.nextInt(6);
+            Robot exclude = all.isEmpty() || random.nextBoolean() ? null : all.get(0);
+            List<Robot> nearest = grid.findNearest(row, col, k, exclude);
+
+            List<Robot> candidates = new ArrayList<>(all);
+            candidates.remove(exclude);
+            candidates.sort((a, b) -> Integer.compare(distance(a, row, col), distance(b, row, col)));
+            assertEquals(Math.min(k, candidates.size()), nearest.size());
+            for (int i = 0; i < nearest.size(); i++) {
+                assertTrue(nearest.get(i) != exclude);
+                assertEquals(distance(candidates.get(i), row, col), distance(nearest.get(i), row, col));
+            }
+            assertEquals(all.size(), grid.size());
+        }
+    }
+
+    private static int distance(Robot robot, int row, int col)
+    {
+        return Math.abs(robot.getGridRow() - row) + Math.abs(robot.getGridCol() - col);
+    }
+}
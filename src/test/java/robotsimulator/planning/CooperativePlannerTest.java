@@ -0,0 +1,117 @@
+package robotsimulator.planning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.core.RobotManager;
+import robotsimulator.model.Robot;
+import robotsimulator.ui.GridManager;
+
+/**
+ * Checks that a fleet following WHCA* plans never collides or swaps places,
+ * still cleans the grid and gives up on dirt it cannot reach.
+ */
+public class CooperativePlannerTest
+{
+    @Test
+    public void fleetNeverCollides()
+    {
+        Random random = new Random(3);
+        GridManager grid = new GridManager(10, 10);
+        for (int i = 0; i < 12; i++) {
+            grid.getBuffer().setWall(random.nextInt(10), random.nextInt(10), true);
+        }
+        List<Robot> fleet = new ArrayList<>();
+        while (fleet.size() < 6) {
+            int row = random.nextInt(10);
+            int col = random.nextInt(10);
+            if (!grid.isWallZeroBased(row, col) && !occupied(fleet, row, col)) {
+                fleet.add(new Robot(row + 1, col + 1, 1));
+            }
+        }
+        for (int i = 0; i < 25; i++) {
+            grid.dirtyCell(random.nextInt(10) + 1, random.nextInt(10) + 1);
+        }
+        CooperativePlanner planner = new CooperativePlanner(grid, 8, 1_000_000_000L);
+
+        for (int tick = 0; tick < 300 && grid.getColoredCount() > 0; tick++) {
+            planner.planTick(fleet);
+            int[][] next = new int[fleet.size()][];
+            for (int i = 0; i < fleet.size(); i++) {
+                Robot robot = fleet.get(i);
+                next[i] = planner.nextCell(robot);
+                int moved = Math.abs(next[i][0] - robot.getGridRow()) + Math.abs(next[i][1] - robot.getGridCol());
+                assertTrue(moved <= 1);
+                assertFalse(grid.isWallZeroBased(next[i][0], next[i][1]));
+            }
+            for (int i = 0; i < fleet.size(); i++) {
+                for (int j = i + 1; j < fleet.size(); j++) {
+                    assertFalse("tick " + tick + ": robots " + i + " and " + j + " collide",
+                            next[i][0] == next[j][0] && next[i][1] == next[j][1]);
+                    assertFalse("tick " + tick + ": robots " + i + " and " + j + " swap",
+                            next[i][0] == fleet.get(j).getGridRow() && next[i][1] == fleet.get(j).getGridCol()
+                            && next[j][0] == fleet.get(i).getGridRow() && next[j][1] == fleet.get(i).getGridCol());
+                }
+            }
+            for (int i = 0; i < fleet.size(); i++) {
+                fleet.get(i).setGridPosition(next[i][0] + 1, next[i][1] + 1);
+                grid.cleanCell(next[i][0] + 1, next[i][1] + 1);
+            }
+        }
+        assertEquals(0, grid.getColoredCount());
+    }
+
+    @Test
+    public void unreachableDirtDoesNotHoldTheFleetForever()
+    {
+        GridManager grid = new GridManager(8, 8);
+        for (int col = 0; col < 8; col++) {
+            grid.getBuffer().setWall(5, col, true);
+        }
+        grid.dirtyCell(8, 8); // Behind the wall
+        RobotManager robotManager = new RobotManager(null, grid);
+        robotManager.createSmartCleaner(1, 1, 40);
+        robotManager.createSmartCleaner(2, 2, 40);
+        robotManager.setFleetPlanning(true);
+        int ticks = 0;
+        while (!robotManager.tick(ticks) && ticks < 1_000) {
+            ticks++;
+        }
+        assertTrue(ticks <= 41);
+        assertEquals(1, grid.getColoredCount());
+    }
+
+    @Test
+    public void idleRobotsWaitForNewDirt()
+    {
+        GridManager grid = new GridManager(6, 6);
+        List<Robot> fleet = List.of(new Robot(1, 1, 1), new Robot(6, 6, 1));
+        CooperativePlanner planner = new CooperativePlanner(grid, 8, 1_000_000_000L);
+        planner.planTick(fleet);
+        assertEquals(2, planner.getSearchesLastTick());
+        for (int tick = 0; tick < 20; tick++) {
+            planner.planTick(fleet);
+            assertEquals("clean grid, tick " + tick, 0, planner.getSearchesLastTick());
+            assertEquals(0, planner.nextCell(fleet.get(0))[0]);
+        }
+        grid.dirtyCell(3, 3);
+        planner.planTick(fleet);
+        assertEquals(2, planner.getSearchesLastTick());
+    }
+
+    private static boolean occupied(List<Robot> fleet, int row, int col)
+    {
+        for (Robot robot : fleet) {
+            if (robot.getGridRow() == row && robot.getGridCol() == col) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
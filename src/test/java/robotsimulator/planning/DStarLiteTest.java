@@ -0,0 +1,70 @@
+package robotsimulator.planning;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Checks that D* Lite repairs stay equal to a fresh BFS while walls change.
+ */
+public class DStarLiteTest
+{
+    private static final int N = 30;
+
+    @Test
+    public void repairedPathMatchesFreshSearch()
+    {
+        Random random = new Random(11);
+        GridBuffer grid = new GridBuffer(N, N);
+        int goal = N * N - 1;
+        DStarLite replanner = new DStarLite(grid, 0, goal);
+        replanner.computeShortestPath();
+        int position = 0;
+        int version = grid.getWallVersion();
+
+        for (int step = 0; step < 40; step++) {
+            int next = replanner.nextStep();
+            if (next < 0) {
+                break;
+            }
+            position = next;
+            replanner.moveStart(position);
+            for (int k = 0; k < 4; k++) {
+                int cell = random.nextInt(N * N);
+                if (cell != position && cell != goal) {
+                    grid.setWall(cell / N, cell % N, !grid.isWall(cell / N, cell % N));
+                }
+            }
+            replanner.updateCells(grid.wallChangesSince(version));
+            version = grid.getWallVersion();
+            replanner.computeShortestPath();
+
+            int[] dist = GridDistances.from(grid, goal);
+            assertEquals(dist[position] != GridDistances.UNREACHABLE, replanner.hasPath());
+            if (replanner.hasPath() && position != goal) {
+                assertEquals(dist[position] - 1, dist[replanner.nextStep()]);
+            }
+        }
+    }
+
+    @Test
+    public void walledOffGoalHasNoPath()
+    {
+        GridBuffer grid = new GridBuffer(N, N);
+        DStarLite replanner = new DStarLite(grid, 0, N + 1);
+        assertTrue(replanner.computeShortestPath());
+        int version = grid.getWallVersion();
+        grid.setWall(0, 1, true);
+        grid.setWall(1, 0, true);
+        grid.setWall(1, 2, true);
+        grid.setWall(2, 1, true);
+        replanner.updateCells(grid.wallChangesSince(version));
+        assertFalse(replanner.computeShortestPath());
+        assertEquals(-1, replanner.nextStep());
+    }
+}
@@ -0,0 +1,66 @@
+package robotsimulator.planning;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Checks that sliced searches find shortest paths and that starting one
+ * does not depend on the grid size.
+ */
+public class IncrementalPathSearchTest
+{
+    @Test
+    public void slicedSearchFindsShortestPaths()
+    {
+        Random random = new Random(5);
+        GridBuffer grid = new GridBuffer(40, 40);
+        for (int i = 0; i < 400; i++) {
+            grid.setWall(random.nextInt(40), random.nextInt(40), true);
+        }
+        for (int trial = 0; trial < 30; trial++) {
+            int start = random.nextInt(grid.size());
+            int goal = random.nextInt(grid.size());
+            if (grid.wallArray()[start] != 0) {
+                continue;
+            }
+            IncrementalPathSearch search = new IncrementalPathSearch(grid, start, goal);
+            while (!search.step(7)) {
+                assertFalse(search.isFailed());
+            }
+            int[] dist = GridDistances.from(grid, goal);
+            if (dist[start] == GridDistances.UNREACHABLE) {
+                assertTrue(search.isFailed());
+                continue;
+            }
+            int[] path = search.pathFrom(start);
+            assertEquals(dist[start], path.length);
+            int previous = start;
+            for (int cell : path) {
+                assertEquals(1, GridDistances.manhattan(previous, cell, 40));
+                assertEquals(0, grid.wallArray()[cell]);
+                previous = cell;
+            }
+            assertEquals(goal, previous);
+        }
+    }
+
+    @Test
+    public void shortSearchesOnAHugeGridStayCheap()
+    {
+        // 16M cells: a grid-sized setup per search would take gigabytes here
+        GridBuffer grid = new GridBuffer(4000, 4000);
+        for (int i = 0; i < 2000; i++) {
+            int start = i * 4001;
+            IncrementalPathSearch search = new IncrementalPathSearch(grid, start, start + 2);
+            assertTrue(search.step(64));
+            assertEquals(2, search.pathFrom(start).length);
+            assertTrue(search.getExpansions() <= 3);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package robotsimulator.planning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Checks that every request gets an answer, failed searches included.
+ */
+public class PathfindingServiceTest
+{
+    @Test
+    public void everyRequestIsAnswered() throws InterruptedException
+    {
+        GridBuffer grid = new GridBuffer(20, 20);
+        PathfindingService service = new PathfindingService(2, true);
+        List<int[]> paths = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            service.request(grid, 0, 21 + i, paths::add);
+        }
+        service.request(grid, 0, 21, paths::add); // Coalesced with the first one
+        List<int[]> failed = new ArrayList<>();
+        service.request(grid, 0, grid.size() + 5, failed::add); // The search throws
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (service.hasPending() && System.currentTimeMillis() < deadline) {
+            service.deliverCompleted();
+            Thread.sleep(5);
+        }
+        service.shutdown();
+        assertFalse(service.hasPending());
+        assertEquals(51, paths.size());
+        assertEquals(1, service.getCoalescedCount());
+        assertEquals(1, failed.size());
+        assertNull(failed.get(0));
+    }
+}
@@ -0,0 +1,68 @@
+package robotsimulator.planning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks reservations, swap detection, release and purge.
+ */
+public class ReservationTableTest
+{
+    private final Object first = "first";
+    private final Object second = "second";
+
+    @Test
+    public void reservationsBelongToTheirOwner()
+    {
+        ReservationTable table = new ReservationTable();
+        table.reserve(5, 3, first);
+        assertEquals(first, table.ownerOf(5, 3));
+        assertNull(table.ownerOf(5, 4));
+        assertTrue(table.isReservedByOther(5, 3, second));
+        assertFalse(table.isReservedByOther(5, 3, first));
+        assertFalse(table.isReservedByOther(6, 3, second));
+
+        // first moves 5 -> 6 between ticks 3 and 4; second must not come the other way
+        table.reserve(6, 4, first);
+        assertTrue(table.isSwapConflict(6, 5, 3, second));
+        assertFalse(table.isSwapConflict(6, 5, 3, first));
+        assertFalse(table.isSwapConflict(7, 5, 3, second));
+    }
+
+    @Test
+    public void reservationsAreNotTakenOver()
+    {
+        ReservationTable table = new ReservationTable();
+        assertTrue(table.reserve(5, 3, first));
+        assertTrue(table.reserve(5, 3, first));
+        assertFalse(table.reserve(5, 3, second));
+        assertEquals(first, table.ownerOf(5, 3));
+        table.release(first, 3);
+        assertTrue(table.reserve(5, 3, second));
+    }
+
+    @Test
+    public void releaseAndPurgeDropReservations()
+    {
+        ReservationTable table = new ReservationTable();
+        for (int t = 1; t <= 5; t++) {
+            table.reserve(t, t, first);
+            table.reserve(10 + t, t, second);
+        }
+        table.release(first, 3);
+        assertEquals(first, table.ownerOf(2, 2));
+        assertNull(table.ownerOf(3, 3));
+        assertNull(table.ownerOf(5, 5));
+        assertEquals(second, table.ownerOf(15, 5));
+
+        table.purgeBefore(3);
+        assertNull(table.ownerOf(2, 2));
+        assertNull(table.ownerOf(12, 2));
+        assertEquals(second, table.ownerOf(13, 3));
+        table.clear();
+        assertNull(table.ownerOf(13, 3));
+    }
+}
@@ -0,0 +1,183 @@
+package robotsimulator.planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import robotsimulator.model.GridBuffer;
+
+/**
+ * Checks that tours visit every target once with their true length as
+ * targets come and go, and that 2-opt and Or-opt only ever shorten them.
+ */
+public class RouteOptimizerTest
+{
+    @Test
+    public void tourVisitsEveryTarget()
+    {
+        Random random = new Random(5);
+        GridBuffer grid = randomGrid(random, 30, 30);
+        RouteOptimizer optimizer = unbounded(grid, RouteOptimizer.MAX_IMPROVE_PASSES);
+        List<Integer> targets = new ArrayList<>();
+        int start = 0;
+        for (int round = 0; round < 200; round++) {
+            // Reach the head of the tour most of the time, otherwise jump anywhere
+            int[] tour = optimizer.getTour();
+            if (tour.length > 0 && random.nextInt(4) > 0) {
+                start = tour[0];
+                targets.remove(Integer.valueOf(start));
+            } else {
+                start = randomFreeCell(random, grid);
+            }
+            for (int i = random.nextInt(4); i > 0; i--) {
+                int cell = randomFreeCell(random, grid);
+                if (!targets.contains(cell)) {
+                    targets.add(cell);
+                }
+            }
+            int[] wanted = targets.stream().mapToInt(Integer::intValue).toArray();
+            int first = optimizer.update(start, wanted);
+
+            int[] visited = optimizer.getTour();
+            assertEquals(visited.length == 0 ? -1 : visited[0], first);
+            int[] sortedVisited = visited.clone();
+            Arrays.sort(sortedVisited);
+            Arrays.sort(wanted);
+            assertArrayEquals(wanted, sortedVisited);
+            assertEquals(trueLength(grid, start, visited), optimizer.getTourLength());
+        }
+    }
+
+    @Test
+    public void improvementsNeverLengthenTheTour()
+    {
+        Random random = new Random(9);
+        long inserted = 0;
+        long improved = 0;
+        long greedy = 0;
+        for (int trial = 0; trial < 50; trial++) {
+            GridBuffer grid = randomGrid(random, 40, 40);
+            int start = randomFreeCell(random, grid);
+            int[] targets = new int[40];
+            for (int i = 0; i < targets.length; i++) {
+                do {
+                    targets[i] = randomFreeCell(random, grid);
+                } while (targets[i] == start || contains(targets, i, targets[i]));
+            }
+            RouteOptimizer plain = unbounded(grid, 0);
+            RouteOptimizer optimizer = unbounded(grid, RouteOptimizer.MAX_IMPROVE_PASSES);
+            plain.update(start, targets);
+            optimizer.update(start, targets);
+            assertTrue(optimizer.getTourLength() <= plain.getTourLength());
+            inserted += plain.getTourLength();
+            improved += optimizer.getTourLength();
+            greedy += greedyLength(grid, start, targets);
+        }
+        assertTrue(improved < inserted);
+        assertTrue("tours " + improved + " vs greedy " + greedy, improved * 20 <= greedy * 19);
+    }
+
+    @Test
+    public void targetsJoinAFewPerUpdate()
+    {
+        Random random = new Random(11);
+        GridBuffer grid = randomGrid(random, 50, 50);
+        int start = randomFreeCell(random, grid);
+        int[] targets = random.ints(0, grid.size()).filter(cell -> grid.wallArray()[cell] == 0 && cell != start)
+            .distinct().limit(200).toArray();
+        RouteOptimizer optimizer = new RouteOptimizer(grid);
+        for (int round = 0; round < 2; round++) {
+            int updates = 0;
+            do {
+                optimizer.update(start, targets);
+                updates++;
+                assertTrue(optimizer.size() <= updates * RouteOptimizer.MAX_ADDS_PER_UPDATE);
+            } while (optimizer.size() < targets.length);
+            assertTrue(updates > 1);
+            assertEquals(trueLength(grid, start, optimizer.getTour()), optimizer.getTourLength());
+            // A wall change drops every distance: the tour is built up again
+            int wall;
+            do {
+                wall = randomFreeCell(random, grid);
+            } while (wall == start || contains(targets, targets.length, wall));
+            grid.setWall(wall / grid.getCols(), wall % grid.getCols(), true);
+        }
+    }
+
+    // No time limit on adding targets, so every update covers them all
+    private static RouteOptimizer unbounded(GridBuffer grid, int improvePasses)
+    {
+        return new RouteOptimizer(grid, improvePasses, Long.MAX_VALUE);
+    }
+
+    private static GridBuffer randomGrid(Random random, int rows, int cols)
+    {
+        GridBuffer grid = new GridBuffer(rows, cols);
+        for (int i = 0; i < rows * cols / 6; i++) {
+            grid.setWall(random.nextInt(rows), random.nextInt(cols), true);
+        }
+        return grid;
+    }
+
+    private static int randomFreeCell(Random random, GridBuffer grid)
+    {
+        int cell;
+        do {
+            cell = random.nextInt(grid.size());
+        } while (grid.wallArray()[cell] != 0);
+        return cell;
+    }
+
+    private static boolean contains(int[] cells, int count, int cell)
+    {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int steps(GridBuffer grid, int[] dist, int cell)
+    {
+        return dist[cell] == GridDistances.UNREACHABLE ? grid.size() + 1 : dist[cell];
+    }
+
+    private static int trueLength(GridBuffer grid, int start, int[] tour)
+    {
+        int length = 0;
+        int position = start;
+        for (int cell : tour) {
+            length += steps(grid, GridDistances.from(grid, position), cell);
+            position = cell;
+        }
+        return length;
+    }
+
+    // Always walk to the nearest target left, by path distance
+    private static int greedyLength(GridBuffer grid, int start, int[] targets)
+    {
+        boolean[] done = new boolean[targets.length];
+        int length = 0;
+        int position = start;
+        for (int visit = 0; visit < targets.length; visit++) {
+            int[] dist = GridDistances.from(grid, position);
+            int best = -1;
+            for (int i = 0; i < targets.length; i++) {
+                if (!done[i] && (best < 0 || steps(grid, dist, targets[i]) < steps(grid, dist, targets[best]))) {
+                    best = i;
+                }
+            }
+            done[best] = true;
+            length += steps(grid, dist, targets[best]);
+            position = targets[best];
+        }
+        return length;
+    }
+}